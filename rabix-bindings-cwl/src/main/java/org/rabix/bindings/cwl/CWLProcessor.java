@@ -37,6 +37,7 @@ import org.rabix.bindings.cwl.service.CWLGlobService;
 import org.rabix.bindings.cwl.service.CWLMetadataService;
 import org.rabix.bindings.cwl.service.impl.CWLGlobServiceImpl;
 import org.rabix.bindings.cwl.service.impl.CWLMetadataServiceImpl;
+import org.rabix.bindings.helper.GlobCollector;
 import org.rabix.bindings.mapper.FilePathMapper;
 import org.rabix.bindings.model.Job;
 import org.rabix.common.helper.ChecksumHelper;
@@ -149,8 +150,13 @@ public class CWLProcessor implements ProtocolProcessor {
     
     Map<String, Object> result = new HashMap<>();
     CWLCommandLineTool commandLineTool = (CWLCommandLineTool) job.getApp();
+    GlobCollector globCollector = new GlobCollector(workingDir);
     for (CWLOutputPort outputPort : commandLineTool.getOutputs()) {
-      Object singleResult = collectOutput(job, workingDir, hashAlgorithm, outputPort.getSchema(), outputPort.getOutputBinding(), outputPort);
+      globService.register(job, globCollector, outputPort.getOutputBinding());
+      globService.register(job, globCollector, outputPort.getSchema());
+    }
+    for (CWLOutputPort outputPort : commandLineTool.getOutputs()) {
+      Object singleResult = collectOutput(job, workingDir, globCollector, hashAlgorithm, outputPort.getSchema(), outputPort.getOutputBinding(), outputPort);
       result.put(CWLSchemaHelper.normalizeId(outputPort.getId()), singleResult);
     }
     
@@ -245,7 +251,7 @@ public class CWLProcessor implements ProtocolProcessor {
   }
   
   @SuppressWarnings("unchecked")
-  private Object collectOutput(CWLJob job, File workingDir, HashAlgorithm hashAlgorithm, Object schema, Object binding, CWLOutputPort outputPort) throws CWLGlobException, CWLExpressionException, BindingException {
+  private Object collectOutput(CWLJob job, File workingDir, GlobCollector globCollector, HashAlgorithm hashAlgorithm, Object schema, Object binding, CWLOutputPort outputPort) throws CWLGlobException, CWLExpressionException, BindingException {
     if (binding == null) {
       binding = CWLSchemaHelper.getOutputBinding(schema);
     }
@@ -268,9 +274,9 @@ public class CWLProcessor implements ProtocolProcessor {
         if (itemBinding != null) {
           binding = itemBinding;
         }
-        result = globFiles(job, workingDir, hashAlgorithm, outputPort, binding);
+        result = globFiles(job, workingDir, globCollector, hashAlgorithm, outputPort, binding);
       } else {
-        return collectOutput(job, workingDir, hashAlgorithm, itemSchema, binding, outputPort);
+        return collectOutput(job, workingDir, globCollector, hashAlgorithm, itemSchema, binding, outputPort);
       }
     } else if (CWLSchemaHelper.isRecordFromSchema(schema)) {
       Map<String, Object> record = new HashMap<>();
@@ -287,7 +293,7 @@ public class CWLProcessor implements ProtocolProcessor {
           if (fieldBinding != null) {
             binding = fieldBinding;
           }
-          Object singleResult = collectOutput(job, workingDir, hashAlgorithm, fieldSchema, binding, outputPort);
+          Object singleResult = collectOutput(job, workingDir, globCollector, hashAlgorithm, fieldSchema, binding, outputPort);
           if (singleResult != null) {
             record.put(id, singleResult);
           }
@@ -295,7 +301,7 @@ public class CWLProcessor implements ProtocolProcessor {
       }
       result = record;
     } else {
-      result = globFiles(job, workingDir, hashAlgorithm, outputPort, binding);
+      result = globFiles(job, workingDir, globCollector, hashAlgorithm, outputPort, binding);
     }
     Object outputEval = CWLBindingHelper.getOutputEval(binding);
     if (outputEval != null) {
@@ -339,7 +345,7 @@ public class CWLProcessor implements ProtocolProcessor {
   /**
    * Extracts files from a directory based on GLOB expression
    */
-  private List<Map<String, Object>> globFiles(final CWLJob job, final File workingDir, HashAlgorithm hashAlgorithm, final CWLOutputPort outputPort, Object outputBinding) throws CWLGlobException {
+  private List<Map<String, Object>> globFiles(final CWLJob job, final File workingDir, final GlobCollector globCollector, HashAlgorithm hashAlgorithm, final CWLOutputPort outputPort, Object outputBinding) throws CWLGlobException {
     if (outputPort.getOutputBinding() != null) {
       outputBinding = outputPort.getOutputBinding(); // override
     }
@@ -354,11 +360,12 @@ public class CWLProcessor implements ProtocolProcessor {
       return null;
     }
 
-    Set<File> files = globService.glob(job, workingDir, glob);
+    Set<File> files = globService.glob(job, globCollector, glob);
     if (files == null) {
       logger.info("Glob service didn't find any files.");
       return null;
     }
+    ChecksumHelper.checksum(files, hashAlgorithm); // checksums are calculated in parallel and reused for each file below
     logger.debug("Glob service returned result {}", files);
 
     final List<Map<String, Object>> result = new ArrayList<>();
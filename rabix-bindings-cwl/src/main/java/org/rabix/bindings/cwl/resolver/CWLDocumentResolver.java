@@ -1,11 +1,7 @@
 package org.rabix.bindings.cwl.resolver;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -13,15 +9,13 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.NotImplementedException;
 import org.apache.commons.lang.StringUtils;
 import org.rabix.bindings.BindingException;
 import org.rabix.bindings.ProtocolType;
 import org.rabix.bindings.cwl.helper.CWLSchemaHelper;
+import org.rabix.bindings.helper.DocumentResolverCache;
 import org.rabix.bindings.helper.URIHelper;
 import org.rabix.common.helper.JSONHelper;
 
@@ -80,19 +74,12 @@ public class CWLDocumentResolver {
 
   public static final String DOCUMENT_FRAGMENT_SEPARATOR = "#";
 
-  private static final String DEFAULT_ENCODING = "UTF-8";
-
-  private static ConcurrentMap<String, String> cache = new ConcurrentHashMap<>();
-  private static boolean graphResolve = false;
-
-  private static Map<String, String> namespaces = new HashMap<String, String>();
-  private static Map<String, Map<String, CWLDocumentResolverReference>> referenceCache = new HashMap<>();
-  private static Map<String, LinkedHashSet<CWLDocumentResolverReplacement>> replacements = new HashMap<>();
-
   public static String resolve(String appUrl) throws BindingException {
-    if (cache.containsKey(appUrl)) {
-      return cache.get(appUrl);
+    String cached = DocumentResolverCache.getDocument(ProtocolType.CWL, appUrl);
+    if (cached != null) {
+      return cached;
     }
+    Resolution resolution = new Resolution(appUrl);
 
     String appUrlBase = appUrl;
     if (!URIHelper.isData(appUrl)) {
@@ -130,44 +117,43 @@ public class CWLDocumentResolver {
     }
 
     if (root.has(GRAPH_KEY)) {
-      graphResolve = true;
+      resolution.graphResolve = true;
     }
 
     if (root.has(NAMESPACES_KEY)) {
-      populateNamespaces(root);
+      populateNamespaces(resolution, root);
       ((ObjectNode) root).remove(NAMESPACES_KEY);
     }
 
-    traverse(appUrl, root, file, null, root);
+    traverse(resolution, root, file, null, root);
 
-    for (CWLDocumentResolverReplacement replacement : getReplacements(appUrl)) {
+    for (CWLDocumentResolverReplacement replacement : resolution.replacements) {
       if (replacement.getParentNode().isArray()) {
-        replaceArrayItem(appUrl, root, replacement);
+        replaceArrayItem(resolution, root, replacement);
       } else if (replacement.getParentNode().isObject()) {
-        replaceObjectItem(appUrl, root, replacement);
+        replaceObjectItem(resolution, root, replacement);
       }
     }
 
-    if (graphResolve) {
+    String resolved = null;
+    if (resolution.graphResolve) {
       String fragment = URIHelper.extractFragment(appUrl).substring(1);
 
       String cwlVersion = root.get(CWL_VERSION_KEY).asText();
       if (!(cwlVersion.equals(ProtocolType.CWL.appVersion))) {
-        clearReplacements(appUrl);
-        clearReferenceCache(appUrl);
         throw new BindingException("Document version is not cwl:draft-3");
       }
 
-      clearReplacements(appUrl);
-      clearReferenceCache(appUrl);
+      resolution.replacements.clear();
+      resolution.referenceCache.clear();
 
-      removeFragmentIdentifier(appUrl, root, file, null, root, fragment);
+      removeFragmentIdentifier(resolution, root, file, null, root, fragment);
 
-      for (CWLDocumentResolverReplacement replacement : getReplacements(appUrl)) {
+      for (CWLDocumentResolverReplacement replacement : resolution.replacements) {
         if (replacement.getParentNode().isArray()) {
-          replaceArrayItem(appUrl, root, replacement);
+          replaceArrayItem(resolution, root, replacement);
         } else if (replacement.getParentNode().isObject()) {
-          replaceObjectItem(appUrl, root, replacement);
+          replaceObjectItem(resolution, root, replacement);
         }
       }
 
@@ -176,27 +162,25 @@ public class CWLDocumentResolver {
           Map<String, Object> result = JSONHelper.readMap(elem);
           result.put(CWL_VERSION_KEY, cwlVersion);
           root = JSONHelper.convertToJsonNode(result);
-          cache.put(appUrl, JSONHelper.writeObject(root));
+          resolved = JSONHelper.writeObject(root);
           break;
         }
       }
-      graphResolve = false;
     } else {
       if (!(root.get(CWL_VERSION_KEY).asText().equals(ProtocolType.CWL.appVersion))) {
-        clearReplacements(appUrl);
-        clearReferenceCache(appUrl);
         throw new BindingException("Document version is not v1.0");
       }
-      cache.put(appUrl, JSONHelper.writeObject(root));
+      resolved = JSONHelper.writeObject(root);
     }
-    clearReplacements(appUrl);
-    clearReferenceCache(appUrl);
     
     if (rewriteDefaultPaths) {
       addAppLocations(root, appUrl);
-      cache.put(appUrl, JSONHelper.writeObject(root));
+      resolved = JSONHelper.writeObject(root);
+    }
+    if (resolved != null) {
+      DocumentResolverCache.putDocument(ProtocolType.CWL, appUrl, resolved);
     }
-    return cache.get(appUrl);
+    return resolved;
   }
   
   private static void addAppLocations(JsonNode node, String previous) {
@@ -250,15 +234,15 @@ public class CWLDocumentResolver {
     return true;
   }
 
-  private static void populateNamespaces(JsonNode root) {
+  private static void populateNamespaces(Resolution resolution, JsonNode root) {
     Iterator<Entry<String, JsonNode>> fieldIterator = root.get(NAMESPACES_KEY).fields();
     while (fieldIterator.hasNext()) {
       Entry<String, JsonNode> fieldEntry = fieldIterator.next();
-      namespaces.put(fieldEntry.getKey(), fieldEntry.getValue().asText());
+      resolution.namespaces.put(fieldEntry.getKey(), fieldEntry.getValue().asText());
     }
   }
 
-  private static JsonNode traverse(String appUrl, JsonNode root, File file, JsonNode parentNode, JsonNode currentNode)
+  private static JsonNode traverse(Resolution resolution, JsonNode root, File file, JsonNode parentNode, JsonNode currentNode)
       throws BindingException {
     Preconditions.checkNotNull(currentNode, "current node id is null");
 
@@ -269,12 +253,12 @@ public class CWLDocumentResolver {
       String content = loadContents(file, path);
 
       CWLDocumentResolverReference reference = new CWLDocumentResolverReference(false, new TextNode(content));
-      getReferenceCache(appUrl).put(path, reference);
-      getReplacements(appUrl).add(new CWLDocumentResolverReplacement(parentNode, currentNode, path));
+      resolution.referenceCache.put(path, reference);
+      resolution.replacements.add(new CWLDocumentResolverReplacement(parentNode, currentNode, path));
       return null;
     }
 
-    namespace(currentNode);
+    namespace(resolution, currentNode);
 
     boolean isReference = currentNode.has(RESOLVER_REFERENCE_KEY);
     boolean appReference = currentNode.has(APP_STEP_KEY) && currentNode.get(APP_STEP_KEY).isTextual();
@@ -295,7 +279,7 @@ public class CWLDocumentResolver {
         referencePath = currentNode.get(RESOLVER_JSON_POINTER_KEY).textValue();
       }
 
-      CWLDocumentResolverReference reference = getReferenceCache(appUrl).get(referencePath);
+      CWLDocumentResolverReference reference = resolution.referenceCache.get(referencePath);
       if (reference != null) {
         if (reference.isResolving()) {
           throw new BindingException("Circular dependency detected!");
@@ -303,32 +287,32 @@ public class CWLDocumentResolver {
       } else {
         reference = new CWLDocumentResolverReference();
         reference.setResolving(true);
-        getReferenceCache(appUrl).put(referencePath, reference);
+        resolution.referenceCache.put(referencePath, reference);
 
         JsonNode referenceDocumentRoot = findDocumentRoot(root, file, referencePath, isJsonPointer);
         ParentChild parentChild = findReferencedNode(referenceDocumentRoot, referencePath);
-        JsonNode resolvedNode = traverse(appUrl, root, file, parentChild.parent, parentChild.child);
+        JsonNode resolvedNode = traverse(resolution, root, file, parentChild.parent, parentChild.child);
         if (resolvedNode == null) {
           return null;
         }
 
         reference.setResolvedNode(resolvedNode);
         reference.setResolving(false);
-        getReferenceCache(appUrl).put(referencePath, reference);
+        resolution.referenceCache.put(referencePath, reference);
       }
       if (appReference) {
-        getReplacements(appUrl)
+        resolution.replacements
             .add(new CWLDocumentResolverReplacement(currentNode, currentNode.get("run"), referencePath));
       } else if (typeReference) {
-        getReplacements(appUrl)
+        resolution.replacements
             .add(new CWLDocumentResolverReplacement(currentNode, currentNode.get("type"), referencePath));
       } else {
-        getReplacements(appUrl).add(new CWLDocumentResolverReplacement(parentNode, currentNode, referencePath));
+        resolution.replacements.add(new CWLDocumentResolverReplacement(parentNode, currentNode, referencePath));
       }
       return reference.getResolvedNode();
     } else if (currentNode.isContainerNode()) {
       for (JsonNode subnode : currentNode) {
-        traverse(appUrl, root, file, currentNode, subnode);
+        traverse(resolution, root, file, currentNode, subnode);
       }
     }
     return currentNode;
@@ -340,13 +324,13 @@ public class CWLDocumentResolver {
         || node.get(CLASS_KEY).asText().equals(PYTHON_TOOL));
   }
 
-  private static void namespace(JsonNode currentNode) {
+  private static void namespace(Resolution resolution, JsonNode currentNode) {
     Iterator<Entry<String, JsonNode>> fieldIterator = currentNode.fields();
     while (fieldIterator.hasNext()) {
       Entry<String, JsonNode> fieldEntry = fieldIterator.next();
       if (fieldEntry.getValue().isTextual()
-          && namespaces.keySet().contains(fieldEntry.getValue().asText().split(":")[0])) {
-        String prefix = namespaces.get(fieldEntry.getValue().asText().split(":")[0]);
+          && resolution.namespaces.keySet().contains(fieldEntry.getValue().asText().split(":")[0])) {
+        String prefix = resolution.namespaces.get(fieldEntry.getValue().asText().split(":")[0]);
         String namespacedValue = fieldEntry.getValue().asText()
             .replace(fieldEntry.getValue().asText().split(":")[0] + ":", prefix);
         ((ObjectNode) currentNode).put(fieldEntry.getKey(), namespacedValue);
@@ -355,7 +339,7 @@ public class CWLDocumentResolver {
   }
 
   @SuppressWarnings("deprecation")
-  private static void replaceObjectItem(String appURL, JsonNode root, CWLDocumentResolverReplacement replacement) throws BindingException {
+  private static void replaceObjectItem(Resolution resolution, JsonNode root, CWLDocumentResolverReplacement replacement) throws BindingException {
     JsonNode parent = replacement.getParentNode() == null ? root : replacement.getParentNode();
 
     Iterator<Entry<String, JsonNode>> fieldIterator = parent.fields();
@@ -368,8 +352,8 @@ public class CWLDocumentResolver {
         break;
       }
     }
-    CWLDocumentResolverReference reference = getReferenceCache(appURL).get(replacement.getNormalizedReferencePath());
-    addAppLocation(reference.getResolvedNode(), appURL, replacement.getNormalizedReferencePath());
+    CWLDocumentResolverReference reference = resolution.referenceCache.get(replacement.getNormalizedReferencePath());
+    addAppLocation(reference.getResolvedNode(), resolution.appUrl, replacement.getNormalizedReferencePath());
 
     if (reference != null) {
       ((ObjectNode) parent).put(fieldName, reference.getResolvedNode());
@@ -399,7 +383,7 @@ public class CWLDocumentResolver {
     }
   }
 
-  private static void replaceArrayItem(String appURL, JsonNode root, CWLDocumentResolverReplacement replacement) throws BindingException {
+  private static void replaceArrayItem(Resolution resolution, JsonNode root, CWLDocumentResolverReplacement replacement) throws BindingException {
     JsonNode parent = replacement.getParentNode() == null ? root : replacement.getParentNode();
 
     Iterator<JsonNode> nodeIterator = parent.elements();
@@ -411,8 +395,8 @@ public class CWLDocumentResolver {
       }
     }
     if (parent.isArray()) {
-      CWLDocumentResolverReference reference = getReferenceCache(appURL).get(replacement.getNormalizedReferencePath());
-      addAppLocation(reference.getResolvedNode(), appURL, replacement.getNormalizedReferencePath());
+      CWLDocumentResolverReference reference = resolution.referenceCache.get(replacement.getNormalizedReferencePath());
+      addAppLocation(reference.getResolvedNode(), resolution.appUrl, replacement.getNormalizedReferencePath());
 
       if (reference != null) {
         ((ArrayNode) parent).add(reference.getResolvedNode());
@@ -441,36 +425,10 @@ public class CWLDocumentResolver {
   }
 
   private static String loadContents(File file, String path) throws BindingException {
-    if (path.startsWith("http")) {
-      try {
-        URL website = new URL(path);
-        URLConnection connection = website.openConnection();
-        BufferedReader in = null;
-
-        try {
-          in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-
-          StringBuilder response = new StringBuilder();
-          String inputLine;
-          while ((inputLine = in.readLine()) != null) {
-            response.append(inputLine);
-          }
-          return response.toString();
-        } finally {
-          if (in != null) {
-            in.close();
-          }
-        }
-      } catch (Exception e) {
-        throw new BindingException("Couldn't fetch contents from " + path);
-      }
-    } else {
-      try {
-        String filePath = new File(file.getParentFile(), path).getCanonicalPath();
-        return FileUtils.readFileToString(new File(filePath), DEFAULT_ENCODING);
-      } catch (IOException e) {
-        throw new BindingException("Couldn't fetch contents from " + path);
-      }
+    try {
+      return DocumentResolverCache.loadContents(file, path);
+    } catch (IOException e) {
+      throw new BindingException("Couldn't fetch contents from " + path);
     }
   }
 
@@ -516,45 +474,38 @@ public class CWLDocumentResolver {
     return new ParentChild(parent, child);
   }
 
-  private static JsonNode removeFragmentIdentifier(String appUrl, JsonNode root, File file, JsonNode parentNode, JsonNode currentNode, String fragment) throws BindingException {
+  private static JsonNode removeFragmentIdentifier(Resolution resolution, JsonNode root, File file, JsonNode parentNode, JsonNode currentNode, String fragment) throws BindingException {
     Preconditions.checkNotNull(currentNode, "current node id is null");
     if (currentNode.isTextual() && currentNode.asText().startsWith(DOCUMENT_FRAGMENT_SEPARATOR)) {
       CWLDocumentResolverReference reference = new CWLDocumentResolverReference();
       reference.setResolvedNode(JsonNodeFactory.instance.textNode(currentNode.asText().replace(fragment + "/", "")));
-      getReferenceCache(appUrl).put(currentNode.asText(), reference);
-      getReplacements(appUrl).add(new CWLDocumentResolverReplacement(parentNode, currentNode, currentNode.asText()));
+      resolution.referenceCache.put(currentNode.asText(), reference);
+      resolution.replacements.add(new CWLDocumentResolverReplacement(parentNode, currentNode, currentNode.asText()));
     } else if (currentNode.isContainerNode()) {
       for (JsonNode subnode : currentNode) {
-        removeFragmentIdentifier(appUrl, root, file, currentNode, subnode, fragment);
+        removeFragmentIdentifier(resolution, root, file, currentNode, subnode, fragment);
       }
     }
     return currentNode;
   }
 
-  private synchronized static Set<CWLDocumentResolverReplacement> getReplacements(String url) {
-    LinkedHashSet<CWLDocumentResolverReplacement> replacementsPerUrl = replacements.get(url);
-    if (replacementsPerUrl == null) {
-      replacementsPerUrl = new LinkedHashSet<CWLDocumentResolverReplacement>();
-      replacements.put(url, replacementsPerUrl);
-    }
-    return replacementsPerUrl;
-  }
 
-  private synchronized static void clearReplacements(String url) {
-    replacements.remove(url);
-  }
 
-  private synchronized static Map<String, CWLDocumentResolverReference> getReferenceCache(String url) {
-    Map<String, CWLDocumentResolverReference> referenceCachePerUrl = referenceCache.get(url);
-    if (referenceCachePerUrl == null) {
-      referenceCachePerUrl = new HashMap<String, CWLDocumentResolverReference>();
-      referenceCache.put(url, referenceCachePerUrl);
-    }
-    return referenceCachePerUrl;
-  }
 
-  private synchronized static void clearReferenceCache(String url) {
-    referenceCache.remove(url);
+
+  /**
+   * Intermediate state of a single {@link #resolve(String)} call
+   */
+  private static class Resolution {
+    private final String appUrl;
+    private final Map<String, String> namespaces = new HashMap<>();
+    private final Map<String, CWLDocumentResolverReference> referenceCache = new HashMap<>();
+    private final Set<CWLDocumentResolverReplacement> replacements = new LinkedHashSet<>();
+    private boolean graphResolve = false;
+
+    Resolution(String appUrl) {
+      this.appUrl = appUrl;
+    }
   }
 
   private static class ParentChild {
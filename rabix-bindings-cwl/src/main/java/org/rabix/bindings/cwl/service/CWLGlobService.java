@@ -4,9 +4,15 @@ import java.io.File;
 import java.util.Set;
 
 import org.rabix.bindings.cwl.bean.CWLJob;
+import org.rabix.bindings.helper.GlobCollector;
 
 public interface CWLGlobService {
 
-  Set<File> glob(CWLJob job, File workingDir, Object glob) throws CWLGlobException;
+  /**
+   * Registers every GLOB found in output binding or schema so they are all collected with a single walk
+   */
+  void register(CWLJob job, GlobCollector collector, Object value);
+
+  Set<File> glob(CWLJob job, GlobCollector collector, Object glob) throws CWLGlobException;
   
 }
@@ -2,24 +2,20 @@ package org.rabix.bindings.cwl.service.impl;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.PathMatcher;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.rabix.bindings.cwl.bean.CWLJob;
 import org.rabix.bindings.cwl.expression.CWLExpressionException;
 import org.rabix.bindings.cwl.expression.CWLExpressionResolver;
+import org.rabix.bindings.cwl.helper.CWLBindingHelper;
 import org.rabix.bindings.cwl.service.CWLGlobException;
 import org.rabix.bindings.cwl.service.CWLGlobService;
+import org.rabix.bindings.helper.GlobCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,57 +25,51 @@ public class CWLGlobServiceImpl implements CWLGlobService {
 
   private final Logger logger = LoggerFactory.getLogger(CWLGlobServiceImpl.class);
 
+  @Override
+  public void register(CWLJob job, GlobCollector collector, Object value) {
+    if (value instanceof Map<?, ?>) {
+      Object glob = ((Map<?, ?>) value).get(CWLBindingHelper.KEY_GLOB);
+      if (glob != null) {
+        try {
+          for (String singleGlob : resolve(job, glob)) {
+            collector.register(singleGlob);
+          }
+        } catch (CWLExpressionException e) {
+          logger.debug("Failed to register glob {}. It will be collected separately.", glob);
+        }
+      }
+      for (Object subvalue : ((Map<?, ?>) value).values()) {
+        register(job, collector, subvalue);
+      }
+    } else if (value instanceof List<?>) {
+      for (Object subvalue : (List<?>) value) {
+        register(job, collector, subvalue);
+      }
+    }
+  }
+
   /**
    * Find all files that match GLOB inside the working directory 
    */
-  @SuppressWarnings("unchecked")
-  public Set<File> glob(CWLJob job, File workingDir, Object glob) throws CWLGlobException {
+  public Set<File> glob(CWLJob job, GlobCollector collector, Object glob) throws CWLGlobException {
     Preconditions.checkNotNull(job);
-    Preconditions.checkNotNull(workingDir);
+    Preconditions.checkNotNull(collector);
     
+    List<String> globs;
     try {
-      glob = CWLExpressionResolver.resolve(glob, job, null);
+      globs = resolve(job, glob);
     } catch (CWLExpressionException e) {
       logger.error("Failed to evaluate glob " + glob, e);
       throw new CWLGlobException("Failed to evaluate glob " + glob, e);
     }
-    if (glob == null) {
+    if (globs.isEmpty()) {
       return Collections.<File> emptySet();
     }
-    List<String> globs = new ArrayList<>();
-    if (glob instanceof List<?>) {
-      globs = (List<String>) glob;
-    } else {
-      globs.add((String) glob);
-    }
     
     final Set<File> files = new LinkedHashSet<>();
     for (String singleGlob : globs) {
-      if (singleGlob.equals(".")) { // TODO fix this
-        singleGlob = workingDir.getName();
-      }
-      final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + singleGlob);
       try {
-        Files.walkFileTree(workingDir.toPath(), new SimpleFileVisitor<Path>() {
-          @Override
-          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-            if (matcher.matches(file.getFileName())) {
-              files.add(file.toFile());
-            }
-            return FileVisitResult.CONTINUE;
-          }
-          @Override
-          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-            if (matcher.matches(dir.getFileName())) {
-              files.add(dir.toFile());
-            }
-            return super.preVisitDirectory(dir, attrs);
-          }
-          @Override
-          public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-            return FileVisitResult.CONTINUE;
-          }
-        });
+        files.addAll(collector.collect(singleGlob, true));
       } catch (IOException e) {
         logger.error("Failed to traverse through working directory", e);
         throw new CWLGlobException("Failed to traverse through working directory", e);
@@ -88,4 +78,21 @@ public class CWLGlobServiceImpl implements CWLGlobService {
     return files.isEmpty() ? null : files;
   }
   
+  /**
+   * Bare names are matched at any depth, as they were before GLOBs with paths were supported
+   */
+  @SuppressWarnings("unchecked")
+  private List<String> resolve(CWLJob job, Object glob) throws CWLExpressionException {
+    glob = CWLExpressionResolver.resolve(glob, job, null);
+    List<String> globs = new ArrayList<>();
+    if (glob instanceof List<?>) {
+      for (String singleGlob : (List<String>) glob) {
+        globs.add(GlobCollector.anyDepth(singleGlob));
+      }
+    } else if (glob != null) {
+      globs.add(GlobCollector.anyDepth((String) glob));
+    }
+    return globs;
+  }
+  
 }
@@ -0,0 +1,51 @@
+package org.rabix.bindings;
+
+import org.rabix.bindings.cwl.CWLBindings;
+import org.rabix.bindings.cwl.bean.CWLJob;
+import org.rabix.bindings.cwl.bean.CWLCommandLineToolTest;
+import org.rabix.bindings.helper.URIHelper;
+import org.rabix.common.helper.ResourceHelper;
+import org.rabix.common.json.BeanSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class BindingsFactoryCacheTest {
+
+  @Test
+  public void testResolvedBindingsAreCached() throws Exception {
+    String app = loadApp();
+    Assert.assertTrue(app.length() > 256); // cached under the hashed key
+    Assert.assertEquals(BindingsFactory.sniff(app), ProtocolType.CWL);
+
+    Bindings bindings = BindingsFactory.create(app);
+    Assert.assertTrue(bindings instanceof CWLBindings);
+    Assert.assertSame(BindingsFactory.getCached(app), bindings);
+    Assert.assertSame(BindingsFactory.create(app), bindings);
+  }
+
+  @Test
+  public void testYamlApp() throws Exception {
+    String app = URIHelper.createDataURI("cwlVersion: v1.0\nclass: CommandLineTool\nbaseCommand: echo\ninputs: []\noutputs: []\n");
+    Assert.assertNull(BindingsFactory.getCached(app));
+    Assert.assertTrue(BindingsFactory.create(app) instanceof CWLBindings);
+    Assert.assertNotNull(BindingsFactory.getCached(app));
+  }
+
+  @Test
+  public void testUnsupportedAppIsNotCached() {
+    String app = URIHelper.createDataURI("{\"cwlVersion\": \"v2.0\", \"class\": \"CommandLineTool\"}");
+    try {
+      BindingsFactory.create(app);
+      Assert.fail("Detection should fail");
+    } catch (BindingException e) {
+      Assert.assertNull(BindingsFactory.getCached(app));
+    }
+  }
+
+  private String loadApp() throws Exception {
+    String job = ResourceHelper.readResource(CWLCommandLineToolTest.class, "1st-tool.cwl");
+    return URIHelper.createDataURI(BeanSerializer.serializeFull(BeanSerializer.deserialize(job, CWLJob.class).getApp()));
+  }
+
+}
@@ -31,6 +31,7 @@ import org.rabix.bindings.draft2.service.Draft2GlobService;
 import org.rabix.bindings.draft2.service.Draft2MetadataService;
 import org.rabix.bindings.draft2.service.impl.Draft2GlobServiceImpl;
 import org.rabix.bindings.draft2.service.impl.Draft2MetadataServiceImpl;
+import org.rabix.bindings.helper.GlobCollector;
 import org.rabix.bindings.mapper.FilePathMapper;
 import org.rabix.bindings.model.Job;
 import org.rabix.common.helper.ChecksumHelper;
@@ -159,8 +160,13 @@ public class Draft2Processor implements ProtocolProcessor {
     
     Map<String, Object> result = new HashMap<>();
     Draft2CommandLineTool commandLineTool = (Draft2CommandLineTool) job.getApp();
+    GlobCollector globCollector = new GlobCollector(workingDir);
     for (Draft2OutputPort outputPort : commandLineTool.getOutputs()) {
-      Object singleResult = collectOutput(job, workingDir, hashAlgorithm, outputPort.getSchema(), outputPort.getOutputBinding(), outputPort);
+      globService.register(job, globCollector, outputPort.getOutputBinding());
+      globService.register(job, globCollector, outputPort.getSchema());
+    }
+    for (Draft2OutputPort outputPort : commandLineTool.getOutputs()) {
+      Object singleResult = collectOutput(job, workingDir, globCollector, hashAlgorithm, outputPort.getSchema(), outputPort.getOutputBinding(), outputPort);
       if (singleResult != null) {
         result.put(Draft2SchemaHelper.normalizeId(outputPort.getId()), singleResult);
       }
@@ -204,7 +210,7 @@ public class Draft2Processor implements ProtocolProcessor {
   }
   
   @SuppressWarnings("unchecked")
-  private Object collectOutput(Draft2Job job, File workingDir, HashAlgorithm hashAlgorithm, Object schema, Object binding, Draft2OutputPort outputPort) throws Draft2GlobException, Draft2ExpressionException, BindingException {
+  private Object collectOutput(Draft2Job job, File workingDir, GlobCollector globCollector, HashAlgorithm hashAlgorithm, Object schema, Object binding, Draft2OutputPort outputPort) throws Draft2GlobException, Draft2ExpressionException, BindingException {
     if (binding == null) {
       binding = Draft2SchemaHelper.getOutputBinding(schema);
     }
@@ -227,9 +233,9 @@ public class Draft2Processor implements ProtocolProcessor {
         if (itemBinding != null) {
           binding = itemBinding;
         }
-        result = globFiles(job, workingDir, hashAlgorithm, outputPort, binding);
+        result = globFiles(job, workingDir, globCollector, hashAlgorithm, outputPort, binding);
       } else {
-        return collectOutput(job, workingDir, hashAlgorithm, itemSchema, binding, outputPort);
+        return collectOutput(job, workingDir, globCollector, hashAlgorithm, itemSchema, binding, outputPort);
       }
     } else if (Draft2SchemaHelper.isRecordFromSchema(schema)) {
       Map<String, Object> record = new HashMap<>();
@@ -246,7 +252,7 @@ public class Draft2Processor implements ProtocolProcessor {
           if (fieldBinding != null) {
             binding = fieldBinding;
           }
-          Object singleResult = collectOutput(job, workingDir, hashAlgorithm, fieldSchema, binding, outputPort);
+          Object singleResult = collectOutput(job, workingDir, globCollector, hashAlgorithm, fieldSchema, binding, outputPort);
           if (singleResult != null) {
             record.put(id, singleResult);
           }
@@ -254,7 +260,7 @@ public class Draft2Processor implements ProtocolProcessor {
       }
       result = record;
     } else {
-      result = globFiles(job, workingDir, hashAlgorithm, outputPort, binding);
+      result = globFiles(job, workingDir, globCollector, hashAlgorithm, outputPort, binding);
     }
     Object outputEval = Draft2BindingHelper.getOutputEval(binding);
     if (outputEval != null) {
@@ -281,7 +287,7 @@ public class Draft2Processor implements ProtocolProcessor {
   /**
    * Extracts files from a directory based on GLOB expression
    */
-  private List<Map<String, Object>> globFiles(final Draft2Job job, final File workingDir, HashAlgorithm hashAlgorithm, final Draft2OutputPort outputPort, Object outputBinding) throws Draft2GlobException {
+  private List<Map<String, Object>> globFiles(final Draft2Job job, final File workingDir, final GlobCollector globCollector, HashAlgorithm hashAlgorithm, final Draft2OutputPort outputPort, Object outputBinding) throws Draft2GlobException {
     if (outputPort.getOutputBinding() != null) {
       outputBinding = outputPort.getOutputBinding(); // override
     }
@@ -296,11 +302,12 @@ public class Draft2Processor implements ProtocolProcessor {
       return null;
     }
 
-    Set<File> paths = globService.glob(job, workingDir, glob);
+    Set<File> paths = globService.glob(job, globCollector, glob);
     if (paths == null) {
       logger.info("Glob service didn't find any files.");
       return null;
     }
+    ChecksumHelper.checksum(paths, hashAlgorithm); // checksums are calculated in parallel and reused for each file below
     logger.debug("Glob service returned result {}", paths);
 
     final List<Map<String, Object>> result = new ArrayList<>();
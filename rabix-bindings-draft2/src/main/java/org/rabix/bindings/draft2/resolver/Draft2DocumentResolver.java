@@ -1,23 +1,18 @@
 package org.rabix.bindings.draft2.resolver;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.rabix.bindings.BindingException;
+import org.rabix.bindings.ProtocolType;
+import org.rabix.bindings.helper.DocumentResolverCache;
 import org.rabix.bindings.helper.URIHelper;
 import org.rabix.common.helper.JSONHelper;
 
@@ -36,19 +31,12 @@ public class Draft2DocumentResolver {
   
   public static final String DOCUMENT_FRAGMENT_SEPARATOR = "#";
   
-  private static final String DEFAULT_ENCODING = "UTF-8";
-
-  private static ConcurrentMap<String, String> cache = new ConcurrentHashMap<>(); 
-  
-  private static final Map<String, Map<String, JsonNode>> fragmentsCache = new HashMap<>();
-
-  private static final Map<String, Map<String, Draft2DocumentResolverReference>> referenceCache = new HashMap<>();
-  private static final Map<String, LinkedHashSet<Draft2DocumentResolverReplacement>> replacements = new HashMap<>();
-  
   public static String resolve(String appUrl) throws BindingException {
-    if (cache.containsKey(appUrl)) {
-      return cache.get(appUrl);
+    String cached = DocumentResolverCache.getDocument(ProtocolType.DRAFT2, appUrl);
+    if (cached != null) {
+      return cached;
     }
+    Resolution resolution = new Resolution();
     
     String appUrlBase = appUrl;
     if (!URIHelper.isData(appUrl)) {
@@ -71,7 +59,7 @@ public class Draft2DocumentResolver {
     }
     
     if (root.isArray()) {
-      Map<String, JsonNode> fragmentsCachePerUrl = getFragmentsCache(appUrl);
+      Map<String, JsonNode> fragmentsCachePerUrl = resolution.fragmentsCache;
       for (JsonNode child : root) {
         fragmentsCachePerUrl.put(child.get("id").textValue(), child);
       }
@@ -79,25 +67,22 @@ public class Draft2DocumentResolver {
       root = fragmentsCachePerUrl.get(fragment);
     }
     
-    traverse(appUrl, root, file, null, root);
+    traverse(resolution, root, file, null, root);
 
-    for (Draft2DocumentResolverReplacement replacement : getReplacements(appUrl)) {
+    for (Draft2DocumentResolverReplacement replacement : resolution.replacements) {
       if (replacement.getParentNode().isArray()) {
-        replaceArrayItem(appUrl, root, replacement);
+        replaceArrayItem(resolution, root, replacement);
       } else if (replacement.getParentNode().isObject()) {
-        replaceObjectItem(appUrl, root, replacement);
+        replaceObjectItem(resolution, root, replacement);
       }
     }
     
-    cache.put(appUrl, JSONHelper.writeObject(root));
-
-    clearReplacements(appUrl);
-    clearReferenceCache(appUrl);
-    clearFragmentCache(appUrl);
-    return cache.get(appUrl);
+    String resolved = JSONHelper.writeObject(root);
+    DocumentResolverCache.putDocument(ProtocolType.DRAFT2, appUrl, resolved);
+    return resolved;
   }
   
-  private static JsonNode traverse(String appUrl, JsonNode root, File file, JsonNode parentNode, JsonNode currentNode) throws BindingException {
+  private static JsonNode traverse(Resolution resolution, JsonNode root, File file, JsonNode parentNode, JsonNode currentNode) throws BindingException {
     Preconditions.checkNotNull(currentNode, "current node id is null");
 
     boolean isInclude = currentNode.has(RESOLVER_REFERENCE_INCLUDE_KEY);
@@ -106,8 +91,8 @@ public class Draft2DocumentResolver {
       String content = loadContents(file, path);
 
       Draft2DocumentResolverReference reference = new Draft2DocumentResolverReference(false, new TextNode(content));
-      getReferenceCache(appUrl).put(path, reference);
-      getReplacements(appUrl).add(new Draft2DocumentResolverReplacement(parentNode, currentNode, path));
+      resolution.referenceCache.put(path, reference);
+      resolution.replacements.add(new Draft2DocumentResolverReplacement(parentNode, currentNode, path));
       return null;
     }
     
@@ -122,7 +107,7 @@ public class Draft2DocumentResolver {
         referencePath = currentNode.get(RESOLVER_JSON_POINTER_KEY).textValue();
       }
 
-      Draft2DocumentResolverReference reference = getReferenceCache(appUrl).get(referencePath);
+      Draft2DocumentResolverReference reference = resolution.referenceCache.get(referencePath);
       if (reference != null) {
         if (reference.isResolving()) {
           throw new BindingException("Circular dependency detected!");
@@ -130,9 +115,9 @@ public class Draft2DocumentResolver {
       } else {
         reference = new Draft2DocumentResolverReference();
         reference.setResolving(true);
-        getReferenceCache(appUrl).put(referencePath, reference);
+        resolution.referenceCache.put(referencePath, reference);
 
-        Map<String, JsonNode> fragmentsCachePerUrl = getFragmentsCache(appUrl);
+        Map<String, JsonNode> fragmentsCachePerUrl = resolution.fragmentsCache;
         
         ParentChild parentChild = null;
         JsonNode referenceDocumentRoot = null;
@@ -142,26 +127,26 @@ public class Draft2DocumentResolver {
           referenceDocumentRoot = findDocumentRoot(root, file, referencePath, isJsonPointer);
           parentChild = findReferencedNode(referenceDocumentRoot, referencePath);
         }
-        JsonNode resolvedNode = traverse(appUrl, root, file, parentChild.parent, parentChild.child);
+        JsonNode resolvedNode = traverse(resolution, root, file, parentChild.parent, parentChild.child);
         if (resolvedNode == null) {
           return null;
         }
         reference.setResolvedNode(resolvedNode);
         reference.setResolving(false);
-        getReferenceCache(appUrl).put(referencePath, reference);
+        resolution.referenceCache.put(referencePath, reference);
       }
-      getReplacements(appUrl).add(new Draft2DocumentResolverReplacement(parentNode, currentNode, referencePath));
+      resolution.replacements.add(new Draft2DocumentResolverReplacement(parentNode, currentNode, referencePath));
       return reference.getResolvedNode();
     } else if (currentNode.isContainerNode()) {
       for (JsonNode subnode : currentNode) {
-        traverse(appUrl, root, file, currentNode, subnode);
+        traverse(resolution, root, file, currentNode, subnode);
       }
     }
     return currentNode;
   }
 
   @SuppressWarnings("deprecation")
-  private static void replaceObjectItem(String appUrl, JsonNode root, Draft2DocumentResolverReplacement replacement) throws BindingException {
+  private static void replaceObjectItem(Resolution resolution, JsonNode root, Draft2DocumentResolverReplacement replacement) throws BindingException {
     JsonNode parent = replacement.getParentNode() == null ? root : replacement.getParentNode();
 
     Iterator<Entry<String, JsonNode>> fieldIterator = parent.fields();
@@ -174,7 +159,7 @@ public class Draft2DocumentResolver {
         break;
       }
     }
-    Draft2DocumentResolverReference reference = getReferenceCache(appUrl).get(replacement.getNormalizedReferencePath());
+    Draft2DocumentResolverReference reference = resolution.referenceCache.get(replacement.getNormalizedReferencePath());
     if (reference != null) {
       ((ObjectNode) parent).put(fieldName, reference.getResolvedNode());
     } else {
@@ -182,7 +167,7 @@ public class Draft2DocumentResolver {
     }
   }
 
-  private static void replaceArrayItem(String appUrl, JsonNode root, Draft2DocumentResolverReplacement replacement) throws BindingException {
+  private static void replaceArrayItem(Resolution resolution, JsonNode root, Draft2DocumentResolverReplacement replacement) throws BindingException {
     JsonNode parent = replacement.getParentNode() == null ? root : replacement.getParentNode();
 
     Iterator<JsonNode> nodeIterator = parent.elements();
@@ -194,7 +179,7 @@ public class Draft2DocumentResolver {
       }
     }
     if (parent.isArray()) {
-      Draft2DocumentResolverReference reference = getReferenceCache(appUrl).get(replacement.getNormalizedReferencePath());
+      Draft2DocumentResolverReference reference = resolution.referenceCache.get(replacement.getNormalizedReferencePath());
       if (reference != null) {
         ((ArrayNode) parent).add(reference.getResolvedNode());
       } else {
@@ -230,36 +215,10 @@ public class Draft2DocumentResolver {
         throw new BindingException(e);
       }
     }
-    if (path.startsWith("http")) {
-      try {
-        URL website = new URL(path);
-        URLConnection connection = website.openConnection();
-        BufferedReader in = null;
-
-        try {
-          in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-
-          StringBuilder response = new StringBuilder();
-          String inputLine;
-          while ((inputLine = in.readLine()) != null) {
-            response.append(inputLine);
-          }
-          return response.toString();
-        } finally {
-          if (in != null) {
-            in.close();
-          }
-        }
-      } catch (Exception e) {
-        throw new BindingException("Couldn't fetch contents from " + path);
-      }
-    } else {
-      try {
-        String filePath = new File(file.getParentFile(), path).getCanonicalPath();
-        return FileUtils.readFileToString(new File(filePath), DEFAULT_ENCODING);
-      } catch (IOException e) {
-        throw new BindingException("Couldn't fetch contents from " + path);
-      }
+    try {
+      return DocumentResolverCache.loadContents(file, path);
+    } catch (IOException e) {
+      throw new BindingException("Couldn't fetch contents from " + path);
     }
   }
 
@@ -282,45 +241,21 @@ public class Draft2DocumentResolver {
     return new ParentChild(parent, child);
   }
   
-  private synchronized static Set<Draft2DocumentResolverReplacement> getReplacements(String url) {
-    LinkedHashSet<Draft2DocumentResolverReplacement> replacementsPerUrl = replacements.get(url);
-    if (replacementsPerUrl == null) {
-      replacementsPerUrl = new LinkedHashSet<Draft2DocumentResolverReplacement>();
-      replacements.put(url, replacementsPerUrl);
-    }
-    return replacementsPerUrl;
-  }
   
-  private synchronized static void clearReplacements(String url) {
-    replacements.remove(url);
-  }
   
-  private synchronized static Map<String, Draft2DocumentResolverReference> getReferenceCache(String url) {
-    Map<String, Draft2DocumentResolverReference> referenceCachePerUrl = referenceCache.get(url);
-    if (referenceCachePerUrl == null) {
-      referenceCachePerUrl = new HashMap<String, Draft2DocumentResolverReference>();
-      referenceCache.put(url, referenceCachePerUrl);
-    }
-    return referenceCachePerUrl;
-  }
   
-  private synchronized static Map<String, JsonNode> getFragmentsCache(String url) {
-    Map<String, JsonNode> fragmentsCachePerUrl = fragmentsCache.get(url);
-    if (fragmentsCachePerUrl == null) {
-      fragmentsCachePerUrl = new HashMap<String, JsonNode>();
-      fragmentsCache.put(url, fragmentsCachePerUrl);
-    }
-    return fragmentsCachePerUrl;
-  }
   
-  private synchronized static void clearReferenceCache(String url) {
-    referenceCache.remove(url);
-  }
   
-  private synchronized static void clearFragmentCache(String url) {
-    fragmentsCache.remove(url);
-  }
   
+  /**
+   * Intermediate state of a single {@link #resolve(String)} call
+   */
+  private static class Resolution {
+    private final Map<String, JsonNode> fragmentsCache = new HashMap<>();
+    private final Map<String, Draft2DocumentResolverReference> referenceCache = new HashMap<>();
+    private final Set<Draft2DocumentResolverReplacement> replacements = new LinkedHashSet<>();
+  }
+
   private static class ParentChild {
     JsonNode parent;
     JsonNode child;
@@ -4,9 +4,15 @@ import java.io.File;
 import java.util.Set;
 
 import org.rabix.bindings.draft2.bean.Draft2Job;
+import org.rabix.bindings.helper.GlobCollector;
 
 public interface Draft2GlobService {
 
-  Set<File> glob(Draft2Job job, File workingDir, Object glob) throws Draft2GlobException;
+  /**
+   * Registers every GLOB found in output binding or schema so they are all collected with a single walk
+   */
+  void register(Draft2Job job, GlobCollector collector, Object value);
+
+  Set<File> glob(Draft2Job job, GlobCollector collector, Object glob) throws Draft2GlobException;
   
 }
@@ -2,26 +2,20 @@ package org.rabix.bindings.draft2.service.impl;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.PathMatcher;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.EnumSet;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.rabix.bindings.draft2.bean.Draft2Job;
 import org.rabix.bindings.draft2.expression.Draft2ExpressionException;
 import org.rabix.bindings.draft2.expression.helper.Draft2ExpressionBeanHelper;
+import org.rabix.bindings.draft2.helper.Draft2BindingHelper;
 import org.rabix.bindings.draft2.service.Draft2GlobException;
 import org.rabix.bindings.draft2.service.Draft2GlobService;
+import org.rabix.bindings.helper.GlobCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,97 +25,53 @@ public class Draft2GlobServiceImpl implements Draft2GlobService {
 
   private final Logger logger = LoggerFactory.getLogger(Draft2GlobServiceImpl.class);
 
-  /**
-   * Find all files that match GLOB inside the working directory 
-   */
-  @SuppressWarnings("unchecked")
-  public Set<File> glob(Draft2Job job, File workingDir, Object glob) throws Draft2GlobException {
-    Preconditions.checkNotNull(job);
-    Preconditions.checkNotNull(workingDir);
-
-    if (Draft2ExpressionBeanHelper.isExpression(glob)) {
-      try {
-        glob = Draft2ExpressionBeanHelper.<String> evaluate(job, glob);
-      } catch (Draft2ExpressionException e) {
-        logger.error("Failed to evaluate glob " + glob, e);
-        throw new Draft2GlobException("Failed to evaluate glob " + glob, e);
-      }
-    }
-    if (glob == null) {
-      return Collections.<File> emptySet();
-    }
+  private final static int NAME_DEPTH = 2;
 
-    List<String> globs = new ArrayList<>();
-    if (glob instanceof List<?>) {
-      globs = (List<String>) glob;
-    } else {
-      globs.add((String) glob);
-    }
-
-    Set<File> files = new HashSet<File>();
-
-    for (String singleGlob : globs) {
-      List<File> globDirs = new ArrayList<File>();
-      if (singleGlob.startsWith("/")) {
-        File globDir = new File(singleGlob).getParentFile();
-        globDirs.add(globDir);
-        String globString = new File(singleGlob).getName();
-        files.addAll(listDir(globString, false, globDirs));
-      } else if (singleGlob.contains("/") && !(singleGlob.startsWith("/"))) {
-        String[] splitGlob = singleGlob.split("/");
-        globDirs.add(workingDir);
-        for (int i = 0; i < splitGlob.length - 1; i++) {
-          if (splitGlob[i].equals("..")) {
-            List<File> newGlobDirs = new ArrayList<File>();
-            for(File dir: globDirs) {
-              newGlobDirs.add(dir.getParentFile());
-            }
-            globDirs = newGlobDirs;
-          } else {
-            Set<File> newGlobDirs = listDir(splitGlob[i], true, globDirs);
-            globDirs.clear();
-            for(File dir: newGlobDirs) {
-              globDirs.add(dir);
-            }
+  @Override
+  public void register(Draft2Job job, GlobCollector collector, Object value) {
+    if (value instanceof Map<?, ?>) {
+      Object glob = ((Map<?, ?>) value).get(Draft2BindingHelper.KEY_GLOB);
+      if (glob != null) {
+        try {
+          for (String singleGlob : resolve(job, glob)) {
+            collector.register(singleGlob);
           }
+        } catch (Draft2ExpressionException e) {
+          logger.debug("Failed to register glob {}. It will be collected separately.", glob);
         }
-        files.addAll(listDir(splitGlob[splitGlob.length-1], false, globDirs));
-      } else {
-        globDirs.add(workingDir);
-        files.addAll(listDir(singleGlob, false, globDirs));
+      }
+      for (Object subvalue : ((Map<?, ?>) value).values()) {
+        register(job, collector, subvalue);
+      }
+    } else if (value instanceof List<?>) {
+      for (Object subvalue : (List<?>) value) {
+        register(job, collector, subvalue);
       }
     }
-    return files;
   }
 
-  private Set<File> listDir(String glob, final boolean isDir, List<File> globDirs) throws Draft2GlobException {
-    final Set<File> files = new HashSet<File>();
-    final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);  
+  /**
+   * Find all files that match GLOB inside the working directory 
+   */
+  public Set<File> glob(Draft2Job job, GlobCollector collector, Object glob) throws Draft2GlobException {
+    Preconditions.checkNotNull(job);
+    Preconditions.checkNotNull(collector);
+    
+    List<String> globs;
+    try {
+      globs = resolve(job, glob);
+    } catch (Draft2ExpressionException e) {
+      logger.error("Failed to evaluate glob " + glob, e);
+      throw new Draft2GlobException("Failed to evaluate glob " + glob, e);
+    }
+    if (globs.isEmpty()) {
+      return Collections.<File> emptySet();
+    }
     
-    for(File globDir: globDirs) {
+    final Set<File> files = new LinkedHashSet<>();
+    for (String singleGlob : globs) {
       try {
-        Files.walkFileTree(globDir.toPath(), EnumSet.noneOf(FileVisitOption.class), 2, new SimpleFileVisitor<Path>() {
-          @Override
-          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-            if (matcher.matches(file.getFileName()) && !isDir) {
-              files.add(file.toFile());
-            }
-            return FileVisitResult.CONTINUE;
-          }
-          @Override
-          public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-            return FileVisitResult.CONTINUE;
-          }
-          
-          @Override
-          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-            if (matcher.matches(dir.getFileName()) && isDir) {
-              files.add(dir.toFile());
-            }
-            return super.preVisitDirectory(dir, attrs);
-          }
-
-        });
+        files.addAll(collector.collect(singleGlob, false));
       } catch (IOException e) {
         logger.error("Failed to traverse through working directory", e);
         throw new Draft2GlobException("Failed to traverse through working directory", e);
@@ -129,5 +79,24 @@ public class Draft2GlobServiceImpl implements Draft2GlobService {
     }
     return files;
   }
-
+  
+  /**
+   * Bare names are matched up to two levels below the working directory, as they were before GLOBs with paths were supported
+   */
+  @SuppressWarnings("unchecked")
+  private List<String> resolve(Draft2Job job, Object glob) throws Draft2ExpressionException {
+    if (Draft2ExpressionBeanHelper.isExpression(glob)) {
+      glob = Draft2ExpressionBeanHelper.<Object> evaluate(job, glob);
+    }
+    List<String> globs = new ArrayList<>();
+    if (glob instanceof List<?>) {
+      for (String singleGlob : (List<String>) glob) {
+        globs.addAll(GlobCollector.upToDepth(singleGlob, NAME_DEPTH));
+      }
+    } else if (glob != null) {
+      globs.addAll(GlobCollector.upToDepth((String) glob, NAME_DEPTH));
+    }
+    return globs;
+  }
+  
 }
@@ -123,6 +123,12 @@ public class Draft2ExpressionResolverTest {
     Assert.assertEquals(result, true);
   }
 
+  @Test
+  public void executorGlobalsDontLeak() throws Exception {
+    Assert.assertEquals(Draft2ExpressionResolver.evaluate("{ leaked = 7; return leaked; }", true), 7);
+    Assert.assertEquals(Draft2ExpressionResolver.evaluate("{ return typeof leaked; }", true), "undefined");
+  }
+
   @Test(expectedExceptions = { Draft2ExpressionException.class })
   public void executorTemplateWithoutEngine() throws Exception {
     String expression = "_.some([null, 0, 'yes', false]);";
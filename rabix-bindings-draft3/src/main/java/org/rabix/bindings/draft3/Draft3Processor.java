@@ -37,6 +37,7 @@ import org.rabix.bindings.draft3.service.Draft3GlobService;
 import org.rabix.bindings.draft3.service.Draft3MetadataService;
 import org.rabix.bindings.draft3.service.impl.Draft3GlobServiceImpl;
 import org.rabix.bindings.draft3.service.impl.Draft3MetadataServiceImpl;
+import org.rabix.bindings.helper.GlobCollector;
 import org.rabix.bindings.mapper.FilePathMapper;
 import org.rabix.bindings.model.Job;
 import org.rabix.common.helper.ChecksumHelper;
@@ -161,8 +162,13 @@ public class Draft3Processor implements ProtocolProcessor {
     
     Map<String, Object> result = new TreeMap<>();
     Draft3CommandLineTool commandLineTool = (Draft3CommandLineTool) job.getApp();
+    GlobCollector globCollector = new GlobCollector(workingDir);
     for (Draft3OutputPort outputPort : commandLineTool.getOutputs()) {
-      Object singleResult = collectOutput(job, workingDir, hashAlgorithm, outputPort.getSchema(), outputPort.getOutputBinding(), outputPort);
+      globService.register(job, globCollector, outputPort.getOutputBinding());
+      globService.register(job, globCollector, outputPort.getSchema());
+    }
+    for (Draft3OutputPort outputPort : commandLineTool.getOutputs()) {
+      Object singleResult = collectOutput(job, workingDir, globCollector, hashAlgorithm, outputPort.getSchema(), outputPort.getOutputBinding(), outputPort);
       result.put(Draft3SchemaHelper.normalizeId(outputPort.getId()), singleResult);
     }
     
@@ -221,7 +227,7 @@ public class Draft3Processor implements ProtocolProcessor {
   }
 
   @SuppressWarnings("unchecked")
-  private Object collectOutput(Draft3Job job, File workingDir, HashAlgorithm hashAlgorithm, Object schema, Object binding, Draft3OutputPort outputPort) throws Draft3GlobException, Draft3ExpressionException, BindingException {
+  private Object collectOutput(Draft3Job job, File workingDir, GlobCollector globCollector, HashAlgorithm hashAlgorithm, Object schema, Object binding, Draft3OutputPort outputPort) throws Draft3GlobException, Draft3ExpressionException, BindingException {
     if (binding == null) {
       binding = Draft3SchemaHelper.getOutputBinding(schema);
     }
@@ -244,9 +250,9 @@ public class Draft3Processor implements ProtocolProcessor {
         if (itemBinding != null) {
           binding = itemBinding;
         }
-        result = globFiles(job, workingDir, hashAlgorithm, outputPort, binding);
+        result = globFiles(job, workingDir, globCollector, hashAlgorithm, outputPort, binding);
       } else {
-        return collectOutput(job, workingDir, hashAlgorithm, itemSchema, binding, outputPort);
+        return collectOutput(job, workingDir, globCollector, hashAlgorithm, itemSchema, binding, outputPort);
       }
     } else if (Draft3SchemaHelper.isRecordFromSchema(schema)) {
       Map<String, Object> record = new HashMap<>();
@@ -263,7 +269,7 @@ public class Draft3Processor implements ProtocolProcessor {
           if (fieldBinding != null) {
             binding = fieldBinding;
           }
-          Object singleResult = collectOutput(job, workingDir, hashAlgorithm, fieldSchema, binding, outputPort);
+          Object singleResult = collectOutput(job, workingDir, globCollector, hashAlgorithm, fieldSchema, binding, outputPort);
           if (singleResult != null) {
             record.put(id, singleResult);
           }
@@ -271,7 +277,7 @@ public class Draft3Processor implements ProtocolProcessor {
       }
       result = record;
     } else {
-      result = globFiles(job, workingDir, hashAlgorithm, outputPort, binding);
+      result = globFiles(job, workingDir, globCollector, hashAlgorithm, outputPort, binding);
     }
     Object outputEval = Draft3BindingHelper.getOutputEval(binding);
     if (outputEval != null) {
@@ -308,7 +314,7 @@ public class Draft3Processor implements ProtocolProcessor {
   /**
    * Extracts files from a directory based on GLOB expression
    */
-  private List<Map<String, Object>> globFiles(final Draft3Job job, final File workingDir, HashAlgorithm hashAlgorithm, final Draft3OutputPort outputPort, Object outputBinding) throws Draft3GlobException {
+  private List<Map<String, Object>> globFiles(final Draft3Job job, final File workingDir, final GlobCollector globCollector, HashAlgorithm hashAlgorithm, final Draft3OutputPort outputPort, Object outputBinding) throws Draft3GlobException {
     if (outputPort.getOutputBinding() != null) {
       outputBinding = outputPort.getOutputBinding(); // override
     }
@@ -323,11 +329,12 @@ public class Draft3Processor implements ProtocolProcessor {
       return null;
     }
 
-    Set<File> paths = globService.glob(job, workingDir, glob);
+    Set<File> paths = globService.glob(job, globCollector, glob);
     if (paths == null) {
       logger.info("Glob service didn't find any files.");
       return null;
     }
+    ChecksumHelper.checksum(paths, hashAlgorithm); // checksums are calculated in parallel and reused for each file below
     logger.debug("Glob service returned result {}", paths);
 
     final List<Map<String, Object>> result = new ArrayList<>();
@@ -14,13 +14,16 @@ public class Draft3ExpressionContextFactory extends ContextFactory {
     this.timeoutInSeconds = timeoutInSeconds;
   }
   
-  @SuppressWarnings("deprecation")
   private static class ExpressionContext extends Context {
     long startTime;
+
+    ExpressionContext(ContextFactory factory) {
+      super(factory);
+    }
   }
 
   protected Context makeContext() {
-    ExpressionContext cx = new ExpressionContext();
+    ExpressionContext cx = new ExpressionContext(this);
     cx.setInstructionObserverThreshold(1000);
     return cx;
   }
@@ -35,6 +38,8 @@ public class Draft3ExpressionContextFactory extends ContextFactory {
       return true;
     case Context.FEATURE_PARENT_PROTO_PROPERTIES:
       return false;
+    case Context.FEATURE_DYNAMIC_SCOPE:
+      return true; // library functions live in the shared scope and must see per evaluation globals
     }
     return super.hasFeature(cx, featureIndex);
   }
@@ -4,9 +4,15 @@ import java.io.File;
 import java.util.Set;
 
 import org.rabix.bindings.draft3.bean.Draft3Job;
+import org.rabix.bindings.helper.GlobCollector;
 
 public interface Draft3GlobService {
 
-  Set<File> glob(Draft3Job job, File workingDir, Object glob) throws Draft3GlobException;
+  /**
+   * Registers every GLOB found in output binding or schema so they are all collected with a single walk
+   */
+  void register(Draft3Job job, GlobCollector collector, Object value);
+
+  Set<File> glob(Draft3Job job, GlobCollector collector, Object glob) throws Draft3GlobException;
   
 }
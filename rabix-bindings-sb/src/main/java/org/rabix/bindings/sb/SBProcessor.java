@@ -11,6 +11,7 @@ import java.util.Set;
 import org.apache.commons.io.FileUtils;
 import org.rabix.bindings.BindingException;
 import org.rabix.bindings.ProtocolProcessor;
+import org.rabix.bindings.helper.GlobCollector;
 import org.rabix.bindings.mapper.FilePathMapper;
 import org.rabix.bindings.model.Job;
 import org.rabix.bindings.sb.bean.SBCommandLineTool;
@@ -153,8 +154,13 @@ public class SBProcessor implements ProtocolProcessor {
     
     Map<String, Object> result = new HashMap<>();
     SBCommandLineTool commandLineTool = (SBCommandLineTool) job.getApp();
+    GlobCollector globCollector = new GlobCollector(workingDir);
     for (SBOutputPort outputPort : commandLineTool.getOutputs()) {
-      Object singleResult = collectOutput(job, workingDir, hashAlgorithm, outputPort.getSchema(), outputPort.getOutputBinding(), outputPort);
+      globService.register(job, globCollector, outputPort.getOutputBinding());
+      globService.register(job, globCollector, outputPort.getSchema());
+    }
+    for (SBOutputPort outputPort : commandLineTool.getOutputs()) {
+      Object singleResult = collectOutput(job, workingDir, globCollector, hashAlgorithm, outputPort.getSchema(), outputPort.getOutputBinding(), outputPort);
       if (singleResult != null) {
         result.put(SBSchemaHelper.normalizeId(outputPort.getId()), singleResult);
       }
@@ -201,7 +207,7 @@ public class SBProcessor implements ProtocolProcessor {
   }
   
   @SuppressWarnings("unchecked")
-  private Object collectOutput(SBJob job, File workingDir, HashAlgorithm hashAlgorithm, Object schema, Object binding, SBOutputPort outputPort) throws SBGlobException, SBExpressionException, BindingException {
+  private Object collectOutput(SBJob job, File workingDir, GlobCollector globCollector, HashAlgorithm hashAlgorithm, Object schema, Object binding, SBOutputPort outputPort) throws SBGlobException, SBExpressionException, BindingException {
     if (binding == null) {
       binding = SBSchemaHelper.getOutputBinding(schema);
     }
@@ -224,9 +230,9 @@ public class SBProcessor implements ProtocolProcessor {
         if (itemBinding != null) {
           binding = itemBinding;
         }
-        result = globFiles(job, workingDir, hashAlgorithm, outputPort, binding);
+        result = globFiles(job, workingDir, globCollector, hashAlgorithm, outputPort, binding);
       } else {
-        return collectOutput(job, workingDir, hashAlgorithm, itemSchema, binding, outputPort);
+        return collectOutput(job, workingDir, globCollector, hashAlgorithm, itemSchema, binding, outputPort);
       }
     } else if (SBSchemaHelper.isRecordFromSchema(schema)) {
       Map<String, Object> record = new HashMap<>();
@@ -243,7 +249,7 @@ public class SBProcessor implements ProtocolProcessor {
           if (fieldBinding != null) {
             binding = fieldBinding;
           }
-          Object singleResult = collectOutput(job, workingDir, hashAlgorithm, fieldSchema, binding, outputPort);
+          Object singleResult = collectOutput(job, workingDir, globCollector, hashAlgorithm, fieldSchema, binding, outputPort);
           if (singleResult != null) {
             record.put(id, singleResult);
           }
@@ -251,7 +257,7 @@ public class SBProcessor implements ProtocolProcessor {
       }
       result = record;
     } else {
-      result = globFiles(job, workingDir, hashAlgorithm, outputPort, binding);
+      result = globFiles(job, workingDir, globCollector, hashAlgorithm, outputPort, binding);
     }
     Object outputEval = SBBindingHelper.getOutputEval(binding);
     if (outputEval != null) {
@@ -279,7 +285,7 @@ public class SBProcessor implements ProtocolProcessor {
   /**
    * Extracts files from a directory based on GLOB expression
    */
-  private List<Map<String, Object>> globFiles(final SBJob job, final File workingDir, HashAlgorithm hashAlgorithm, final SBOutputPort outputPort, Object outputBinding) throws SBGlobException {
+  private List<Map<String, Object>> globFiles(final SBJob job, final File workingDir, final GlobCollector globCollector, HashAlgorithm hashAlgorithm, final SBOutputPort outputPort, Object outputBinding) throws SBGlobException {
     if (outputPort.getOutputBinding() != null) {
       outputBinding = outputPort.getOutputBinding(); // override
     }
@@ -294,11 +300,12 @@ public class SBProcessor implements ProtocolProcessor {
       return null;
     }
 
-    Set<File> paths = globService.glob(job, workingDir, glob);
+    Set<File> paths = globService.glob(job, globCollector, glob);
     if (paths == null) {
       logger.info("Glob service didn't find any files.");
       return null;
     }
+    ChecksumHelper.checksum(paths, hashAlgorithm); // checksums are calculated in parallel and reused for each file below
     logger.debug("Glob service returned result {}", paths);
 
     final List<Map<String, Object>> result = new ArrayList<>();
@@ -1,22 +1,23 @@
 package org.rabix.bindings.sb.expression.javascript;
 
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.StringReader;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextFactory;
-import org.mozilla.javascript.NativeJSON;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.Undefined;
+import org.rabix.bindings.helper.JavascriptHelper;
+import org.rabix.bindings.helper.JavascriptHelper.ScriptCache;
 import org.rabix.bindings.sb.expression.SBExpressionException;
 import org.rabix.common.helper.JSONHelper;
-import org.rabix.common.json.BeanSerializer;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
 
 public class SBExpressionJavascriptResolver {
 
@@ -25,12 +26,13 @@ public class SBExpressionJavascriptResolver {
   public final static String EXPR_CONTEXT_NAME = "$job";
   public final static String EXPR_SELF_NAME = "$self";
 
-  public final static int OPTIMIZATION_LEVEL = -1;
+  public final static int OPTIMIZATION_LEVEL = JavascriptHelper.OPTIMIZATION_LEVEL;
   public final static int MAX_STACK_DEPTH = 10;
 
-  static {
-    ContextFactory.initGlobal(new SBExpressionContextFactory(TIMEOUT_IN_SECONDS));
-  }
+  private final static SBExpressionContextFactory contextFactory = new SBExpressionContextFactory(TIMEOUT_IN_SECONDS);
+  private final static ScriptCache scriptCache = new ScriptCache(10000, 100);
+
+  private static String templateLibrary;
 
   /**
    * Evaluate JS script (function or statement)
@@ -44,51 +46,32 @@ public class SBExpressionJavascriptResolver {
       function = function.replace("%expr", expr);
     }
 
-    Context cx = Context.enter();
+    Context cx = contextFactory.enterContext();
     cx.setOptimizationLevel(OPTIMIZATION_LEVEL);
-    cx.setMaximumInterpreterStackDepth(MAX_STACK_DEPTH);
+    if (OPTIMIZATION_LEVEL < 0) {
+      cx.setMaximumInterpreterStackDepth(MAX_STACK_DEPTH);
+    }
     cx.setClassShutter(new SBExpressionDenyAllClassShutter());
 
     try {
-      Scriptable globalScope = cx.initStandardObjects();
-
+      List<String> libraries = new ArrayList<>();
       if (includeTemplates) {
-        Reader templateLibReader = new InputStreamReader(SBExpressionJavascriptResolver.class.getResourceAsStream("underscore-min.js"));
-        cx.evaluateReader(globalScope, templateLibReader, "underscore-min.js", 1, null);
+        libraries.add(getTemplateLibrary());
       }
-
       if (engineConfigs != null) {
-        for (int i = 0; i < engineConfigs.size(); i++) {
-          Reader engineConfigReader = new StringReader(engineConfigs.get(i));
-          cx.evaluateReader(globalScope, engineConfigReader, "engineConfig_" + i + ".js", 1, null);
-        }
+        libraries.addAll(engineConfigs);
       }
+      Scriptable globalScope = JavascriptHelper.newScope(cx, scriptCache.getSharedScope(cx, libraries));
 
       putToScope(EXPR_CONTEXT_NAME, context, cx, globalScope);
       putToScope(EXPR_SELF_NAME, self, cx, globalScope);
 
-      Scriptable resultScope = cx.newObject(globalScope);
-      resultScope.setPrototype(globalScope);
-      resultScope.setParentScope(globalScope);
-
-      Object result = cx.evaluateString(resultScope, function, "script", 1, null);
+      Script script = scriptCache.getScript(cx, function);
+      Object result = script.exec(cx, globalScope);
       if (result == null || result instanceof Undefined) {
         return null;
       }
-      
-      Object wrappedResult = Context.javaToJS(result, globalScope);
-      putToScope("$result", wrappedResult, cx, globalScope);
-      ScriptableObject.putProperty(globalScope, "$result", wrappedResult);
-
-      String finalFunction = "(function() { " + "           var result = $result;"
-          + "           var type = result instanceof Array? \"array\" : typeof result;"
-          + "           return JSON.stringify({ \"result\" : result, \"type\" : type }); " + "     })()";
-
-      Scriptable wrapScope = cx.newObject(globalScope);
-      wrapScope.setPrototype(globalScope);
-      wrapScope.setParentScope(globalScope);
-      result = cx.evaluateString(wrapScope, finalFunction, "script", 1, null);
-      return castResult(result);
+      return castResult(JavascriptHelper.toJsonNode(cx, globalScope, result));
     } catch (Exception e) {
       String msg = String.format("Failed evaluating expression %s.", expr);
       throw new SBExpressionException(msg, e);
@@ -97,34 +80,28 @@ public class SBExpressionJavascriptResolver {
     }
   }
 
+  /**
+   * Load template library source once
+   */
+  private static synchronized String getTemplateLibrary() throws IOException {
+    if (templateLibrary == null) {
+      templateLibrary = Resources.toString(Resources.getResource(SBExpressionJavascriptResolver.class, "underscore-min.js"), Charsets.UTF_8);
+    }
+    return templateLibrary;
+  }
+
   /**
    * Add object to execution scope
    */
   private static void putToScope(String name, Object value, Context cx, Scriptable scope) {
-    if (value != null) {
-      String selfJson = BeanSerializer.serializePartial(value);
-
-      Object json = NativeJSON.parse(cx, scope, selfJson, new org.mozilla.javascript.Callable() {
-        @Override
-        public Object call(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
-          return args[1];
-        }
-      });
-      ScriptableObject.putProperty(scope, name, json);
-    } else {
-      ScriptableObject.putProperty(scope, name, null);
-    }
+    ScriptableObject.putProperty(scope, name, JavascriptHelper.toJavascript(cx, scope, value));
   }
 
   /**
    * Cast result to proper Java object
    */
-  private static Object castResult(Object result) {
-    if (result == null) {
-      return null;
-    }
-    JsonNode node = JSONHelper.readJsonNode(result.toString());
-    return JSONHelper.transform(node.get("result"));
+  private static Object castResult(JsonNode result) {
+    return JSONHelper.transform(result);
   }
 
 }
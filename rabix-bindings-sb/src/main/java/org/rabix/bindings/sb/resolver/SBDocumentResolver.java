@@ -1,24 +1,18 @@
 package org.rabix.bindings.sb.resolver;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.rabix.bindings.BindingException;
 import org.rabix.bindings.ProtocolType;
+import org.rabix.bindings.helper.DocumentResolverCache;
 import org.rabix.bindings.helper.URIHelper;
 import org.rabix.common.helper.JSONHelper;
 
@@ -38,19 +32,12 @@ public class SBDocumentResolver {
   
   public static final String DOCUMENT_FRAGMENT_SEPARATOR = "#";
   
-  private static final String DEFAULT_ENCODING = "UTF-8";
-
-  private static ConcurrentMap<String, String> cache = new ConcurrentHashMap<>(); 
-  
-  private static final Map<String, Map<String, JsonNode>> fragmentsCache = new HashMap<>();
-
-  private static final Map<String, Map<String, SBDocumentResolverReference>> referenceCache = new HashMap<>();
-  private static final Map<String, LinkedHashSet<SBDocumentResolverReplacement>> replacements = new HashMap<>();
-  
   public static String resolve(String appUrl) throws BindingException {
-    if (cache.containsKey(appUrl)) {
-      return cache.get(appUrl);
+    String cached = DocumentResolverCache.getDocument(ProtocolType.SB, appUrl);
+    if (cached != null) {
+      return cached;
     }
+    Resolution resolution = new Resolution();
     
     String appUrlBase = appUrl;
     if (!URIHelper.isData(appUrl)) {
@@ -73,7 +60,7 @@ public class SBDocumentResolver {
     }
     
     if (root.isArray()) {
-      Map<String, JsonNode> fragmentsCachePerUrl = getFragmentsCache(appUrl);
+      Map<String, JsonNode> fragmentsCachePerUrl = resolution.fragmentsCache;
       for (JsonNode child : root) {
         fragmentsCachePerUrl.put(child.get("id").textValue(), child);
       }
@@ -81,31 +68,25 @@ public class SBDocumentResolver {
       root = fragmentsCachePerUrl.get(fragment);
     }
     
-    traverse(appUrl, root, file, null, root);
+    traverse(resolution, root, file, null, root);
 
-    for (SBDocumentResolverReplacement replacement : getReplacements(appUrl)) {
+    for (SBDocumentResolverReplacement replacement : resolution.replacements) {
       if (replacement.getParentNode().isArray()) {
-        replaceArrayItem(appUrl, root, replacement);
+        replaceArrayItem(resolution, root, replacement);
       } else if (replacement.getParentNode().isObject()) {
-        replaceObjectItem(appUrl, root, replacement);
+        replaceObjectItem(resolution, root, replacement);
       }
     }
     
     if(!(root.get(CWL_VERSION_KEY).asText().equals(ProtocolType.SB.appVersion))) {
-      clearReplacements(appUrl);
-      clearReferenceCache(appUrl);
-      clearFragmentCache(appUrl);
       throw new BindingException("Document version is not sbg:draft-2");
     }
-    cache.put(appUrl, JSONHelper.writeObject(root));
-    
-    clearReplacements(appUrl);
-    clearReferenceCache(appUrl);
-    clearFragmentCache(appUrl);
-    return cache.get(appUrl);
+    String resolved = JSONHelper.writeObject(root);
+    DocumentResolverCache.putDocument(ProtocolType.SB, appUrl, resolved);
+    return resolved;
   }
   
-  private static JsonNode traverse(String appUrl, JsonNode root, File file, JsonNode parentNode, JsonNode currentNode) throws BindingException {
+  private static JsonNode traverse(Resolution resolution, JsonNode root, File file, JsonNode parentNode, JsonNode currentNode) throws BindingException {
     Preconditions.checkNotNull(currentNode, "current node id is null");
 
     boolean isInclude = currentNode.has(RESOLVER_REFERENCE_INCLUDE_KEY);
@@ -114,8 +95,8 @@ public class SBDocumentResolver {
       String content = loadContents(file, path);
 
       SBDocumentResolverReference reference = new SBDocumentResolverReference(false, new TextNode(content));
-      getReferenceCache(appUrl).put(path, reference);
-      getReplacements(appUrl).add(new SBDocumentResolverReplacement(parentNode, currentNode, path));
+      resolution.referenceCache.put(path, reference);
+      resolution.replacements.add(new SBDocumentResolverReplacement(parentNode, currentNode, path));
       return null;
     }
     
@@ -130,7 +111,7 @@ public class SBDocumentResolver {
         referencePath = currentNode.get(RESOLVER_JSON_POINTER_KEY).textValue();
       }
 
-      SBDocumentResolverReference reference = getReferenceCache(appUrl).get(referencePath);
+      SBDocumentResolverReference reference = resolution.referenceCache.get(referencePath);
       if (reference != null) {
         if (reference.isResolving()) {
           throw new BindingException("Circular dependency detected!");
@@ -138,9 +119,9 @@ public class SBDocumentResolver {
       } else {
         reference = new SBDocumentResolverReference();
         reference.setResolving(true);
-        getReferenceCache(appUrl).put(referencePath, reference);
+        resolution.referenceCache.put(referencePath, reference);
 
-        Map<String, JsonNode> fragmentsCachePerUrl = getFragmentsCache(appUrl);
+        Map<String, JsonNode> fragmentsCachePerUrl = resolution.fragmentsCache;
         
         ParentChild parentChild = null;
         JsonNode referenceDocumentRoot = null;
@@ -150,26 +131,26 @@ public class SBDocumentResolver {
           referenceDocumentRoot = findDocumentRoot(root, file, referencePath, isJsonPointer);
           parentChild = findReferencedNode(referenceDocumentRoot, referencePath);
         }
-        JsonNode resolvedNode = traverse(appUrl, root, file, parentChild.parent, parentChild.child);
+        JsonNode resolvedNode = traverse(resolution, root, file, parentChild.parent, parentChild.child);
         if (resolvedNode == null) {
           return null;
         }
         reference.setResolvedNode(resolvedNode);
         reference.setResolving(false);
-        getReferenceCache(appUrl).put(referencePath, reference);
+        resolution.referenceCache.put(referencePath, reference);
       }
-      getReplacements(appUrl).add(new SBDocumentResolverReplacement(parentNode, currentNode, referencePath));
+      resolution.replacements.add(new SBDocumentResolverReplacement(parentNode, currentNode, referencePath));
       return reference.getResolvedNode();
     } else if (currentNode.isContainerNode()) {
       for (JsonNode subnode : currentNode) {
-        traverse(appUrl, root, file, currentNode, subnode);
+        traverse(resolution, root, file, currentNode, subnode);
       }
     }
     return currentNode;
   }
 
   @SuppressWarnings("deprecation")
-  private static void replaceObjectItem(String appUrl, JsonNode root, SBDocumentResolverReplacement replacement) throws BindingException {
+  private static void replaceObjectItem(Resolution resolution, JsonNode root, SBDocumentResolverReplacement replacement) throws BindingException {
     JsonNode parent = replacement.getParentNode() == null ? root : replacement.getParentNode();
 
     Iterator<Entry<String, JsonNode>> fieldIterator = parent.fields();
@@ -182,7 +163,7 @@ public class SBDocumentResolver {
         break;
       }
     }
-    SBDocumentResolverReference reference = getReferenceCache(appUrl).get(replacement.getNormalizedReferencePath());
+    SBDocumentResolverReference reference = resolution.referenceCache.get(replacement.getNormalizedReferencePath());
     if (reference != null) {
       ((ObjectNode) parent).put(fieldName, reference.getResolvedNode());
     } else {
@@ -190,7 +171,7 @@ public class SBDocumentResolver {
     }
   }
 
-  private static void replaceArrayItem(String appUrl, JsonNode root, SBDocumentResolverReplacement replacement) throws BindingException {
+  private static void replaceArrayItem(Resolution resolution, JsonNode root, SBDocumentResolverReplacement replacement) throws BindingException {
     JsonNode parent = replacement.getParentNode() == null ? root : replacement.getParentNode();
 
     Iterator<JsonNode> nodeIterator = parent.elements();
@@ -202,7 +183,7 @@ public class SBDocumentResolver {
       }
     }
     if (parent.isArray()) {
-      SBDocumentResolverReference reference = getReferenceCache(appUrl).get(replacement.getNormalizedReferencePath());
+      SBDocumentResolverReference reference = resolution.referenceCache.get(replacement.getNormalizedReferencePath());
       if (reference != null) {
         ((ArrayNode) parent).add(reference.getResolvedNode());
       } else {
@@ -238,36 +219,10 @@ public class SBDocumentResolver {
         throw new BindingException(e);
       }
     }
-    if (path.startsWith("http")) {
-      try {
-        URL website = new URL(path);
-        URLConnection connection = website.openConnection();
-        BufferedReader in = null;
-
-        try {
-          in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-
-          StringBuilder response = new StringBuilder();
-          String inputLine;
-          while ((inputLine = in.readLine()) != null) {
-            response.append(inputLine);
-          }
-          return response.toString();
-        } finally {
-          if (in != null) {
-            in.close();
-          }
-        }
-      } catch (Exception e) {
-        throw new BindingException("Couldn't fetch contents from " + path);
-      }
-    } else {
-      try {
-        String filePath = new File(file.getParentFile(), path).getCanonicalPath();
-        return FileUtils.readFileToString(new File(filePath), DEFAULT_ENCODING);
-      } catch (IOException e) {
-        throw new BindingException("Couldn't fetch contents from " + path);
-      }
+    try {
+      return DocumentResolverCache.loadContents(file, path);
+    } catch (IOException e) {
+      throw new BindingException("Couldn't fetch contents from " + path);
     }
   }
 
@@ -290,45 +245,21 @@ public class SBDocumentResolver {
     return new ParentChild(parent, child);
   }
   
-  private synchronized static Set<SBDocumentResolverReplacement> getReplacements(String url) {
-    LinkedHashSet<SBDocumentResolverReplacement> replacementsPerUrl = replacements.get(url);
-    if (replacementsPerUrl == null) {
-      replacementsPerUrl = new LinkedHashSet<SBDocumentResolverReplacement>();
-      replacements.put(url, replacementsPerUrl);
-    }
-    return replacementsPerUrl;
-  }
   
-  private synchronized static void clearReplacements(String url) {
-    replacements.remove(url);
-  }
   
-  private synchronized static Map<String, SBDocumentResolverReference> getReferenceCache(String url) {
-    Map<String, SBDocumentResolverReference> referenceCachePerUrl = referenceCache.get(url);
-    if (referenceCachePerUrl == null) {
-      referenceCachePerUrl = new HashMap<String, SBDocumentResolverReference>();
-      referenceCache.put(url, referenceCachePerUrl);
-    }
-    return referenceCachePerUrl;
-  }
   
-  private synchronized static Map<String, JsonNode> getFragmentsCache(String url) {
-    Map<String, JsonNode> fragmentsCachePerUrl = fragmentsCache.get(url);
-    if (fragmentsCachePerUrl == null) {
-      fragmentsCachePerUrl = new HashMap<String, JsonNode>();
-      fragmentsCache.put(url, fragmentsCachePerUrl);
-    }
-    return fragmentsCachePerUrl;
-  }
   
-  private synchronized static void clearReferenceCache(String url) {
-    referenceCache.remove(url);
-  }
   
-  private synchronized static void clearFragmentCache(String url) {
-    fragmentsCache.remove(url);
-  }
   
+  /**
+   * Intermediate state of a single {@link #resolve(String)} call
+   */
+  private static class Resolution {
+    private final Map<String, JsonNode> fragmentsCache = new HashMap<>();
+    private final Map<String, SBDocumentResolverReference> referenceCache = new HashMap<>();
+    private final Set<SBDocumentResolverReplacement> replacements = new LinkedHashSet<>();
+  }
+
   private static class ParentChild {
     JsonNode parent;
     JsonNode child;
@@ -3,10 +3,16 @@ package org.rabix.bindings.sb.service;
 import java.io.File;
 import java.util.Set;
 
+import org.rabix.bindings.helper.GlobCollector;
 import org.rabix.bindings.sb.bean.SBJob;
 
 public interface SBGlobService {
 
-  Set<File> glob(SBJob job, File workingDir, Object glob) throws SBGlobException;
+  /**
+   * Registers every GLOB found in output binding or schema so they are all collected with a single walk
+   */
+  void register(SBJob job, GlobCollector collector, Object value);
+
+  Set<File> glob(SBJob job, GlobCollector collector, Object glob) throws SBGlobException;
   
 }
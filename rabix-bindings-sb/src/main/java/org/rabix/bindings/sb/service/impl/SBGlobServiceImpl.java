@@ -2,26 +2,18 @@ package org.rabix.bindings.sb.service.impl;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.PathMatcher;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.lang.StringUtils;
+import org.rabix.bindings.helper.GlobCollector;
 import org.rabix.bindings.sb.bean.SBJob;
 import org.rabix.bindings.sb.expression.SBExpressionException;
 import org.rabix.bindings.sb.expression.helper.SBExpressionBeanHelper;
+import org.rabix.bindings.sb.helper.SBBindingHelper;
 import org.rabix.bindings.sb.service.SBGlobException;
 import org.rabix.bindings.sb.service.SBGlobService;
 import org.slf4j.Logger;
@@ -33,63 +25,57 @@ public class SBGlobServiceImpl implements SBGlobService {
 
   private final Logger logger = LoggerFactory.getLogger(SBGlobServiceImpl.class);
 
+  private final static int NAME_DEPTH = 2;
+
+  @Override
+  public void register(SBJob job, GlobCollector collector, Object value) {
+    if (value instanceof Map<?, ?>) {
+      Object glob = ((Map<?, ?>) value).get(SBBindingHelper.KEY_GLOB);
+      if (glob != null) {
+        try {
+          for (String[] term : expand(resolve(job, glob))) {
+            collector.register(term[0]);
+            collector.register(term[1]);
+          }
+        } catch (SBExpressionException e) {
+          logger.debug("Failed to register glob {}. It will be collected separately.", glob);
+        }
+      }
+      for (Object subvalue : ((Map<?, ?>) value).values()) {
+        register(job, collector, subvalue);
+      }
+    } else if (value instanceof List<?>) {
+      for (Object subvalue : (List<?>) value) {
+        register(job, collector, subvalue);
+      }
+    }
+  }
+
   /**
    * Find all files that match GLOB inside the working directory 
    */
-  public Set<File> glob(SBJob job, File workingDir, Object glob) throws SBGlobException {
+  public Set<File> glob(SBJob job, GlobCollector collector, Object glob) throws SBGlobException {
     Preconditions.checkNotNull(job);
-    Preconditions.checkNotNull(workingDir);
+    Preconditions.checkNotNull(collector);
 
-    Set<File> files = new HashSet<File>();
-    if (SBExpressionBeanHelper.isExpression(glob)) {
-      try {
-        glob = SBExpressionBeanHelper.<String> evaluate(job, glob);
-      } catch (SBExpressionException e) {
-        logger.error("Failed to evaluate glob " + glob, e);
-        throw new SBGlobException("Failed to evaluate glob " + glob, e);
-      }
+    try {
+      glob = resolve(job, glob);
+    } catch (SBExpressionException e) {
+      logger.error("Failed to evaluate glob " + glob, e);
+      throw new SBGlobException("Failed to evaluate glob " + glob, e);
     }
     if (glob == null) {
       return Collections.<File> emptySet();
     }
     
-    List<File> globDir = new ArrayList<File>();
-    globDir.add(workingDir);
-    
-    resolveGlob(glob, globDir, files);
-    return files;
-  }
-
-  private Set<File> listDir(String glob, final boolean isDir, List<File> globDirs) throws SBGlobException {
-    final Set<File> files = new HashSet<File>();
-    final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);  
-    
-    for(File globDir: globDirs) {
+    Set<File> files = new HashSet<File>();
+    for (String[] term : expand(glob)) {
       try {
-        Files.walkFileTree(globDir.toPath(), EnumSet.noneOf(FileVisitOption.class), 2, new SimpleFileVisitor<Path>() {
-          @Override
-          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-            if (matcher.matches(file.getFileName()) && !isDir) {
-              files.add(file.toFile());
-            }
-            return FileVisitResult.CONTINUE;
-          }
-          @Override
-          public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-            return FileVisitResult.CONTINUE;
-          }
-          
-          @Override
-          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-            if(dir.getFileName() != null) {
-              if (matcher.matches(dir.getFileName()) && isDir) {
-                files.add(dir.toFile());
-              }
-            }
-            return super.preVisitDirectory(dir, attrs);
-          }
-
-        });
+        Set<File> included = collector.collect(term[0], false);
+        if (term[1] != null) {
+          included.removeAll(collector.collect(term[1], false));
+        }
+        files.addAll(included);
       } catch (IOException e) {
         logger.error("Failed to traverse through working directory", e);
         throw new SBGlobException("Failed to traverse through working directory", e);
@@ -97,139 +83,48 @@ public class SBGlobServiceImpl implements SBGlobService {
     }
     return files;
   }
-  
-  public String[] extractGlobParts(String glob) {
-    String[] globParts = glob.split("/");
-    if(globParts.length < 2) {
-      globParts = Arrays.copyOf(globParts, globParts.length+1);
-      globParts[globParts.length-1] = "*";
+
+  private Object resolve(SBJob job, Object glob) throws SBExpressionException {
+    if (SBExpressionBeanHelper.isExpression(glob)) {
+      return SBExpressionBeanHelper.<Object> evaluate(job, glob);
     }
-    return globParts;
+    return glob;
   }
   
-  @SuppressWarnings("unchecked")
-  public void resolveGlob(Object glob, List<File> globDirs, Set<File> result) throws SBGlobException {
-    if (glob == null) {
-      // do nothing
-      return;
-    }
-    else if (glob instanceof List) {
-      resolveListGlob((List<Object>) glob, globDirs, result);
-    }
-    else if (glob instanceof String && ((String) glob).startsWith("{") && ((String) glob).endsWith("}")) {
-      resolveMultiGlob((String) glob, globDirs, result);
-    }
-    else if (glob instanceof String && ((String) glob).contains("/")) {
-      resolveFullPathGlob((String) glob, globDirs, result); 
-    }
-    else if (glob instanceof String) {
-      resolveSimpleGlob((String) glob, globDirs, result);
-    }
-    else {
-      logger.debug("Not handled - should never happened");
-    }
+  /**
+   * Expands glob into pairs of included and excluded patterns. Besides matching files, a glob matches files up to two levels inside matching directories.
+   * Bare names are matched up to two levels below the working directory. Pattern <code>!(name)</code> includes all files except the ones matching the name.
+   */
+  private List<String[]> expand(Object glob) {
+    List<String[]> terms = new ArrayList<>();
+    expand(glob, terms);
+    return terms;
   }
-  
-  public void resolveFullPathGlob(String glob, List<File> globDirs, Set<File> result) throws SBGlobException {
-    if (glob.startsWith("/")) {
-      // handle absolute path
-      String[] globParts = glob.split("/");
-      String rootGlob = globParts[1];
-      File rootDir = new File("/");
-      
-      File.listRoots();
-      List<File> globDir = new ArrayList<File>();
-      globDir.add(rootDir);
-      if(globParts.length < 2) {
-        resolveGlob(rootGlob, globDir, result);
-      }
-      else {
-        Set<File> dirs = listDir(rootGlob, true, globDir);
-        String [] globRestParts = Arrays.copyOfRange(globParts, 2, globParts.length);
-        String globRest = StringUtils.join(globRestParts, "/");
-        List<File> listDirs = new ArrayList<File>();
-        listDirs.addAll(dirs);
-        resolveGlob(globRest, listDirs, result);
-      }
-    }
-    else {
-      // handle relative paths
-      String[] globParts = glob.split("/");
-      String rootGlob = globParts[0];
-      List<File> newGlobDirs;
-      if (rootGlob.equals("..")) {
-        newGlobDirs = new ArrayList<File>();
-        for(File dir: globDirs) {
-          newGlobDirs.add(dir.getParentFile());
-        }
-        if (globParts.length < 2) {
-          resolveGlob("*", newGlobDirs, result);
-        }
-        else {
-          String [] globRestParts = Arrays.copyOfRange(globParts, 1, globParts.length);
-          String globRest = StringUtils.join(globRestParts, "/");
-          resolveGlob(globRest, newGlobDirs, result);
-        }
+
+  private void expand(Object glob, List<String[]> terms) {
+    if (glob instanceof List<?>) {
+      for (Object singleGlob : (List<?>) glob) {
+        expand(singleGlob, terms);
       }
-      else if (rootGlob.equals(".")) {
-        newGlobDirs = globDirs;
-        if (globParts.length < 2) {
-          resolveGlob("*", newGlobDirs, result);
-        }
-        else {
-          String [] globRestParts = Arrays.copyOfRange(globParts, 1, globParts.length);
-          String globRest = StringUtils.join(globRestParts, "/");
-          resolveGlob(globRest, newGlobDirs, result);
-        }
+    } else if (glob instanceof String && ((String) glob).startsWith("{") && ((String) glob).endsWith("}")) {
+      String globRemoveBracket = ((String) glob).substring(1, ((String) glob).length() - 1);
+      for (String globItem : globRemoveBracket.split(",")) {
+        expand(globItem, terms);
       }
-      else {
-        Set<File> dirs = listDir(rootGlob, true, globDirs);
-        if(globParts.length < 2) {
-          resolveGlob(rootGlob, globDirs, result);
-        }
-        else {
-          String [] globRestParts = Arrays.copyOfRange(globParts, 1, globParts.length);
-          String globRest = StringUtils.join(globRestParts, "/");
-          List<File> listDirs = new ArrayList<File>();
-          listDirs.addAll(dirs);
-          resolveGlob(globRest, listDirs, result);
+    } else if (glob instanceof String) {
+      for (String singleGlob : GlobCollector.upToDepth((String) glob, NAME_DEPTH)) {
+        String directory = singleGlob.substring(0, singleGlob.lastIndexOf('/') + 1);
+        String name = singleGlob.substring(directory.length());
+        if (name.startsWith("!(") && name.endsWith(")")) {
+          terms.add(new String[] { directory + "*", directory + name.substring(2, name.length() - 1) });
+        } else {
+          terms.add(new String[] { singleGlob, null });
+          terms.add(new String[] { singleGlob + "/*", null });
+          terms.add(new String[] { singleGlob + "/*/*", null });
         }
       }
-    }
-  }
-  
-  public void resolveSimpleGlob(String glob, List<File> globDirs, Set<File> result) throws SBGlobException {
-    Set<File> dirs = listDir(glob, true, globDirs);
-    for(File dir: dirs) {
-      List<File> globDir = new ArrayList<File>();
-      globDir.add(dir);
-      result.addAll(listDir("*", false, globDir));
-    }
-    if(glob.startsWith("!(") && glob.endsWith(")")) {
-      Set<File> exclude = listDir(glob.substring(2, glob.length()-1), false, globDirs);
-      Set<File> all = listDir("*", false, globDirs);
-      all.removeAll(exclude);
-      result.addAll(all);
-    }
-    else {
-      result.addAll(listDir(glob, false, globDirs));
-    }
-  }
-  
-  public void resolveMultiGlob(String glob, List<File> globDirs, Set<File> result) throws SBGlobException {
-    List<Object> globs = new ArrayList<>();
-    String globRemoveBracket = ((String) glob).substring(1, ((String) glob).length()-1);
-    for(String globItem: globRemoveBracket.split(",")) {
-      globs.add(globItem);
-    }
-    for(Object singleGlob: globs) {
-      resolveGlob(singleGlob, globDirs, result);
-    }
-  }
-  
-  public void resolveListGlob(List<Object> globs, List<File> globDirs, Set<File> result) throws SBGlobException {
-    for(Object glob: globs) {
-      resolveGlob(glob, globDirs, result);
+    } else if (glob != null) {
+      logger.debug("Not handled - should never happened");
     }
   }
   
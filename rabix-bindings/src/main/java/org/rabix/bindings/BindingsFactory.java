@@ -1,20 +1,43 @@
 package org.rabix.bindings;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Comparator;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang.NotImplementedException;
+import org.rabix.bindings.helper.URIHelper;
 import org.rabix.bindings.model.Application;
 import org.rabix.bindings.model.Job;
+import org.rabix.common.helper.JSONHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 public class BindingsFactory {
 
   private final static Logger logger = LoggerFactory.getLogger(BindingsFactory.class);
   
   public static final String MULTIPROTOCOL_KEY = "rabix.multiprotocol";
+
+  private static final String CWL_VERSION_KEY = "cwlVersion";
+  private static final Pattern YAML_CWL_VERSION = Pattern.compile("^cwlVersion\\s*:\\s*[\"']?([^\"'\\s#]+)", Pattern.MULTILINE);
+
+  private static final int CACHE_SIZE = 1000;
+  private static final int MAX_CACHE_KEY_LENGTH = 256;
+
+  private static final Cache<String, Bindings> cache = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
   
   private static SortedSet<Bindings> bindings = new TreeSet<>(new Comparator<Bindings>() {
     @Override
@@ -41,35 +64,130 @@ public class BindingsFactory {
     }
   }
 
-  public static synchronized Bindings create(String appURL) throws BindingException {
-    for (Bindings binding : bindings) {
-      try {
-        Application app = binding.loadAppObject(appURL);
-        if (app == null) {
-          continue;
+  /**
+   * Finds bindings for the application. Resolved bindings are cached, so only the first call for the application parses it.
+   * Concurrent calls for the same application wait for the first one, while different applications are resolved in parallel.
+   */
+  public static Bindings create(final String appURL) throws BindingException {
+    try {
+      return cache.get(cacheKey(appURL), new Callable<Bindings>() {
+        @Override
+        public Bindings call() throws BindingException {
+          return detect(appURL);
         }
-        if (app.getVersion() != null && binding.getProtocolType().appVersion.equalsIgnoreCase(app.getVersion())) {
+      });
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof BindingException) {
+        throw (BindingException) e.getCause();
+      }
+      throw new BindingException(e.getCause());
+    } catch (UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * Tries the protocol declared in the document first and falls back to trying all of them
+   */
+  private static Bindings detect(String appURL) throws BindingException {
+    ProtocolType sniffed = sniff(appURL);
+    if (sniffed != null) {
+      for (Bindings binding : bindings) {
+        if (binding.getProtocolType().equals(sniffed) && isCompatible(binding, appURL)) {
           return binding;
         }
-        else if(app.getVersion() == null && binding.getProtocolType().appVersion == null) {
-          return binding;
+      }
+    }
+    for (Bindings binding : bindings) {
+      if (!binding.getProtocolType().equals(sniffed) && isCompatible(binding, appURL)) {
+        return binding;
+      }
+    }
+    throw new BindingException("Cannot find binding for the payload.");
+  }
+
+  private static boolean isCompatible(Bindings binding, String appURL) {
+    try {
+      Application app = binding.loadAppObject(appURL);
+      if (app == null) {
+        return false;
+      }
+      if (app.getVersion() != null && binding.getProtocolType().appVersion.equalsIgnoreCase(app.getVersion())) {
+        return true;
+      }
+      return app.getVersion() == null && binding.getProtocolType().appVersion == null;
+    } catch (NotImplementedException e) {
+      throw e; // fail if we do not support this kind of deserialization (Schema salad)
+    } catch (Exception ignore) {
+      return false;
+    }
+  }
+
+  /**
+   * Reads top level cwlVersion without parsing the whole document. Only local (data and file) documents are inspected.
+   */
+  static ProtocolType sniff(String appURL) {
+    String version = null;
+    try {
+      String appURLBase = URIHelper.extractBase(appURL);
+      if (!URIHelper.isData(appURLBase) && !URIHelper.isFile(appURLBase)) {
+        return null;
+      }
+      String content = URIHelper.getData(appURLBase).trim();
+      if (content.startsWith("{")) {
+        try (JsonParser parser = JSONHelper.mapper.getFactory().createParser(content)) {
+          parser.nextToken();
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals(CWL_VERSION_KEY)) {
+              version = parser.getValueAsString();
+              break;
+            }
+            parser.skipChildren();
+          }
         }
-        else {
-          continue;
+      } else {
+        Matcher matcher = YAML_CWL_VERSION.matcher(content);
+        if (matcher.find()) {
+          version = matcher.group(1);
         }
-      } catch (NotImplementedException e) {
-        throw e; // fail if we do not support this kind of deserialization (Schema salad)
-      } catch (Exception ignore) {
       }
+    } catch (Exception e) {
+      logger.debug("Failed to detect protocol for {}", appURL);
+      return null;
     }
-    throw new BindingException("Cannot find binding for the payload.");
+    if (version == null) {
+      return null;
+    }
+    for (ProtocolType type : ProtocolType.values()) {
+      if (version.equalsIgnoreCase(type.appVersion)) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns cached bindings for the application or null if they haven't been resolved yet
+   */
+  static Bindings getCached(String appURL) {
+    return cache.getIfPresent(cacheKey(appURL));
+  }
+
+  private static String cacheKey(String appURL) {
+    if (appURL.length() <= MAX_CACHE_KEY_LENGTH) {
+      return appURL;
+    }
+    return "sha256$" + Hashing.sha256().hashString(appURL, StandardCharsets.UTF_8).toString();
   }
 
-  public static synchronized Bindings create(Job job) throws BindingException {
+  public static Bindings create(Job job) throws BindingException {
     return create(job.getApp());
   }
   
-  public static synchronized Bindings create(ProtocolType protocol) throws BindingException {
+  public static Bindings create(ProtocolType protocol) throws BindingException {
     for(Bindings binding: bindings) {
       if(binding.getProtocolType().equals(protocol)) {
         return binding;
@@ -1,9 +1,9 @@
 package org.rabix.bindings.helper;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.rabix.bindings.BindingException;
 import org.rabix.bindings.model.dag.DAGContainer;
@@ -12,68 +12,57 @@ import org.rabix.bindings.model.dag.DAGNode;
 
 public class DAGValidationHelper {
 
+  /**
+   * Detects loops between children of the container with topological sort (Kahn's algorithm) in O(N + L)
+   */
   public static void detectLoop(final DAGNode dagNode) throws BindingException {
     if (!(dagNode instanceof DAGContainer)) {
       return;
     }
     DAGContainer containerNode = (DAGContainer) dagNode;
-    Set<DAGNode> marked = new HashSet<DAGNode>();
-    Set<DAGNode> stack = new HashSet<DAGNode>();
-    List<DAGNode> root = getRootNodes(containerNode);
-    for (DAGNode node : root) {
-      if (!marked.contains(node)) {
-        checkForLoop(containerNode, node, marked, stack);
-      }
-    }
-  }
 
-  private static void checkForLoop(DAGContainer containerNode, DAGNode dagNode, Set<DAGNode> marked, Set<DAGNode> stack) throws BindingException {
-    marked.add(dagNode);
-    stack.add(dagNode);
-    List<DAGNode> adjacentNodes = getAdjacentNodes(containerNode, dagNode);
-    for (DAGNode s : adjacentNodes) {
-      if (!marked.contains(s)) {
-        checkForLoop(containerNode, s, marked, stack);
-      } else if (stack.contains(s)) {
-        throw new BindingException("Container node contains loop");
+    Map<String, Integer> inDegrees = new HashMap<>();
+    for (DAGNode node : containerNode.getChildren()) {
+      inDegrees.put(node.getId(), 0);
+    }
+    for (DAGLink dataLink : containerNode.getLinks()) {
+      String sourceId = dataLink.getSource().getDagNodeId();
+      String destinationId = dataLink.getDestination().getDagNodeId();
+      if (!inDegrees.containsKey(sourceId) || destinationId.equals(containerNode.getId())) {
+        continue;
+      }
+      Integer inDegree = inDegrees.get(destinationId);
+      if (inDegree == null) {
+        throw new BindingException(String.format("Can't find DAGNode with id %s", destinationId));
       }
+      inDegrees.put(destinationId, inDegree + 1);
     }
-    stack.remove(dagNode);
-  }
 
-  private static List<DAGNode> getRootNodes(DAGContainer containerNode) {
-    List<DAGNode> rootNodes = new ArrayList<DAGNode>();
-    for (DAGNode node : containerNode.getChildren()) {
-      for (DAGLink dataLink : containerNode.getLinks()) {
-        if (dataLink.getDestination().getDagNodeId().equals(node.getId()) && dataLink.getSource().getDagNodeId().equals(containerNode.getId())) {
-          rootNodes.add(node);
-          break;
-        }
+    Deque<String> ready = new ArrayDeque<>();
+    for (Map.Entry<String, Integer> inDegree : inDegrees.entrySet()) {
+      if (inDegree.getValue() == 0) {
+        ready.add(inDegree.getKey());
       }
     }
-    return rootNodes;
-  }
-
-  private static List<DAGNode> getAdjacentNodes(DAGContainer containerNode, DAGNode dagNode) throws BindingException {
-    List<DAGNode> adjacentNodes = new ArrayList<DAGNode>();
-    for (DAGLink dataLink : containerNode.getLinks()) {
-      String nodeId = dataLink.getSource().getDagNodeId();
-      if (nodeId.equals(dagNode.getId()) && dataLink.getDestination().getDagNodeId() != containerNode.getId()) {
-        if (dataLink.getDestination().getDagNodeId().equals(containerNode.getId())) {
+    int sorted = 0;
+    while (!ready.isEmpty()) {
+      String nodeId = ready.poll();
+      sorted++;
+      for (DAGLink dataLink : containerNode.getOutgoingLinks(nodeId)) {
+        String destinationId = dataLink.getDestination().getDagNodeId();
+        if (destinationId.equals(containerNode.getId())) {
           continue;
         }
-        adjacentNodes.add(getNodeFromId(containerNode, dataLink.getDestination().getDagNodeId()));
+        int inDegree = inDegrees.get(destinationId) - 1;
+        inDegrees.put(destinationId, inDegree);
+        if (inDegree == 0) {
+          ready.add(destinationId);
+        }
       }
     }
-    return adjacentNodes;
-  }
-
-  private static DAGNode getNodeFromId(DAGContainer containerNode, String id) throws BindingException {
-    for (DAGNode node : containerNode.getChildren()) {
-      if (node.getId().equals(id)) {
-        return node;
-      }
+    if (sorted < inDegrees.size()) {
+      throw new BindingException("Container node contains loop");
     }
-    throw new BindingException(String.format("Can't find DAGNode with id %s", id));
   }
+
 }
@@ -0,0 +1,148 @@
+package org.rabix.bindings.helper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.rabix.bindings.ProtocolType;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Bounded caches shared by document resolvers of all protocols.
+ * <p>
+ * Resolved documents are weighted by their length, so a few huge workflows can't exhaust the memory.
+ * Referenced documents (<code>$import</code>, <code>$include</code>) are reused while their source is unchanged:
+ * files are checked by size and modification time, HTTP resources are revalidated with ETag or Last-Modified.
+ */
+public class DocumentResolverCache {
+
+  /**
+   * Maximum number of characters kept in resolved documents
+   */
+  public final static long MAX_DOCUMENTS_WEIGHT = Long.getLong("rabix.resolver.cache.max_weight", 64L * 1024 * 1024);
+
+  /**
+   * Maximum number of characters kept in referenced documents
+   */
+  public final static long MAX_CONTENTS_WEIGHT = Long.getLong("rabix.resolver.contents.max_weight", 16L * 1024 * 1024);
+
+  private final static int MAX_KEY_LENGTH = 256;
+  private final static long COARSE_MODIFICATION_GRANULARITY_MILLIS = 2000;
+
+  private final static Cache<String, String> documents = CacheBuilder.newBuilder().maximumWeight(MAX_DOCUMENTS_WEIGHT).weigher(new Weigher<String, String>() {
+    @Override
+    public int weigh(String key, String document) {
+      return key.length() + document.length();
+    }
+  }).build();
+
+  private final static Cache<String, Contents> contents = CacheBuilder.newBuilder().maximumWeight(MAX_CONTENTS_WEIGHT).weigher(new Weigher<String, Contents>() {
+    @Override
+    public int weigh(String key, Contents value) {
+      return key.length() + value.value.length();
+    }
+  }).build();
+
+  public static String getDocument(ProtocolType protocol, String appUrl) {
+    return documents.getIfPresent(documentKey(protocol, appUrl));
+  }
+
+  public static void putDocument(ProtocolType protocol, String appUrl, String document) {
+    documents.put(documentKey(protocol, appUrl), document);
+  }
+
+  /**
+   * Loads referenced document from HTTP or from the file relative to the referencing file
+   */
+  public static String loadContents(File file, String path) throws IOException {
+    if (path.startsWith(URIHelper.HTTP_URI_SCHEME)) {
+      return loadURL(path);
+    }
+    return loadFile(new File(file.getParentFile(), path).getCanonicalFile());
+  }
+
+  private static String loadFile(File file) throws IOException {
+    String key = file.getPath();
+    long length = file.length();
+    long lastModified = file.lastModified();
+
+    Contents cached = contents.getIfPresent(key);
+    if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+      return cached.value;
+    }
+    String value = FileUtils.readFileToString(file, StandardCharsets.UTF_8.name());
+    if (lastModified % 1000 == 0 && System.currentTimeMillis() - lastModified < COARSE_MODIFICATION_GRANULARITY_MILLIS) {
+      return value; // file system with coarse timestamps, file could still change without changing its modification time
+    }
+    if (file.length() == length && file.lastModified() == lastModified) {
+      contents.put(key, new Contents(value, length, lastModified, null));
+    }
+    return value;
+  }
+
+  private static String loadURL(String path) throws IOException {
+    Contents cached = contents.getIfPresent(path);
+
+    URLConnection connection = new URL(path).openConnection();
+    if (connection instanceof HttpURLConnection && cached != null) {
+      if (cached.etag != null) {
+        connection.setRequestProperty("If-None-Match", cached.etag);
+      } else {
+        connection.setIfModifiedSince(cached.lastModified);
+      }
+      if (((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+        ((HttpURLConnection) connection).disconnect();
+        return cached.value;
+      }
+    }
+
+    StringBuilder response = new StringBuilder();
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+      String inputLine;
+      while ((inputLine = in.readLine()) != null) {
+        response.append(inputLine);
+      }
+    }
+    String value = response.toString();
+    String etag = connection.getHeaderField("ETag");
+    long lastModified = connection.getLastModified();
+    if (etag != null || lastModified > 0) {
+      contents.put(path, new Contents(value, -1, lastModified, etag));
+    } else {
+      contents.invalidate(path);
+    }
+    return value;
+  }
+
+  private static String documentKey(ProtocolType protocol, String appUrl) {
+    if (appUrl.length() > MAX_KEY_LENGTH) {
+      appUrl = Hashing.sha256().hashString(appUrl, StandardCharsets.UTF_8).toString();
+    }
+    return protocol.name() + "$" + appUrl;
+  }
+
+  private static class Contents {
+    private final String value;
+    private final long length;
+    private final long lastModified;
+    private final String etag;
+
+    Contents(String value, long length, long lastModified, String etag) {
+      this.value = value;
+      this.length = length;
+      this.lastModified = lastModified;
+      this.etag = etag;
+    }
+  }
+
+}
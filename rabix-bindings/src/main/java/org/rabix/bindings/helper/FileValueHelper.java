@@ -1,10 +1,13 @@
 package org.rabix.bindings.helper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import org.rabix.bindings.BindingException;
@@ -15,7 +18,7 @@ import org.rabix.bindings.model.DirectoryValue;
 import org.rabix.bindings.model.FileValue;
 import org.rabix.bindings.model.Job;
 import org.rabix.bindings.transformer.FileTransformer;
-import org.rabix.common.helper.CloneHelper;
+import org.rabix.common.service.download.DownloadService.DownloadResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,33 +27,147 @@ public class FileValueHelper {
   private final static Logger logger = LoggerFactory.getLogger(FileValueHelper.class);
   
   /**
-   * Creates copy of value (in common format) in which all FileValues are updated using fileTransformer
+   * Creates copy of value (in common format) in which all FileValues are updated using fileTransformers.
+   * Transformers are applied one after another in a single traversal. Lists and maps without changed FileValues are shared with the original value.
    * @param value
-   * @param fileTransformer
+   * @param fileTransformers
    * @return copy of value with replaced FileValues
    */
-  public static Object updateFileValues(Object value, FileTransformer fileTransformer) throws BindingException {
+  public static Object updateFileValues(Object value, FileTransformer... fileTransformers) throws BindingException {
+    return transform(value, fileTransformers.length == 1 ? fileTransformers[0] : chain(fileTransformers));
+  }
+
+  /**
+   * Combines transformers into one that applies them in order. Transformation stops when a transformer returns null.
+   */
+  public static FileTransformer chain(final FileTransformer... fileTransformers) {
+    return new FileTransformer() {
+      @Override
+      public FileValue transform(FileValue fileValue) throws BindingException {
+        for (FileTransformer fileTransformer : fileTransformers) {
+          if (fileValue == null) {
+            break;
+          }
+          fileValue = fileTransformer.transform(fileValue);
+        }
+        return fileValue;
+      }
+    };
+  }
+
+  /**
+   * Creates transformer that maps paths of FileValues, their secondary files and directory listings using the particular {@link FilePathMapper}
+   */
+  public static FileTransformer mapPaths(final FilePathMapper fileMapper, final Map<String, Object> config) {
+    return new FileTransformer() {
+      @Override
+      public FileValue transform(FileValue fileValue) throws BindingException {
+        try {
+          return mapFileValue(fileValue, fileMapper, config);
+        } catch (FileMappingException e) {
+          logger.error("Failed to map file paths", e);
+          throw new BindingException(e);
+        }
+      }
+    };
+  }
+
+  /**
+   * Creates transformer that points FileValues and their secondary files to the paths of downloaded resources with the same location and name.
+   * The same location can be staged under different names. FileValues whose path doesn't change are returned as they are.
+   */
+  public static FileTransformer mapDownloads(Collection<DownloadResource> downloadResources) {
+    final Map<List<String>, DownloadResource> downloadResourcesByLocation = new HashMap<>();
+    for (DownloadResource downloadResource : downloadResources) {
+      List<String> key = Arrays.asList(downloadResource.getLocation(), downloadResource.getName());
+      if (downloadResource.getLocation() != null && !downloadResourcesByLocation.containsKey(key)) {
+        downloadResourcesByLocation.put(key, downloadResource);
+      }
+    }
+    return new FileTransformer() {
+      @Override
+      public FileValue transform(FileValue fileValue) {
+        FileValue newFileValue = fileValue;
+        if (fileValue.getLocation() != null) {
+          DownloadResource downloadResource = downloadResourcesByLocation.get(Arrays.asList(fileValue.getLocation(), fileValue.getName()));
+          if (downloadResource != null && !Objects.equals(downloadResource.getPath(), fileValue.getPath())) {
+            newFileValue = cloneWithPath(downloadResource.getPath(), newFileValue);
+          }
+          if (fileValue.getSecondaryFiles() != null) {
+            List<FileValue> secondaryFiles = new ArrayList<>();
+            boolean changed = false;
+            for (FileValue secondaryFile : fileValue.getSecondaryFiles()) {
+              FileValue newSecondaryFile = transform(secondaryFile);
+              changed |= newSecondaryFile != secondaryFile;
+              secondaryFiles.add(newSecondaryFile);
+            }
+            if (changed) {
+              newFileValue = cloneWithSecondaryFiles(secondaryFiles, newFileValue);
+            }
+          }
+        }
+        return newFileValue;
+      }
+
+      private FileValue cloneWithPath(String path, FileValue fileValue) {
+        if (fileValue instanceof DirectoryValue) {
+          return DirectoryValue.cloneWithPath((DirectoryValue) fileValue, path);
+        }
+        return FileValue.cloneWithPath(fileValue, path);
+      }
+
+      private FileValue cloneWithSecondaryFiles(List<FileValue> secondaryFiles, FileValue fileValue) {
+        if (fileValue instanceof DirectoryValue) {
+          return DirectoryValue.cloneWithSecondaryFiles((DirectoryValue) fileValue, secondaryFiles);
+        }
+        return FileValue.cloneWithSecondaryFiles(fileValue, secondaryFiles);
+      }
+    };
+  }
+
+  /**
+   * Null values and values removed by transformer are left out of lists and maps
+   */
+  private static Object transform(Object value, FileTransformer fileTransformer) throws BindingException {
     if (value instanceof FileValue) {
-      FileValue origFile = (FileValue) value;
-      return fileTransformer.transform(origFile);
-    } else if (value instanceof List) {
-      List<Object> ret = new ArrayList<>();
-      for (Object o : (List<?>) value) {
-        Object newValue = updateFileValues(o, fileTransformer);
-        if (newValue != null)
-          ret.add(newValue);
+      return fileTransformer.transform((FileValue) value);
+    }
+    if (value instanceof List<?>) {
+      List<?> list = (List<?>) value;
+      List<Object> ret = null;
+      for (int i = 0; i < list.size(); i++) {
+        Object element = list.get(i);
+        Object newElement = transform(element, fileTransformer);
+        if (ret == null && (newElement != element || newElement == null)) {
+          ret = new ArrayList<>(list.size());
+          ret.addAll(list.subList(0, i));
+        }
+        if (ret != null && newElement != null) {
+          ret.add(newElement);
+        }
       }
-      return ret;
-    } else if (value instanceof Map) {
-      Map<Object, Object> ret = new HashMap<>();
-      for (Object key : ((Map<?, ?>) value).keySet()) {
-        Object newValue = updateFileValues(((Map<?, ?>) value).get(key), fileTransformer);
-        if (newValue != null)
-          ret.put(key, newValue);
+      return ret != null ? ret : list;
+    }
+    if (value instanceof Map<?, ?>) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      Map<Object, Object> ret = null;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        Object newValue = transform(entry.getValue(), fileTransformer);
+        if (newValue == entry.getValue() && newValue != null) {
+          continue;
+        }
+        if (ret == null) {
+          ret = new HashMap<Object, Object>(map);
+        }
+        if (newValue != null) {
+          ret.put(entry.getKey(), newValue);
+        } else {
+          ret.remove(entry.getKey());
+        }
       }
-      return ret;
+      return ret != null ? ret : map;
     }
-    return CloneHelper.deepCopy(value);
+    return value;
   }
 
   /**
@@ -135,18 +252,8 @@ public class FileValueHelper {
    * @return            Updated Job object
    * @throws BindingException
    */
-  @SuppressWarnings("unchecked")
   public static Job mapInputFilePaths(Job job, FilePathMapper fileMapper) throws BindingException {
-    Map<String, Object> inputs = job.getInputs();
-    
-    Map<String, Object> clonedInputs = (Map<String, Object>) CloneHelper.deepCopy(inputs);
-    try {
-      mapValue(clonedInputs, fileMapper, job.getConfig());
-    } catch (FileMappingException e) {
-      logger.error("Failed to map file paths", e);
-      throw new BindingException(e);
-    }
-    return Job.cloneWithInputs(job, clonedInputs);
+    return updateInputFiles(job, mapPaths(fileMapper, job.getConfig()));
   }
 
   /**
@@ -157,61 +264,38 @@ public class FileValueHelper {
    * @return            Updated Job object
    * @throws BindingException
    */
-  @SuppressWarnings("unchecked")
   public static Job mapOutputFilePaths(Job job, FilePathMapper fileMapper) throws BindingException {
-    Map<String, Object> outputs = job.getOutputs();
-    
-    Map<String, Object> clonedOutputs = (Map<String, Object>) CloneHelper.deepCopy(outputs);
-    try {
-      mapValue(clonedOutputs, fileMapper, job.getConfig());
-    } catch (FileMappingException e) {
-      logger.error("Failed to map file paths", e);
-      throw new BindingException(e);
-    }
-    return Job.cloneWithOutputs(job, clonedOutputs);
+    return updateOutputFiles(job, mapPaths(fileMapper, job.getConfig()));
   }
-  
-  @SuppressWarnings("unchecked")
-  private static void mapValue(Object value, FilePathMapper fileMapper, Map<String, Object> config) throws FileMappingException {
-    if (value instanceof FileValue || value instanceof DirectoryValue) {
-      FileValue fileValue = (FileValue) value;
-      if (fileValue.getPath() != null) {
-        fileValue.setPath(fileMapper.map(fileValue.getPath(), config));
-        fileValue.setLocation(fileMapper.map(fileValue.getPath(), config));
-      }
-      if (fileValue.getDirname() != null) {
-        fileValue.setDirname(fileMapper.map(fileValue.getDirname(), config));
-      }
-
-      List<FileValue> secondaryFiles = fileValue.getSecondaryFiles();
-      if (secondaryFiles != null) {
-        for (FileValue secondaryFile : secondaryFiles) {
-          mapValue(secondaryFile, fileMapper, config);
-        }
-      }
-      if (value instanceof DirectoryValue) {
-        DirectoryValue directoryValue = (DirectoryValue) value;
 
-        List<FileValue> listing = directoryValue.getListing();
-        if (listing != null) {
-          for (FileValue listingFileValue : listing) {
-            mapValue(listingFileValue, fileMapper, config);
-          }
-        }
-      }
-      return;
+  private static FileValue mapFileValue(FileValue fileValue, FilePathMapper fileMapper, Map<String, Object> config) throws FileMappingException {
+    FileValue mappedValue;
+    if (fileValue instanceof DirectoryValue) {
+      DirectoryValue directoryValue = (DirectoryValue) fileValue;
+      mappedValue = DirectoryValue.cloneWithListing(directoryValue, mapFileValues(directoryValue.getListing(), fileMapper, config));
+    } else {
+      mappedValue = FileValue.cloneWithPath(fileValue, fileValue.getPath());
     }
-    if (value instanceof List<?>) {
-      for (Object singleValue : (List<?>) value) {
-        mapValue(singleValue, fileMapper, config);
-      }
-      return;
+    if (mappedValue.getPath() != null) {
+      mappedValue.setPath(fileMapper.map(mappedValue.getPath(), config));
+      mappedValue.setLocation(fileMapper.map(mappedValue.getPath(), config));
     }
-    if (value instanceof Map<?, ?>) {
-      for (Object singleValue : ((Map<String, Object>) value).values()) {
-        mapValue(singleValue, fileMapper, config);
-      }
+    if (mappedValue.getDirname() != null) {
+      mappedValue.setDirname(fileMapper.map(mappedValue.getDirname(), config));
     }
+    mappedValue.setSecondaryFiles(mapFileValues(fileValue.getSecondaryFiles(), fileMapper, config));
+    return mappedValue;
+  }
+
+  private static List<FileValue> mapFileValues(List<FileValue> fileValues, FilePathMapper fileMapper, Map<String, Object> config) throws FileMappingException {
+    if (fileValues == null) {
+      return null;
+    }
+    List<FileValue> mappedValues = new ArrayList<>(fileValues.size());
+    for (FileValue fileValue : fileValues) {
+      mappedValues.add(mapFileValue(fileValue, fileMapper, config));
+    }
+    return mappedValues;
   }
   
   /**
@@ -236,55 +320,53 @@ public class FileValueHelper {
     return findFiles(job.getOutputs());
   }
 
-  @SuppressWarnings("unchecked")
   private static Set<FileValue> findFiles(Object value) {
     Set<FileValue> fileValues = new HashSet<>();
-    if (value instanceof FileValue || value instanceof DirectoryValue) {
+    findFiles(value, fileValues);
+    return fileValues;
+  }
+
+  private static void findFiles(Object value, Set<FileValue> fileValues) {
+    if (value instanceof FileValue) {
       fileValues.add((FileValue) value);
-      return fileValues;
-    }
-    if (value instanceof List<?>) {
+    } else if (value instanceof List<?>) {
       for (Object singleValue : (List<?>) value) {
-        fileValues.addAll(findFiles(singleValue));
+        findFiles(singleValue, fileValues);
       }
-      return fileValues;
-    }
-    if (value instanceof Map<?, ?>) {
-      for (Object singleValue : ((Map<String, Object>) value).values()) {
-        fileValues.addAll(findFiles(singleValue));
+    } else if (value instanceof Map<?, ?>) {
+      for (Object singleValue : ((Map<?, ?>) value).values()) {
+        findFiles(singleValue, fileValues);
       }
-      return fileValues;
     }
-    return fileValues;
   }
   
   /**
-   * Updates input files
+   * Updates input files in a single traversal
    *
-   * @param job             Job object
-   * @param fileTransformer FileTransformer that transforms old file values into new ones
-   * @return                Updated Job object
+   * @param job               Job object
+   * @param fileTransformers  FileTransformers that transform old file values into new ones, applied in order
+   * @return                  Updated Job object
    * @throws BindingException
    */
   @SuppressWarnings("unchecked")
-  public static Job updateInputFiles(Job job, FileTransformer fileTransformer) throws BindingException {
-    Map<String, Object> clonedInputs = (Map<String, Object>) CloneHelper.deepCopy(job.getInputs());
-    clonedInputs = (Map<String, Object>) updateFileValues(clonedInputs, fileTransformer);
-    return Job.cloneWithInputs(job, clonedInputs);
+  public static Job updateInputFiles(Job job, FileTransformer... fileTransformers) throws BindingException {
+    Map<String, Object> inputs = job.getInputs(); // returns a copy on every call
+    Map<String, Object> updatedInputs = (Map<String, Object>) updateFileValues(inputs, fileTransformers);
+    return updatedInputs == inputs ? job : Job.cloneWithInputs(job, updatedInputs);
   }
   
   /**
-   * Updates output files
+   * Updates output files in a single traversal
    *
-   * @param job             Job object
-   * @param fileTransformer FileTransformer that transforms old file values into new ones
-   * @return                Updated Job object
+   * @param job               Job object
+   * @param fileTransformers  FileTransformers that transform old file values into new ones, applied in order
+   * @return                  Updated Job object
    * @throws BindingException
    */
   @SuppressWarnings("unchecked")
-  public static Job updateOutputFiles(Job job, FileTransformer fileTransformer) throws BindingException {
-    Map<String, Object> clonedOutputs = (Map<String, Object>) CloneHelper.deepCopy(job.getOutputs());
-    clonedOutputs = (Map<String, Object>) updateFileValues(clonedOutputs, fileTransformer);
-    return Job.cloneWithOutputs(job, clonedOutputs);
+  public static Job updateOutputFiles(Job job, FileTransformer... fileTransformers) throws BindingException {
+    Map<String, Object> outputs = job.getOutputs(); // returns a copy on every call
+    Map<String, Object> updatedOutputs = (Map<String, Object>) updateFileValues(outputs, fileTransformers);
+    return updatedOutputs == outputs ? job : Job.cloneWithOutputs(job, updatedOutputs);
   }
 }
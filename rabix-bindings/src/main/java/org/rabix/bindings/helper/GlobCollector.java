@@ -0,0 +1,302 @@
+package org.rabix.bindings.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Collects files for many GLOB patterns with a single walk through the working directory.
+ * <p>
+ * Patterns are matched segment by segment against the path relative to the working directory (or to the root for absolute patterns).
+ * Segment <code>**</code> matches any number of directories. Leading <code>.</code> and <code>..</code> segments move the starting directory.
+ * Directories that can't be matched by any registered pattern are not visited.
+ */
+public class GlobCollector {
+
+  private final static String ANY_DEPTH = "**";
+  private final static String SEPARATOR = "/";
+
+  private final File workingDir;
+
+  private final Map<String, Pattern> pending = new LinkedHashMap<>();
+  private final Map<String, Pattern> collected = new HashMap<>();
+
+  private int visitedDirectories = 0;
+
+  public GlobCollector(File workingDir) {
+    Preconditions.checkNotNull(workingDir);
+    this.workingDir = workingDir;
+  }
+
+  public File getWorkingDir() {
+    return workingDir;
+  }
+
+  /**
+   * Returns pattern that matches a bare name (GLOB without a path) at any depth below the working directory.
+   * GLOBs with a path are returned unchanged.
+   */
+  public static String anyDepth(String glob) {
+    return isName(glob) ? ANY_DEPTH + SEPARATOR + glob : glob;
+  }
+
+  /**
+   * Returns patterns that match a bare name (GLOB without a path) at most <code>depth</code> levels below the working directory.
+   * GLOBs with a path are returned unchanged.
+   */
+  public static List<String> upToDepth(String glob, int depth) {
+    List<String> globs = new ArrayList<>();
+    globs.add(glob);
+    if (isName(glob)) {
+      String prefix = "";
+      for (int level = 2; level <= depth; level++) {
+        prefix += "*" + SEPARATOR;
+        globs.add(prefix + glob);
+      }
+    }
+    return globs;
+  }
+
+  private static boolean isName(String glob) {
+    return !glob.contains(SEPARATOR) && !glob.equals(".") && !glob.equals("..");
+  }
+
+  /**
+   * Registers GLOB pattern so it's matched during the next walk
+   */
+  public synchronized void register(String glob) {
+    if (glob != null && !collected.containsKey(glob) && !pending.containsKey(glob)) {
+      pending.put(glob, new Pattern(glob, workingDir));
+    }
+  }
+
+  /**
+   * Returns files and directories that match GLOB pattern. Walks the directories if the pattern hasn't been collected yet.
+   */
+  public synchronized Set<File> collect(String glob, boolean includeDirectories) throws IOException {
+    Pattern pattern = collected.get(glob);
+    if (pattern == null) {
+      register(glob);
+      walk();
+      pattern = collected.get(glob);
+    }
+    if (includeDirectories) {
+      Set<File> files = new LinkedHashSet<>(pattern.files);
+      files.addAll(pattern.directories);
+      return files;
+    }
+    return new LinkedHashSet<>(pattern.files);
+  }
+
+  /**
+   * Returns number of directories entered by all walks so far
+   */
+  synchronized int getVisitedDirectories() {
+    return visitedDirectories;
+  }
+
+  /**
+   * Walks once through every starting directory of pending patterns
+   */
+  private void walk() throws IOException {
+    Map<File, List<Pattern>> patternsByBase = new LinkedHashMap<>();
+    for (Pattern pattern : pending.values()) {
+      List<Pattern> patterns = patternsByBase.get(pattern.base);
+      if (patterns == null) {
+        patterns = new ArrayList<>();
+        patternsByBase.put(pattern.base, patterns);
+      }
+      patterns.add(pattern);
+    }
+    try {
+      for (Map.Entry<File, List<Pattern>> entry : patternsByBase.entrySet()) {
+        walk(entry.getKey(), entry.getValue());
+      }
+    } finally {
+      collected.putAll(pending);
+      pending.clear();
+    }
+  }
+
+  private void walk(final File base, final List<Pattern> patterns) throws IOException {
+    if (!base.isDirectory()) {
+      return;
+    }
+    final Deque<BitSet[]> states = new ArrayDeque<>();
+
+    Files.walkFileTree(base.toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        BitSet[] current;
+        if (states.isEmpty()) {
+          current = new BitSet[patterns.size()];
+          for (int i = 0; i < patterns.size(); i++) {
+            current[i] = patterns.get(i).initial();
+          }
+        } else {
+          current = advance(states.peek(), dir);
+        }
+        boolean descend = false;
+        for (int i = 0; i < patterns.size(); i++) {
+          Pattern pattern = patterns.get(i);
+          if (current[i] != null && current[i].get(pattern.segments.size())) {
+            pattern.directories.add(dir.toFile());
+          }
+          descend |= pattern.canDescend(current[i]);
+        }
+        if (!descend) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        visitedDirectories++;
+        states.push(current);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        BitSet[] current = advance(states.peek(), file);
+        for (int i = 0; i < patterns.size(); i++) {
+          Pattern pattern = patterns.get(i);
+          if (current[i] != null && current[i].get(pattern.segments.size())) {
+            if (attrs.isDirectory()) {
+              pattern.directories.add(file.toFile());
+            } else {
+              pattern.files.add(file.toFile());
+            }
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+        states.pop();
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+        return FileVisitResult.CONTINUE;
+      }
+
+      private BitSet[] advance(BitSet[] parent, Path path) {
+        BitSet[] current = new BitSet[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+          current[i] = patterns.get(i).advance(parent[i], path.getFileName());
+        }
+        return current;
+      }
+    });
+  }
+
+  /**
+   * Single GLOB pattern split into path segments and matched as a small state machine
+   */
+  private static class Pattern {
+
+    private final File base;
+    private final List<String> segments = new ArrayList<>();
+    private final List<PathMatcher> matchers = new ArrayList<>();
+
+    private final Set<File> files = new LinkedHashSet<>();
+    private final Set<File> directories = new LinkedHashSet<>();
+
+    Pattern(String glob, File workingDir) {
+      File start = glob.startsWith(SEPARATOR) ? new File(SEPARATOR) : workingDir;
+      for (String segment : glob.split(SEPARATOR)) {
+        if (segment.isEmpty() || segment.equals(".")) {
+          continue;
+        }
+        if (segment.equals("..")) {
+          if (segments.isEmpty()) {
+            File parent = start.getAbsoluteFile().getParentFile();
+            start = parent != null ? parent : start;
+            continue;
+          }
+          if (isLiteral(segments.get(segments.size() - 1))) {
+            segments.remove(segments.size() - 1);
+            matchers.remove(matchers.size() - 1);
+            continue;
+          }
+        }
+        if (segment.equals(ANY_DEPTH) && !segments.isEmpty() && segments.get(segments.size() - 1).equals(ANY_DEPTH)) {
+          continue;
+        }
+        segments.add(segment);
+        matchers.add(segment.equals(ANY_DEPTH) ? null : FileSystems.getDefault().getPathMatcher("glob:" + segment));
+      }
+      this.base = start;
+    }
+
+    BitSet initial() {
+      BitSet state = new BitSet(segments.size() + 1);
+      state.set(0);
+      return closure(state);
+    }
+
+    /**
+     * Moves the state one path segment deeper. Returns null if the pattern can't match anything below.
+     */
+    BitSet advance(BitSet state, Path name) {
+      if (state == null) {
+        return null;
+      }
+      BitSet next = null;
+      for (int position = state.nextSetBit(0); position >= 0 && position < segments.size(); position = state.nextSetBit(position + 1)) {
+        PathMatcher matcher = matchers.get(position);
+        if (matcher == null) {
+          next = set(next, position);
+        } else if (matcher.matches(name)) {
+          next = set(next, position + 1);
+        }
+      }
+      return next != null ? closure(next) : null;
+    }
+
+    boolean canDescend(BitSet state) {
+      return state != null && state.nextSetBit(0) < segments.size();
+    }
+
+    private BitSet set(BitSet state, int position) {
+      if (state == null) {
+        state = new BitSet(segments.size() + 1);
+      }
+      state.set(position);
+      return state;
+    }
+
+    private BitSet closure(BitSet state) {
+      for (int position = 0; position < segments.size(); position++) {
+        if (state.get(position) && matchers.get(position) == null) {
+          state.set(position + 1);
+        }
+      }
+      return state;
+    }
+
+    private static boolean isLiteral(String segment) {
+      return !segment.equals("..") && !StringUtils.containsAny(segment, "*?[{\\");
+    }
+  }
+
+}
@@ -0,0 +1,245 @@
+package org.rabix.bindings.helper;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.mozilla.javascript.BaseFunction;
+import org.mozilla.javascript.ConsString;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.NativeJSON;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Undefined;
+import org.mozilla.javascript.Wrapper;
+import org.rabix.common.helper.JSONHelper;
+import org.rabix.common.json.BeanSerializer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BigIntegerNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Helper methods shared by Javascript expression resolvers.
+ * Values are converted between Java and Javascript directly, with the same result a JSON round trip would give.
+ */
+public class JavascriptHelper {
+
+  /**
+   * Rhino optimization level used for expressions. Levels >= 0 compile scripts to bytecode.
+   */
+  public final static int OPTIMIZATION_LEVEL = Integer.getInteger("rabix.expression.optimization_level", -1);
+
+  private final static double MAX_INTEGRAL = 1e21; // JSON.stringify switches to exponent notation
+
+  /**
+   * Cache of compiled scripts and sealed shared scopes. Scopes are keyed by the list of libraries evaluated in them.
+   */
+  public static class ScriptCache {
+
+    private final Cache<String, Script> scripts;
+    private final Cache<List<String>, ScriptableObject> sharedScopes;
+
+    public ScriptCache(long maxScripts, long maxScopes) {
+      this.scripts = CacheBuilder.newBuilder().maximumSize(maxScripts).build();
+      this.sharedScopes = CacheBuilder.newBuilder().maximumSize(maxScopes).build();
+    }
+
+    public Script getScript(final Context cx, final String source) {
+      try {
+        return scripts.get(source, new Callable<Script>() {
+          @Override
+          public Script call() throws Exception {
+            return cx.compileString(source, "script", 1, null);
+          }
+        });
+      } catch (ExecutionException | UncheckedExecutionException e) {
+        throw propagate(e.getCause());
+      }
+    }
+
+    /**
+     * Returns sealed scope with standard objects and evaluated libraries. Expressions should run in a new scope that has it as prototype.
+     */
+    public ScriptableObject getSharedScope(final Context cx, final List<String> libraries) {
+      try {
+        return sharedScopes.get(libraries, new Callable<ScriptableObject>() {
+          @Override
+          public ScriptableObject call() throws Exception {
+            ScriptableObject scope = cx.initStandardObjects();
+            for (int i = 0; i < libraries.size(); i++) {
+              cx.evaluateString(scope, libraries.get(i), "library_" + i + ".js", 1, null);
+            }
+            seal(scope);
+            return scope;
+          }
+        });
+      } catch (ExecutionException | UncheckedExecutionException e) {
+        throw propagate(e.getCause());
+      }
+    }
+
+    /**
+     * Seals scope, its members and their prototypes so one expression can't change what the next one sees
+     */
+    private void seal(ScriptableObject scope) {
+      for (Object id : scope.getAllIds()) {
+        Object member = id instanceof String ? scope.get((String) id, scope) : null;
+        if (member instanceof ScriptableObject) {
+          if (member instanceof BaseFunction) {
+            Object prototype = ScriptableObject.getProperty((Scriptable) member, "prototype");
+            if (prototype instanceof ScriptableObject) {
+              ((ScriptableObject) prototype).sealObject();
+            }
+          }
+          ((ScriptableObject) member).sealObject();
+        }
+      }
+      scope.sealObject();
+    }
+
+    private RuntimeException propagate(Throwable e) {
+      if (e instanceof RuntimeException) {
+        return (RuntimeException) e;
+      }
+      return new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Creates evaluation scope on top of the shared scope
+   */
+  public static Scriptable newScope(Context cx, Scriptable sharedScope) {
+    Scriptable scope = cx.newObject(sharedScope);
+    scope.setPrototype(sharedScope);
+    scope.setParentScope(null);
+    return scope;
+  }
+
+  /**
+   * Converts Java value to Javascript. Maps and collections are converted directly, other beans go through JSON.
+   */
+  public static Object toJavascript(Context cx, Scriptable scope, Object value) {
+    if (value == null || value instanceof String || value instanceof Boolean) {
+      return value;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    if (value instanceof Character) {
+      return value.toString();
+    }
+    if (value instanceof Map<?, ?>) {
+      Map<String, Object> sorted = new TreeMap<>(); // keys are ordered in the same way BeanSerializer orders them
+      for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+      }
+      Scriptable object = cx.newObject(scope);
+      for (Entry<String, Object> entry : sorted.entrySet()) {
+        ScriptableObject.putProperty(object, entry.getKey(), toJavascript(cx, scope, entry.getValue()));
+      }
+      return object;
+    }
+    if (value instanceof Collection<?> || value instanceof Object[]) {
+      Object[] elements = value instanceof Collection<?> ? ((Collection<?>) value).toArray() : (Object[]) value;
+      Object[] values = new Object[elements.length]; // Rhino accepts only Object[], toArray can return typed array
+      for (int i = 0; i < elements.length; i++) {
+        values[i] = toJavascript(cx, scope, elements[i]);
+      }
+      return cx.newArray(scope, values);
+    }
+    return NativeJSON.parse(cx, scope, BeanSerializer.serializePartial(value), new org.mozilla.javascript.Callable() {
+      @Override
+      public Object call(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
+        return args[1];
+      }
+    });
+  }
+
+  /**
+   * Converts Javascript value to JSON node in the same way JSON.stringify would
+   */
+  public static JsonNode toJsonNode(Context cx, Scriptable scope, Object value) {
+    if (value instanceof Scriptable) {
+      Object toJSON = ScriptableObject.getProperty((Scriptable) value, "toJSON");
+      if (toJSON instanceof Function) {
+        value = ((Function) toJSON).call(cx, scope, (Scriptable) value, new Object[] { "" });
+      }
+    }
+    if (value instanceof Wrapper) {
+      return JSONHelper.mapper.valueToTree(((Wrapper) value).unwrap());
+    }
+    if (value == null || value instanceof Undefined || value instanceof Function) {
+      return NullNode.getInstance();
+    }
+    if (value instanceof Boolean) {
+      return BooleanNode.valueOf((Boolean) value);
+    }
+    if (value instanceof Number) {
+      return toNumberNode(((Number) value).doubleValue());
+    }
+    if (value instanceof CharSequence || value instanceof ConsString) {
+      return TextNode.valueOf(value.toString());
+    }
+    if (value instanceof NativeArray) {
+      NativeArray array = (NativeArray) value;
+      ArrayNode arrayNode = JsonNodeFactory.instance.arrayNode();
+      for (int i = 0; i < array.getLength(); i++) {
+        arrayNode.add(toJsonNode(cx, scope, array.get(i, array)));
+      }
+      return arrayNode;
+    }
+    if (value instanceof Scriptable) {
+      Scriptable object = (Scriptable) value;
+      ObjectNode objectNode = JsonNodeFactory.instance.objectNode();
+      for (Object id : object.getIds()) {
+        Object property = id instanceof Integer ? object.get((Integer) id, object) : object.get(id.toString(), object);
+        if (property instanceof Undefined || property instanceof Function || property == Scriptable.NOT_FOUND) {
+          continue;
+        }
+        objectNode.set(id.toString(), toJsonNode(cx, scope, property));
+      }
+      return objectNode;
+    }
+    return TextNode.valueOf(Context.toString(value));
+  }
+
+  /**
+   * Number node of the same type Jackson would parse from JSON.stringify output
+   */
+  private static JsonNode toNumberNode(double number) {
+    if (Double.isNaN(number) || Double.isInfinite(number)) {
+      return NullNode.getInstance();
+    }
+    if (number == Math.rint(number) && Math.abs(number) < MAX_INTEGRAL) {
+      if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+        return IntNode.valueOf((int) number);
+      }
+      if (number >= Long.MIN_VALUE && number <= Long.MAX_VALUE) {
+        return LongNode.valueOf((long) number);
+      }
+      return BigIntegerNode.valueOf(new BigDecimal(number).toBigInteger());
+    }
+    return DoubleNode.valueOf(number);
+  }
+
+}
@@ -45,7 +45,13 @@ public class DirectoryValue extends FileValue {
         fileValue.nameroot, fileValue.nameext, fileValue.contents, fileValue.checksum, secondaryFiles,
         fileValue.properties, fileValue.listing, fileValue.format);
   }
-  
+
+  public static DirectoryValue cloneWithListing(DirectoryValue fileValue, List<FileValue> listing) {
+    return new DirectoryValue(fileValue.size, fileValue.path, fileValue.location, fileValue.name, fileValue.dirname,
+        fileValue.nameroot, fileValue.nameext, fileValue.contents, fileValue.checksum, fileValue.secondaryFiles,
+        fileValue.properties, listing, fileValue.format);
+  }
+
   public List<FileValue> getListing() {
     return listing;
   }
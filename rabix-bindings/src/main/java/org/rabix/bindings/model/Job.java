@@ -174,6 +174,11 @@ public class Job {
     return visiblePorts;
   }
   
+  /**
+   * Returns a deep copy of the inputs. Values are shared between Jobs created from the same variables and the
+   * protocol processors (e.g. path mapping and file properties callbacks) modify the returned values in place, 
+   * so a view of the shared values is not safe to return.
+   */
   @SuppressWarnings("unchecked")
   public Map<String, Object> getInputs() {
     try {
@@ -183,6 +188,9 @@ public class Job {
     }
   }
   
+  /**
+   * Returns a deep copy of the outputs for the same reason as {@link #getInputs()}
+   */
   @SuppressWarnings("unchecked")
   public Map<String, Object> getOutputs() {
     try {
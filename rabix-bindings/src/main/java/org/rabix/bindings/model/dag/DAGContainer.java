@@ -1,5 +1,8 @@
 package org.rabix.bindings.model.dag;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -7,6 +10,7 @@ import org.rabix.bindings.model.Application;
 import org.rabix.bindings.model.ScatterMethod;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class DAGContainer extends DAGNode {
@@ -16,6 +20,9 @@ public class DAGContainer extends DAGNode {
   @JsonProperty("children")
   private final List<DAGNode> children;
 
+  @JsonIgnore
+  private volatile Index index;
+
   @JsonCreator
   public DAGContainer(@JsonProperty("id") String id, @JsonProperty("inputPorts") List<DAGLinkPort> inputPorts, @JsonProperty("outputPorts") List<DAGLinkPort> outputPorts, @JsonProperty("app") Application app, @JsonProperty("scatterMethod") ScatterMethod scatterMethod, @JsonProperty("links") List<DAGLink> links, @JsonProperty("children") List<DAGNode> children, @JsonProperty("defaults") Map<String, Object> defaults) {
     super(id, inputPorts, outputPorts, scatterMethod, app, defaults);
@@ -31,6 +38,75 @@ public class DAGContainer extends DAGNode {
     return links;
   }
 
+  /**
+   * Returns child with the given id or null if there is no such child
+   */
+  public DAGNode getChild(String id) {
+    return getIndex().children.get(id);
+  }
+
+  /**
+   * Returns links whose destination is the node with the given id
+   */
+  public List<DAGLink> getIncomingLinks(String nodeId) {
+    return getLinks(getIndex().incoming, nodeId);
+  }
+
+  /**
+   * Returns links whose source is the node with the given id
+   */
+  public List<DAGLink> getOutgoingLinks(String nodeId) {
+    return getLinks(getIndex().outgoing, nodeId);
+  }
+
+  private List<DAGLink> getLinks(Map<String, List<DAGLink>> linksByNode, String nodeId) {
+    List<DAGLink> nodeLinks = linksByNode.get(nodeId);
+    return nodeLinks != null ? Collections.unmodifiableList(nodeLinks) : Collections.<DAGLink>emptyList();
+  }
+
+  /**
+   * Indexes are built on the first lookup. Children and links are not expected to change afterwards.
+   */
+  private Index getIndex() {
+    Index current = index;
+    if (current == null) {
+      current = new Index(children, links);
+      index = current;
+    }
+    return current;
+  }
+
+  private static class Index {
+    private final Map<String, DAGNode> children = new HashMap<>();
+    private final Map<String, List<DAGLink>> incoming = new HashMap<>();
+    private final Map<String, List<DAGLink>> outgoing = new HashMap<>();
+
+    Index(List<DAGNode> children, List<DAGLink> links) {
+      if (children != null) {
+        for (DAGNode child : children) {
+          if (!this.children.containsKey(child.getId())) {
+            this.children.put(child.getId(), child);
+          }
+        }
+      }
+      if (links != null) {
+        for (DAGLink link : links) {
+          add(incoming, link.getDestination().getDagNodeId(), link);
+          add(outgoing, link.getSource().getDagNodeId(), link);
+        }
+      }
+    }
+
+    private static void add(Map<String, List<DAGLink>> linksByNode, String nodeId, DAGLink link) {
+      List<DAGLink> nodeLinks = linksByNode.get(nodeId);
+      if (nodeLinks == null) {
+        nodeLinks = new ArrayList<>();
+        linksByNode.put(nodeId, nodeLinks);
+      }
+      nodeLinks.add(link);
+    }
+  }
+
   @Override
   public DAGNodeType getType() {
     return DAGNodeType.CONTAINER;
@@ -0,0 +1,62 @@
+package org.rabix.bindings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.rabix.bindings.helper.URIHelper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class BindingsFactoryTest {
+
+  @Test
+  public void testSniffJson() {
+    String app = "{\"class\": \"CommandLineTool\", \"inputs\": {\"a\": {\"cwlVersion\": \"cwl:draft-2\"}}, \"hints\": [1, 2], \"cwlVersion\": \"v1.0\"}";
+    Assert.assertEquals(BindingsFactory.sniff(URIHelper.createDataURI(app)), ProtocolType.CWL);
+    Assert.assertEquals(BindingsFactory.sniff(URIHelper.createDataURI("{\"cwlVersion\": \"sbg:draft-2\"}")), ProtocolType.SB);
+    Assert.assertNull(BindingsFactory.sniff(URIHelper.createDataURI("{\"class\": \"Workflow\", \"inputs\": {\"cwlVersion\": \"v1.0\"}}")));
+  }
+
+  @Test
+  public void testSniffYaml() {
+    Assert.assertEquals(BindingsFactory.sniff(URIHelper.createDataURI("class: CommandLineTool\ncwlVersion: v1.0\n")), ProtocolType.CWL);
+    Assert.assertEquals(BindingsFactory.sniff(URIHelper.createDataURI("#!/usr/bin/env cwl-runner\ncwlVersion: \"cwl:draft-3\" # comment\n")), ProtocolType.DRAFT3);
+    Assert.assertEquals(BindingsFactory.sniff(URIHelper.createDataURI("cwlVersion : 'cwl:draft-2'")), ProtocolType.DRAFT2);
+    Assert.assertNull(BindingsFactory.sniff(URIHelper.createDataURI("inputs:\n  cwlVersion: v1.0\n")));
+  }
+
+  @Test
+  public void testSniffFile() throws IOException {
+    File file = File.createTempFile("app", ".cwl");
+    try {
+      Files.write(file.toPath(), "cwlVersion: v1.0\nclass: CommandLineTool\n".getBytes(StandardCharsets.UTF_8));
+      String app = URIHelper.createURI(URIHelper.FILE_URI_SCHEME, file.getAbsolutePath());
+      Assert.assertEquals(BindingsFactory.sniff(app), ProtocolType.CWL);
+      Assert.assertEquals(BindingsFactory.sniff(app + "#main"), ProtocolType.CWL);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testSniffUnknown() {
+    Assert.assertNull(BindingsFactory.sniff(URIHelper.createDataURI("{\"cwlVersion\": \"v2.0\"}")));
+    Assert.assertNull(BindingsFactory.sniff(URIHelper.createDataURI("{not json")));
+    Assert.assertNull(BindingsFactory.sniff("http://localhost/app.cwl"));
+  }
+
+  @Test
+  public void testFailedDetectionIsNotCached() {
+    String app = URIHelper.createDataURI("{\"cwlVersion\": \"v2.0\"}");
+    try {
+      BindingsFactory.create(app);
+      Assert.fail("Detection should fail");
+    } catch (BindingException e) {
+      Assert.assertNull(BindingsFactory.getCached(app));
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+package org.rabix.bindings.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.rabix.bindings.ProtocolType;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+@Test(groups = { "functional" })
+public class DocumentResolverCacheTest {
+
+  private final static long MODIFIED = 1000000000123L;
+
+  private File directory;
+  private File app;
+
+  @BeforeMethod
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("resolver").toFile().getCanonicalFile();
+    app = new File(directory, "app.cwl");
+  }
+
+  @AfterMethod
+  public void deleteDirectory() throws IOException {
+    FileUtils.deleteDirectory(directory);
+  }
+
+  @Test
+  public void testDocuments() {
+    String appUrl = "file://" + app.getPath();
+    DocumentResolverCache.putDocument(ProtocolType.CWL, appUrl, "{\"cwl\": true}");
+    DocumentResolverCache.putDocument(ProtocolType.DRAFT2, appUrl, "{\"draft2\": true}");
+
+    Assert.assertEquals(DocumentResolverCache.getDocument(ProtocolType.CWL, appUrl), "{\"cwl\": true}");
+    Assert.assertEquals(DocumentResolverCache.getDocument(ProtocolType.DRAFT2, appUrl), "{\"draft2\": true}");
+    Assert.assertNull(DocumentResolverCache.getDocument(ProtocolType.SB, appUrl));
+
+    String longUrl = URIHelper.createDataURI(Strings.repeat("x", 1024));
+    DocumentResolverCache.putDocument(ProtocolType.CWL, longUrl, "{}");
+    Assert.assertEquals(DocumentResolverCache.getDocument(ProtocolType.CWL, longUrl), "{}");
+    Assert.assertNull(DocumentResolverCache.getDocument(ProtocolType.CWL, longUrl + "x"));
+  }
+
+  @Test
+  public void testFileIsReusedUntilItChanges() throws IOException {
+    File include = write("include.js", "first", MODIFIED);
+    Assert.assertEquals(DocumentResolverCache.loadContents(app, "include.js"), "first");
+
+    write("include.js", "other", MODIFIED); // same size and modification time, so the cached contents are still used
+    Assert.assertEquals(DocumentResolverCache.loadContents(app, "include.js"), "first");
+
+    Assert.assertTrue(include.setLastModified(MODIFIED + 5000));
+    Assert.assertEquals(DocumentResolverCache.loadContents(app, "include.js"), "other");
+
+    write("include.js", "longer contents", MODIFIED + 5000);
+    Assert.assertEquals(DocumentResolverCache.loadContents(app, "include.js"), "longer contents");
+  }
+
+  @Test
+  public void testRelativePaths() throws IOException {
+    write("lib/import.yml", "imported", MODIFIED);
+    File nested = new File(directory, "lib/nested.cwl");
+
+    Assert.assertEquals(DocumentResolverCache.loadContents(app, "lib/import.yml"), "imported");
+    Assert.assertEquals(DocumentResolverCache.loadContents(nested, "import.yml"), "imported");
+    Assert.assertEquals(DocumentResolverCache.loadContents(nested, "../lib/./import.yml"), "imported");
+  }
+
+  @Test
+  public void testRecentlyModifiedFileIsNotCached() throws IOException {
+    long modified = (System.currentTimeMillis() / 1000) * 1000; // looks like a file system with second granularity
+    write("recent.js", "first", modified);
+    Assert.assertEquals(DocumentResolverCache.loadContents(app, "recent.js"), "first");
+
+    write("recent.js", "other", modified);
+    Assert.assertEquals(DocumentResolverCache.loadContents(app, "recent.js"), "other");
+  }
+
+  @Test
+  public void testHttpIsRevalidated() throws IOException {
+    final AtomicInteger downloads = new AtomicInteger();
+    final AtomicInteger revalidations = new AtomicInteger();
+    HttpServer server = start(new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+          revalidations.incrementAndGet();
+          exchange.sendResponseHeaders(304, -1);
+        } else {
+          downloads.incrementAndGet();
+          exchange.getResponseHeaders().add("ETag", "\"v1\"");
+          respond(exchange, "remote");
+        }
+        exchange.close();
+      }
+    });
+    try {
+      String url = "http://localhost:" + server.getAddress().getPort() + "/etag.yml";
+      Assert.assertEquals(DocumentResolverCache.loadContents(app, url), "remote");
+      Assert.assertEquals(DocumentResolverCache.loadContents(app, url), "remote");
+      Assert.assertEquals(downloads.get(), 1);
+      Assert.assertEquals(revalidations.get(), 1);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void testHttpWithoutValidatorsIsNotCached() throws IOException {
+    final AtomicInteger downloads = new AtomicInteger();
+    HttpServer server = start(new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        respond(exchange, "download " + downloads.incrementAndGet());
+        exchange.close();
+      }
+    });
+    try {
+      String url = "http://localhost:" + server.getAddress().getPort() + "/plain.yml";
+      Assert.assertEquals(DocumentResolverCache.loadContents(app, url), "download 1");
+      Assert.assertEquals(DocumentResolverCache.loadContents(app, url), "download 2");
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  private HttpServer start(HttpHandler handler) throws IOException {
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", handler);
+    server.start();
+    return server;
+  }
+
+  private void respond(HttpExchange exchange, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private File write(String path, String content, long modified) throws IOException {
+    File file = new File(directory, path);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    Assert.assertTrue(file.setLastModified(modified));
+    return file;
+  }
+
+}
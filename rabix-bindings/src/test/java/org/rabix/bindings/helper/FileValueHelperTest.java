@@ -0,0 +1,192 @@
+package org.rabix.bindings.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.rabix.bindings.BindingException;
+import org.rabix.bindings.mapper.FileMappingException;
+import org.rabix.bindings.mapper.FilePathMapper;
+import org.rabix.bindings.model.FileValue;
+import org.rabix.bindings.model.Job;
+import org.rabix.bindings.transformer.FileTransformer;
+import org.rabix.common.service.download.DownloadService.DownloadResource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class FileValueHelperTest {
+
+  private final static FileTransformer IDENTITY = new FileTransformer() {
+    @Override
+    public FileValue transform(FileValue fileValue) throws BindingException {
+      return fileValue;
+    }
+  };
+
+  @Test
+  public void testUnchangedValueIsShared() throws BindingException {
+    Map<String, Object> inputs = inputs(file("a.txt"), file("b.txt"), file("c.txt"));
+    Assert.assertSame(FileValueHelper.updateFileValues(inputs, IDENTITY, IDENTITY), inputs);
+
+    Job job = new Job("app", inputs);
+    Assert.assertSame(FileValueHelper.updateInputFiles(job, IDENTITY), job);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testOnlyChangedBranchesAreCopied() throws BindingException {
+    FileValue a = file("a.txt");
+    FileValue b = file("b.txt");
+    FileValue c = file("c.txt");
+    Map<String, Object> inputs = inputs(a, b, c);
+
+    Map<String, Object> result = (Map<String, Object>) FileValueHelper.updateFileValues(inputs, replace("b.txt", "b2.txt"));
+
+    Assert.assertNotSame(result, inputs);
+    List<Object> files = (List<Object>) result.get("files");
+    Assert.assertNotSame(files, inputs.get("files"));
+    Assert.assertSame(files.get(0), a);
+    Assert.assertEquals(((FileValue) files.get(1)).getPath(), "b2.txt");
+    Assert.assertSame(result.get("record"), inputs.get("record"));
+    Assert.assertSame(result.get("string"), inputs.get("string"));
+
+    Assert.assertSame(((List<Object>) inputs.get("files")).get(1), b); // original is not changed
+    Assert.assertEquals(b.getPath(), "b.txt");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testRemovedValuesAreLeftOut() throws BindingException {
+    Map<String, Object> inputs = inputs(file("a.txt"), file("b.txt"), file("c.txt"));
+
+    Map<String, Object> result = (Map<String, Object>) FileValueHelper.updateFileValues(inputs, remove("a.txt", "c.txt"));
+
+    Assert.assertEquals(((List<Object>) result.get("files")).size(), 1);
+    Assert.assertFalse(((Map<String, Object>) result.get("record")).containsKey("file"));
+    Assert.assertEquals(((List<Object>) inputs.get("files")).size(), 2);
+  }
+
+  @Test
+  public void testChainAppliesTransformersInOrder() throws BindingException {
+    FileValue result = FileValueHelper.chain(replace("a.txt", "b.txt"), replace("b.txt", "c.txt")).transform(file("a.txt"));
+    Assert.assertEquals(result.getPath(), "c.txt");
+  }
+
+  @Test
+  public void testChainStopsOnNull() throws BindingException {
+    final AtomicInteger calls = new AtomicInteger();
+    FileTransformer counter = new FileTransformer() {
+      @Override
+      public FileValue transform(FileValue fileValue) throws BindingException {
+        calls.incrementAndGet();
+        return fileValue;
+      }
+    };
+    FileValue result = FileValueHelper.chain(counter, remove("a.txt"), counter).transform(file("a.txt"));
+    Assert.assertNull(result);
+    Assert.assertEquals(calls.get(), 1);
+  }
+
+  @Test
+  public void testMapPaths() throws BindingException {
+    FileValue secondaryFile = file("/data/a.txt.idx");
+    FileValue fileValue = new FileValue(null, "/data/a.txt", "/data/a.txt", null, Arrays.asList(secondaryFile), null, null);
+    FilePathMapper mapper = new FilePathMapper() {
+      @Override
+      public String map(String path, Map<String, Object> config) throws FileMappingException {
+        return "/mnt" + path;
+      }
+    };
+
+    FileValue result = FileValueHelper.mapPaths(mapper, null).transform(fileValue);
+
+    Assert.assertEquals(result.getPath(), "/mnt/data/a.txt");
+    Assert.assertEquals(result.getSecondaryFiles().get(0).getPath(), "/mnt/data/a.txt.idx");
+    Assert.assertEquals(fileValue.getPath(), "/data/a.txt");
+    Assert.assertEquals(secondaryFile.getPath(), "/data/a.txt.idx");
+  }
+
+  @Test
+  public void testMapDownloads() throws BindingException {
+    FileValue staged = new FileValue(null, "a.txt", "ftp://host/a.txt", null, null, null, "a.txt");
+    FileValue unchanged = new FileValue(null, "b.txt", "ftp://host/b.txt", null, null, null, "b.txt");
+    FileValue stagedSecondary = new FileValue(null, "c.txt.idx", "ftp://host/c.txt.idx", null, null, null, "c.txt.idx");
+    FileValue withSecondary = new FileValue(null, "c.txt", "ftp://host/c.txt", null, Arrays.asList(stagedSecondary), null, "c.txt");
+    FileValue unknown = new FileValue(null, "d.txt", "ftp://host/d.txt", null, null, null, "d.txt");
+
+    List<DownloadResource> downloadResources = new ArrayList<>();
+    downloadResources.add(new DownloadResource("ftp://host/a.txt", "/work/a.txt", "a.txt", false));
+    downloadResources.add(new DownloadResource("ftp://host/b.txt", "b.txt", "b.txt", false));
+    downloadResources.add(new DownloadResource("ftp://host/c.txt", "c.txt", "c.txt", false));
+    downloadResources.add(new DownloadResource("ftp://host/c.txt.idx", "/work/c.txt.idx", "c.txt.idx", false));
+    FileTransformer transformer = FileValueHelper.mapDownloads(downloadResources);
+
+    FileValue result = transformer.transform(staged);
+    Assert.assertEquals(result.getPath(), "/work/a.txt");
+    Assert.assertEquals(staged.getPath(), "a.txt");
+
+    Assert.assertSame(transformer.transform(unchanged), unchanged);
+    Assert.assertSame(transformer.transform(unknown), unknown);
+
+    result = transformer.transform(withSecondary);
+    Assert.assertEquals(result.getPath(), "c.txt");
+    Assert.assertEquals(result.getSecondaryFiles().get(0).getPath(), "/work/c.txt.idx");
+    Assert.assertSame(withSecondary.getSecondaryFiles().get(0), stagedSecondary);
+  }
+
+  @Test
+  public void testMapDownloadsOfSameLocation() throws BindingException {
+    FileValue first = new FileValue(null, "first.txt", "ftp://host/a.txt", null, null, null, "first.txt");
+    FileValue second = new FileValue(null, "second.txt", "ftp://host/a.txt", null, null, null, "second.txt");
+
+    Set<DownloadResource> downloadResources = new HashSet<>();
+    downloadResources.add(new DownloadResource("ftp://host/a.txt", "/work/first.txt", "first.txt", false));
+    downloadResources.add(new DownloadResource("ftp://host/a.txt", "/work/second.txt", "second.txt", false));
+    FileTransformer transformer = FileValueHelper.mapDownloads(downloadResources);
+
+    Assert.assertEquals(transformer.transform(first).getPath(), "/work/first.txt");
+    Assert.assertEquals(transformer.transform(second).getPath(), "/work/second.txt");
+  }
+
+  /**
+   * Inputs with two files in a list, a file in a record and a string
+   */
+  private Map<String, Object> inputs(FileValue first, FileValue second, FileValue third) {
+    Map<String, Object> record = new HashMap<>();
+    record.put("file", third);
+    Map<String, Object> inputs = new HashMap<>();
+    inputs.put("files", new ArrayList<Object>(Arrays.asList(first, second)));
+    inputs.put("record", record);
+    inputs.put("string", "text");
+    return inputs;
+  }
+
+  private FileValue file(String path) {
+    return new FileValue(null, path, null, null, null, null, null);
+  }
+
+  private FileTransformer replace(final String path, final String newPath) {
+    return new FileTransformer() {
+      @Override
+      public FileValue transform(FileValue fileValue) throws BindingException {
+        return fileValue.getPath().equals(path) ? FileValue.cloneWithPath(fileValue, newPath) : fileValue;
+      }
+    };
+  }
+
+  private FileTransformer remove(final String... paths) {
+    return new FileTransformer() {
+      @Override
+      public FileValue transform(FileValue fileValue) throws BindingException {
+        return Arrays.asList(paths).contains(fileValue.getPath()) ? null : fileValue;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,142 @@
+package org.rabix.bindings.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class GlobCollectorTest {
+
+  private File root;
+  private File workingDir;
+
+  @BeforeMethod
+  public void createTree() throws IOException {
+    root = Files.createTempDirectory("glob").toFile().getCanonicalFile();
+    workingDir = new File(root, "work");
+    create("sibling.txt");
+    create("work/a.txt");
+    create("work/b.log");
+    create("work/sub/c.txt");
+    create("work/sub/deep/d.txt");
+    create("work/out/e.txt");
+    create("work/skip/x/y/z.txt");
+  }
+
+  @AfterMethod
+  public void deleteTree() throws IOException {
+    FileUtils.deleteDirectory(root);
+  }
+
+  @Test
+  public void testName() throws IOException {
+    GlobCollector collector = new GlobCollector(workingDir);
+    Assert.assertEquals(collector.collect("*.txt", false), files("work/a.txt"));
+    Assert.assertEquals(collector.collect("c.txt", false), files());
+  }
+
+  @Test
+  public void testAnyDepth() throws IOException {
+    GlobCollector collector = new GlobCollector(workingDir);
+    Assert.assertEquals(collector.collect("**/*.txt", false), files("work/a.txt", "work/sub/c.txt", "work/sub/deep/d.txt", "work/out/e.txt", "work/skip/x/y/z.txt"));
+    Assert.assertEquals(collector.collect("sub/**/*.txt", false), files("work/sub/c.txt", "work/sub/deep/d.txt"));
+    Assert.assertEquals(collector.collect("**/deep/*", false), files("work/sub/deep/d.txt"));
+  }
+
+  @Test
+  public void testPath() throws IOException {
+    GlobCollector collector = new GlobCollector(workingDir);
+    Assert.assertEquals(collector.collect("sub/*/d.txt", false), files("work/sub/deep/d.txt"));
+    Assert.assertEquals(collector.collect("./sub/c.txt", false), files("work/sub/c.txt"));
+    Assert.assertEquals(collector.collect("*/*.txt", false), files("work/sub/c.txt", "work/out/e.txt"));
+  }
+
+  @Test
+  public void testParentDirectory() throws IOException {
+    GlobCollector collector = new GlobCollector(workingDir);
+    Assert.assertEquals(collector.collect("../sibling.txt", false), files("sibling.txt"));
+    Assert.assertEquals(collector.collect("sub/../a.txt", false), files("work/a.txt"));
+    Assert.assertEquals(collector.collect("sub/deep/../../out/*", false), files("work/out/e.txt"));
+  }
+
+  @Test
+  public void testAbsolutePath() throws IOException {
+    GlobCollector collector = new GlobCollector(workingDir);
+    Assert.assertEquals(collector.collect(root.getAbsolutePath() + "/*.txt", false), files("sibling.txt"));
+    Assert.assertEquals(collector.collect(workingDir.getAbsolutePath() + "/sub/c.txt", false), files("work/sub/c.txt"));
+  }
+
+  @Test
+  public void testDirectories() throws IOException {
+    GlobCollector collector = new GlobCollector(workingDir);
+    Assert.assertEquals(collector.collect("*u*", true), files("work/sub", "work/out"));
+    Assert.assertEquals(collector.collect("*u*", false), files());
+    Assert.assertEquals(collector.collect(".", true), files("work"));
+  }
+
+  @Test
+  public void testDirectoriesArePruned() throws IOException {
+    GlobCollector collector = new GlobCollector(workingDir);
+    collector.collect("sub/*.txt", false);
+    Assert.assertEquals(collector.getVisitedDirectories(), 2); // work and sub
+
+    collector.collect("skip/x/*", false);
+    Assert.assertEquals(collector.getVisitedDirectories(), 5); // work, skip and x
+  }
+
+  @Test
+  public void testRegisteredGlobsAreCollectedWithSingleWalk() throws IOException {
+    GlobCollector collector = new GlobCollector(workingDir);
+    collector.register("*.log");
+    collector.register("sub/*.txt");
+    collector.register("out/*");
+
+    Assert.assertEquals(collector.collect("*.log", false), files("work/b.log"));
+    int visited = collector.getVisitedDirectories();
+    Assert.assertEquals(collector.collect("sub/*.txt", false), files("work/sub/c.txt"));
+    Assert.assertEquals(collector.collect("out/*", false), files("work/out/e.txt"));
+    Assert.assertEquals(collector.getVisitedDirectories(), visited);
+  }
+
+  @Test
+  public void testMissingWorkingDir() throws IOException {
+    GlobCollector collector = new GlobCollector(new File(root, "missing"));
+    Assert.assertEquals(collector.collect("**/*", true), files());
+  }
+
+  @Test
+  public void testNameDepth() {
+    Assert.assertEquals(GlobCollector.anyDepth("*.txt"), "**/*.txt");
+    Assert.assertEquals(GlobCollector.anyDepth("sub/*.txt"), "sub/*.txt");
+    Assert.assertEquals(GlobCollector.anyDepth("."), ".");
+
+    Assert.assertEquals(GlobCollector.upToDepth("*.txt", 2), Arrays.asList("*.txt", "*/*.txt"));
+    Assert.assertEquals(GlobCollector.upToDepth("*.txt", 3), Arrays.asList("*.txt", "*/*.txt", "*/*/*.txt"));
+    Assert.assertEquals(GlobCollector.upToDepth("sub/*.txt", 2), Collections.singletonList("sub/*.txt"));
+  }
+
+  private void create(String path) throws IOException {
+    File file = new File(root, path);
+    file.getParentFile().mkdirs();
+    file.createNewFile();
+  }
+
+  private Set<File> files(String... paths) {
+    Set<File> files = new HashSet<>();
+    for (String path : paths) {
+      files.add(new File(root, path));
+    }
+    return files;
+  }
+
+}
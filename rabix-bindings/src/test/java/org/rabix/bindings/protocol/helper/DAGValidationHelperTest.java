@@ -1,8 +1,16 @@
 package org.rabix.bindings.protocol.helper;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.rabix.bindings.BindingException;
 import org.rabix.bindings.helper.DAGValidationHelper;
+import org.rabix.bindings.model.LinkMerge;
 import org.rabix.bindings.model.dag.DAGContainer;
+import org.rabix.bindings.model.dag.DAGLink;
+import org.rabix.bindings.model.dag.DAGLinkPort;
+import org.rabix.bindings.model.dag.DAGLinkPort.LinkPortType;
 import org.rabix.bindings.model.dag.DAGNode;
 import org.rabix.common.helper.JSONHelper;
 import org.rabix.common.helper.ResourceHelper;
@@ -11,6 +19,8 @@ import org.testng.annotations.Test;
 @Test(groups = { "functional" })
 public class DAGValidationHelperTest {
 
+  private final static String ROOT = "root";
+
   @Test(expectedExceptions = BindingException.class)
   public void testDetectingLoopInWorkflow() throws Exception {
     String appText = ResourceHelper.readResource(this.getClass(), "grep-wf-loop.cwl.json");
@@ -25,4 +35,45 @@ public class DAGValidationHelperTest {
     DAGValidationHelper.detectLoop((DAGContainer) node);
   }
 
+  @Test(expectedExceptions = BindingException.class)
+  public void testDetectingSelfLoop() throws Exception {
+    DAGValidationHelper.detectLoop(container(new String[] { "a" },
+        link(ROOT, "a"), link("a", "a"), link("a", ROOT)));
+  }
+
+  @Test(expectedExceptions = BindingException.class)
+  public void testDetectingLoopUnreachableFromInputs() throws Exception {
+    DAGValidationHelper.detectLoop(container(new String[] { "a", "b", "c" },
+        link(ROOT, "a"), link("a", ROOT), link("b", "c"), link("c", "b")));
+  }
+
+  @Test
+  public void testNoLoopInDiamond() throws Exception {
+    DAGValidationHelper.detectLoop(container(new String[] { "a", "b", "c", "d" },
+        link(ROOT, "a"), link("a", "b"), link("a", "c"), link("b", "d"), link("c", "d"), link("d", ROOT)));
+  }
+
+  private DAGContainer container(String[] childIds, DAGLink... links) {
+    List<DAGNode> children = new ArrayList<>();
+    for (String childId : childIds) {
+      children.add(new DAGNode(childId, Collections.singletonList(port(childId, LinkPortType.INPUT)), Collections.singletonList(port(childId, LinkPortType.OUTPUT)), null, null, null));
+    }
+    List<DAGLink> linkList = new ArrayList<>();
+    Collections.addAll(linkList, links);
+    return new DAGContainer(ROOT, Collections.singletonList(port(ROOT, LinkPortType.INPUT)), Collections.singletonList(port(ROOT, LinkPortType.OUTPUT)), null, null, linkList, children, null);
+  }
+
+  /**
+   * Links output of the source to input of the destination. Root node is linked through its input and output ports.
+   */
+  private DAGLink link(String sourceId, String destinationId) {
+    DAGLinkPort source = port(sourceId, sourceId.equals(ROOT) ? LinkPortType.INPUT : LinkPortType.OUTPUT);
+    DAGLinkPort destination = port(destinationId, destinationId.equals(ROOT) ? LinkPortType.OUTPUT : LinkPortType.INPUT);
+    return new DAGLink(source, destination, LinkMerge.merge_nested, 1);
+  }
+
+  private DAGLinkPort port(String nodeId, LinkPortType type) {
+    return new DAGLinkPort(type == LinkPortType.INPUT ? "in" : "out", nodeId, type, LinkMerge.merge_nested, false, null, null);
+  }
+
 }
@@ -0,0 +1,155 @@
+package org.rabix.bindings.protocol.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.NativeJSON;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.rabix.bindings.helper.JavascriptHelper;
+import org.rabix.bindings.helper.JavascriptHelper.ScriptCache;
+import org.rabix.common.helper.JSONHelper;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+@Test(groups = { "functional" })
+public class JavascriptHelperTest {
+
+  private final static List<String> LIBRARIES = Arrays.asList("var lib = { value: 1 }; function twice(x) { return 2 * x; }");
+
+  private Context cx;
+  private ScriptCache scriptCache;
+
+  @BeforeMethod
+  public void enterContext() {
+    cx = Context.enter();
+    cx.setOptimizationLevel(-1);
+    scriptCache = new ScriptCache(10, 10);
+  }
+
+  @AfterMethod
+  public void exitContext() {
+    Context.exit();
+  }
+
+  @Test
+  public void testSharedScopeIsCachedByLibraries() {
+    ScriptableObject scope = scriptCache.getSharedScope(cx, LIBRARIES);
+    Assert.assertSame(scriptCache.getSharedScope(cx, new ArrayList<>(LIBRARIES)), scope);
+    Assert.assertNotSame(scriptCache.getSharedScope(cx, Collections.<String> emptyList()), scope);
+    Assert.assertTrue(scope.isSealed());
+  }
+
+  @Test
+  public void testScriptIsCachedBySource() {
+    Assert.assertSame(scriptCache.getScript(cx, "1 + 1"), scriptCache.getScript(cx, "1 + 1"));
+  }
+
+  @Test
+  public void testGlobalsDontLeakBetweenEvaluations() {
+    ScriptableObject sharedScope = scriptCache.getSharedScope(cx, LIBRARIES);
+
+    Scriptable first = JavascriptHelper.newScope(cx, sharedScope);
+    Assert.assertEquals(evaluate(first, "leaked = twice(lib.value); leaked"), 2.0);
+
+    Scriptable second = JavascriptHelper.newScope(cx, sharedScope);
+    Assert.assertEquals(evaluate(second, "typeof leaked"), "undefined");
+    Assert.assertEquals(evaluate(second, "twice(lib.value)"), 2.0);
+  }
+
+  @Test
+  public void testSharedLibrariesCantBeChanged() {
+    ScriptableObject sharedScope = scriptCache.getSharedScope(cx, LIBRARIES);
+    Scriptable scope = JavascriptHelper.newScope(cx, sharedScope);
+
+    assertFails(scope, "lib.value = 5");
+    assertFails(scope, "Array.prototype.first = function() { return this[0]; }");
+
+    Scriptable next = JavascriptHelper.newScope(cx, sharedScope);
+    Assert.assertEquals(evaluate(next, "lib.value"), 1.0);
+    Assert.assertEquals(evaluate(next, "typeof [].first"), "undefined");
+  }
+
+  @Test
+  public void testToJavascript() {
+    Scriptable scope = JavascriptHelper.newScope(cx, scriptCache.getSharedScope(cx, Collections.<String> emptyList()));
+
+    Map<String, Object> value = new HashMap<>();
+    value.put("int", 7);
+    value.put("long", 1L << 40);
+    value.put("string", "text");
+    value.put("boolean", true);
+    value.put("null", null);
+    value.put("list", Arrays.asList(1, "two", Arrays.asList(3)));
+    value.put("map", Collections.singletonMap("key", "value"));
+    ScriptableObject.putProperty(scope, "value", JavascriptHelper.toJavascript(cx, scope, value));
+
+    Assert.assertEquals(evaluate(scope, "value.int + 1"), 8.0);
+    Assert.assertEquals(evaluate(scope, "value.long"), (double) (1L << 40));
+    Assert.assertEquals(evaluate(scope, "value.string.length"), 4);
+    Assert.assertEquals(evaluate(scope, "value.boolean === true"), true);
+    Assert.assertEquals(evaluate(scope, "value['null'] === null"), true);
+    Assert.assertEquals(evaluate(scope, "Array.isArray(value.list) && value.list.length === 3"), true);
+    Assert.assertEquals(evaluate(scope, "value.list[2][0]"), 3.0);
+    Assert.assertEquals(evaluate(scope, "value.map.key"), "value");
+    Assert.assertEquals(evaluate(scope, "JSON.stringify(value)"), JSONHelper.writeSortedWithoutIdentation(JSONHelper.convertToJsonNode(value)));
+  }
+
+  @Test
+  public void testToJsonNodeMatchesStringify() {
+    Scriptable scope = JavascriptHelper.newScope(cx, scriptCache.getSharedScope(cx, Collections.<String> emptyList()));
+
+    String[] expressions = {
+        "({ a: 1, b: 1.5, c: 'x' + 'y', d: [1, null, true], e: { f: undefined, g: function() {} } })",
+        "[1e21, 4294967296, -0.5, NaN, Infinity]",
+        "({ toJSON: function() { return 'custom'; } })",
+        "'text'",
+        "3",
+        "new Date(0)"
+    };
+    for (String expression : expressions) {
+      Object result = evaluate(scope, expression);
+      JsonNode expected = JSONHelper.readJsonNode((String) NativeJSON.stringify(cx, scope, result, null, null));
+      Assert.assertEquals(JavascriptHelper.toJsonNode(cx, scope, result), expected, expression);
+    }
+  }
+
+  @Test
+  public void testRoundTrip() {
+    Scriptable scope = JavascriptHelper.newScope(cx, scriptCache.getSharedScope(cx, Collections.<String> emptyList()));
+
+    Map<String, Object> value = new LinkedHashMap<>();
+    value.put("size", 10);
+    value.put("path", "/tmp/file.txt");
+    value.put("secondaryFiles", Arrays.asList(Collections.singletonMap("path", "/tmp/file.txt.idx")));
+    value.put("metadata", Collections.singletonMap("ratio", 0.25));
+
+    Object javascript = JavascriptHelper.toJavascript(cx, scope, value);
+    Assert.assertEquals(JavascriptHelper.toJsonNode(cx, scope, javascript), JSONHelper.convertToJsonNode(value));
+  }
+
+  private Object evaluate(Scriptable scope, String source) {
+    return scriptCache.getScript(cx, source).exec(cx, scope);
+  }
+
+  private void assertFails(Scriptable scope, String source) {
+    try {
+      evaluate(scope, source);
+      Assert.fail("Expected sealed object error for " + source);
+    } catch (EvaluatorException e) {
+      // expected
+    }
+  }
+
+}
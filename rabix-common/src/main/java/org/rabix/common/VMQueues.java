@@ -14,11 +14,18 @@ public class VMQueues {
   
   private static Map<String, BlockingQueue<Object>> queues = new HashMap<>();
   
+  public static <T> BlockingQueue<T> getQueue(String name) {
+    return getQueue(name, Integer.MAX_VALUE);
+  }
+  
+  /**
+   * Returns named queue. Capacity is applied only when the queue is created.
+   */
   @SuppressWarnings("unchecked")
-  public synchronized static <T> BlockingQueue<T> getQueue(String name) {
+  public synchronized static <T> BlockingQueue<T> getQueue(String name, int capacity) {
     BlockingQueue<Object> queue = queues.get(name);
     if (queue == null) {
-      queue = new LinkedBlockingQueue<>();
+      queue = new LinkedBlockingQueue<>(capacity);
       queues.put(name, queue);
     }
     return (BlockingQueue<T>) queue;
@@ -3,18 +3,31 @@ package org.rabix.common.helper;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.hash.HashFunction;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class ChecksumHelper {
 
@@ -26,7 +39,27 @@ public class ChecksumHelper {
 
   private static final Logger logger = LoggerFactory.getLogger(ChecksumHelper.class);
 
+  private static final int BUFFER_SIZE = 1024 * 1024;
+  private static final int CACHE_SIZE = 100000;
+  private static final long COARSE_MODIFICATION_GRANULARITY_MILLIS = 2000;
+
+  private static final int THREADS = Integer.getInteger("rabix.checksum.threads", Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  private static final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+    @Override
+    protected ByteBuffer initialValue() {
+      return ByteBuffer.allocate(BUFFER_SIZE);
+    }
+  };
+
+  private static final Cache<String, CachedChecksum> checksums = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+  private static ExecutorService executorService;
+
   public static String checksum(File file, HashAlgorithm hashAlgo) {
+    if (hashAlgo == null) {
+      return null;
+    }
     switch (hashAlgo) {
     case SHA1:
       return sha1(file);
@@ -40,16 +73,60 @@ public class ChecksumHelper {
     }
   }
 
-  public static String checksum(String content, HashAlgorithm hashAlgo) {
-    switch (hashAlgo) {
-    case SHA1:
-      return sha1(content);
-    case MD5:
-      return md5(content);
-    default:
-      // couldn't really happen but..
-      throw new IllegalArgumentException("Unsupported hashing algorithm");
+  /**
+   * Calculates checksums of many files in parallel. Unchanged files reuse previously calculated checksums. Directories are skipped.
+   */
+  public static Map<File, String> checksum(Collection<File> files, final HashAlgorithm hashAlgo) {
+    checkNotNull(files);
+
+    Map<File, String> result = new LinkedHashMap<>();
+    if (hashAlgo == null) {
+      return result;
+    }
+    if (files.size() < 2) {
+      for (File file : files) {
+        if (file.isFile()) {
+          result.put(file, checksum(file, hashAlgo));
+        }
+      }
+      return result;
     }
+    Map<File, Future<String>> futures = new LinkedHashMap<>();
+    for (final File file : files) {
+      if (!file.isFile()) {
+        continue;
+      }
+      futures.put(file, getExecutorService().submit(new Callable<String>() {
+        @Override
+        public String call() throws Exception {
+          return checksum(file, hashAlgo);
+        }
+      }));
+    }
+    for (Map.Entry<File, Future<String>> future : futures.entrySet()) {
+      try {
+        result.put(future.getKey(), future.getValue().get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new RuntimeException(e.getCause());
+      }
+    }
+    return result;
+  }
+
+  public static String checksum(String content, HashAlgorithm hashAlgo) {
+    checkNotNull(content);
+    checkNotNull(hashAlgo);
+
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    Digest digest = Digest.create(hashAlgo);
+    digest.update(bytes, 0, bytes.length);
+    return format(hashAlgo, digest.digest());
   }
 
   public static String sha1(File file) {
@@ -57,7 +134,7 @@ public class ChecksumHelper {
   }
 
   public static String sha1(String content) {
-    return standardHash(content, HashAlgorithm.SHA1);
+    return checksum(content, HashAlgorithm.SHA1);
   }
 
   public static String md5(File file) {
@@ -65,70 +142,84 @@ public class ChecksumHelper {
   }
 
   public static String md5(String content) {
-    return standardHash(content, HashAlgorithm.MD5);
+    return checksum(content, HashAlgorithm.MD5);
   }
 
   public static String murmur3(File file) {
     checkNotNull(file);
 
-    String hashed = null;
-    HashFunction murmur3Hash = Hashing.murmur3_128();
     try {
-      byte[] fileBytes = Files.readAllBytes(file.toPath());
-      byte[] hashedBytes = murmur3Hash.hashBytes(fileBytes).asBytes();
-      hashed = HashAlgorithm.MURMUR3.name().toLowerCase() + "$" + bytesToString(hashedBytes);
+      return hash(file, HashAlgorithm.MURMUR3);
     } catch (IOException e) {
       logger.error("Failed to create murmur3 checksum for {}", file);
+      return null;
     }
-    return hashed;
   }
 
   private static String standardHash(File file, HashAlgorithm hash) {
     checkNotNull(file);
     checkNotNull(hash);
 
-    MessageDigest md;
-    FileInputStream fis = null;
-
     try {
-      md = MessageDigest.getInstance(hash.name());
+      return hash(file, hash);
+    } catch (IOException e) {
+      logger.error("Failed to create {} checksum for {}", hash.name(), file);
+      throw new RuntimeException(e);
+    }
+  }
 
-      fis = new FileInputStream(file);
-      byte[] dataBytes = new byte[1024];
+  /**
+   * Streams the file through a reusable buffer or returns cached checksum if file size and modification time didn't change
+   */
+  private static String hash(File file, HashAlgorithm hashAlgo) throws IOException {
+    String key = cacheKey(file, hashAlgo);
+    long length = file.length();
+    long lastModified = file.lastModified();
 
-      int nread = 0;
-      while ((nread = fis.read(dataBytes)) != -1) {
-        md.update(dataBytes, 0, nread);
-      }
+    CachedChecksum cached = checksums.getIfPresent(key);
+    if (cached != null && cached.matches(length, lastModified)) {
+      return cached.checksum;
+    }
 
-      byte[] mdbytes = md.digest();
-      return hash.name().toLowerCase() + "$" + bytesToString(mdbytes);
-    } catch (Exception e) {
-      logger.error("Failed to create {} checksum for {}", hash.name(), file);
-      throw new RuntimeException(e);
-    } finally {
-      if (fis != null) {
-        try {
-          fis.close();
-        } catch (IOException e) {
-          // do nothing
+    Digest digest = Digest.create(hashAlgo);
+    ByteBuffer buffer = buffers.get();
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      while (true) {
+        ((Buffer) buffer).clear(); // cast keeps the call linkable on Java 8 when built with a newer JDK
+        int read = channel.read(buffer);
+        if (read < 0) {
+          break;
         }
+        digest.update(buffer.array(), buffer.arrayOffset(), read);
       }
     }
+    String checksum = format(hashAlgo, digest.digest());
+    cache(file, hashAlgo, length, lastModified, checksum);
+    return checksum;
   }
 
-  private static String standardHash(String content, HashAlgorithm hash) {
-    checkNotNull(hash);
-    checkNotNull(content);
+  private static void cache(File file, HashAlgorithm hashAlgo, long length, long lastModified, String checksum) {
+    if (lastModified % 1000 == 0 && System.currentTimeMillis() - lastModified < COARSE_MODIFICATION_GRANULARITY_MILLIS) {
+      return; // file system with coarse timestamps, file could still change without changing its modification time
+    }
+    if (file.length() == length && file.lastModified() == lastModified) {
+      checksums.put(cacheKey(file, hashAlgo), new CachedChecksum(length, lastModified, checksum));
+    }
+  }
 
-    try {
-      MessageDigest digest = MessageDigest.getInstance("SHA-256");
-      byte[] mdbytes = digest.digest(content.getBytes(StandardCharsets.UTF_8));
-      return hash.name().toLowerCase() + "$" + bytesToString(mdbytes);
-    } catch (NoSuchAlgorithmException e) {
-      logger.error("Failed to create {} checksum for {}", hash.name(), content);
-      throw new RuntimeException(e);
+  private static String cacheKey(File file, HashAlgorithm hashAlgo) {
+    return hashAlgo.name() + "$" + file.getAbsolutePath();
+  }
+
+  private static synchronized ExecutorService getExecutorService() {
+    if (executorService == null) {
+      executorService = Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder().setNameFormat("checksum-%d").setDaemon(true).build());
     }
+    return executorService;
+  }
+
+  private static String format(HashAlgorithm hashAlgo, byte[] bytes) {
+    return hashAlgo.name().toLowerCase() + "$" + bytesToString(bytes);
   }
 
   private static String bytesToString(byte[] bytes) {
@@ -139,4 +230,68 @@ public class ChecksumHelper {
     return sb.toString();
   }
 
+  /**
+   * Incremental digest for supported hashing algorithms
+   */
+  private static abstract class Digest {
+
+    abstract void update(byte[] bytes, int offset, int length);
+
+    abstract byte[] digest();
+
+    static Digest create(HashAlgorithm hashAlgo) {
+      switch (hashAlgo) {
+      case SHA1:
+      case MD5:
+        try {
+          final MessageDigest messageDigest = MessageDigest.getInstance(hashAlgo.name());
+          return new Digest() {
+            @Override
+            void update(byte[] bytes, int offset, int length) {
+              messageDigest.update(bytes, offset, length);
+            }
+
+            @Override
+            byte[] digest() {
+              return messageDigest.digest();
+            }
+          };
+        } catch (NoSuchAlgorithmException e) {
+          throw new RuntimeException(e);
+        }
+      case MURMUR3:
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+        return new Digest() {
+          @Override
+          void update(byte[] bytes, int offset, int length) {
+            hasher.putBytes(bytes, offset, length);
+          }
+
+          @Override
+          byte[] digest() {
+            return hasher.hash().asBytes();
+          }
+        };
+      default:
+        throw new IllegalArgumentException("Unsupported hashing algorithm");
+      }
+    }
+  }
+
+  private static class CachedChecksum {
+    private final long length;
+    private final long lastModified;
+    private final String checksum;
+
+    CachedChecksum(long length, long lastModified, String checksum) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.checksum = checksum;
+    }
+
+    boolean matches(long length, long lastModified) {
+      return this.length == length && this.lastModified == lastModified;
+    }
+  }
+
 }
@@ -2,6 +2,8 @@ package org.rabix.common.json;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.rabix.common.helper.JSONHelper;
 import org.rabix.common.json.processor.BeanProcessor;
@@ -10,6 +12,7 @@ import org.rabix.common.json.processor.BeanProcessorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.base.Preconditions;
 
@@ -32,6 +35,28 @@ public class BeanSerializer {
     return bean;
   }
 
+  /**
+   * Load a single bean or a JSON array of beans and process them if there is a processor
+   */
+  public static <T> List<T> deserializeAll(String data, Class<T> clazz) throws BeanProcessorException {
+    Preconditions.checkNotNull(data);
+
+    JsonNode node = JSONHelper.readJsonNode(data);
+    BeanProcessor<T> processor = BeanProcessorFactory.create(clazz);
+    
+    List<T> beans = new ArrayList<>();
+    if (node.isArray()) {
+      for (JsonNode child : node) {
+        T bean = JSONHelper.readObject(child, clazz);
+        beans.add(processor != null ? processor.process(bean) : bean);
+      }
+    } else {
+      T bean = JSONHelper.readObject(node, clazz);
+      beans.add(processor != null ? processor.process(bean) : bean);
+    }
+    return beans;
+  }
+
   /**
    * Save bean and use {@link BeanPropertyView.Full} for filtering
    */
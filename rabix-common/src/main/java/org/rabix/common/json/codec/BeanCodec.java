@@ -0,0 +1,52 @@
+package org.rabix.common.json.codec;
+
+import java.util.List;
+
+import org.rabix.common.json.processor.BeanProcessorException;
+
+/**
+ * Encodes beans for the wire. Framed messages start with a header (magic, wire version, codec type and flags), unframed messages are plain JSON.
+ */
+public interface BeanCodec {
+
+  public final static int WIRE_VERSION = 1;
+  
+  public static enum Type {
+    JSON((byte) 1),
+    SMILE((byte) 2);
+    
+    private final byte id;
+    
+    private Type(byte id) {
+      this.id = id;
+    }
+    
+    public byte getId() {
+      return id;
+    }
+    
+    public static Type fromId(byte id) {
+      for (Type type : values()) {
+        if (type.id == id) {
+          return type;
+        }
+      }
+      return null;
+    }
+  }
+  
+  Type getType();
+  
+  /**
+   * Is output framed? Unframed output is plain JSON readable by any receiver.
+   */
+  boolean isFramed();
+  
+  byte[] encode(Object data);
+  
+  /**
+   * Decodes a single bean or an array of beans and processes them if there is a processor
+   */
+  <T> List<T> decodeAll(byte[] data, Class<T> clazz) throws BeanProcessorException;
+  
+}
@@ -0,0 +1,65 @@
+package org.rabix.common.json.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.configuration.Configuration;
+import org.rabix.common.json.BeanSerializer;
+import org.rabix.common.json.codec.BeanCodec.Type;
+import org.rabix.common.json.codec.impl.JacksonBeanCodec;
+import org.rabix.common.json.processor.BeanProcessorException;
+
+import com.google.common.base.Charsets;
+
+public class BeanCodecFactory {
+
+  private final static BeanCodec DEFAULT_CODEC = new JacksonBeanCodec(Type.JSON, false, false);
+  
+  private final static BeanCodec[] DECODERS = new BeanCodec[] { DEFAULT_CODEC, new JacksonBeanCodec(Type.SMILE, false, false) };
+  
+  public static BeanCodec create(Type type, boolean compress, boolean appReferences) {
+    return new JacksonBeanCodec(type, compress, appReferences);
+  }
+  
+  /**
+   * Creates codec from transport.codec, transport.codec.compress and transport.codec.app_references
+   */
+  public static BeanCodec create(Configuration configuration) {
+    Type type = Type.valueOf(configuration.getString("transport.codec", Type.JSON.name()));
+    boolean compress = configuration.getBoolean("transport.codec.compress", false);
+    boolean appReferences = configuration.getBoolean("transport.codec.app_references", false);
+    return create(type, compress, appReferences);
+  }
+  
+  /**
+   * Plain JSON codec understood by every receiver
+   */
+  public static BeanCodec getDefault() {
+    return DEFAULT_CODEC;
+  }
+  
+  public static List<String> getSupportedTypes() {
+    List<String> types = new ArrayList<>();
+    for (Type type : Type.values()) {
+      types.add(type.name());
+    }
+    return types;
+  }
+  
+  /**
+   * Decodes message produced by any supported codec or plain JSON
+   */
+  public static <T> List<T> decodeAll(byte[] data, Class<T> clazz) throws BeanProcessorException {
+    if (!JacksonBeanCodec.isFramed(data)) {
+      return BeanSerializer.deserializeAll(new String(data, Charsets.UTF_8), clazz);
+    }
+    Type type = JacksonBeanCodec.getType(data);
+    for (BeanCodec decoder : DECODERS) {
+      if (decoder.getType().equals(type)) {
+        return decoder.decodeAll(data, clazz);
+      }
+    }
+    throw new BeanProcessorException("Unsupported codec " + type);
+  }
+  
+}
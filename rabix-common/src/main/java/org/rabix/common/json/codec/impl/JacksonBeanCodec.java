@@ -0,0 +1,217 @@
+package org.rabix.common.json.codec.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.rabix.common.json.BeanPropertyView;
+import org.rabix.common.json.codec.BeanCodec;
+import org.rabix.common.json.processor.BeanProcessor;
+import org.rabix.common.json.processor.BeanProcessorException;
+import org.rabix.common.json.processor.BeanProcessorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Jackson based codec for JSON and Smile. Optionally compresses the body and replaces large app values with content-hash references,
+ * so Jobs of the same app sent in one message carry the app only once.
+ */
+public class JacksonBeanCodec implements BeanCodec {
+
+  private final static Logger logger = LoggerFactory.getLogger(JacksonBeanCodec.class);
+  
+  private final static byte MAGIC = (byte) 0xB7;
+  private final static int HEADER_LENGTH = 4;
+  
+  private final static byte FLAG_COMPRESSED = 1;
+  private final static byte FLAG_REFERENCES = 2;
+  
+  private final static String APP_FIELD = "app";
+  private final static String REFERENCES_FIELD = "refs";
+  private final static String BODY_FIELD = "body";
+  private final static String REFERENCE_PREFIX = "#sha1:";
+  private final static int REFERENCE_MIN_LENGTH = 1024;
+  
+  private final Type type;
+  private final boolean compress;
+  private final boolean appReferences;
+  
+  private final ObjectMapper mapper;
+  
+  public JacksonBeanCodec(Type type, boolean compress, boolean appReferences) {
+    this.type = type;
+    this.compress = compress;
+    this.appReferences = appReferences;
+    this.mapper = type.equals(Type.SMILE) ? new ObjectMapper(new SmileFactory()) : new ObjectMapper();
+    this.mapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    this.mapper.setConfig(mapper.getSerializationConfig().withView(BeanPropertyView.Full.class));
+  }
+  
+  @Override
+  public Type getType() {
+    return type;
+  }
+  
+  @Override
+  public boolean isFramed() {
+    return !type.equals(Type.JSON) || compress || appReferences;
+  }
+  
+  @Override
+  public byte[] encode(Object data) {
+    try {
+      byte[] body;
+      if (appReferences) {
+        JsonNode tree = mapper.valueToTree(data);
+        ObjectNode references = mapper.createObjectNode();
+        replaceApps(tree, references);
+        
+        ObjectNode envelope = mapper.createObjectNode();
+        envelope.set(REFERENCES_FIELD, references);
+        envelope.set(BODY_FIELD, tree);
+        body = mapper.writeValueAsBytes(envelope);
+      } else {
+        body = mapper.writeValueAsBytes(data);
+      }
+      if (!isFramed()) {
+        return body;
+      }
+      
+      ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + HEADER_LENGTH);
+      out.write(MAGIC);
+      out.write(WIRE_VERSION);
+      out.write(type.getId());
+      out.write((compress ? FLAG_COMPRESSED : 0) | (appReferences ? FLAG_REFERENCES : 0));
+      if (compress) {
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(body);
+        gzip.close();
+      } else {
+        out.write(body);
+      }
+      return out.toByteArray();
+    } catch (IOException e) {
+      logger.error("Failed to encode object " + data, e);
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public <T> List<T> decodeAll(byte[] data, Class<T> clazz) throws BeanProcessorException {
+    try {
+      JsonNode node;
+      if (isFramed(data)) {
+        if (data[1] > WIRE_VERSION) {
+          throw new BeanProcessorException("Unsupported wire format version " + data[1]);
+        }
+        byte flags = data[3];
+        InputStream in = new ByteArrayInputStream(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+        if ((flags & FLAG_COMPRESSED) != 0) {
+          in = new GZIPInputStream(in);
+        }
+        node = mapper.readTree(ByteStreams.toByteArray(in));
+        if ((flags & FLAG_REFERENCES) != 0) {
+          JsonNode references = node.get(REFERENCES_FIELD);
+          node = node.get(BODY_FIELD);
+          restoreApps(node, references);
+        }
+      } else {
+        node = mapper.readTree(data);
+      }
+      
+      BeanProcessor<T> processor = BeanProcessorFactory.create(clazz);
+      List<T> beans = new ArrayList<>();
+      if (node.isArray()) {
+        for (JsonNode child : node) {
+          T bean = mapper.treeToValue(child, clazz);
+          beans.add(processor != null ? processor.process(bean) : bean);
+        }
+      } else {
+        T bean = mapper.treeToValue(node, clazz);
+        beans.add(processor != null ? processor.process(bean) : bean);
+      }
+      return beans;
+    } catch (IOException e) {
+      throw new BeanProcessorException("Failed to decode " + clazz.getSimpleName(), e);
+    }
+  }
+  
+  public static boolean isFramed(byte[] data) {
+    return data.length >= HEADER_LENGTH && data[0] == MAGIC;
+  }
+  
+  public static Type getType(byte[] data) {
+    return Type.fromId(data[2]);
+  }
+  
+  private void replaceApps(JsonNode node, ObjectNode references) {
+    if (node.isArray()) {
+      for (JsonNode child : node) {
+        replaceApps(child, references);
+      }
+      return;
+    }
+    if (!node.isObject()) {
+      return;
+    }
+    ObjectNode objectNode = (ObjectNode) node;
+    Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      JsonNode value = field.getValue();
+      if (field.getKey().equals(APP_FIELD) && value.isTextual() && value.textValue().length() >= REFERENCE_MIN_LENGTH) {
+        String hash = Hashing.sha1().hashUnencodedChars(value.textValue()).toString();
+        if (!references.has(hash)) {
+          references.set(hash, value);
+        }
+        field.setValue(new TextNode(REFERENCE_PREFIX + hash));
+      } else {
+        replaceApps(value, references);
+      }
+    }
+  }
+  
+  private void restoreApps(JsonNode node, JsonNode references) {
+    if (node.isArray()) {
+      for (JsonNode child : node) {
+        restoreApps(child, references);
+      }
+      return;
+    }
+    if (!node.isObject()) {
+      return;
+    }
+    ObjectNode objectNode = (ObjectNode) node;
+    Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      JsonNode value = field.getValue();
+      if (field.getKey().equals(APP_FIELD) && value.isTextual() && value.textValue().startsWith(REFERENCE_PREFIX)) {
+        JsonNode app = references.get(value.textValue().substring(REFERENCE_PREFIX.length()));
+        if (app == null) {
+          throw new BeanProcessorException("Missing app for reference " + value.textValue());
+        }
+        field.setValue(app);
+      } else {
+        restoreApps(value, references);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+package org.rabix.common.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.rabix.common.helper.ChecksumHelper.HashAlgorithm;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.hash.Hashing;
+
+@Test(groups = { "functional" })
+public class ChecksumHelperTest {
+
+  private final static long MODIFIED = 1000000000123L;
+
+  private File directory;
+
+  @BeforeMethod
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("checksum").toFile();
+  }
+
+  @AfterMethod
+  public void deleteDirectory() throws IOException {
+    FileUtils.deleteDirectory(directory);
+  }
+
+  @Test
+  public void testStreamedChecksumsMatchWholeFileChecksums() throws Exception {
+    for (int size : new int[] { 0, 1, 1024 * 1024, 3 * 1024 * 1024 + 17 }) {
+      File file = create("file-" + size, size, size);
+      byte[] content = Files.readAllBytes(file.toPath());
+
+      Assert.assertEquals(ChecksumHelper.sha1(file), "sha1$" + hex(MessageDigest.getInstance("SHA1").digest(content)), "size " + size);
+      Assert.assertEquals(ChecksumHelper.md5(file), "md5$" + hex(MessageDigest.getInstance("MD5").digest(content)), "size " + size);
+      Assert.assertEquals(ChecksumHelper.murmur3(file), "murmur3$" + hex(Hashing.murmur3_128().hashBytes(content).asBytes()), "size " + size);
+    }
+  }
+
+  @Test
+  public void testStringChecksums() {
+    Assert.assertEquals(ChecksumHelper.sha1("abc"), "sha1$a9993e364706816aba3e25717850c26c9cd0d89d");
+    Assert.assertEquals(ChecksumHelper.md5("abc"), "md5$900150983cd24fb0d6963f7d28e17f72");
+    Assert.assertNull(ChecksumHelper.checksum(new File(directory, "missing"), null));
+  }
+
+  @Test
+  public void testCachedChecksumIsReusedUntilFileChanges() throws IOException {
+    File file = create("cached", 4096, 1);
+    String checksum = ChecksumHelper.sha1(file);
+
+    write(file, 4096, 2); // same size and modification time, so the cached checksum is still used
+    Assert.assertEquals(ChecksumHelper.sha1(file), checksum);
+
+    Assert.assertTrue(file.setLastModified(MODIFIED + 5000));
+    String changed = ChecksumHelper.sha1(file);
+    Assert.assertNotEquals(changed, checksum);
+    Assert.assertEquals(changed, "sha1$" + hex(sha1(Files.readAllBytes(file.toPath()))));
+  }
+
+  @Test
+  public void testParallelChecksums() throws IOException {
+    File first = create("first", 100, 1);
+    File second = create("second", 2 * 1024 * 1024, 2);
+    File third = create("third", 0, 3);
+    File subdirectory = new File(directory, "subdirectory");
+    Assert.assertTrue(subdirectory.mkdir());
+
+    Map<File, String> checksums = ChecksumHelper.checksum(Arrays.asList(first, subdirectory, second, third), HashAlgorithm.MD5);
+
+    Assert.assertEquals(checksums.keySet(), new LinkedHashSet<>(Arrays.asList(first, second, third)));
+    for (Map.Entry<File, String> checksum : checksums.entrySet()) {
+      Assert.assertEquals(checksum.getValue(), ChecksumHelper.md5(checksum.getKey()));
+    }
+  }
+
+  private File create(String name, int size, long seed) throws IOException {
+    File file = new File(directory, name);
+    write(file, size, seed);
+    return file;
+  }
+
+  /**
+   * Writes random content and sets modification time far in the past, so checksums are cached
+   */
+  private void write(File file, int size, long seed) throws IOException {
+    byte[] content = new byte[size];
+    new Random(seed).nextBytes(content);
+    Files.write(file.toPath(), content);
+    Assert.assertTrue(file.setLastModified(MODIFIED));
+  }
+
+  private byte[] sha1(byte[] content) {
+    try {
+      return MessageDigest.getInstance("SHA1").digest(content);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private String hex(byte[] bytes) {
+    StringBuilder builder = new StringBuilder();
+    for (byte b : bytes) {
+      builder.append(String.format("%02x", b));
+    }
+    return builder.toString();
+  }
+
+}
@@ -0,0 +1,126 @@
+package org.rabix.common.json.codec;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.rabix.common.json.codec.BeanCodec.Type;
+import org.rabix.common.json.codec.impl.JacksonBeanCodec;
+import org.rabix.common.json.processor.BeanProcessorException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+
+@Test(groups = { "functional" })
+public class BeanCodecTest {
+
+  private final static String LARGE_APP = "{\"class\": \"CommandLineTool\", \"baseCommand\": \"" + Strings.repeat("x", 2048) + "\"}";
+
+  /***/
+  public static class Message {
+    @JsonProperty("id")
+    private final String id;
+    @JsonProperty("app")
+    private final String app;
+    @JsonProperty("values")
+    private final List<Integer> values;
+
+    @JsonCreator
+    public Message(@JsonProperty("id") String id, @JsonProperty("app") String app, @JsonProperty("values") List<Integer> values) {
+      this.id = id;
+      this.app = app;
+      this.values = values;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Message)) {
+        return false;
+      }
+      Message other = (Message) obj;
+      return id.equals(other.id) && app.equals(other.app) && values.equals(other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return id.hashCode();
+    }
+  }
+
+  private final static List<Message> MESSAGES = Arrays.asList(
+      new Message("1", LARGE_APP, Arrays.asList(1, 2)),
+      new Message("2", LARGE_APP, Arrays.<Integer> asList()),
+      new Message("3", "small", Arrays.asList(3)));
+
+  @Test
+  public void testRoundTrip() {
+    for (Type type : Type.values()) {
+      for (boolean compress : new boolean[] { false, true }) {
+        for (boolean appReferences : new boolean[] { false, true }) {
+          BeanCodec codec = BeanCodecFactory.create(type, compress, appReferences);
+          String name = type + " compress=" + compress + " references=" + appReferences;
+
+          byte[] data = codec.encode(MESSAGES);
+          Assert.assertEquals(codec.decodeAll(data, Message.class), MESSAGES, name);
+          Assert.assertEquals(BeanCodecFactory.decodeAll(data, Message.class), MESSAGES, name);
+          Assert.assertEquals(BeanCodecFactory.decodeAll(codec.encode(MESSAGES.get(0)), Message.class), MESSAGES.subList(0, 1), name);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPlainJsonIsNotFramed() {
+    BeanCodec codec = BeanCodecFactory.getDefault();
+    Assert.assertFalse(codec.isFramed());
+
+    byte[] data = codec.encode(MESSAGES.get(2));
+    Assert.assertFalse(JacksonBeanCodec.isFramed(data));
+    Assert.assertEquals(new String(data, Charsets.UTF_8), "{\"id\":\"3\",\"app\":\"small\",\"values\":[3]}");
+
+    byte[] json = "[{\"id\":\"3\",\"app\":\"small\",\"values\":[3]}]".getBytes(Charsets.UTF_8);
+    Assert.assertEquals(BeanCodecFactory.decodeAll(json, Message.class), MESSAGES.subList(2, 3));
+  }
+
+  @Test
+  public void testHeader() {
+    byte[] data = BeanCodecFactory.create(Type.SMILE, true, true).encode(MESSAGES);
+    Assert.assertTrue(JacksonBeanCodec.isFramed(data));
+    Assert.assertEquals(data[1], BeanCodec.WIRE_VERSION);
+    Assert.assertEquals(JacksonBeanCodec.getType(data), Type.SMILE);
+    Assert.assertEquals(data[3], 3); // compressed and with references
+
+    data = BeanCodecFactory.create(Type.JSON, false, true).encode(MESSAGES);
+    Assert.assertTrue(JacksonBeanCodec.isFramed(data));
+    Assert.assertEquals(JacksonBeanCodec.getType(data), Type.JSON);
+    Assert.assertEquals(data[3], 2);
+  }
+
+  @Test
+  public void testSharedAppIsSentOnce() {
+    byte[] withReferences = BeanCodecFactory.create(Type.JSON, false, true).encode(MESSAGES);
+    byte[] withoutReferences = BeanCodecFactory.create(Type.JSON, false, false).encode(MESSAGES);
+
+    Assert.assertTrue(withoutReferences.length - withReferences.length > LARGE_APP.length() / 2);
+    Assert.assertEquals(count(new String(withReferences, Charsets.UTF_8), Strings.repeat("x", 2048)), 1);
+  }
+
+  @Test(expectedExceptions = BeanProcessorException.class)
+  public void testNewerWireVersionIsRejected() {
+    byte[] data = BeanCodecFactory.create(Type.SMILE, false, false).encode(MESSAGES);
+    data[1] = BeanCodec.WIRE_VERSION + 1;
+    BeanCodecFactory.decodeAll(data, Message.class);
+  }
+
+  private int count(String text, String part) {
+    int count = 0;
+    for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + part.length())) {
+      count++;
+    }
+    return count;
+  }
+
+}
@@ -1,15 +1,18 @@
 package org.rabix.engine.rest.api;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.rabix.bindings.model.Job;
+import org.rabix.bindings.model.Job.JobStatus;
 
 @Produces(MediaType.APPLICATION_JSON)
 @Path("/v0/engine/jobs")
@@ -22,8 +25,11 @@ public interface JobHTTPService {
   @Path("/{id}")
   Response save(@PathParam("id") String id, Job job);
   
+  /**
+   * Lists Jobs in submission order. Without a limit the result is streamed.
+   */
   @GET
-  Response get();
+  Response get(@QueryParam("rootId") String rootId, @QueryParam("status") JobStatus status, @QueryParam("offset") @DefaultValue("0") int offset, @QueryParam("limit") @DefaultValue("-1") int limit);
   
   @GET
   @Path("/{id}")
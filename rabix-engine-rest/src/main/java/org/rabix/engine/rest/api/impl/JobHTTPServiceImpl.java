@@ -1,15 +1,23 @@
 package org.rabix.engine.rest.api.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collections;
+import java.util.Iterator;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.rabix.bindings.model.Job;
+import org.rabix.bindings.model.Job.JobStatus;
+import org.rabix.common.helper.JSONHelper;
 import org.rabix.engine.rest.api.JobHTTPService;
 import org.rabix.engine.rest.service.JobServiceException;
 import org.rabix.engine.rest.service.JobService;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.inject.Inject;
 
 public class JobHTTPServiceImpl implements JobHTTPService {
@@ -31,8 +39,11 @@ public class JobHTTPServiceImpl implements JobHTTPService {
   }
   
   @Override
-  public Response get() {
-    return ok(jobService.get());
+  public Response get(String rootId, JobStatus status, int offset, int limit) {
+    if (offset > 0 || limit >= 0) {
+      return stream(jobService.get(rootId, status, offset, limit).iterator());
+    }
+    return stream(jobService.iterator(rootId, status));
   }
   
   @Override
@@ -54,6 +65,25 @@ public class JobHTTPServiceImpl implements JobHTTPService {
     return ok();
   }
   
+  /**
+   * Writes Jobs as a JSON array without collecting them first. Pages are written the same way so that both look alike.
+   */
+  private Response stream(final Iterator<Job> jobs) {
+    StreamingOutput stream = new StreamingOutput() {
+      @Override
+      public void write(OutputStream output) throws IOException, WebApplicationException {
+        JsonGenerator generator = JSONHelper.mapperWithoutIdentation.getFactory().createGenerator(output);
+        generator.writeStartArray();
+        while (jobs.hasNext()) {
+          generator.writeObject(jobs.next());
+        }
+        generator.writeEndArray();
+        generator.flush();
+      }
+    };
+    return Response.ok(stream).build();
+  }
+  
   private Response entityNotFound() {
     return Response.status(Status.NOT_FOUND).build();
   }
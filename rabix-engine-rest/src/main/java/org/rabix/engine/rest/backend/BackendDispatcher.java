@@ -1,213 +1,464 @@
 package org.rabix.engine.rest.backend;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.configuration.Configuration;
 import org.rabix.bindings.model.Job;
 import org.rabix.bindings.model.Job.JobStatus;
 import org.rabix.common.engine.control.EngineControlFreeMessage;
 import org.rabix.common.engine.control.EngineControlStopMessage;
+import org.rabix.engine.rest.backend.BackendQueue.DispatchFailureCallback;
+import org.rabix.engine.rest.backend.scheduling.SchedulingPolicy;
+import org.rabix.engine.rest.backend.scheduling.SchedulingPolicy.SchedulingContext;
+import org.rabix.engine.rest.backend.scheduling.SchedulingPolicyFactory;
 import org.rabix.engine.rest.backend.stub.BackendStub;
+import org.rabix.engine.rest.backend.stub.BackendStub.HeartbeatCallback;
 import org.rabix.transport.backend.Backend;
+import org.rabix.transport.backend.HeartbeatInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 
-public class BackendDispatcher {
+/**
+ * Dispatches ready Jobs to Backends. Jobs are assigned by a {@link SchedulingPolicy} as soon as they arrive
+ * and sent in batches through per-Backend queues. Backends are watched by a {@link PhiAccrualFailureDetector}.
+ * <p>
+ * A suspected Backend gets no new Jobs and its unsent Jobs are dispatched elsewhere, while Jobs it has already received stay with it.
+ * It is used again as soon as its heartbeats resume. A Backend that stays suspected for the suspicion timeout (a few acceptable pauses by default)
+ * is removed and all of its Jobs are dispatched again. The heartbeat period is only an upper bound on the silence of a Backend.
+ */
+public class BackendDispatcher implements SchedulingContext {
 
   private final static Logger logger = LoggerFactory.getLogger(BackendDispatcher.class);
 
   private final static long DEFAULT_HEARTBEAT_PERIOD = TimeUnit.MINUTES.toMillis(2);
+  private final static int DEFAULT_BATCH_SIZE = 100;
   
-  private final List<BackendStub<?,?,?>> backendStubs = new ArrayList<>();
-  private final Map<String, Long> heartbeatInfo = new HashMap<>();
-
-  private final Set<Job> freeJobs = new HashSet<>();
-  private final ConcurrentMap<Job, String> jobBackendMapping = new ConcurrentHashMap<>();
+  private final static long DEFAULT_DETECTOR_CHECK_PERIOD = 500;
+  private final static double DEFAULT_DETECTOR_PHI_THRESHOLD = 8.0;
+  private final static long DEFAULT_DETECTOR_MIN_STD_DEVIATION = 500;
+  private final static long DEFAULT_DETECTOR_ACCEPTABLE_PAUSE = TimeUnit.SECONDS.toMillis(5);
+  private final static long DEFAULT_DETECTOR_FIRST_HEARTBEAT_ESTIMATE = 1000;
+  private final static int DEFAULT_DETECTOR_SUSPICION_TIMEOUT_PAUSES = 3;
+  
+  private final List<BackendStub<?,?,?>> backendStubs = new CopyOnWriteArrayList<>();
+  private final ConcurrentMap<String, BackendStub<?,?,?>> registeredStubs = new ConcurrentHashMap<>();
+  private final Set<String> suspendedBackends = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  private final Object membershipLock = new Object();
+  private final ConcurrentMap<String, HeartbeatInfo> heartbeatInfo = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, BackendQueue> backendQueues = new ConcurrentHashMap<>();
 
-  private ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
-  private ScheduledExecutorService heartbeatService = Executors.newSingleThreadScheduledExecutor();
+  private final Queue<Job> freeJobs = new ConcurrentLinkedQueue<>();
+  private final ConcurrentMap<String, Assignment> jobBackendMapping = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<String>> backendJobMapping = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<String>> rootJobMapping = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<String>> rootBackendMapping = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, String> lastRootBackend = new ConcurrentHashMap<>();
 
-  private Lock dispatcherLock = new ReentrantLock(true);
+  private final ExecutorService dispatchService = Executors.newCachedThreadPool();
+  private final ScheduledExecutorService heartbeatService = Executors.newSingleThreadScheduledExecutor();
 
-  private int position = 0;
+  private final SchedulingPolicy schedulingPolicy;
+  private final PhiAccrualFailureDetector failureDetector;
   
+  private final int batchSize;
   private final long heartbeatPeriod;
+  private final long detectorCheckPeriod;
   
   @Inject
   public BackendDispatcher(Configuration configuration) {
     this.heartbeatPeriod = configuration.getLong("backend.cleaner.heartbeatPeriodMills", DEFAULT_HEARTBEAT_PERIOD);
+    this.detectorCheckPeriod = configuration.getLong("backend.failure_detector.check_period_mills", DEFAULT_DETECTOR_CHECK_PERIOD);
+    
+    double phiThreshold = configuration.getDouble("backend.failure_detector.phi_threshold", DEFAULT_DETECTOR_PHI_THRESHOLD);
+    long minStdDeviation = configuration.getLong("backend.failure_detector.min_std_deviation_mills", DEFAULT_DETECTOR_MIN_STD_DEVIATION);
+    long acceptablePause = configuration.getLong("backend.failure_detector.acceptable_pause_mills", DEFAULT_DETECTOR_ACCEPTABLE_PAUSE);
+    long firstHeartbeatEstimate = configuration.getLong("backend.failure_detector.first_heartbeat_estimate_mills", DEFAULT_DETECTOR_FIRST_HEARTBEAT_ESTIMATE);
+    long suspicionTimeout = configuration.getLong("backend.failure_detector.suspicion_timeout_mills", DEFAULT_DETECTOR_SUSPICION_TIMEOUT_PAUSES * acceptablePause);
+    this.failureDetector = new PhiAccrualFailureDetector(phiThreshold, minStdDeviation, acceptablePause, firstHeartbeatEstimate, suspicionTimeout, heartbeatPeriod);
+    
+    this.batchSize = configuration.getInt("backend.dispatcher.batch_size", DEFAULT_BATCH_SIZE);
+    
+    String policy = configuration.getString("backend.dispatcher.policy", SchedulingPolicy.Type.ROUND_ROBIN.name());
+    this.schedulingPolicy = SchedulingPolicyFactory.create(SchedulingPolicy.Type.valueOf(policy.toUpperCase()));
     start();
   }
 
   private synchronized void start() {
-    executorService.scheduleAtFixedRate(new Runnable() {
-      @Override
-      public void run() {
-        try {
-          dispatcherLock.lock();
-          if (!backendStubs.isEmpty()) {
-            send(freeJobs.toArray(new Job[] {}));
-            freeJobs.clear();
-          }
-        } finally {
-          dispatcherLock.unlock();
-        }
-      }
-    }, 0, 10, TimeUnit.SECONDS);
-
-    heartbeatService.scheduleAtFixedRate(new HeartbeatMonitor(), 0, heartbeatPeriod, TimeUnit.MILLISECONDS);
+    heartbeatService.scheduleAtFixedRate(new HeartbeatMonitor(), detectorCheckPeriod, detectorCheckPeriod, TimeUnit.MILLISECONDS);
   }
 
+  /**
+   * Assigns the Jobs to Backends. Returns false if there are no Backends yet;
+   * the Jobs are kept and dispatched once the first Backend registers.
+   */
   public boolean send(Job... jobs) {
-    try {
-      dispatcherLock.lock();
-      for (Job job : jobs) {
+    for (Job job : jobs) {
+      if (!dispatch(job)) {
         freeJobs.add(job);
       }
-
+    }
+    if (!backendStubs.isEmpty() && !freeJobs.isEmpty()) {
+      flushFreeJobs();
+    }
+    return !backendStubs.isEmpty();
+  }
+  
+  private boolean dispatch(Job job) {
+    while (true) {
       if (backendStubs.isEmpty()) {
         return false;
       }
-
-      Iterator<Job> freeJobIterator = freeJobs.iterator();
-      while (freeJobIterator.hasNext()) {
-        Job freeJob = freeJobIterator.next();
-
-        if (jobBackendMapping.containsKey(freeJob)) {
-          freeJobIterator.remove();
-          continue;
-        }
-        BackendStub<?,?,?> backendStub = nextBackend();
-
-        freeJobIterator.remove();
-        jobBackendMapping.put(freeJob, backendStub.getBackend().getId());
-        backendStub.send(freeJob);
-        logger.info("Job {} sent to {}.", freeJob.getId(), backendStub.getBackend().getId());
+      BackendStub<?,?,?> backendStub = schedulingPolicy.select(job, backendStubs, this);
+      if (backendStub == null) {
+        return false;
+      }
+      String backendId = backendStub.getBackend().getId();
+      BackendQueue backendQueue = backendQueues.get(backendId);
+      if (backendQueue == null) {
+        continue; // Backend has just been removed
       }
+      Assignment assignment = new Assignment(job, backendId);
+      if (jobBackendMapping.putIfAbsent(job.getId(), assignment) != null) {
+        return true; // already dispatched
+      }
+      Set<String> backendJobs = getIndex(backendJobMapping, backendId);
+      backendJobs.add(job.getId());
+      if (!backendQueue.offer(job)) {
+        backendJobs.remove(job.getId());
+        jobBackendMapping.remove(job.getId(), assignment);
+        continue;
+      }
+      getIndex(rootJobMapping, job.getRootId()).add(job.getId());
+      getIndex(rootBackendMapping, job.getRootId()).add(backendId);
+      lastRootBackend.put(job.getRootId(), backendId);
       return true;
-    } finally {
-      dispatcherLock.unlock();
     }
   }
   
+  private void flushFreeJobs() {
+    Job job;
+    while ((job = freeJobs.poll()) != null) {
+      if (!dispatch(job)) {
+        freeJobs.add(job);
+        return;
+      }
+    }
+  }
+  
+  private Set<String> getIndex(ConcurrentMap<String, Set<String>> mapping, String key) {
+    Set<String> values = mapping.get(key);
+    if (values == null) {
+      Set<String> newValues = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+      values = mapping.putIfAbsent(key, newValues);
+      if (values == null) {
+        values = newValues;
+      }
+    }
+    return values;
+  }
+  
   public boolean stop(Job... jobs) {
-    try {
-      dispatcherLock.lock();
-      
-      for (Job job : jobs) {
-        String backendId = jobBackendMapping.get(job);
-        if (backendId != null) {
-          BackendStub<?,?,?> backendStub = getBackendStub(backendId);
-          if (backendStub != null) {
-            backendStub.send(new EngineControlStopMessage(job.getId(), job.getRootId()));
-          }
+    for (Job job : jobs) {
+      Assignment assignment = jobBackendMapping.get(job.getId());
+      if (assignment != null) {
+        BackendStub<?,?,?> backendStub = getBackendStub(assignment.backendId);
+        if (backendStub != null) {
+          backendStub.send(new EngineControlStopMessage(job.getId(), job.getRootId()));
         }
       }
-      return true;
-    } finally {
-      dispatcherLock.unlock();
     }
+    return true;
   }
 
   public void addBackendStub(BackendStub<?,?,?> backendStub) {
-    try {
-      dispatcherLock.lock();
-      backendStub.start(heartbeatInfo);
-      this.backendStubs.add(backendStub);
-      this.heartbeatInfo.put(backendStub.getBackend().getId(), System.currentTimeMillis());
-    } finally {
-      dispatcherLock.unlock();
-    }
-  }
-  
-  public void freeBackend(Job rootJob) {
-    Set<BackendStub<?,?,?>> backendStubs = new HashSet<>();
+    final String backendId = backendStub.getBackend().getId();
     
-    synchronized (jobBackendMapping) {
-      for (Entry<Job, String> jobBackendEntry : jobBackendMapping.entrySet()) {
-        if (jobBackendEntry.getKey().getRootId().equals(rootJob.getRootId())) {
-          backendStubs.add(getBackendStub(jobBackendEntry.getValue()));
+    registeredStubs.put(backendId, backendStub);
+    backendStub.start(new HeartbeatCallback() {
+      @Override
+      public void onHeartbeat(HeartbeatInfo info) {
+        heartbeatInfo.put(info.getId(), info);
+        failureDetector.heartbeat(info.getId(), System.currentTimeMillis());
+        BackendQueue backendQueue = backendQueues.get(backendId);
+        if (backendQueue != null) {
+          backendQueue.onHeartbeat();
+        }
+        if (suspendedBackends.contains(backendId)) {
+          resumeBackend(backendId);
         }
       }
-      
-      for (BackendStub<?, ?, ?> backendStub : backendStubs) {
+    });
+    heartbeatInfo.put(backendId, new HeartbeatInfo(backendId, System.currentTimeMillis()));
+    failureDetector.heartbeat(backendId, System.currentTimeMillis());
+    
+    BackendQueue backendQueue = new BackendQueue(backendStub, batchSize, new DispatchFailureCallback() {
+      @Override
+      public void onDispatchFailed(String backendId, List<Job> jobs) {
+        List<Job> jobsToReassign = unassign(backendId, jobs);
+        send(jobsToReassign.toArray(new Job[jobsToReassign.size()]));
+      }
+    });
+    backendQueues.put(backendId, backendQueue);
+    dispatchService.submit(backendQueue);
+    backendStubs.add(backendStub);
+    
+    flushFreeJobs();
+  }
+  
+  public void freeBackend(Job rootJob) {
+    Set<String> backendIds = rootBackendMapping.get(rootJob.getRootId());
+    if (backendIds == null) {
+      return;
+    }
+    for (String backendId : backendIds) {
+      BackendStub<?,?,?> backendStub = getBackendStub(backendId);
+      if (backendStub != null) {
         backendStub.send(new EngineControlFreeMessage(rootJob.getConfig(), rootJob.getRootId()));
       }
     }
   }
 
+  /**
+   * Releases the Backend slot of a finished Job
+   */
+  public void finish(Job job) {
+    release(jobBackendMapping.remove(job.getId()));
+  }
+  
+  private void release(Assignment assignment) {
+    if (assignment == null) {
+      return;
+    }
+    Set<String> jobIds = backendJobMapping.get(assignment.backendId);
+    if (jobIds != null) {
+      jobIds.remove(assignment.job.getId());
+    }
+    BackendQueue backendQueue = backendQueues.get(assignment.backendId);
+    if (backendQueue != null) {
+      backendQueue.release();
+    }
+  }
+  
+  /**
+   * Forgets the Job's assignment. Removing a root Job forgets all of the root's assignments.
+   */
   public void remove(Job job) {
-    try {
-      dispatcherLock.lock();
-      this.jobBackendMapping.remove(job);
-    } finally {
-      dispatcherLock.unlock();
+    release(jobBackendMapping.remove(job.getId()));
+    
+    if (job.isRoot()) {
+      Set<String> jobIds = rootJobMapping.remove(job.getRootId());
+      if (jobIds != null) {
+        for (String jobId : jobIds) {
+          release(jobBackendMapping.remove(jobId));
+        }
+      }
+      rootBackendMapping.remove(job.getRootId());
+      lastRootBackend.remove(job.getRootId());
     }
   }
-
-  private BackendStub<?,?,?> nextBackend() {
-    BackendStub<?,?,?> backendStub = backendStubs.get(position % backendStubs.size());
-    position = (position + 1) % backendStubs.size();
-    return backendStub;
+  
+  /**
+   * Number of Jobs waiting to be sent, including the ones waiting for a Backend
+   */
+  public int getQueueSize() {
+    int size = freeJobs.size();
+    for (BackendQueue backendQueue : backendQueues.values()) {
+      size += backendQueue.getSize();
+    }
+    return size;
+  }
+  
+  public int getQueueSize(String backendId) {
+    BackendQueue backendQueue = backendQueues.get(backendId);
+    return backendQueue != null ? backendQueue.getSize() : 0;
+  }
+  
+  /**
+   * Average time in milliseconds between a Job's assignment and its hand-off to the transport
+   */
+  public double getAverageDispatchLatency() {
+    long count = 0;
+    long latency = 0;
+    for (BackendQueue backendQueue : backendQueues.values()) {
+      count += backendQueue.getDispatchedCount();
+      latency += backendQueue.getTotalLatency();
+    }
+    return count == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(latency) / count / 1000;
+  }
+  
+  public double getMaxDispatchLatency() {
+    long latency = 0;
+    for (BackendQueue backendQueue : backendQueues.values()) {
+      latency = Math.max(latency, backendQueue.getMaxLatency());
+    }
+    return (double) TimeUnit.NANOSECONDS.toMicros(latency) / 1000;
+  }
+  
+  @Override
+  public int getPendingCount(String backendId) {
+    BackendQueue backendQueue = backendQueues.get(backendId);
+    return backendQueue != null ? backendQueue.getPendingCount() : 0;
+  }
+  
+  @Override
+  public int getUnacknowledgedCount(String backendId) {
+    BackendQueue backendQueue = backendQueues.get(backendId);
+    return backendQueue != null ? backendQueue.getUnacknowledgedCount() : 0;
+  }
+  
+  @Override
+  public HeartbeatInfo getHeartbeatInfo(String backendId) {
+    return heartbeatInfo.get(backendId);
+  }
+  
+  @Override
+  public String getLastBackend(String rootId) {
+    return lastRootBackend.get(rootId);
   }
   
   private BackendStub<?,?,?> getBackendStub(String id) {
-    for (BackendStub<?,?,?> backendStub : backendStubs) {
-      if (backendStub.getBackend().getId().equals(id)) {
-        return backendStub;
+    return registeredStubs.get(id);
+  }
+
+  private static class Assignment {
+    private final Job job;
+    private final String backendId;
+    
+    private Assignment(Job job, String backendId) {
+      this.job = job;
+      this.backendId = backendId;
+    }
+  }
+  
+  /**
+   * Stops sending Jobs to the Backend and dispatches its unsent Jobs elsewhere. Jobs it has received stay assigned to it.
+   */
+  private void suspendBackend(BackendStub<?,?,?> backendStub) {
+    String backendId = backendStub.getBackend().getId();
+    List<Job> jobsToReassign = new ArrayList<>();
+    synchronized (membershipLock) {
+      if (!registeredStubs.containsKey(backendId) || !suspendedBackends.add(backendId)) {
+        return;
+      }
+      backendStubs.remove(backendStub);
+      lastRootBackend.values().removeAll(Collections.singleton(backendId));
+      BackendQueue backendQueue = backendQueues.get(backendId);
+      if (backendQueue != null) {
+        jobsToReassign = unassign(backendId, backendQueue.suspend());
       }
     }
-    return null;
+    logger.warn("Backend {} is suspected. Reassigning {} unsent Jobs.", backendId, jobsToReassign.size());
+    send(jobsToReassign.toArray(new Job[jobsToReassign.size()]));
   }
-
+  
+  /**
+   * Forgets assignments of the Jobs to the Backend and returns the Jobs that were still assigned to it
+   */
+  private List<Job> unassign(String backendId, List<Job> jobs) {
+    List<Job> unassigned = new ArrayList<>();
+    for (Job job : jobs) {
+      Assignment assignment = jobBackendMapping.get(job.getId());
+      if (assignment != null && assignment.backendId.equals(backendId) && jobBackendMapping.remove(job.getId(), assignment)) {
+        release(assignment);
+        unassigned.add(job);
+      }
+    }
+    return unassigned;
+  }
+  
+  /**
+   * Starts sending Jobs to the suspected Backend again
+   */
+  private void resumeBackend(String backendId) {
+    synchronized (membershipLock) {
+      BackendStub<?,?,?> backendStub = registeredStubs.get(backendId);
+      if (backendStub == null || !suspendedBackends.remove(backendId)) {
+        return;
+      }
+      BackendQueue backendQueue = backendQueues.get(backendId);
+      if (backendQueue != null) {
+        backendQueue.resume();
+      }
+      backendStubs.add(backendStub);
+    }
+    logger.info("Backend {} heartbeats resumed.", backendId);
+    flushFreeJobs();
+  }
+  
+  /**
+   * Removes the dead Backend and dispatches all of its Jobs again. Jobs it has received are stopped first in case it is still running them.
+   */
+  private void removeBackend(BackendStub<?,?,?> backendStub) {
+    String backendId = backendStub.getBackend().getId();
+    List<Job> jobsToReassign = new ArrayList<>();
+    synchronized (membershipLock) {
+      if (!registeredStubs.remove(backendId, backendStub)) {
+        return;
+      }
+      backendStubs.remove(backendStub);
+      suspendedBackends.remove(backendId);
+      BackendQueue backendQueue = backendQueues.remove(backendId);
+      if (backendQueue != null) {
+        backendQueue.close();
+      }
+      logger.info("Removing Backend {}", backendId);
+      
+      Set<String> jobIds = backendJobMapping.remove(backendId);
+      if (jobIds != null) {
+        for (String jobId : jobIds) {
+          Assignment assignment = jobBackendMapping.get(jobId);
+          if (assignment != null && assignment.backendId.equals(backendId) && jobBackendMapping.remove(jobId, assignment)) {
+            backendStub.send(new EngineControlStopMessage(jobId, assignment.job.getRootId()));
+            jobsToReassign.add(Job.cloneWithStatus(assignment.job, JobStatus.READY));
+            logger.info("Reassign Job {} to free Jobs", jobId);
+          }
+        }
+      }
+      backendStub.stop();
+      failureDetector.remove(backendId);
+      heartbeatInfo.remove(backendId);
+      for (Set<String> backendIds : rootBackendMapping.values()) {
+        backendIds.remove(backendId);
+      }
+      lastRootBackend.values().removeAll(Collections.singleton(backendId));
+    }
+    send(jobsToReassign.toArray(new Job[jobsToReassign.size()]));
+  }
+  
   private class HeartbeatMonitor implements Runnable {
     @Override
     public void run() {
       try {
-        dispatcherLock.lock();
-        logger.info("Checking Backend heartbeats...");
-        
         long currentTime = System.currentTimeMillis();
-        for (BackendStub<?,?,?> backendStub : backendStubs) {
+        for (BackendStub<?,?,?> backendStub : registeredStubs.values()) {
           Backend backend = backendStub.getBackend();
-
-          if (currentTime - heartbeatInfo.get(backend.getId()) > heartbeatPeriod) {
-            backendStub.stop();
-            backendStubs.remove(backendStub);
-            logger.info("Removing Backend {}", backendStub.getBackend().getId());
-            
-            List<Job> jobsToRemove = new ArrayList<>();
-            for (Entry<Job, String> jobBackendEntry : jobBackendMapping.entrySet()) {
-              if (jobBackendEntry.getValue().equals(backend.getId())) {
-                jobsToRemove.add(jobBackendEntry.getKey());
-              }
-            }
-            for (Job job : jobsToRemove) {
-              jobBackendMapping.remove(job);
-              freeJobs.add(Job.cloneWithStatus(job, JobStatus.READY));
-              logger.info("Reassign Job {} to free Jobs", job.getId());
-            }
+          if (failureDetector.isDead(backend.getId(), currentTime)) {
+            logger.warn("Backend {} is unreachable (phi {}).", backend.getId(), failureDetector.phi(backend.getId(), currentTime));
+            removeBackend(backendStub);
+          } else if (!suspendedBackends.contains(backend.getId()) && failureDetector.isSuspected(backend.getId(), currentTime)) {
+            logger.warn("Backend {} is suspected (phi {}).", backend.getId(), failureDetector.phi(backend.getId(), currentTime));
+            suspendBackend(backendStub);
           }
         }
-        logger.info("Heartbeats checked");
-      } finally {
-        dispatcherLock.unlock();
+        if (logger.isDebugEnabled() && getQueueSize() > 0) {
+          logger.debug("Dispatcher queue length {}, average dispatch latency {} ms, max {} ms.", getQueueSize(), getAverageDispatchLatency(), getMaxDispatchLatency());
+        }
+      } catch (Exception e) {
+        logger.error("Failed to check Backend heartbeats", e);
       }
     }
   }
@@ -0,0 +1,191 @@
+package org.rabix.engine.rest.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.rabix.bindings.model.Job;
+import org.rabix.engine.rest.backend.stub.BackendStub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-Backend dispatch queue. Jobs are drained in batches by a dedicated worker and sent through the {@link BackendStub}.
+ * Jobs of a batch that failed to send are handed back through {@link DispatchFailureCallback}.
+ */
+class BackendQueue implements Runnable {
+
+  private final static Logger logger = LoggerFactory.getLogger(BackendQueue.class);
+  
+  private final static long FAILURE_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+  
+  private final BackendStub<?, ?, ?> backendStub;
+  private final DispatchFailureCallback failureCallback;
+  private final BlockingQueue<PendingJob> queue = new LinkedBlockingQueue<>();
+  
+  private final int batchSize;
+  private volatile boolean closed = false;
+  private boolean suspended = false;
+  
+  private final AtomicInteger assigned = new AtomicInteger(0);
+  private final AtomicInteger sentSinceHeartbeat = new AtomicInteger(0);
+  
+  private final AtomicLong dispatchedCount = new AtomicLong(0);
+  private final AtomicLong totalLatency = new AtomicLong(0);
+  private final AtomicLong maxLatency = new AtomicLong(0);
+  
+  BackendQueue(BackendStub<?, ?, ?> backendStub, int batchSize, DispatchFailureCallback failureCallback) {
+    this.backendStub = backendStub;
+    this.batchSize = batchSize;
+    this.failureCallback = failureCallback;
+  }
+  
+  /**
+   * Adds the Job to the queue. Returns false if the queue has been closed or suspended.
+   */
+  synchronized boolean offer(Job job) {
+    if (closed || suspended) {
+      return false;
+    }
+    assigned.incrementAndGet();
+    return queue.offer(new PendingJob(job, System.nanoTime()));
+  }
+  
+  /**
+   * Closes the queue and returns the Jobs which were not sent
+   */
+  synchronized List<Job> close() {
+    closed = true;
+    return drain();
+  }
+  
+  /**
+   * Stops accepting Jobs until {@link #resume()} and returns the Jobs which were not sent
+   */
+  synchronized List<Job> suspend() {
+    suspended = true;
+    return drain();
+  }
+  
+  synchronized void resume() {
+    suspended = false;
+  }
+  
+  private List<Job> drain() {
+    List<PendingJob> pendingJobs = new ArrayList<>();
+    queue.drainTo(pendingJobs);
+    
+    List<Job> jobs = new ArrayList<>(pendingJobs.size());
+    for (PendingJob pendingJob : pendingJobs) {
+      jobs.add(pendingJob.job);
+    }
+    return jobs;
+  }
+  
+  void release() {
+    assigned.decrementAndGet();
+  }
+  
+  /**
+   * Jobs sent before the heartbeat are reflected in the resources it reports
+   */
+  void onHeartbeat() {
+    sentSinceHeartbeat.set(0);
+  }
+  
+  @Override
+  public void run() {
+    List<PendingJob> batch = new ArrayList<>(batchSize);
+    while (!closed) {
+      try {
+        PendingJob first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        
+        List<Job> jobs = new ArrayList<>(batch.size());
+        for (PendingJob pendingJob : batch) {
+          jobs.add(pendingJob.job);
+        }
+        try {
+          backendStub.send(jobs);
+        } catch (Exception e) {
+          logger.error("Failed to dispatch " + jobs.size() + " Jobs to " + backendStub.getBackend().getId() + ". Reassigning them.", e);
+          failureCallback.onDispatchFailed(backendStub.getBackend().getId(), jobs);
+          Thread.sleep(FAILURE_BACKOFF);
+          continue;
+        }
+        sentSinceHeartbeat.addAndGet(jobs.size());
+        
+        for (PendingJob pendingJob : batch) {
+          long latency = System.nanoTime() - pendingJob.enqueuedAt;
+          totalLatency.addAndGet(latency);
+          dispatchedCount.incrementAndGet();
+          
+          long max = maxLatency.get();
+          while (latency > max && !maxLatency.compareAndSet(max, latency)) {
+            max = maxLatency.get();
+          }
+          logger.info("Job {} sent to {}.", pendingJob.job.getId(), backendStub.getBackend().getId());
+        }
+        logger.debug("Dispatched batch of {} Jobs to {}. Queue length {}.", batch.size(), backendStub.getBackend().getId(), queue.size());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (Exception e) {
+        logger.error("Failed to dispatch Jobs to " + backendStub.getBackend().getId(), e);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+  
+  BackendStub<?, ?, ?> getBackendStub() {
+    return backendStub;
+  }
+  
+  int getSize() {
+    return queue.size();
+  }
+  
+  int getPendingCount() {
+    return assigned.get();
+  }
+  
+  int getUnacknowledgedCount() {
+    return queue.size() + sentSinceHeartbeat.get();
+  }
+  
+  long getDispatchedCount() {
+    return dispatchedCount.get();
+  }
+  
+  long getTotalLatency() {
+    return totalLatency.get();
+  }
+  
+  long getMaxLatency() {
+    return maxLatency.get();
+  }
+  
+  static interface DispatchFailureCallback {
+    void onDispatchFailed(String backendId, List<Job> jobs);
+  }
+  
+  private static class PendingJob {
+    private final Job job;
+    private final long enqueuedAt;
+    
+    private PendingJob(Job job, long enqueuedAt) {
+      this.job = job;
+      this.enqueuedAt = enqueuedAt;
+    }
+  }
+  
+}
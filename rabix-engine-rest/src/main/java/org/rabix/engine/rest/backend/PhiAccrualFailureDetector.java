@@ -0,0 +1,134 @@
+package org.rabix.engine.rest.backend;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Phi accrual failure detector (Hayashibara et al.) over Backend heartbeat arrivals.
+ * The suspicion level grows with the time since the last heartbeat relative to the observed inter-arrival distribution.
+ * The acceptable pause is added to the expected interval, so GC pauses and transport hiccups don't raise suspicion.
+ * A Backend is considered dead once it stays suspected for the suspicion timeout, or when it is silent for longer than the deadline.
+ */
+public class PhiAccrualFailureDetector {
+
+  private final static int MAX_SAMPLES = 200;
+  
+  private final double threshold;
+  private final long minStdDeviation;
+  private final long acceptablePause;
+  private final long firstHeartbeatEstimate;
+  private final long suspicionTimeout;
+  private final long deadline;
+  
+  private final ConcurrentMap<String, HeartbeatHistory> histories = new ConcurrentHashMap<>();
+  
+  public PhiAccrualFailureDetector(double threshold, long minStdDeviation, long acceptablePause, long firstHeartbeatEstimate, long suspicionTimeout, long deadline) {
+    this.threshold = threshold;
+    this.minStdDeviation = minStdDeviation;
+    this.acceptablePause = acceptablePause;
+    this.firstHeartbeatEstimate = firstHeartbeatEstimate;
+    this.suspicionTimeout = suspicionTimeout;
+    this.deadline = deadline;
+  }
+  
+  public void heartbeat(String backendId, long timestamp) {
+    HeartbeatHistory history = histories.get(backendId);
+    if (history == null) {
+      HeartbeatHistory newHistory = new HeartbeatHistory(firstHeartbeatEstimate);
+      history = histories.putIfAbsent(backendId, newHistory);
+      if (history == null) {
+        history = newHistory;
+      }
+    }
+    history.add(timestamp);
+  }
+  
+  public double phi(String backendId, long timestamp) {
+    HeartbeatHistory history = histories.get(backendId);
+    if (history == null) {
+      return 0;
+    }
+    return history.phi(timestamp);
+  }
+  
+  /**
+   * Checks whether phi of the Backend has reached the threshold
+   */
+  public boolean isSuspected(String backendId, long timestamp) {
+    HeartbeatHistory history = histories.get(backendId);
+    return history != null && history.phi(timestamp) >= threshold;
+  }
+  
+  /**
+   * Checks whether the Backend was already suspected the suspicion timeout ago, or has been silent for longer than the deadline.
+   * Phi only grows until the next heartbeat, so the Backend has been suspected ever since.
+   */
+  public boolean isDead(String backendId, long timestamp) {
+    HeartbeatHistory history = histories.get(backendId);
+    if (history == null) {
+      return false;
+    }
+    return history.phi(timestamp - suspicionTimeout) >= threshold || timestamp - history.getLast() > deadline;
+  }
+  
+  public void remove(String backendId) {
+    histories.remove(backendId);
+  }
+  
+  private class HeartbeatHistory {
+    private final Deque<Long> intervals = new ArrayDeque<>();
+    private long last;
+    private double sum;
+    private double squaredSum;
+    
+    private HeartbeatHistory(long estimate) {
+      this.last = System.currentTimeMillis();
+      
+      long deviation = estimate / 4;
+      addInterval(estimate - deviation);
+      addInterval(estimate + deviation);
+    }
+    
+    private synchronized void add(long timestamp) {
+      long interval = timestamp - last;
+      last = timestamp;
+      if (interval < 0) {
+        return;
+      }
+      if (intervals.size() >= MAX_SAMPLES) {
+        long removed = intervals.removeFirst();
+        sum -= removed;
+        squaredSum -= removed * removed;
+      }
+      addInterval(interval);
+    }
+    
+    private void addInterval(long interval) {
+      intervals.addLast(interval);
+      sum += interval;
+      squaredSum += interval * interval;
+    }
+    
+    private synchronized long getLast() {
+      return last;
+    }
+    
+    private synchronized double phi(long timestamp) {
+      int count = intervals.size();
+      double mean = sum / count + acceptablePause;
+      double variance = Math.max(squaredSum / count - (sum / count) * (sum / count), 0);
+      double stdDeviation = Math.max(Math.sqrt(variance), minStdDeviation);
+      
+      double elapsed = timestamp - last;
+      double y = (elapsed - mean) / stdDeviation;
+      double e = Math.exp(-y * (1.5976 + 0.070566 * y * y)); // logistic approximation of the normal CDF
+      if (elapsed > mean) {
+        return -Math.log10(e / (1.0 + e));
+      }
+      return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+  }
+  
+}
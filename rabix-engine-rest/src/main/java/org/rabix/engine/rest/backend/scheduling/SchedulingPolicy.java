@@ -0,0 +1,50 @@
+package org.rabix.engine.rest.backend.scheduling;
+
+import java.util.List;
+
+import org.rabix.bindings.model.Job;
+import org.rabix.engine.rest.backend.stub.BackendStub;
+import org.rabix.transport.backend.HeartbeatInfo;
+
+/**
+ * Chooses the Backend a ready Job is dispatched to
+ */
+public interface SchedulingPolicy {
+
+  public static enum Type {
+    ROUND_ROBIN,
+    LEAST_LOADED,
+    DATA_LOCALITY
+  }
+  
+  /**
+   * Selects one of the Backends for the given Job. Returns null if there are no Backends.
+   */
+  BackendStub<?, ?, ?> select(Job job, List<BackendStub<?, ?, ?>> backendStubs, SchedulingContext context);
+  
+  Type getType();
+  
+  /**
+   * Dispatcher state the policies can base their decision on
+   */
+  public static interface SchedulingContext {
+    
+    /**
+     * Number of Jobs queued for or running on the Backend
+     */
+    int getPendingCount(String backendId);
+    
+    /**
+     * Number of Jobs the Backend's latest heartbeat can't account for yet: Jobs still queued for it and Jobs sent after the heartbeat
+     */
+    int getUnacknowledgedCount(String backendId);
+    
+    HeartbeatInfo getHeartbeatInfo(String backendId);
+    
+    /**
+     * Backend that received the latest Job of the root, or null
+     */
+    String getLastBackend(String rootId);
+  }
+  
+}
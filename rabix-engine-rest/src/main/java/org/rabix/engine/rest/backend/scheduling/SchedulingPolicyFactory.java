@@ -0,0 +1,23 @@
+package org.rabix.engine.rest.backend.scheduling;
+
+import org.rabix.engine.rest.backend.scheduling.SchedulingPolicy.Type;
+import org.rabix.engine.rest.backend.scheduling.impl.DataLocalitySchedulingPolicy;
+import org.rabix.engine.rest.backend.scheduling.impl.LeastLoadedSchedulingPolicy;
+import org.rabix.engine.rest.backend.scheduling.impl.RoundRobinSchedulingPolicy;
+
+public class SchedulingPolicyFactory {
+
+  public static SchedulingPolicy create(Type type) {
+    switch (type) {
+    case ROUND_ROBIN:
+      return new RoundRobinSchedulingPolicy();
+    case LEAST_LOADED:
+      return new LeastLoadedSchedulingPolicy();
+    case DATA_LOCALITY:
+      return new DataLocalitySchedulingPolicy();
+    default:
+      throw new IllegalArgumentException("Unsupported scheduling policy " + type);
+    }
+  }
+  
+}
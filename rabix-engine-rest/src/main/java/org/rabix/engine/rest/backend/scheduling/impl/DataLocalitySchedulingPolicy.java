@@ -0,0 +1,35 @@
+package org.rabix.engine.rest.backend.scheduling.impl;
+
+import java.util.List;
+
+import org.rabix.bindings.model.Job;
+import org.rabix.engine.rest.backend.scheduling.SchedulingPolicy;
+import org.rabix.engine.rest.backend.stub.BackendStub;
+
+/**
+ * Keeps Jobs of the same root on the Backend that already holds the root's intermediate outputs.
+ * The first Job of a root is placed by {@link LeastLoadedSchedulingPolicy}.
+ */
+public class DataLocalitySchedulingPolicy implements SchedulingPolicy {
+
+  private final LeastLoadedSchedulingPolicy fallback = new LeastLoadedSchedulingPolicy();
+  
+  @Override
+  public BackendStub<?, ?, ?> select(Job job, List<BackendStub<?, ?, ?>> backendStubs, SchedulingContext context) {
+    String backendId = context.getLastBackend(job.getRootId());
+    if (backendId != null) {
+      for (BackendStub<?, ?, ?> backendStub : backendStubs) {
+        if (backendStub.getBackend().getId().equals(backendId)) {
+          return backendStub;
+        }
+      }
+    }
+    return fallback.select(job, backendStubs, context);
+  }
+
+  @Override
+  public Type getType() {
+    return Type.DATA_LOCALITY;
+  }
+
+}
@@ -0,0 +1,52 @@
+package org.rabix.engine.rest.backend.scheduling.impl;
+
+import java.util.List;
+
+import org.rabix.bindings.model.Job;
+import org.rabix.engine.rest.backend.scheduling.SchedulingPolicy;
+import org.rabix.engine.rest.backend.stub.BackendStub;
+import org.rabix.transport.backend.HeartbeatInfo;
+
+/**
+ * Prefers the Backend with the most free cores (and then memory) reported through heartbeats.
+ * Reported cores already exclude the work the Backend has taken, so only Jobs it hasn't seen at heartbeat time are subtracted.
+ * It is an approximation: Jobs the Backend has received but not started yet are not reflected in either number.
+ * Backends that don't report resources are compared by pending Jobs only.
+ */
+public class LeastLoadedSchedulingPolicy implements SchedulingPolicy {
+
+  @Override
+  public BackendStub<?, ?, ?> select(Job job, List<BackendStub<?, ?, ?>> backendStubs, SchedulingContext context) {
+    BackendStub<?, ?, ?> selected = null;
+    long selectedCores = Long.MIN_VALUE;
+    long selectedMemory = Long.MIN_VALUE;
+    
+    for (BackendStub<?, ?, ?> backendStub : backendStubs) {
+      String backendId = backendStub.getBackend().getId();
+      
+      long cores;
+      long memory = 0;
+      HeartbeatInfo heartbeatInfo = context.getHeartbeatInfo(backendId);
+      if (heartbeatInfo != null && heartbeatInfo.getAvailableCores() != null) {
+        cores = heartbeatInfo.getAvailableCores() - context.getUnacknowledgedCount(backendId);
+      } else {
+        cores = -context.getPendingCount(backendId);
+      }
+      if (heartbeatInfo != null && heartbeatInfo.getAvailableMemoryMB() != null) {
+        memory = heartbeatInfo.getAvailableMemoryMB();
+      }
+      if (selected == null || cores > selectedCores || (cores == selectedCores && memory > selectedMemory)) {
+        selected = backendStub;
+        selectedCores = cores;
+        selectedMemory = memory;
+      }
+    }
+    return selected;
+  }
+
+  @Override
+  public Type getType() {
+    return Type.LEAST_LOADED;
+  }
+
+}
@@ -0,0 +1,29 @@
+package org.rabix.engine.rest.backend.scheduling.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.rabix.bindings.model.Job;
+import org.rabix.engine.rest.backend.scheduling.SchedulingPolicy;
+import org.rabix.engine.rest.backend.stub.BackendStub;
+
+public class RoundRobinSchedulingPolicy implements SchedulingPolicy {
+
+  private final AtomicInteger position = new AtomicInteger(0);
+  
+  @Override
+  public BackendStub<?, ?, ?> select(Job job, List<BackendStub<?, ?, ?>> backendStubs, SchedulingContext context) {
+    BackendStub<?, ?, ?>[] snapshot = backendStubs.toArray(new BackendStub<?, ?, ?>[0]); // the list can change between size() and get()
+    if (snapshot.length == 0) {
+      return null;
+    }
+    int next = position.getAndIncrement() & Integer.MAX_VALUE;
+    return snapshot[next % snapshot.length];
+  }
+
+  @Override
+  public Type getType() {
+    return Type.ROUND_ROBIN;
+  }
+
+}
@@ -1,11 +1,12 @@
 package org.rabix.engine.rest.backend.stub;
 
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.rabix.bindings.model.Job;
 import org.rabix.common.engine.control.EngineControlMessage;
+import org.rabix.common.json.codec.BeanCodec;
 import org.rabix.engine.rest.service.JobService;
 import org.rabix.engine.rest.service.JobServiceException;
 import org.rabix.transport.backend.Backend;
@@ -34,7 +35,10 @@ public abstract class BackendStub<Q extends TransportQueue, B extends Backend, T
 
   private ExecutorService executorService = Executors.newFixedThreadPool(2);
   
-  public void start(final Map<String, Long> heartbeatInfo) {
+  private volatile BeanCodec codec;
+  private volatile boolean codecNegotiated = false;
+  
+  public void start(final HeartbeatCallback heartbeatCallback) {
     transportPlugin.startReceiver(receiveFromBackendQueue, Job.class, new ReceiveCallback<Job>() {
       @Override
       public void handleReceive(Job job) throws TransportPluginException {
@@ -56,7 +60,8 @@ public abstract class BackendStub<Q extends TransportQueue, B extends Backend, T
           @Override
           public void handleReceive(HeartbeatInfo entity) throws TransportPluginException {
             logger.debug("Got heartbeat info from {}", entity.getId());
-            heartbeatInfo.put(entity.getId(), entity.getTimestamp());
+            negotiateCodec(entity);
+            heartbeatCallback.onHeartbeat(entity);
           }
         }, new ErrorCallback() {
           @Override
@@ -66,13 +71,50 @@ public abstract class BackendStub<Q extends TransportQueue, B extends Backend, T
         });
   }
   
+  /**
+   * Stops receiving Job updates and heartbeats from the backend
+   */
   public void stop() {
+    transportPlugin.stopReceiver(receiveFromBackendQueue);
+    transportPlugin.stopReceiver(receiveFromBackendHeartbeatQueue);
     executorService.shutdownNow();
   }
+  
+  /**
+   * Sets preferred codec. Framed codecs are used only after the backend reports it supports them.
+   */
+  public void setCodec(BeanCodec codec) {
+    this.codec = codec;
+    this.codecNegotiated = !codec.isFramed();
+    if (codecNegotiated) {
+      transportPlugin.setCodec(codec);
+    }
+  }
+  
+  private void negotiateCodec(HeartbeatInfo heartbeatInfo) {
+    if (codecNegotiated || codec == null) {
+      return;
+    }
+    Integer wireVersion = heartbeatInfo.getWireVersion();
+    List<String> codecs = heartbeatInfo.getCodecs();
+    if (wireVersion != null && wireVersion >= BeanCodec.WIRE_VERSION && codecs != null && codecs.contains(codec.getType().name())) {
+      transportPlugin.setCodec(codec);
+      codecNegotiated = true;
+      logger.info("Backend {} supports {} codec. Switching to it.", backend.getId(), codec.getType());
+    }
+  }
 
   public void send(Job job) {
     this.transportPlugin.send(sendToBackendQueue, job);
   }
+  
+  public void send(List<Job> jobs) {
+    if (jobs.size() == 1) {
+      send(jobs.get(0));
+      return;
+    }
+    this.transportPlugin.sendBatch(sendToBackendQueue, jobs);
+  }
 
   public Backend getBackend() {
     return backend;
@@ -81,5 +123,9 @@ public abstract class BackendStub<Q extends TransportQueue, B extends Backend, T
   public void send(EngineControlMessage controlMessage) {
     transportPlugin.send(sendToBackendControlQueue, controlMessage);
   }
+  
+  public static interface HeartbeatCallback {
+    void onHeartbeat(HeartbeatInfo heartbeatInfo);
+  }
 
 }
@@ -1,6 +1,7 @@
 package org.rabix.engine.rest.backend.stub;
 
 import org.apache.commons.configuration.Configuration;
+import org.rabix.common.json.codec.BeanCodecFactory;
 import org.rabix.engine.rest.backend.stub.impl.BackendStubActiveMQ;
 import org.rabix.engine.rest.backend.stub.impl.BackendStubLocal;
 import org.rabix.engine.rest.backend.stub.impl.BackendStubRabbitMQ;
@@ -23,17 +24,22 @@ public class BackendStubFactory {
   }
 
   public <T extends Backend> BackendStub<?, ?, ?> create(JobService jobService, T backend) throws TransportPluginException {
+    BackendStub<?, ?, ?> backendStub = null;
     switch (backend.getType()) {
     case ACTIVE_MQ:
-      return new BackendStubActiveMQ(jobService, configuration, (BackendActiveMQ) backend);
+      backendStub = new BackendStubActiveMQ(jobService, configuration, (BackendActiveMQ) backend);
+      break;
     case LOCAL:
-      return new BackendStubLocal(jobService, configuration, (BackendLocal) backend);
+      backendStub = new BackendStubLocal(jobService, configuration, (BackendLocal) backend);
+      break;
     case RABBIT_MQ:
-      return new BackendStubRabbitMQ(jobService, (BackendRabbitMQ) backend, configuration);
-    default:
+      backendStub = new BackendStubRabbitMQ(jobService, (BackendRabbitMQ) backend, configuration);
       break;
+    default:
+      throw new TransportPluginException("There is no Backend stub for " + backend);
     }
-    throw new TransportPluginException("There is no Backend stub for " + backend);
+    backendStub.setCodec(BeanCodecFactory.create(configuration));
+    return backendStub;
   }
 
 }
@@ -1,43 +1,293 @@
 package org.rabix.engine.rest.db;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
+import org.apache.commons.configuration.Configuration;
 import org.rabix.bindings.model.Job;
+import org.rabix.bindings.model.Job.JobStatus;
 
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Striped;
+import com.google.inject.Inject;
+
+/**
+ * Job store indexed by root ID and status. Jobs are kept in submission order so that queries can be paged.
+ * Finished roots are evicted after the retention period or once there are too many of them. Late updates
+ * of evicted roots are dropped.
+ */
 public class JobDB {
 
-  private Map<String, Job> jobs = new HashMap<>();
+  private final static long DEFAULT_RETENTION = TimeUnit.HOURS.toMillis(24);
+  private final static int DEFAULT_MAX_FINISHED_ROOTS = 10000;
+  
+  private final ConcurrentMap<String, JobEntry> jobs = new ConcurrentHashMap<>();
+  private final ConcurrentNavigableMap<Long, JobEntry> orderedJobs = new ConcurrentSkipListMap<>();
+  
+  private final ConcurrentMap<String, NavigableSet<Long>> rootIndex = new ConcurrentHashMap<>();
+  private final Map<JobStatus, NavigableSet<Long>> statusIndex = new EnumMap<>(JobStatus.class);
+  
+  private final Queue<FinishedRoot> finishedRoots = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger finishedRootCount = new AtomicInteger(0);
+  private final Set<String> evictedRoots;
+  
+  private final AtomicLong sequence = new AtomicLong(0);
+  private final Striped<Lock> locks = Striped.lock(64);
+  
+  private final long retention;
+  private final int maxFinishedRoots;
+  
+  @Inject
+  public JobDB(Configuration configuration) {
+    this.retention = configuration.getLong("engine.job_db.retention_mills", DEFAULT_RETENTION);
+    this.maxFinishedRoots = configuration.getInt("engine.job_db.max_finished_roots", DEFAULT_MAX_FINISHED_ROOTS);
+    this.evictedRoots = Collections.newSetFromMap(CacheBuilder.newBuilder().maximumSize(Math.max(maxFinishedRoots, 1)).<String, Boolean>build().asMap());
+    
+    for (JobStatus status : JobStatus.values()) {
+      statusIndex.put(status, new ConcurrentSkipListSet<Long>());
+    }
+  }
+  
+  public void add(Job job) {
+    put(job);
+  }
   
-  public synchronized void add(Job job) {
-    jobs.put(job.getId(), job);
+  public void update(Job job) {
+    put(job);
   }
   
-  public synchronized void update(Job job) {
-    jobs.put(job.getId(), job);
+  private void put(Job job) {
+    boolean rootFinished = false;
+    
+    Lock lock = locks.get(job.getId());
+    lock.lock();
+    try {
+      if (evictedRoots.contains(job.getRootId())) {
+        return;
+      }
+      JobEntry entry = jobs.get(job.getId());
+      JobStatus previousStatus = null;
+      if (entry == null) {
+        entry = new JobEntry(sequence.incrementAndGet(), job);
+        jobs.put(job.getId(), entry);
+        orderedJobs.put(entry.sequence, entry);
+        getRootIndex(job.getRootId()).add(entry.sequence);
+        
+        if (evictedRoots.contains(job.getRootId())) {
+          // root was evicted concurrently and may have missed the new entry
+          remove(entry);
+          return;
+        }
+      } else {
+        previousStatus = entry.job.getStatus();
+        entry.job = job;
+      }
+      
+      JobStatus status = job.getStatus();
+      if (previousStatus != status) {
+        if (previousStatus != null) {
+          statusIndex.get(previousStatus).remove(entry.sequence);
+        }
+        if (status != null) {
+          statusIndex.get(status).add(entry.sequence);
+        }
+        rootFinished = job.isRoot() && isFinished(status) && !isFinished(previousStatus);
+      }
+    } finally {
+      lock.unlock();
+    }
+    
+    if (rootFinished) {
+      finishedRoots.add(new FinishedRoot(job.getRootId(), System.currentTimeMillis()));
+      finishedRootCount.incrementAndGet();
+    }
+    evict();
   }
   
-  public synchronized Job get(String id) {
-    return jobs.get(id);
+  public Job get(String id) {
+    JobEntry entry = jobs.get(id);
+    return entry != null ? entry.job : null;
   }
   
-  public synchronized Set<Job> getJobs() {
+  public Set<Job> getJobs() {
     Set<Job> jobSet = new HashSet<>();
-    for (Job job : jobs.values()) {
-      jobSet.add(job);
+    for (JobEntry entry : jobs.values()) {
+      jobSet.add(entry.job);
     }
     return jobSet;
   }
   
-  public synchronized Set<Job> getJobs(String rootId) {
+  public Set<Job> getJobs(String rootId) {
     Set<Job> jobSet = new HashSet<>();
-    for (Job job : jobs.values()) {
-      if (job.getRootId().equals(rootId)) {
-        jobSet.add(job);
-      }
+    Iterator<Job> iterator = iterator(rootId, null);
+    while (iterator.hasNext()) {
+      jobSet.add(iterator.next());
     }
     return jobSet;
   }
+  
+  /**
+   * Returns a page of Jobs in submission order. Both rootId and status are optional.
+   */
+  public List<Job> getJobs(String rootId, JobStatus status, int offset, int limit) {
+    Iterator<Job> iterator = iterator(rootId, status);
+    Iterators.advance(iterator, offset);
+    
+    List<Job> page = new ArrayList<>();
+    while (iterator.hasNext() && (limit < 0 || page.size() < limit)) {
+      page.add(iterator.next());
+    }
+    return page;
+  }
+  
+  /**
+   * Weakly consistent iterator over Jobs in submission order. Both rootId and status are optional.
+   */
+  public Iterator<Job> iterator(final String rootId, final JobStatus status) {
+    Iterator<Long> sequences;
+    if (rootId != null) {
+      NavigableSet<Long> index = rootIndex.get(rootId);
+      sequences = index != null ? index.iterator() : Collections.<Long>emptyIterator();
+    } else if (status != null) {
+      sequences = statusIndex.get(status).iterator();
+    } else {
+      sequences = orderedJobs.keySet().iterator();
+    }
+    
+    Iterator<Job> iterator = Iterators.transform(sequences, new Function<Long, Job>() {
+      @Override
+      public Job apply(Long sequence) {
+        JobEntry entry = orderedJobs.get(sequence);
+        return entry != null ? entry.job : null;
+      }
+    });
+    return Iterators.filter(iterator, new Predicate<Job>() {
+      @Override
+      public boolean apply(Job job) {
+        return job != null && (status == null || status.equals(job.getStatus()));
+      }
+    });
+  }
+  
+  public int size() {
+    return jobs.size();
+  }
+  
+  private void evict() {
+    long currentTime = System.currentTimeMillis();
+    
+    FinishedRoot finishedRoot;
+    while ((finishedRoot = finishedRoots.peek()) != null) {
+      if (finishedRootCount.get() <= maxFinishedRoots && currentTime - finishedRoot.finishedAt < retention) {
+        return;
+      }
+      if (finishedRoots.remove(finishedRoot)) {
+        finishedRootCount.decrementAndGet();
+        removeRoot(finishedRoot.rootId);
+      }
+    }
+  }
+  
+  private void removeRoot(String rootId) {
+    evictedRoots.add(rootId);
+    NavigableSet<Long> index = rootIndex.remove(rootId);
+    if (index == null) {
+      return;
+    }
+    for (Long sequence : index) {
+      JobEntry entry = orderedJobs.get(sequence);
+      if (entry == null) {
+        continue;
+      }
+      Lock lock = locks.get(entry.job.getId());
+      lock.lock();
+      try {
+        remove(entry);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+  
+  /**
+   * Removes entry from all indexes. Caller holds the lock of the Job.
+   */
+  private void remove(JobEntry entry) {
+    orderedJobs.remove(entry.sequence);
+    jobs.remove(entry.job.getId());
+    if (entry.job.getStatus() != null) {
+      statusIndex.get(entry.job.getStatus()).remove(entry.sequence);
+    }
+    NavigableSet<Long> index = rootIndex.get(entry.job.getRootId());
+    if (index != null && index.remove(entry.sequence) && index.isEmpty()) {
+      rootIndex.remove(entry.job.getRootId(), index);
+    }
+  }
+  
+  private NavigableSet<Long> getRootIndex(String rootId) {
+    NavigableSet<Long> index = rootIndex.get(rootId);
+    if (index == null) {
+      NavigableSet<Long> newIndex = new ConcurrentSkipListSet<>();
+      index = rootIndex.putIfAbsent(rootId, newIndex);
+      if (index == null) {
+        index = newIndex;
+      }
+    }
+    return index;
+  }
+  
+  private boolean isFinished(JobStatus status) {
+    if (status == null) {
+      return false;
+    }
+    switch (status) {
+    case COMPLETED:
+    case FAILED:
+    case ABORTED:
+      return true;
+    default:
+      return false;
+    }
+  }
+  
+  private static class JobEntry {
+    private final long sequence;
+    private volatile Job job;
+    
+    private JobEntry(long sequence, Job job) {
+      this.sequence = sequence;
+      this.job = job;
+    }
+  }
+  
+  private static class FinishedRoot {
+    private final String rootId;
+    private final long finishedAt;
+    
+    private FinishedRoot(String rootId, long finishedAt) {
+      this.rootId = rootId;
+      this.finishedAt = finishedAt;
+    }
+  }
 }
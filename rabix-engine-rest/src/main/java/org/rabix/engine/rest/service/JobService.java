@@ -1,9 +1,12 @@
 package org.rabix.engine.rest.service;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.rabix.bindings.model.Job;
+import org.rabix.bindings.model.Job.JobStatus;
 import org.rabix.engine.processor.EventProcessor;
 
 public interface JobService {
@@ -18,6 +21,10 @@ public interface JobService {
   
   Set<Job> get();
   
+  List<Job> get(String rootId, JobStatus status, int offset, int limit);
+  
+  Iterator<Job> iterator(String rootId, JobStatus status);
+  
   Job get(String id);
 
 }
@@ -1,6 +1,8 @@
 package org.rabix.engine.rest.service.impl;
 
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -19,6 +21,7 @@ import org.rabix.bindings.model.Resources;
 import org.rabix.bindings.model.dag.DAGNode;
 import org.rabix.common.SystemEnvironmentHelper;
 import org.rabix.engine.JobHelper;
+import org.rabix.engine.db.AppDB;
 import org.rabix.engine.db.DAGNodeDB;
 import org.rabix.engine.event.impl.InitEvent;
 import org.rabix.engine.event.impl.JobStatusEvent;
@@ -53,6 +56,7 @@ public class JobServiceImpl implements JobService {
   private final ContextRecordService contextRecordService;
   
   private final JobDB jobDB;
+  private final AppDB appDB;
   private final DAGNodeDB dagNodeDB;
   
   private final EventProcessor eventProcessor;
@@ -64,8 +68,9 @@ public class JobServiceImpl implements JobService {
   private boolean deleteFilesUponExecution;
   
   @Inject
-  public JobServiceImpl(EventProcessor eventProcessor, JobRecordService jobRecordService, VariableRecordService variableRecordService, LinkRecordService linkRecordService, ContextRecordService contextRecordService, BackendDispatcher backendDispatcher, Configuration configuration, DAGNodeDB dagNodeDB, JobDB jobDB) {
+  public JobServiceImpl(EventProcessor eventProcessor, JobRecordService jobRecordService, VariableRecordService variableRecordService, LinkRecordService linkRecordService, ContextRecordService contextRecordService, BackendDispatcher backendDispatcher, Configuration configuration, DAGNodeDB dagNodeDB, AppDB appDB, JobDB jobDB) {
     this.jobDB = jobDB;
+    this.appDB = appDB;
     this.dagNodeDB = dagNodeDB;
     this.eventProcessor = eventProcessor;
     
@@ -105,6 +110,7 @@ public class JobServiceImpl implements JobService {
         JobStateValidator.checkState(jobRecord, JobState.FAILED);
         statusEvent = new JobStatusEvent(job.getName(), job.getRootId(), JobState.FAILED, null, null);
         eventProcessor.addToQueue(statusEvent);
+        backendDispatcher.finish(job);
         break;
       case COMPLETED:
         if (JobState.COMPLETED.equals(jobRecord.getState())) {
@@ -113,6 +119,7 @@ public class JobServiceImpl implements JobService {
         JobStateValidator.checkState(jobRecord, JobState.COMPLETED);
         statusEvent = new JobStatusEvent(job.getName(), job.getRootId(), JobState.COMPLETED, job.getOutputs(), job.getId());
         eventProcessor.addToQueue(statusEvent);
+        backendDispatcher.finish(job);
         break;
       default:
         break;
@@ -121,6 +128,8 @@ public class JobServiceImpl implements JobService {
     } catch (JobStateValidationException e) {
       // TODO handle exception
       logger.warn("Failed to update Job state from {} to {}", jobRecord.getState(), job.getStatus());
+    } catch (EventHandlerException e) {
+      throw new JobServiceException("Failed to update Job " + job.getId(), e);
     }
   }
   
@@ -170,7 +179,7 @@ public class JobServiceImpl implements JobService {
   
   @Override
   public Set<Job> getReady(EventProcessor eventProcessor, String contextId) throws JobServiceException {
-    return JobHelper.createReadyJobs(jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, contextId);
+    return JobHelper.createReadyJobs(jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, appDB, contextId);
   }
   
   @Override
@@ -178,6 +187,16 @@ public class JobServiceImpl implements JobService {
     return jobDB.getJobs();
   }
 
+  @Override
+  public List<Job> get(String rootId, JobStatus status, int offset, int limit) {
+    return jobDB.getJobs(rootId, status, offset, limit);
+  }
+  
+  @Override
+  public Iterator<Job> iterator(String rootId, JobStatus status) {
+    return jobDB.iterator(rootId, status);
+  }
+
   @Override
   public Job get(String id) {
     return jobDB.get(id);
@@ -202,6 +221,23 @@ public class JobServiceImpl implements JobService {
     
     @Override
     public void onJobReady(Job job) {
+      job = prepare(job);
+      jobDB.update(job);
+      backendDispatcher.send(job);
+    }
+    
+    @Override
+    public void onJobsReady(Set<Job> jobs) throws EngineStatusCallbackException {
+      Job[] readyJobs = new Job[jobs.size()];
+      int i = 0;
+      for (Job job : jobs) {
+        readyJobs[i] = prepare(job);
+        jobDB.update(readyJobs[i++]);
+      }
+      backendDispatcher.send(readyJobs);
+    }
+    
+    private Job prepare(Job job) {
       if (setResources) {
         long numberOfCores;
         long memory;
@@ -216,15 +252,7 @@ public class JobServiceImpl implements JobService {
         Resources resources = new Resources(numberOfCores, memory, null, true, null, null, null, null);
         job = Job.cloneWithResources(job, resources);
       }
-      jobDB.update(job);
-      backendDispatcher.send(job);
-    }
-    
-    @Override
-    public void onJobsReady(Set<Job> jobs) throws EngineStatusCallbackException {
-      for (Job job : jobs) {
-        onJobReady(job);
-      }
+      return job;
     }
 
     @Override
@@ -247,7 +275,9 @@ public class JobServiceImpl implements JobService {
               while (true) {
                 try {
                   boolean exit = true;
-                  for (Job job : jobDB.getJobs(failedJob.getRootId())) {
+                  Iterator<Job> jobs = jobDB.iterator(failedJob.getRootId(), null);
+                  while (jobs.hasNext()) {
+                    Job job = jobs.next();
                     if (!job.isRoot() && !isFinished(job.getStatus())) {
                       exit = false;
                       break;
@@ -295,6 +325,7 @@ public class JobServiceImpl implements JobService {
       job = Job.cloneWithStatus(job, JobStatus.COMPLETED);
       job = JobHelper.fillOutputs(job, jobRecordService, variableRecordService);
       jobDB.update(job);
+      backendDispatcher.remove(job);
       logger.info("Root Job {} completed. Successfull {}.", job.getId(), successCount.incrementAndGet());
     }
 
@@ -330,6 +361,11 @@ public class JobServiceImpl implements JobService {
       logger.info("Job {} is completed.", job.getId());
     }
 
+    @Override
+    public void onJobRecovered(Job job) throws EngineStatusCallbackException {
+      jobDB.add(job);
+    }
+
   }
   
 }
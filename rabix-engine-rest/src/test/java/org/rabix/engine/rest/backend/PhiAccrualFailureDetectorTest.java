@@ -0,0 +1,75 @@
+package org.rabix.engine.rest.backend;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class PhiAccrualFailureDetectorTest {
+
+  private final static String BACKEND_ID = "backend";
+
+  private final static long SUSPICION_TIMEOUT = 15000;
+  private final static long DEADLINE = 120000;
+
+  @Test
+  public void testShortPauseIsNotSuspected() {
+    PhiAccrualFailureDetector detector = new PhiAccrualFailureDetector(8, 500, 5000, 1000, SUSPICION_TIMEOUT, DEADLINE);
+    long last = heartbeats(detector, 100);
+
+    Assert.assertFalse(detector.isSuspected(BACKEND_ID, last + 2100));
+    Assert.assertFalse(detector.isSuspected(BACKEND_ID, last + 5000));
+    Assert.assertFalse(detector.isDead(BACKEND_ID, last + 5000));
+  }
+
+  @Test
+  public void testLongSilenceIsSuspected() {
+    PhiAccrualFailureDetector detector = new PhiAccrualFailureDetector(8, 500, 5000, 1000, SUSPICION_TIMEOUT, DEADLINE);
+    long last = heartbeats(detector, 100);
+
+    Assert.assertTrue(detector.isSuspected(BACKEND_ID, last + 10000));
+    Assert.assertFalse(detector.isDead(BACKEND_ID, last + 10000));
+    Assert.assertTrue(detector.isDead(BACKEND_ID, last + DEADLINE + 1));
+  }
+
+  @Test
+  public void testDeadAfterSuspicionTimeout() {
+    PhiAccrualFailureDetector detector = new PhiAccrualFailureDetector(8, 500, 5000, 1000, SUSPICION_TIMEOUT, DEADLINE);
+    long last = heartbeats(detector, 100);
+
+    Assert.assertFalse(detector.isDead(BACKEND_ID, last + 20000));
+    Assert.assertTrue(detector.isDead(BACKEND_ID, last + 10000 + SUSPICION_TIMEOUT));
+
+    detector.heartbeat(BACKEND_ID, last + 30000);
+    Assert.assertFalse(detector.isDead(BACKEND_ID, last + 31000));
+  }
+
+  @Test
+  public void testResumedHeartbeatsClearSuspicion() {
+    PhiAccrualFailureDetector detector = new PhiAccrualFailureDetector(8, 500, 5000, 1000, SUSPICION_TIMEOUT, DEADLINE);
+    long last = heartbeats(detector, 100);
+    Assert.assertTrue(detector.isSuspected(BACKEND_ID, last + 10000));
+
+    detector.heartbeat(BACKEND_ID, last + 10000);
+    Assert.assertFalse(detector.isSuspected(BACKEND_ID, last + 11000));
+  }
+
+  @Test
+  public void testUnknownBackend() {
+    PhiAccrualFailureDetector detector = new PhiAccrualFailureDetector(8, 500, 5000, 1000, SUSPICION_TIMEOUT, DEADLINE);
+    Assert.assertFalse(detector.isSuspected(BACKEND_ID, System.currentTimeMillis()));
+    Assert.assertFalse(detector.isDead(BACKEND_ID, System.currentTimeMillis()));
+  }
+
+  /**
+   * Sends heartbeats every second and returns time of the last one
+   */
+  private long heartbeats(PhiAccrualFailureDetector detector, int count) {
+    long timestamp = System.currentTimeMillis();
+    for (int i = 0; i < count; i++) {
+      timestamp += 1000;
+      detector.heartbeat(BACKEND_ID, timestamp);
+    }
+    return timestamp;
+  }
+
+}
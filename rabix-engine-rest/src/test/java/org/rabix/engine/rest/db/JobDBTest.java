@@ -0,0 +1,88 @@
+package org.rabix.engine.rest.db;
+
+import java.util.List;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.rabix.bindings.model.Job;
+import org.rabix.bindings.model.Job.JobStatus;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class JobDBTest {
+
+  @Test
+  public void testPages() {
+    JobDB jobDB = createJobDB(10);
+    jobDB.add(job("root", "root", JobStatus.RUNNING));
+    for (int i = 0; i < 5; i++) {
+      jobDB.add(job("root.job" + i, "root", i % 2 == 0 ? JobStatus.READY : JobStatus.COMPLETED));
+    }
+    jobDB.add(job("other", "other", JobStatus.RUNNING));
+
+    Assert.assertEquals(ids(jobDB.getJobs(null, null, 0, 3)), "root,root.job0,root.job1");
+    Assert.assertEquals(ids(jobDB.getJobs(null, null, 5, -1)), "root.job4,other");
+    Assert.assertEquals(ids(jobDB.getJobs("root", JobStatus.READY, 1, 5)), "root.job2,root.job4");
+    Assert.assertEquals(ids(jobDB.getJobs(null, JobStatus.RUNNING, 0, -1)), "root,other");
+    Assert.assertTrue(jobDB.getJobs("missing", null, 0, -1).isEmpty());
+
+    jobDB.update(job("root.job0", "root", JobStatus.COMPLETED));
+    Assert.assertEquals(ids(jobDB.getJobs(null, JobStatus.READY, 0, -1)), "root.job2,root.job4");
+    Assert.assertEquals(ids(jobDB.getJobs(null, JobStatus.COMPLETED, 0, 1)), "root.job0"); // keeps submission order
+  }
+
+  @Test
+  public void testEvictsOldestFinishedRoots() {
+    JobDB jobDB = createJobDB(1);
+    for (String rootId : new String[] { "first", "second" }) {
+      jobDB.add(job(rootId, rootId, JobStatus.RUNNING));
+      jobDB.add(job(rootId + ".job", rootId, JobStatus.RUNNING));
+    }
+    jobDB.update(job("first", "first", JobStatus.COMPLETED));
+    Assert.assertEquals(jobDB.size(), 4);
+
+    jobDB.update(job("second", "second", JobStatus.FAILED));
+    Assert.assertEquals(jobDB.size(), 2);
+    Assert.assertNull(jobDB.get("first"));
+    Assert.assertNull(jobDB.get("first.job"));
+    Assert.assertTrue(jobDB.getJobs("first").isEmpty());
+    Assert.assertTrue(jobDB.getJobs(null, JobStatus.RUNNING, 0, -1).contains(jobDB.get("second.job")));
+  }
+
+  @Test
+  public void testDropsUpdatesOfEvictedRoots() {
+    JobDB jobDB = createJobDB(0);
+    jobDB.add(job("root", "root", JobStatus.RUNNING));
+    jobDB.add(job("root.job", "root", JobStatus.RUNNING));
+    jobDB.update(job("root", "root", JobStatus.ABORTED));
+    Assert.assertEquals(jobDB.size(), 0);
+
+    jobDB.update(job("root.job", "root", JobStatus.ABORTED));
+    jobDB.add(job("root.late", "root", JobStatus.READY));
+    Assert.assertEquals(jobDB.size(), 0);
+    Assert.assertTrue(jobDB.getJobs(null, null, 0, -1).isEmpty());
+  }
+
+  private JobDB createJobDB(int maxFinishedRoots) {
+    Configuration configuration = new BaseConfiguration();
+    configuration.setProperty("engine.job_db.max_finished_roots", maxFinishedRoots);
+    return new JobDB(configuration);
+  }
+
+  private Job job(String id, String rootId, JobStatus status) {
+    return new Job(id, rootId.equals(id) ? null : rootId, rootId, id, null, status, null, null, null, null, null, null);
+  }
+
+  private String ids(List<Job> jobs) {
+    StringBuilder builder = new StringBuilder();
+    for (Job job : jobs) {
+      if (builder.length() > 0) {
+        builder.append(",");
+      }
+      builder.append(job.getId());
+    }
+    return builder.toString();
+  }
+
+}
@@ -0,0 +1,112 @@
+package org.rabix.engine.db;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.rabix.bindings.BindingException;
+import org.rabix.bindings.Bindings;
+import org.rabix.bindings.BindingsFactory;
+import org.rabix.bindings.helper.URIHelper;
+import org.rabix.bindings.model.dag.DAGNode;
+
+/**
+ * In-memory content-addressed repository of applications used by {@link DAGNode}s.
+ * 
+ * Application is serialized and encoded once per (context, node) pair and shared through its hash,
+ * so Jobs created from the same node (e.g. scattered Jobs) reuse the encoded application and its {@link Bindings}.
+ */
+public class AppDB {
+
+  private final Map<String, Map<String, String>> hashesPerContext = new HashMap<>();
+  private final Map<String, AppEntry> apps = new HashMap<>();
+  
+  /**
+   * Gets encoded application of the node 
+   */
+  public String getEncodedApp(DAGNode node, String contextId) {
+    return getEntry(node, contextId).encodedApp;
+  }
+  
+  /**
+   * Gets hash of the node's application 
+   */
+  public String getHash(DAGNode node, String contextId) {
+    return getEntry(node, contextId).hash;
+  }
+  
+  /**
+   * Gets {@link Bindings} for the node's application. Bindings are resolved only once per application. 
+   */
+  public Bindings getBindings(DAGNode node, String contextId) throws BindingException {
+    AppEntry entry = getEntry(node, contextId);
+    Bindings bindings = entry.bindings;
+    if (bindings == null) {
+      bindings = BindingsFactory.create(entry.encodedApp);
+      entry.bindings = bindings;
+    }
+    return bindings;
+  }
+  
+  /**
+   * Deletes all applications of the context which are not used by other contexts
+   */
+  public synchronized void delete(String contextId) {
+    Map<String, String> contextHashes = hashesPerContext.remove(contextId);
+    if (contextHashes == null) {
+      return;
+    }
+    for (String hash : new HashSet<>(contextHashes.values())) {
+      AppEntry entry = apps.get(hash);
+      if (entry != null) {
+        entry.contexts.remove(contextId);
+        if (entry.contexts.isEmpty()) {
+          apps.remove(hash);
+        }
+      }
+    }
+  }
+  
+  private synchronized AppEntry getEntry(DAGNode node, String contextId) {
+    Map<String, String> contextHashes = hashesPerContext.get(contextId);
+    if (contextHashes == null) {
+      contextHashes = new HashMap<>();
+      hashesPerContext.put(contextId, contextHashes);
+    }
+    
+    String hash = contextHashes.get(node.getId());
+    if (hash != null) {
+      AppEntry entry = apps.get(hash);
+      if (entry != null) {
+        return entry;
+      }
+    }
+    
+    String serializedApp = node.getApp().serialize();
+    hash = DigestUtils.sha1Hex(serializedApp);
+    contextHashes.put(node.getId(), hash);
+    
+    AppEntry entry = apps.get(hash);
+    if (entry == null) {
+      entry = new AppEntry(hash, URIHelper.createDataURI(serializedApp));
+      apps.put(hash, entry);
+    }
+    entry.contexts.add(contextId);
+    return entry;
+  }
+  
+  private static class AppEntry {
+    private final String hash;
+    private final String encodedApp;
+    private final Set<String> contexts = new HashSet<>();
+    private volatile Bindings bindings;
+    
+    private AppEntry(String hash, String encodedApp) {
+      this.hash = hash;
+      this.encodedApp = encodedApp;
+    }
+  }
+  
+}
@@ -1,7 +1,6 @@
 package org.rabix.engine.db;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -22,8 +21,11 @@ public class ReadyJobGroupsDB {
     Map<String, Set<Job>> groupedByRoot = groupedJobs.get(job.getRootId());
 
     if (groupedByRoot == null) {
-      groupedByRoot = new HashMap<>();
-      groupedJobs.put(job.getRootId(), groupedByRoot);
+      groupedByRoot = new ConcurrentHashMap<>();
+      Map<String, Set<Job>> existing = groupedJobs.putIfAbsent(job.getRootId(), groupedByRoot);
+      if (existing != null) {
+        groupedByRoot = existing;
+      }
     }
 
     Set<Job> jobs = groupedByRoot.get(eventId);
@@ -41,6 +43,18 @@ public class ReadyJobGroupsDB {
     }
     return groupedByRoot.containsKey(eventId) ? groupedByRoot.get(eventId) : Collections.<Job> emptySet();
   }
+  
+  /**
+   * Removes the group and returns its Jobs so that each ready Job is emitted once
+   */
+  public Set<Job> remove(String rootId, String eventId) {
+    Map<String, Set<Job>> groupedByRoot = groupedJobs.get(rootId);
+    if (groupedByRoot == null) {
+      return Collections.<Job> emptySet();
+    }
+    Set<Job> jobs = groupedByRoot.remove(eventId);
+    return jobs != null ? jobs : Collections.<Job> emptySet();
+  }
 
   public void delete(String rootId) {
     groupedJobs.remove(rootId);
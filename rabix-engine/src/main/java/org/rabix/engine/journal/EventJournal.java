@@ -0,0 +1,288 @@
+package org.rabix.engine.journal;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.configuration.Configuration;
+import org.rabix.common.helper.JSONHelper;
+import org.rabix.engine.event.Event;
+import org.rabix.engine.model.ContextRecord;
+import org.rabix.engine.model.ContextRecord.ContextStatus;
+import org.rabix.engine.service.ContextRecordService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+
+/**
+ * Append-only journal of events that entered the engine from outside. 
+ * 
+ * Appended entries are group-committed: writer thread writes every entry queued since the last commit
+ * and forces them to disk with a single fsync. Journal is compacted periodically by dropping entries
+ * of completed and failed contexts.
+ */
+public class EventJournal {
+
+  private final static Logger logger = LoggerFactory.getLogger(EventJournal.class);
+  
+  public final static String JOURNAL_FILE = "events.journal";
+  
+  public final static long DEFAULT_COMMIT_DELAY = 2;
+  public final static long DEFAULT_COMPACTION_PERIOD = TimeUnit.MINUTES.toMillis(10);
+  
+  private final boolean enabled;
+  private final File journalFile;
+  private final long commitDelay;
+  private final long compactionPeriod;
+  
+  private final ContextRecordService contextRecordService;
+  
+  private final BlockingQueue<PendingEntry> pendingEntries = new LinkedBlockingQueue<>();
+  private final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(2);
+  
+  private final Lock fileLock = new ReentrantLock();
+  private FileChannel channel;
+  
+  private volatile boolean started = false;
+  
+  @Inject
+  public EventJournal(Configuration configuration, ContextRecordService contextRecordService) {
+    this.contextRecordService = contextRecordService;
+    this.enabled = configuration.getBoolean("engine.journal.enabled", false);
+    this.journalFile = new File(configuration.getString("engine.journal.directory", "journal"), JOURNAL_FILE);
+    this.commitDelay = configuration.getLong("engine.journal.commit_delay_mills", DEFAULT_COMMIT_DELAY);
+    this.compactionPeriod = configuration.getLong("engine.journal.compaction_period_mills", DEFAULT_COMPACTION_PERIOD);
+  }
+  
+  public boolean isEnabled() {
+    return enabled;
+  }
+  
+  public boolean isStarted() {
+    return started;
+  }
+  
+  /**
+   * Reads all journaled events in the order they were appended
+   */
+  public List<Event> read() throws EventJournalException {
+    List<Event> events = new ArrayList<>();
+    if (!journalFile.exists()) {
+      return events;
+    }
+    for (JournalEntry entry : readEntries()) {
+      events.add(entry.toEvent());
+    }
+    logger.info("Read {} events from journal {}", events.size(), journalFile.getAbsolutePath());
+    return events;
+  }
+  
+  /**
+   * Opens journal for appending and starts the writer 
+   */
+  public synchronized void start() throws EventJournalException {
+    if (!enabled || started) {
+      return;
+    }
+    try {
+      File directory = journalFile.getParentFile();
+      if (directory != null && !directory.exists() && !directory.mkdirs()) {
+        throw new EventJournalException("Failed to create journal directory " + directory.getAbsolutePath());
+      }
+      channel = new FileOutputStream(journalFile, true).getChannel();
+    } catch (IOException e) {
+      throw new EventJournalException("Failed to open journal " + journalFile.getAbsolutePath(), e);
+    }
+    started = true;
+    
+    executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        List<PendingEntry> batch = new ArrayList<>();
+        while (started) {
+          try {
+            batch.add(pendingEntries.take());
+            if (commitDelay > 0) {
+              Thread.sleep(commitDelay);
+            }
+            pendingEntries.drainTo(batch);
+            commit(batch);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          } finally {
+            batch.clear();
+          }
+        }
+      }
+    });
+    
+    if (compactionPeriod > 0) {
+      executorService.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            compact();
+          } catch (Exception e) {
+            logger.error("Failed to compact journal " + journalFile.getAbsolutePath(), e);
+          }
+        }
+      }, compactionPeriod, compactionPeriod, TimeUnit.MILLISECONDS);
+    }
+  }
+  
+  public synchronized void stop() {
+    started = false;
+    executorService.shutdownNow();
+    fileLock.lock();
+    try {
+      if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      logger.error("Failed to close journal " + journalFile.getAbsolutePath(), e);
+    } finally {
+      fileLock.unlock();
+    }
+  }
+  
+  /**
+   * Queues event for the next group commit. Returned future completes when the event is on disk.
+   */
+  public SettableFuture<Void> append(Event event) {
+    SettableFuture<Void> future = SettableFuture.create();
+    try {
+      String line = JSONHelper.mapperWithoutIdentation.writeValueAsString(JournalEntry.create(event)) + "\n";
+      pendingEntries.add(new PendingEntry(line.getBytes(StandardCharsets.UTF_8), future));
+    } catch (IOException e) {
+      future.setException(new EventJournalException("Failed to serialize event " + event, e));
+    }
+    return future;
+  }
+  
+  /**
+   * Waits until the appended event is on disk
+   */
+  public void await(SettableFuture<Void> future) throws EventJournalException {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EventJournalException("Interrupted while waiting for journal commit", e);
+    } catch (ExecutionException e) {
+      throw new EventJournalException("Failed to commit event", e.getCause());
+    }
+  }
+  
+  private void commit(List<PendingEntry> batch) {
+    fileLock.lock();
+    try {
+      for (PendingEntry entry : batch) {
+        ByteBuffer buffer = ByteBuffer.wrap(entry.data);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      channel.force(false);
+      for (PendingEntry entry : batch) {
+        entry.future.set(null);
+      }
+      logger.trace("Committed {} journal entries", batch.size());
+    } catch (IOException e) {
+      logger.error("Failed to commit journal entries", e);
+      for (PendingEntry entry : batch) {
+        entry.future.setException(e);
+      }
+    } finally {
+      fileLock.unlock();
+    }
+  }
+  
+  /**
+   * Rewrites journal without entries of finished contexts 
+   */
+  public void compact() throws EventJournalException {
+    fileLock.lock();
+    try {
+      List<JournalEntry> entries = readEntries();
+      
+      File compactedFile = new File(journalFile.getParentFile(), JOURNAL_FILE + ".compacted");
+      int retained = 0;
+      try (FileOutputStream output = new FileOutputStream(compactedFile)) {
+        for (JournalEntry entry : entries) {
+          if (isFinished(entry.getContextId())) {
+            continue;
+          }
+          output.write((JSONHelper.mapperWithoutIdentation.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+          retained++;
+        }
+        output.getChannel().force(true);
+      }
+      channel.close();
+      Files.move(compactedFile.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      channel = new FileOutputStream(journalFile, true).getChannel();
+      logger.info("Journal compacted from {} to {} entries", entries.size(), retained);
+    } catch (IOException e) {
+      throw new EventJournalException("Failed to compact journal " + journalFile.getAbsolutePath(), e);
+    } finally {
+      fileLock.unlock();
+    }
+  }
+  
+  private boolean isFinished(String contextId) {
+    ContextRecord context = contextRecordService.find(contextId);
+    return context != null && !context.getStatus().equals(ContextStatus.RUNNING);
+  }
+  
+  private List<JournalEntry> readEntries() throws EventJournalException {
+    List<JournalEntry> entries = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+        try {
+          entries.add(JSONHelper.mapperWithoutIdentation.readValue(line, JournalEntry.class));
+        } catch (IOException e) {
+          // only the last entry can be partially written
+          logger.warn("Skipping corrupted journal entry {}", line);
+        }
+      }
+    } catch (IOException e) {
+      throw new EventJournalException("Failed to read journal " + journalFile.getAbsolutePath(), e);
+    }
+    return entries;
+  }
+  
+  private static class PendingEntry {
+    private final byte[] data;
+    private final SettableFuture<Void> future;
+    
+    private PendingEntry(byte[] data, SettableFuture<Void> future) {
+      this.data = data;
+      this.future = future;
+    }
+  }
+  
+}
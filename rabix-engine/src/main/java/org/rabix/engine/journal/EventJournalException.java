@@ -0,0 +1,18 @@
+package org.rabix.engine.journal;
+
+public class EventJournalException extends Exception {
+
+  private static final long serialVersionUID = -3412378452035497364L;
+
+  public EventJournalException(String message) {
+    super(message);
+  }
+  
+  public EventJournalException(Throwable throwable) {
+    super(throwable);
+  }
+  
+  public EventJournalException(String message, Throwable throwable) {
+    super(message, throwable);
+  }
+}
@@ -0,0 +1,109 @@
+package org.rabix.engine.journal;
+
+import java.util.Map;
+
+import org.rabix.bindings.json.JobValuesDeserializer;
+import org.rabix.bindings.model.dag.DAGNode;
+import org.rabix.engine.event.Event;
+import org.rabix.engine.event.Event.EventType;
+import org.rabix.engine.event.impl.InitEvent;
+import org.rabix.engine.event.impl.JobStatusEvent;
+import org.rabix.engine.service.JobRecordService.JobState;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Serializable form of an {@link Event} stored in the {@link EventJournal}
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JournalEntry {
+
+  @JsonProperty("type")
+  private final EventType type;
+  @JsonProperty("contextId")
+  private final String contextId;
+  @JsonProperty("jobId")
+  private final String jobId;
+  @JsonProperty("state")
+  private final JobState state;
+  @JsonProperty("eventGroupId")
+  private final String eventGroupId;
+  @JsonProperty("node")
+  private final DAGNode node;
+  @JsonProperty("config")
+  private final Map<String, Object> config;
+  @JsonProperty("value")
+  @JsonDeserialize(using = JobValuesDeserializer.class)
+  private final Map<String, Object> value;
+  
+  @JsonCreator
+  public JournalEntry(@JsonProperty("type") EventType type,
+      @JsonProperty("contextId") String contextId,
+      @JsonProperty("jobId") String jobId,
+      @JsonProperty("state") JobState state,
+      @JsonProperty("eventGroupId") String eventGroupId,
+      @JsonProperty("node") DAGNode node,
+      @JsonProperty("config") Map<String, Object> config,
+      @JsonProperty("value") Map<String, Object> value) {
+    this.type = type;
+    this.contextId = contextId;
+    this.jobId = jobId;
+    this.state = state;
+    this.eventGroupId = eventGroupId;
+    this.node = node;
+    this.config = config;
+    this.value = value;
+  }
+  
+  /**
+   * Checks whether the event can be journaled. Only events that enter the engine from outside are journaled,
+   * all the others are created again when journaled events are replayed.
+   */
+  public static boolean isJournaled(Event event) {
+    return event.getType().equals(EventType.INIT) || event.getType().equals(EventType.JOB_STATUS_UPDATE);
+  }
+  
+  public static JournalEntry create(Event event) {
+    switch (event.getType()) {
+    case INIT:
+      InitEvent initEvent = (InitEvent) event;
+      return new JournalEntry(EventType.INIT, initEvent.getContextId(), null, null, null, initEvent.getNode(), initEvent.getConfig(), initEvent.getValue());
+    case JOB_STATUS_UPDATE:
+      JobStatusEvent statusEvent = (JobStatusEvent) event;
+      return new JournalEntry(EventType.JOB_STATUS_UPDATE, statusEvent.getContextId(), statusEvent.getJobId(), statusEvent.getState(), statusEvent.getEventGroupId(), null, null, statusEvent.getResult());
+    default:
+      throw new IllegalArgumentException("Event " + event.getType() + " cannot be journaled");
+    }
+  }
+  
+  public Event toEvent() {
+    switch (type) {
+    case INIT:
+      return new InitEvent(config, contextId, node, value);
+    case JOB_STATUS_UPDATE:
+      return new JobStatusEvent(jobId, contextId, state, value, eventGroupId);
+    default:
+      throw new IllegalStateException("Event " + type + " cannot be replayed");
+    }
+  }
+
+  public EventType getType() {
+    return type;
+  }
+
+  public String getContextId() {
+    return contextId;
+  }
+
+  @Override
+  public String toString() {
+    return "JournalEntry [type=" + type + ", contextId=" + contextId + ", jobId=" + jobId + ", state=" + state + ", eventGroupId=" + eventGroupId + "]";
+  }
+
+}
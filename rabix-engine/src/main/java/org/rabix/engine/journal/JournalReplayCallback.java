@@ -0,0 +1,175 @@
+package org.rabix.engine.journal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.rabix.bindings.model.Job;
+import org.rabix.bindings.model.Job.JobStatus;
+import org.rabix.engine.JobHelper;
+import org.rabix.engine.db.AppDB;
+import org.rabix.engine.db.DAGNodeDB;
+import org.rabix.engine.model.JobRecord;
+import org.rabix.engine.service.ContextRecordService;
+import org.rabix.engine.service.JobRecordService;
+import org.rabix.engine.service.JobRecordService.JobState;
+import org.rabix.engine.service.LinkRecordService;
+import org.rabix.engine.service.VariableRecordService;
+import org.rabix.engine.status.EngineStatusCallback;
+import org.rabix.engine.status.EngineStatusCallbackException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link EngineStatusCallback} used while the journal is replayed.
+ * 
+ * Job and root level callbacks are swallowed because they already happened before the restart. Ready Jobs are remembered and
+ * the ones that didn't finish before the restart are dispatched again once the replay is done. Roots and finished Jobs are
+ * reported as recovered, so the delegate can rebuild its view of them.
+ */
+public class JournalReplayCallback implements EngineStatusCallback {
+
+  private final static Logger logger = LoggerFactory.getLogger(JournalReplayCallback.class);
+  
+  private final EngineStatusCallback delegate;
+  
+  private final JobRecordService jobRecordService;
+  private final VariableRecordService variableRecordService;
+  private final LinkRecordService linkRecordService;
+  private final ContextRecordService contextRecordService;
+  private final DAGNodeDB dagNodeDB;
+  private final AppDB appDB;
+  
+  private final Map<String, Job> readyJobs = new LinkedHashMap<>();
+  private final Map<String, Job> finishedRoots = new LinkedHashMap<>();
+  private volatile boolean replaying = true;
+  
+  public JournalReplayCallback(EngineStatusCallback delegate, JobRecordService jobRecordService, VariableRecordService variableRecordService, LinkRecordService linkRecordService, ContextRecordService contextRecordService, DAGNodeDB dagNodeDB, AppDB appDB) {
+    this.delegate = delegate;
+    this.jobRecordService = jobRecordService;
+    this.variableRecordService = variableRecordService;
+    this.linkRecordService = linkRecordService;
+    this.contextRecordService = contextRecordService;
+    this.dagNodeDB = dagNodeDB;
+    this.appDB = appDB;
+  }
+  
+  /**
+   * Finishes replay, reports recovered Jobs and dispatches Jobs which are still READY or RUNNING
+   */
+  public void finishReplay() throws EngineStatusCallbackException {
+    List<Job> recoveredJobs = new ArrayList<>();
+    List<Job> unfinishedJobs = new ArrayList<>();
+    synchronized (readyJobs) {
+      replaying = false;
+      Set<String> rootIds = new LinkedHashSet<>();
+      for (Job job : readyJobs.values()) {
+        rootIds.add(job.getRootId());
+        JobRecord jobRecord = jobRecordService.find(job.getName(), job.getRootId());
+        if (jobRecord == null) {
+          continue; // records of finished roots are deleted
+        }
+        if (jobRecord.getState().equals(JobState.READY) || jobRecord.getState().equals(JobState.RUNNING)) {
+          unfinishedJobs.add(job);
+        } else if (!jobRecord.isRoot()) {
+          recoveredJobs.add(Job.cloneWithStatus(job, JobHelper.transformStatus(jobRecord.getState())));
+        }
+      }
+      for (String rootId : rootIds) {
+        if (finishedRoots.containsKey(rootId)) {
+          continue;
+        }
+        JobRecord rootRecord = jobRecordService.findRoot(rootId);
+        if (rootRecord != null) {
+          recoveredJobs.add(JobHelper.createRootJob(rootRecord, JobStatus.RUNNING, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, appDB, null));
+        }
+      }
+      recoveredJobs.addAll(finishedRoots.values());
+      readyJobs.clear();
+      finishedRoots.clear();
+    }
+    logger.info("Journal replayed. Recovered {} Jobs, dispatching {} unfinished Jobs.", recoveredJobs.size(), unfinishedJobs.size());
+    for (Job job : recoveredJobs) {
+      delegate.onJobRecovered(job);
+    }
+    for (Job job : unfinishedJobs) {
+      delegate.onJobReady(job);
+    }
+  }
+  
+  @Override
+  public void onJobReady(Job job) throws EngineStatusCallbackException {
+    synchronized (readyJobs) {
+      if (replaying) {
+        readyJobs.put(job.getId(), job);
+        return;
+      }
+    }
+    delegate.onJobReady(job);
+  }
+
+  @Override
+  public void onJobsReady(Set<Job> jobs) throws EngineStatusCallbackException {
+    synchronized (readyJobs) {
+      if (replaying) {
+        for (Job job : jobs) {
+          readyJobs.put(job.getId(), job);
+        }
+        return;
+      }
+    }
+    delegate.onJobsReady(jobs);
+  }
+
+  @Override
+  public void onJobCompleted(Job job) throws EngineStatusCallbackException {
+    if (!replaying) {
+      delegate.onJobCompleted(job);
+    }
+  }
+
+  @Override
+  public void onJobFailed(Job job) throws EngineStatusCallbackException {
+    if (!replaying) {
+      delegate.onJobFailed(job);
+    }
+  }
+
+  @Override
+  public void onJobRootCompleted(Job rootJob) throws EngineStatusCallbackException {
+    synchronized (readyJobs) {
+      if (replaying) {
+        finishedRoots.put(rootJob.getRootId(), rootJob);
+        return;
+      }
+    }
+    delegate.onJobRootCompleted(rootJob);
+  }
+
+  @Override
+  public void onJobRootPartiallyCompleted(Job rootJob) throws EngineStatusCallbackException {
+    if (!replaying) {
+      delegate.onJobRootPartiallyCompleted(rootJob);
+    }
+  }
+
+  @Override
+  public void onJobRootFailed(Job rootJob) throws EngineStatusCallbackException {
+    synchronized (readyJobs) {
+      if (replaying) {
+        finishedRoots.put(rootJob.getRootId(), rootJob);
+        return;
+      }
+    }
+    delegate.onJobRootFailed(rootJob);
+  }
+  
+  @Override
+  public void onJobRecovered(Job job) throws EngineStatusCallbackException {
+    delegate.onJobRecovered(job);
+  }
+
+}
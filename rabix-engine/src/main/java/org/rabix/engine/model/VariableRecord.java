@@ -18,6 +18,7 @@ public class VariableRecord {
   private LinkMerge linkMerge;
 
   private boolean isWrapped; // is value wrapped into array?
+  private boolean isShared; // has value been handed out? shared value is copied before it's modified
   private int numberOfGlobals; // number of 'global' outputs if node is scattered
 
   private int numberOfTimesUpdated = 0;
@@ -66,6 +67,10 @@ public class VariableRecord {
       }
     } else {
       if (isWrapped) {
+        if (isShared) {
+          this.value = new ArrayList<>((List<Object>) this.value);
+          this.isShared = false;
+        }
         expand((List<Object>) this.value, position);
         ((List<Object>) this.value).set(position - 1, value);
       } else {
@@ -153,15 +158,20 @@ public class VariableRecord {
     this.type = type;
   }
 
+  /**
+   * Gets the value. Returned value is shared with the caller and it's never modified in place afterwards.
+   */
   public Object getValue() {
-    if (linkMerge == null) {
-      return this.value;
+    Object result = linkMerge == null ? this.value : linkMerge();
+    if (result == this.value) {
+      isShared = true;
     }
-    return linkMerge();
+    return result;
   }
 
   public void setValue(Object value) {
     this.value = value;
+    this.isShared = true;
   }
 
   public boolean isWrapped() {
@@ -16,7 +16,7 @@ public interface EventProcessor {
 
   void send(Event event) throws EventHandlerException;
   
-  void addToQueue(Event event);
+  void addToQueue(Event event) throws EventHandlerException;
 
   /**
    * Post iteration callback 
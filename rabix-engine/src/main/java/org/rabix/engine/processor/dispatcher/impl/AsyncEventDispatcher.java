@@ -3,6 +3,7 @@ package org.rabix.engine.processor.dispatcher.impl;
 import org.rabix.engine.event.Event;
 import org.rabix.engine.processor.EventProcessor;
 import org.rabix.engine.processor.dispatcher.EventDispatcher;
+import org.rabix.engine.processor.handler.EventHandlerException;
 
 import com.google.inject.Inject;
 
@@ -16,7 +17,7 @@ public class AsyncEventDispatcher implements EventDispatcher {
   }
   
   @Override
-  public void send(Event event) {
+  public void send(Event event) throws EventHandlerException {
     engine.addToQueue(event);
   }
 
@@ -32,6 +32,7 @@ public class HandlerFactory {
    * Initialize some callbacks 
    */
   public void initialize(EngineStatusCallback engineStatusCallback) {
+    this.initEventHandler.initialize(engineStatusCallback);
     this.statusEventHandler.initialize(engineStatusCallback);
     this.outputEventHandler.initialize(engineStatusCallback);
   }
@@ -2,13 +2,16 @@ package org.rabix.engine.processor.handler.impl;
 
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
+import org.rabix.bindings.model.Job;
 import org.rabix.bindings.model.dag.DAGContainer;
 import org.rabix.bindings.model.dag.DAGLinkPort;
 import org.rabix.bindings.model.dag.DAGLinkPort.LinkPortType;
 import org.rabix.bindings.model.dag.DAGNode;
 import org.rabix.common.helper.CloneHelper;
 import org.rabix.engine.db.DAGNodeDB;
+import org.rabix.engine.db.ReadyJobGroupsDB;
 import org.rabix.engine.event.impl.InitEvent;
 import org.rabix.engine.event.impl.InputUpdateEvent;
 import org.rabix.engine.event.impl.JobStatusEvent;
@@ -23,30 +26,45 @@ import org.rabix.engine.service.ContextRecordService;
 import org.rabix.engine.service.JobRecordService;
 import org.rabix.engine.service.JobRecordService.JobState;
 import org.rabix.engine.service.VariableRecordService;
+import org.rabix.engine.status.EngineStatusCallback;
+import org.rabix.engine.status.EngineStatusCallbackException;
 
 import com.google.inject.Inject;
 
 /**
  * Handles {@link InitEvent} events.
+ * Jobs that become ready while the root is initialized (including scatter fan-out) are grouped and emitted as one batch.
  */
 public class InitEventHandler implements EventHandler<InitEvent> {
 
+  public static final String INIT_EVENT_GROUP_SUFFIX = ".init";
+  
   private DAGNodeDB nodeDB;
+  private ReadyJobGroupsDB jobGroupsDB;
   private EventProcessor eventProcessor;
   private JobRecordService jobRecordService;
   private ContextRecordService contextRecordService;
   private VariableRecordService variableRecordService;
+  
+  private EngineStatusCallback engineStatusCallback;
 
   @Inject
-  public InitEventHandler(EventProcessor eventProcessor, JobRecordService jobRecordService, VariableRecordService variableRecordService, ContextRecordService contextRecordService, DAGNodeDB dagNodeDB) {
+  public InitEventHandler(EventProcessor eventProcessor, JobRecordService jobRecordService, VariableRecordService variableRecordService, ContextRecordService contextRecordService, DAGNodeDB dagNodeDB, ReadyJobGroupsDB jobGroupsDB) {
     this.nodeDB = dagNodeDB;
+    this.jobGroupsDB = jobGroupsDB;
     this.eventProcessor = eventProcessor;
     this.jobRecordService = jobRecordService;
     this.contextRecordService = contextRecordService;
     this.variableRecordService = variableRecordService;
   }
 
+  public void initialize(EngineStatusCallback engineStatusCallback) {
+    this.engineStatusCallback = engineStatusCallback;
+  }
+
   public void handle(final InitEvent event) throws EventHandlerException {
+    String eventGroupId = event.getContextId() + INIT_EVENT_GROUP_SUFFIX;
+    
     ContextRecord context = new ContextRecord(event.getRootId(), event.getConfig(), ContextStatus.RUNNING);
     
     contextRecordService.create(context);
@@ -74,14 +92,22 @@ public class InitEventHandler implements EventHandler<InitEvent> {
 
     if (node.getInputPorts().isEmpty()) {
       // the node is ready
-      eventProcessor.send(new JobStatusEvent(job.getId(), event.getContextId(), JobState.READY, null, event.getEventGroupId()));
-      return;
+      eventProcessor.send(new JobStatusEvent(job.getId(), event.getContextId(), JobState.READY, null, eventGroupId));
+    } else {
+      Map<String, Object> mixedInputs = mixInputs(node, event.getValue());
+      for (DAGLinkPort inputPort : node.getInputPorts()) {
+        Object value = mixedInputs.get(inputPort.getId());
+        eventProcessor.send(new InputUpdateEvent(event.getContextId(), event.getNode().getId(), inputPort.getId(), value, 1, eventGroupId));
+      }
     }
     
-    Map<String, Object> mixedInputs = mixInputs(node, event.getValue());
-    for (DAGLinkPort inputPort : node.getInputPorts()) {
-      Object value = mixedInputs.get(inputPort.getId());
-      eventProcessor.send(new InputUpdateEvent(event.getContextId(), event.getNode().getId(), inputPort.getId(), value, 1, event.getEventGroupId()));
+    Set<Job> readyJobs = jobGroupsDB.remove(event.getContextId(), eventGroupId);
+    if (!readyJobs.isEmpty()) {
+      try {
+        engineStatusCallback.onJobsReady(readyJobs);
+      } catch (EngineStatusCallbackException e) {
+        throw new EventHandlerException("Failed to call onJobsReady callback for root " + event.getContextId(), e);
+      }
     }
   }
   
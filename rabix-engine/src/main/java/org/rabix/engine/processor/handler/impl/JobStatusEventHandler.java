@@ -1,7 +1,7 @@
 package org.rabix.engine.processor.handler.impl;
 
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -17,6 +17,7 @@ import org.rabix.bindings.model.dag.DAGLinkPort.LinkPortType;
 import org.rabix.bindings.model.dag.DAGNode;
 import org.rabix.common.helper.InternalSchemaHelper;
 import org.rabix.engine.JobHelper;
+import org.rabix.engine.db.AppDB;
 import org.rabix.engine.db.DAGNodeDB;
 import org.rabix.engine.db.ReadyJobGroupsDB;
 import org.rabix.engine.event.Event;
@@ -47,6 +48,7 @@ public class JobStatusEventHandler implements EventHandler<JobStatusEvent> {
 
   private final Logger logger = LoggerFactory.getLogger(JobStatusEventHandler.class);
   
+  private final AppDB appDB;
   private final DAGNodeDB dagNodeDB;
   private final ScatterHandler scatterHelper;
   private final EventProcessor eventProcessor;
@@ -61,7 +63,8 @@ public class JobStatusEventHandler implements EventHandler<JobStatusEvent> {
   private EngineStatusCallback engineStatusCallback;
 
   @Inject
-  public JobStatusEventHandler(final DAGNodeDB dagNodeDB, final JobRecordService jobRecordService, final LinkRecordService linkRecordService, final VariableRecordService variableRecordService, final ContextRecordService contextRecordService, final EventProcessor eventProcessor, final ScatterHandler scatterHelper, final ReadyJobGroupsDB jobGroupsDB) {
+  public JobStatusEventHandler(final DAGNodeDB dagNodeDB, final AppDB appDB, final JobRecordService jobRecordService, final LinkRecordService linkRecordService, final VariableRecordService variableRecordService, final ContextRecordService contextRecordService, final EventProcessor eventProcessor, final ScatterHandler scatterHelper, final ReadyJobGroupsDB jobGroupsDB) {
+    this.appDB = appDB;
     this.dagNodeDB = dagNodeDB;
     this.scatterHelper = scatterHelper;
     this.eventProcessor = eventProcessor;
@@ -89,7 +92,7 @@ public class JobStatusEventHandler implements EventHandler<JobStatusEvent> {
       if (!jobRecord.isContainer() && !jobRecord.isScatterWrapper()) {
         Job job = null;
         try {
-          job = JobHelper.createReadyJob(jobRecord, JobStatus.READY, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB);
+          job = JobHelper.createReadyJob(jobRecord, JobStatus.READY, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, appDB);
           if (!StringUtils.isEmpty(event.getEventGroupId())) {
             jobGroupsDB.add(event.getEventGroupId(), job);
           } else {
@@ -120,7 +123,7 @@ public class JobStatusEventHandler implements EventHandler<JobStatusEvent> {
             }
           }
           eventProcessor.send(new ContextStatusEvent(event.getContextId(), ContextStatus.COMPLETED));
-          Job rootJob = JobHelper.createRootJob(jobRecord, JobStatus.COMPLETED, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, event.getResult());
+          Job rootJob = JobHelper.createRootJob(jobRecord, JobStatus.COMPLETED, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, appDB, event.getResult());
           engineStatusCallback.onJobRootCompleted(rootJob);
           deleteRecords(rootJob.getId());
         } catch (Exception e) {
@@ -137,7 +140,7 @@ public class JobStatusEventHandler implements EventHandler<JobStatusEvent> {
     case FAILED:
       if (jobRecord.isRoot()) {
         try {
-          Job rootJob = JobHelper.createRootJob(jobRecord, JobStatus.FAILED, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, null);
+          Job rootJob = JobHelper.createRootJob(jobRecord, JobStatus.FAILED, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, appDB, null);
           engineStatusCallback.onJobRootFailed(rootJob);
           
           eventProcessor.send(new ContextStatusEvent(event.getContextId(), ContextStatus.FAILED));
@@ -148,7 +151,7 @@ public class JobStatusEventHandler implements EventHandler<JobStatusEvent> {
         }
       } else {
         try {
-          Job failedJob = JobHelper.createCompletedJob(jobRecord, JobStatus.FAILED, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB);
+          Job failedJob = JobHelper.createCompletedJob(jobRecord, JobStatus.FAILED, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, appDB);
           engineStatusCallback.onJobFailed(failedJob);
           
           eventProcessor.send(new JobStatusEvent("root", event.getContextId(), JobState.FAILED, null, event.getEventGroupId())); // TODO remove hardcoded 'root' value
@@ -168,6 +171,7 @@ public class JobStatusEventHandler implements EventHandler<JobStatusEvent> {
     variableRecordService.delete(rootId);
     linkRecordService.delete(rootId);
     jobGroupsDB.delete(rootId);
+    appDB.delete(rootId);
   }
   
   /**
@@ -234,13 +238,12 @@ public class JobStatusEventHandler implements EventHandler<JobStatusEvent> {
   
   private Set<String> findImmediateReadyNodes(DAGNode node) {
     if (node instanceof DAGContainer) {
-      Set<String> nodesWithoutDestination = new HashSet<>();
-      for (DAGNode child : ((DAGContainer) node).getChildren()) {
-        nodesWithoutDestination.add(child.getId());
-      }
-      
-      for (DAGLink link : ((DAGContainer) node).getLinks()) {
-        nodesWithoutDestination.remove(link.getDestination().getDagNodeId());
+      DAGContainer containerNode = (DAGContainer) node;
+      Set<String> nodesWithoutDestination = new LinkedHashSet<>();
+      for (DAGNode child : containerNode.getChildren()) {
+        if (containerNode.getIncomingLinks(child.getId()).isEmpty()) {
+          nodesWithoutDestination.add(child.getId());
+        }
       }
       return nodesWithoutDestination;
     }
@@ -274,9 +277,8 @@ public class JobStatusEventHandler implements EventHandler<JobStatusEvent> {
       }
       logger.debug(childJobLogBuilder.toString());
     }
+    String originalJobID = InternalSchemaHelper.normalizeId(job.getId());
     for (DAGLink link : containerNode.getLinks()) {
-      String originalJobID = InternalSchemaHelper.normalizeId(job.getId());
-
       String sourceNodeId = originalJobID;
       String linkSourceNodeId = link.getSource().getDagNodeId();
       if (linkSourceNodeId.startsWith(originalJobID)) {
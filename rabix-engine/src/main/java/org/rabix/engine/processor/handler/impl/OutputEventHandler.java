@@ -9,9 +9,9 @@ import org.rabix.bindings.BindingException;
 import org.rabix.bindings.model.Job;
 import org.rabix.bindings.model.Job.JobStatus;
 import org.rabix.bindings.model.dag.DAGLinkPort.LinkPortType;
-import org.rabix.common.helper.CloneHelper;
 import org.rabix.common.helper.InternalSchemaHelper;
 import org.rabix.engine.JobHelper;
+import org.rabix.engine.db.AppDB;
 import org.rabix.engine.db.DAGNodeDB;
 import org.rabix.engine.db.ReadyJobGroupsDB;
 import org.rabix.engine.event.Event;
@@ -51,12 +51,14 @@ public class OutputEventHandler implements EventHandler<OutputUpdateEvent> {
     
   private final EventProcessor eventProcessor;
   
+  private AppDB appDB;
   private DAGNodeDB dagNodeDB;
   private ReadyJobGroupsDB jobGroupsDB;
   private EngineStatusCallback engineStatusCallback;
   
   @Inject
-  public OutputEventHandler(EventProcessor eventProcessor, JobRecordService jobService, VariableRecordService variableService, LinkRecordService linkService, ContextRecordService contextService, DAGNodeDB dagNodeDB, ReadyJobGroupsDB jobGroupsDB) {
+  public OutputEventHandler(EventProcessor eventProcessor, JobRecordService jobService, VariableRecordService variableService, LinkRecordService linkService, ContextRecordService contextService, DAGNodeDB dagNodeDB, AppDB appDB, ReadyJobGroupsDB jobGroupsDB) {
+    this.appDB = appDB;
     this.dagNodeDB = dagNodeDB;
     this.jobGroupsDB = jobGroupsDB;
     this.jobService = jobService;
@@ -85,7 +87,7 @@ public class OutputEventHandler implements EventHandler<OutputUpdateEvent> {
       jobService.update(sourceJob);
       
       try {
-        Job completedJob = JobHelper.createCompletedJob(sourceJob, JobStatus.COMPLETED, jobService, variableService, linkService, contextService, dagNodeDB);
+        Job completedJob = JobHelper.createCompletedJob(sourceJob, JobStatus.COMPLETED, jobService, variableService, linkService, contextService, dagNodeDB, appDB);
         engineStatusCallback.onJobCompleted(completedJob);
       } catch (BindingException e) {
         logger.error("Failed to create Job " + sourceJob.getId(), e);
@@ -97,7 +99,7 @@ public class OutputEventHandler implements EventHandler<OutputUpdateEvent> {
         Map<String, Object> outputs = new HashMap<>();
         List<VariableRecord> outputVariables = variableService.find(sourceJob.getId(), LinkPortType.OUTPUT, sourceJob.getRootId());
         for (VariableRecord outputVariable : outputVariables) {
-          Object value = CloneHelper.deepCopy(outputVariable.getValue());
+          Object value = outputVariable.getValue();
           outputs.put(outputVariable.getPortId(), value);
         }
         if(sourceJob.isRoot() && sourceJob.isContainer()) {
@@ -213,9 +215,11 @@ public class OutputEventHandler implements EventHandler<OutputUpdateEvent> {
       }
       
       if (event.getEventGroupId() != null && event.getEventGroupId().equals(sourceJob.getExternalId()) && sourceJob.isCompleted()) {
-        Set<Job> readyJobs = jobGroupsDB.get(event.getContextId(), event.getEventGroupId());
+        Set<Job> readyJobs = jobGroupsDB.remove(event.getContextId(), event.getEventGroupId());
         try {
-          engineStatusCallback.onJobsReady(readyJobs);
+          if (!readyJobs.isEmpty()) {
+            engineStatusCallback.onJobsReady(readyJobs);
+          }
         } catch (EngineStatusCallbackException e) {
           logger.error("Failed to call onJobsReady() callback", e);
           throw new EventHandlerException(e);
@@ -228,10 +232,10 @@ public class OutputEventHandler implements EventHandler<OutputUpdateEvent> {
     Map<String, Object> outputs = new HashMap<>();
     List<VariableRecord> outputVariables = variableService.find(jobRecord.getId(), LinkPortType.OUTPUT, jobRecord.getRootId());
     for (VariableRecord outputVariable : outputVariables) {
-      Object value = CloneHelper.deepCopy(outputVariable.getValue());
+      Object value = outputVariable.getValue();
       outputs.put(outputVariable.getPortId(), value);
     }
-    return JobHelper.createRootJob(jobRecord, status, jobService, variableService, linkService, contextService, dagNodeDB, outputs);
+    return JobHelper.createRootJob(jobRecord, status, jobService, variableService, linkService, contextService, dagNodeDB, appDB, outputs);
   }
   
 }
@@ -0,0 +1,55 @@
+package org.rabix.engine.processor.impl;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.rabix.engine.event.Event.EventType;
+
+/**
+ * Per event type counters of handled events and time spent handling them
+ */
+public class EventHandlingStatistics {
+
+  private final Map<EventType, AtomicLong> counts = new EnumMap<>(EventType.class);
+  private final Map<EventType, AtomicLong> durations = new EnumMap<>(EventType.class);
+  
+  public EventHandlingStatistics() {
+    for (EventType type : EventType.values()) {
+      counts.put(type, new AtomicLong());
+      durations.put(type, new AtomicLong());
+    }
+  }
+  
+  public void record(EventType type, long durationNanos) {
+    counts.get(type).incrementAndGet();
+    durations.get(type).addAndGet(durationNanos);
+  }
+  
+  public long getCount(EventType type) {
+    return counts.get(type).get();
+  }
+  
+  public long getTotalTime(EventType type, TimeUnit unit) {
+    return unit.convert(durations.get(type).get(), TimeUnit.NANOSECONDS);
+  }
+  
+  public long getAverageTime(EventType type, TimeUnit unit) {
+    long count = getCount(type);
+    if (count == 0) {
+      return 0;
+    }
+    return unit.convert(durations.get(type).get() / count, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("EventHandlingStatistics [");
+    for (EventType type : EventType.values()) {
+      builder.append(type).append("=").append(getCount(type)).append("/").append(getAverageTime(type, TimeUnit.MICROSECONDS)).append("us ");
+    }
+    return builder.append("]").toString();
+  }
+  
+}
@@ -1,5 +1,6 @@
 package org.rabix.engine.processor.impl;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -7,11 +8,20 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.apache.commons.configuration.Configuration;
 import org.rabix.engine.event.Event;
 import org.rabix.engine.event.Event.EventType;
 import org.rabix.engine.event.impl.ContextStatusEvent;
+import org.rabix.engine.journal.EventJournal;
+import org.rabix.engine.journal.EventJournalException;
+import org.rabix.engine.journal.JournalEntry;
 import org.rabix.engine.model.ContextRecord;
 import org.rabix.engine.model.ContextRecord.ContextStatus;
 import org.rabix.engine.processor.EventProcessor;
@@ -24,16 +34,29 @@ import org.rabix.engine.status.EngineStatusCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.AtomicLongMap;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.inject.Inject;
 
 /**
  * Event processor implementation
+ * 
+ * Processing thread blocks until events arrive and drains them in batches. Producers other than
+ * the processing thread itself are held back while the queue is above its capacity.
+ * 
+ * When {@link EventJournal} is enabled, events added by other threads are queued only after they are
+ * committed to the journal, in journal order, and {@link #addToQueue(Event)} returns once they are committed.
+ * Events that fail to commit are not queued and the failure is thrown to the producer.
  */
 public class EventProcessorImpl implements EventProcessor {
 
   private static final Logger logger = LoggerFactory.getLogger(EventProcessorImpl.class);
   
-  public final static long SLEEP = 100;
+  public final static int DEFAULT_QUEUE_CAPACITY = 100000;
+  public final static int DEFAULT_BATCH_SIZE = 1000;
   
   private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
   private final ExecutorService executorService = Executors.newSingleThreadExecutor();
@@ -45,14 +68,32 @@ public class EventProcessorImpl implements EventProcessor {
   private final EventDispatcher eventDispatcher;
   
   private final ContextRecordService contextRecordService;
+  private final EventJournal eventJournal;
   
   private final ConcurrentMap<String, Integer> iterations = new ConcurrentHashMap<>();
   
+  private final int queueCapacity;
+  private final int batchSize;
+  
+  private final Lock backpressureLock = new ReentrantLock();
+  private final Condition notFull = backpressureLock.newCondition();
+  private final AtomicInteger waitingProducers = new AtomicInteger(0);
+  
+  private final EventHandlingStatistics statistics = new EventHandlingStatistics();
+  private final AtomicLongMap<String> pendingEvents = AtomicLongMap.create();
+  
+  private final Object journalLock = new Object();
+  
+  private volatile Thread processorThread;
+  
   @Inject
-  public EventProcessorImpl(HandlerFactory handlerFactory, EventDispatcherFactory eventDispatcherFactory, ContextRecordService contextRecordService) {
+  public EventProcessorImpl(HandlerFactory handlerFactory, EventDispatcherFactory eventDispatcherFactory, ContextRecordService contextRecordService, EventJournal eventJournal, Configuration configuration) {
     this.handlerFactory = handlerFactory;
+    this.eventJournal = eventJournal;
     this.contextRecordService = contextRecordService;
     this.eventDispatcher = eventDispatcherFactory.create(EventDispatcher.Type.SYNC);
+    this.queueCapacity = configuration.getInt("bunny.event_processor.queue_capacity", DEFAULT_QUEUE_CAPACITY);
+    this.batchSize = configuration.getInt("bunny.event_processor.batch_size", DEFAULT_BATCH_SIZE);
   }
 
   public void start(final List<IterationCallback> iterationCallbacks, EngineStatusCallback engineStatusCallback) {
@@ -61,49 +102,81 @@ public class EventProcessorImpl implements EventProcessor {
     executorService.execute(new Runnable() {
       @Override
       public void run() {
-        Event event = null;
+        processorThread = Thread.currentThread();
+        
+        List<Event> batch = new ArrayList<>(batchSize);
         while (!stop.get()) {
           try {
-            event = events.poll();
-            if (event == null) {
+            Event first = events.poll();
+            if (first == null) {
               running.set(false);
-              Thread.sleep(SLEEP);
-              continue;
-            }
-            ContextRecord context = contextRecordService.find(event.getContextId());
-            if (context != null && context.getStatus().equals(ContextStatus.FAILED)) {
-              logger.info("Skip event {}. Context {} has been invalidated.", event, context.getId());
-              continue;
+              first = events.take();
             }
             running.set(true);
-            handlerFactory.get(event.getType()).handle(event);
-
-            Integer iteration = iterations.get(event.getContextId());
-            if (iteration == null) {
-              iteration = 0;
-            }
+            batch.add(first);
+            events.drainTo(batch, batchSize - 1);
+            signalNotFull();
             
-            iteration++;
-            if (iterationCallbacks != null) {
-              for (IterationCallback callback : iterationCallbacks) {
-                callback.call(EventProcessorImpl.this, event.getContextId(), iteration);
+            for (Event event : batch) {
+              if (stop.get()) {
+                break;
               }
+              process(event, iterationCallbacks);
             }
-            iterations.put(event.getContextId(), iteration);
-          } catch (Exception e) {
-            logger.error("EventProcessor failed to process event {}.", event, e);
-            try {
-              invalidateContext(event.getContextId());
-            } catch (EventHandlerException ehe) {
-              logger.error("Failed to invalidate Context {}.", event.getContextId(), ehe);
-              stop();
-            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          } finally {
+            batch.clear();
           }
         }
+        running.set(false);
       }
     });
   }
   
+  private void process(Event event, List<IterationCallback> iterationCallbacks) {
+    try {
+      handle(event, iterationCallbacks);
+    } finally {
+      pendingEvents.decrementAndGet(event.getContextId());
+    }
+  }
+  
+  private void handle(Event event, List<IterationCallback> iterationCallbacks) {
+    try {
+      ContextRecord context = contextRecordService.find(event.getContextId());
+      if (context != null && context.getStatus().equals(ContextStatus.FAILED)) {
+        logger.info("Skip event {}. Context {} has been invalidated.", event, context.getId());
+        return;
+      }
+      long startTime = System.nanoTime();
+      handlerFactory.get(event.getType()).handle(event);
+      statistics.record(event.getType(), System.nanoTime() - startTime);
+
+      Integer iteration = iterations.get(event.getContextId());
+      if (iteration == null) {
+        iteration = 0;
+      }
+      
+      iteration++;
+      if (iterationCallbacks != null) {
+        for (IterationCallback callback : iterationCallbacks) {
+          callback.call(EventProcessorImpl.this, event.getContextId(), iteration);
+        }
+      }
+      iterations.put(event.getContextId(), iteration);
+    } catch (Exception e) {
+      logger.error("EventProcessor failed to process event {}.", event, e);
+      try {
+        invalidateContext(event.getContextId());
+      } catch (EventHandlerException ehe) {
+        logger.error("Failed to invalidate Context {}.", event.getContextId(), ehe);
+        stop();
+      }
+    }
+  }
+  
   /**
    * Invalidates context 
    */
@@ -115,6 +188,8 @@ public class EventProcessorImpl implements EventProcessor {
   public void stop() {
     stop.set(true);
     running.set(false);
+    executorService.shutdownNow();
+    signalNotFull();
   }
 
   public boolean isRunning() {
@@ -132,11 +207,141 @@ public class EventProcessorImpl implements EventProcessor {
     eventDispatcher.send(event);
   }
 
-  public void addToQueue(Event event) {
+  public void addToQueue(final Event event) throws EventHandlerException {
     if (stop.get()) {
       return;
     }
-    this.events.add(event);
+    reserve(event);
+    addReserved(event);
+  }
+  
+  /**
+   * Counts the event as pending for its context before it is queued. A context with pending events
+   * is never moved to another EventProcessor.
+   */
+  void reserve(Event event) {
+    pendingEvents.incrementAndGet(event.getContextId());
+  }
+  
+  /**
+   * Queues event counted by {@link #reserve(Event)}. External producers may block here until
+   * there is capacity and until the event is committed to the journal.
+   */
+  void addReserved(final Event event) throws EventHandlerException {
+    if (stop.get()) {
+      pendingEvents.decrementAndGet(event.getContextId());
+      return;
+    }
+    if (!isProcessorThread()) {
+      awaitCapacity();
+      
+      if (eventJournal.isStarted() && JournalEntry.isJournaled(event)) {
+        SettableFuture<Void> commit;
+        synchronized (journalLock) {
+          commit = eventJournal.append(event);
+          Futures.addCallback(commit, new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+              events.add(event); // runs on the journal writer in commit order
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+              pendingEvents.decrementAndGet(event.getContextId());
+            }
+          }, MoreExecutors.directExecutor());
+        }
+        try {
+          eventJournal.await(commit);
+        } catch (EventJournalException e) {
+          throw new EventHandlerException("Failed to journal event " + event, e);
+        }
+        return;
+      }
+    }
+    events.add(event);
+  }
+  
+  /**
+   * Queues event read from the journal. Replayed events are not journaled again.
+   */
+  public void replay(Event event) {
+    reserve(event);
+    events.add(event);
+  }
+  
+  /**
+   * Checks whether the caller is the thread that processes events of this EventProcessor 
+   */
+  boolean isProcessorThread() {
+    return Thread.currentThread() == processorThread;
+  }
+  
+  /**
+   * Gets number of events waiting to be processed 
+   */
+  public int getQueueSize() {
+    return events.size();
+  }
+  
+  /**
+   * Checks whether there are no queued or in-flight events for the given context 
+   */
+  public boolean isIdle(String contextId) {
+    return pendingEvents.get(contextId) <= 0;
+  }
+  
+  /**
+   * Checks whether there are no queued or in-flight events at all
+   */
+  public boolean isIdle() {
+    return pendingEvents.sum() <= 0;
+  }
+  
+  /**
+   * Forgets counters of contexts without pending events 
+   */
+  public void purgeIdleContexts() {
+    pendingEvents.removeAllZeros();
+  }
+  
+  public EventHandlingStatistics getStatistics() {
+    return statistics;
+  }
+  
+  /**
+   * Blocks external producer while the queue is above its capacity. Processing thread is never blocked
+   * because it is the only one that drains the queue.
+   */
+  private void awaitCapacity() {
+    if (events.size() < queueCapacity) {
+      return;
+    }
+    backpressureLock.lock();
+    waitingProducers.incrementAndGet();
+    try {
+      while (events.size() >= queueCapacity && !stop.get()) {
+        logger.debug("Event queue is full ({} events). Waiting...", events.size());
+        notFull.await(1, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      waitingProducers.decrementAndGet();
+      backpressureLock.unlock();
+    }
+  }
+  
+  private void signalNotFull() {
+    if (waitingProducers.get() == 0) {
+      return;
+    }
+    backpressureLock.lock();
+    try {
+      notFull.signalAll();
+    } finally {
+      backpressureLock.unlock();
+    }
   }
 
 }
@@ -1,14 +1,33 @@
 package org.rabix.engine.processor.impl;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.configuration.Configuration;
+import org.rabix.engine.db.AppDB;
+import org.rabix.engine.db.DAGNodeDB;
 import org.rabix.engine.event.Event;
+import org.rabix.engine.event.Event.EventType;
+import org.rabix.engine.journal.EventJournal;
+import org.rabix.engine.journal.EventJournalException;
+import org.rabix.engine.journal.JournalReplayCallback;
 import org.rabix.engine.processor.EventProcessor;
 import org.rabix.engine.processor.handler.EventHandlerException;
+import org.rabix.engine.processor.partitioner.EventProcessorLoad;
+import org.rabix.engine.processor.partitioner.EventProcessorPartitioner;
+import org.rabix.engine.processor.partitioner.impl.HashEventProcessorPartitioner;
+import org.rabix.engine.processor.partitioner.impl.LeastLoadedEventProcessorPartitioner;
+import org.rabix.engine.service.ContextRecordService;
+import org.rabix.engine.service.JobRecordService;
+import org.rabix.engine.service.LinkRecordService;
+import org.rabix.engine.service.VariableRecordService;
 import org.rabix.engine.status.EngineStatusCallback;
+import org.rabix.engine.status.EngineStatusCallbackException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,32 +38,97 @@ public class MultiEventProcessorImpl implements EventProcessor {
 
   private final static Logger logger = LoggerFactory.getLogger(MultiEventProcessorImpl.class);
   
+  public final static long DEFAULT_REBALANCE_PERIOD = TimeUnit.SECONDS.toMillis(10);
+  private final static long REPLAY_WAIT_TIME = 10;
+  
   private int eventProcessorCount;
   
-  private final ConcurrentMap<Integer, EventProcessorImpl> eventProcessors;
+  private final List<EventProcessorImpl> eventProcessors;
+  private final EventProcessorPartitioner partitioner;
+  
+  private final EventJournal eventJournal;
+  
+  private final JobRecordService jobRecordService;
+  private final VariableRecordService variableRecordService;
+  private final LinkRecordService linkRecordService;
+  private final ContextRecordService contextRecordService;
+  private final DAGNodeDB dagNodeDB;
+  private final AppDB appDB;
 
+  private final long rebalancePeriod;
+  private final ReadWriteLock routingLock = new ReentrantReadWriteLock();
+  private final ScheduledExecutorService rebalanceService = Executors.newSingleThreadScheduledExecutor();
+  
   private volatile boolean isRunning = false;
   
   @Inject
-  public MultiEventProcessorImpl(Provider<EventProcessorImpl> singleEventProcessorProvider, Configuration configuration) {
+  public MultiEventProcessorImpl(Provider<EventProcessorImpl> singleEventProcessorProvider, JobRecordService jobRecordService, VariableRecordService variableRecordService, LinkRecordService linkRecordService, ContextRecordService contextRecordService, DAGNodeDB dagNodeDB, AppDB appDB, EventJournal eventJournal, Configuration configuration) {
+    this.eventJournal = eventJournal;
+    this.jobRecordService = jobRecordService;
+    this.variableRecordService = variableRecordService;
+    this.linkRecordService = linkRecordService;
+    this.contextRecordService = contextRecordService;
+    this.dagNodeDB = dagNodeDB;
+    this.appDB = appDB;
     this.eventProcessorCount = configuration.getInt("bunny.event_processor.count", Runtime.getRuntime().availableProcessors());
-    this.eventProcessors = new ConcurrentHashMap<>(eventProcessorCount);
+    this.rebalancePeriod = configuration.getLong("bunny.event_processor.rebalance_period_mills", DEFAULT_REBALANCE_PERIOD);
+    this.eventProcessors = new ArrayList<>(eventProcessorCount);
     for (int i = 0; i < eventProcessorCount; i++) {
-      this.eventProcessors.put(i, singleEventProcessorProvider.get());
+      this.eventProcessors.add(singleEventProcessorProvider.get());
     }
+    
+    EventProcessorPartitioner.Type partitionerType = EventProcessorPartitioner.Type.valueOf(configuration.getString("bunny.event_processor.partitioner", EventProcessorPartitioner.Type.LEAST_LOADED.name()));
+    switch (partitionerType) {
+    case HASH:
+      this.partitioner = new HashEventProcessorPartitioner();
+      break;
+    case LEAST_LOADED:
+      this.partitioner = new LeastLoadedEventProcessorPartitioner(jobRecordService);
+      break;
+    default:
+      throw new RuntimeException("Unsupported EventProcessor partitioner " + partitionerType);
+    }
+    this.partitioner.initialize(eventProcessors);
   }
 
   @Override
   public void start(List<IterationCallback> iterationCallbacks, EngineStatusCallback engineStatusCallback) {
-    for (EventProcessorImpl singleEventProcessor : eventProcessors.values()) {
-      singleEventProcessor.start(iterationCallbacks, engineStatusCallback);
+    if (eventJournal.isEnabled()) {
+      JournalReplayCallback replayCallback = new JournalReplayCallback(engineStatusCallback, jobRecordService, variableRecordService, linkRecordService, contextRecordService, dagNodeDB, appDB);
+      for (EventProcessorImpl singleEventProcessor : eventProcessors) {
+        singleEventProcessor.start(iterationCallbacks, replayCallback);
+      }
+      try {
+        replay(replayCallback);
+        eventJournal.start();
+      } catch (EventJournalException | EngineStatusCallbackException e) {
+        throw new IllegalStateException("Failed to recover engine state from the journal", e);
+      }
+    } else {
+      for (EventProcessorImpl singleEventProcessor : eventProcessors) {
+        singleEventProcessor.start(iterationCallbacks, engineStatusCallback);
+      }
+    }
+    if (rebalancePeriod > 0) {
+      rebalanceService.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            rebalance();
+          } catch (Exception e) {
+            logger.error("Failed to rebalance EventProcessors", e);
+          }
+        }
+      }, rebalancePeriod, rebalancePeriod, TimeUnit.MILLISECONDS);
     }
     this.isRunning = true;
   }
 
   @Override
   public void stop() {
-    for (EventProcessorImpl eventProcessor : eventProcessors.values()) {
+    rebalanceService.shutdownNow();
+    eventJournal.stop();
+    for (EventProcessorImpl eventProcessor : eventProcessors) {
       eventProcessor.stop();
     }
     this.isRunning = false;
@@ -52,29 +136,97 @@ public class MultiEventProcessorImpl implements EventProcessor {
 
   @Override
   public void send(Event event) throws EventHandlerException {
+    if (event.getType().equals(EventType.INIT)) {
+      addToQueue(event);
+      return;
+    }
     getEventProcessor(event.getContextId()).send(event);
   }
 
+  /**
+   * Routes the event under the routing lock and queues it after the lock is released, because queueing may block
+   * on capacity or on the journal commit. Reserving the event keeps the root on its EventProcessor in between.
+   * A processor posting an event of a root it still has pending events for doesn't take the lock at all.
+   */
   @Override
-  public void addToQueue(Event event) {
-    getEventProcessor(event.getContextId()).addToQueue(event);
+  public void addToQueue(Event event) throws EventHandlerException {
+    String rootId = event.getContextId();
+    EventProcessorImpl eventProcessor = getEventProcessor(rootId);
+    if (eventProcessor.isProcessorThread() && !eventProcessor.isIdle(rootId)) {
+      eventProcessor.reserve(event);
+    } else {
+      routingLock.readLock().lock();
+      try {
+        eventProcessor = getEventProcessor(rootId);
+        eventProcessor.reserve(event);
+      } finally {
+        routingLock.readLock().unlock();
+      }
+    }
+    eventProcessor.addReserved(event);
   }
   
   @Override
   public boolean isRunning() {
     return isRunning;
   }
+  
+  /**
+   * Replays journaled events and waits until all of them are processed 
+   */
+  private void replay(JournalReplayCallback replayCallback) throws EventJournalException, EngineStatusCallbackException {
+    List<Event> events = eventJournal.read();
+    for (Event event : events) {
+      eventProcessors.get(partitioner.partition(event.getContextId())).replay(event);
+    }
+    for (EventProcessorImpl eventProcessor : eventProcessors) {
+      while (!eventProcessor.isIdle()) {
+        try {
+          Thread.sleep(REPLAY_WAIT_TIME);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new EventJournalException("Interrupted while replaying journal", e);
+        }
+      }
+    }
+    replayCallback.finishReplay();
+  }
+  
+  /**
+   * Moves idle roots between EventProcessors. Routing of queued events is blocked while rebalancing, which never
+   * waits on an EventProcessor, so no producer holds the routing lock while blocked. 
+   */
+  public void rebalance() {
+    routingLock.writeLock().lock();
+    try {
+      partitioner.rebalance();
+    } finally {
+      routingLock.writeLock().unlock();
+    }
+    if (logger.isDebugEnabled()) {
+      for (int i = 0; i < eventProcessors.size(); i++) {
+        logger.debug("EventProcessor {} statistics: {}", i, eventProcessors.get(i).getStatistics());
+      }
+      logger.debug("EventProcessor load: {}", getLoad());
+    }
+  }
+  
+  /**
+   * Gets load of every EventProcessor 
+   */
+  public List<EventProcessorLoad> getLoad() {
+    return partitioner.getLoad();
+  }
 
   /**
    * Gets {@link EventProcessor} based on Root ID
-   * TODO: discuss load balancing algorithm 
    * 
    * @param rootId  Root ID
    * @return        EventProcessor instance
    */
-  private EventProcessor getEventProcessor(String rootId) {
-    int index = Math.abs(rootId.hashCode() % eventProcessorCount);
-    logger.debug("Root Job {} goes to EventProcessor {}", rootId, index);
+  private EventProcessorImpl getEventProcessor(String rootId) {
+    int index = partitioner.partition(rootId);
+    logger.trace("Root Job {} goes to EventProcessor {}", rootId, index);
     return eventProcessors.get(index);
   }
   
@@ -0,0 +1,45 @@
+package org.rabix.engine.processor.partitioner;
+
+/**
+ * Load snapshot of one EventProcessor
+ */
+public class EventProcessorLoad {
+
+  private final int index;
+  private final int queueSize;
+  private final int rootCount;
+  private final int recordCount;
+
+  public EventProcessorLoad(int index, int queueSize, int rootCount, int recordCount) {
+    this.index = index;
+    this.queueSize = queueSize;
+    this.rootCount = rootCount;
+    this.recordCount = recordCount;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public int getRootCount() {
+    return rootCount;
+  }
+
+  public int getRecordCount() {
+    return recordCount;
+  }
+  
+  public long getScore() {
+    return (long) queueSize + recordCount;
+  }
+
+  @Override
+  public String toString() {
+    return "EventProcessorLoad [index=" + index + ", queueSize=" + queueSize + ", rootCount=" + rootCount + ", recordCount=" + recordCount + "]";
+  }
+
+}
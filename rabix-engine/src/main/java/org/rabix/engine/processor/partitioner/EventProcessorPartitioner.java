@@ -0,0 +1,35 @@
+package org.rabix.engine.processor.partitioner;
+
+import java.util.List;
+
+import org.rabix.engine.processor.impl.EventProcessorImpl;
+
+/**
+ * Decides which {@link EventProcessorImpl} handles events of a root Job
+ */
+public interface EventProcessorPartitioner {
+
+  public static enum Type {
+    HASH,
+    LEAST_LOADED
+  }
+  
+  void initialize(List<EventProcessorImpl> eventProcessors);
+  
+  /**
+   * Gets index of the EventProcessor for the given root. Events of one root always go to the same EventProcessor
+   * until the root is moved by {@link #rebalance()}.
+   */
+  int partition(String rootId);
+  
+  /**
+   * Moves idle roots from overloaded EventProcessors and forgets finished roots. 
+   * Caller must guarantee that no events are routed while rebalancing is in progress.
+   */
+  void rebalance();
+  
+  List<EventProcessorLoad> getLoad();
+  
+  Type getType();
+  
+}
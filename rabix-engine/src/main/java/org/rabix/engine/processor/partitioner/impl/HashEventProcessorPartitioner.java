@@ -0,0 +1,48 @@
+package org.rabix.engine.processor.partitioner.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rabix.engine.processor.impl.EventProcessorImpl;
+import org.rabix.engine.processor.partitioner.EventProcessorLoad;
+import org.rabix.engine.processor.partitioner.EventProcessorPartitioner;
+
+/**
+ * Routes roots by hash of the root ID. Doesn't keep any state and never rebalances.
+ */
+public class HashEventProcessorPartitioner implements EventProcessorPartitioner {
+
+  private List<EventProcessorImpl> eventProcessors;
+  
+  @Override
+  public void initialize(List<EventProcessorImpl> eventProcessors) {
+    this.eventProcessors = eventProcessors;
+  }
+
+  @Override
+  public int partition(String rootId) {
+    return Math.abs(rootId.hashCode() % eventProcessors.size());
+  }
+
+  @Override
+  public void rebalance() {
+    for (EventProcessorImpl eventProcessor : eventProcessors) {
+      eventProcessor.purgeIdleContexts();
+    }
+  }
+
+  @Override
+  public List<EventProcessorLoad> getLoad() {
+    List<EventProcessorLoad> load = new ArrayList<>();
+    for (int i = 0; i < eventProcessors.size(); i++) {
+      load.add(new EventProcessorLoad(i, eventProcessors.get(i).getQueueSize(), 0, 0));
+    }
+    return load;
+  }
+
+  @Override
+  public Type getType() {
+    return Type.HASH;
+  }
+
+}
@@ -0,0 +1,137 @@
+package org.rabix.engine.processor.partitioner.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.rabix.engine.processor.impl.EventProcessorImpl;
+import org.rabix.engine.processor.partitioner.EventProcessorLoad;
+import org.rabix.engine.processor.partitioner.EventProcessorPartitioner;
+import org.rabix.engine.service.JobRecordService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Assigns a new root to the EventProcessor with the smallest queue depth and number of in-flight Job records.
+ * Later events of the root stick to the same EventProcessor.
+ */
+public class LeastLoadedEventProcessorPartitioner implements EventProcessorPartitioner {
+
+  private final static Logger logger = LoggerFactory.getLogger(LeastLoadedEventProcessorPartitioner.class);
+  
+  private final JobRecordService jobRecordService;
+  
+  private List<EventProcessorImpl> eventProcessors;
+  private final ConcurrentMap<String, Integer> assignments = new ConcurrentHashMap<>();
+  
+  public LeastLoadedEventProcessorPartitioner(JobRecordService jobRecordService) {
+    this.jobRecordService = jobRecordService;
+  }
+  
+  @Override
+  public void initialize(List<EventProcessorImpl> eventProcessors) {
+    this.eventProcessors = eventProcessors;
+  }
+
+  @Override
+  public int partition(String rootId) {
+    Integer index = assignments.get(rootId);
+    if (index != null) {
+      return index;
+    }
+    synchronized (this) {
+      index = assignments.get(rootId);
+      if (index == null) {
+        index = leastLoaded(getLoad()).getIndex();
+        assignments.put(rootId, index);
+        logger.debug("Root Job {} assigned to EventProcessor {}", rootId, index);
+      }
+      return index;
+    }
+  }
+
+  @Override
+  public synchronized void rebalance() {
+    Set<String> finishedRoots = new HashSet<>();
+    for (Entry<String, Integer> assignment : assignments.entrySet()) {
+      String rootId = assignment.getKey();
+      if (eventProcessors.get(assignment.getValue()).isIdle(rootId) && jobRecordService.count(rootId) == 0) {
+        finishedRoots.add(rootId);
+      }
+    }
+    for (String rootId : finishedRoots) {
+      assignments.remove(rootId);
+    }
+    for (EventProcessorImpl eventProcessor : eventProcessors) {
+      eventProcessor.purgeIdleContexts();
+    }
+    
+    List<EventProcessorLoad> load = getLoad();
+    EventProcessorLoad mostLoaded = mostLoaded(load);
+    EventProcessorLoad leastLoaded = leastLoaded(load);
+    
+    long difference = mostLoaded.getScore() - leastLoaded.getScore();
+    for (Entry<String, Integer> assignment : assignments.entrySet()) {
+      if (assignment.getValue() != mostLoaded.getIndex()) {
+        continue;
+      }
+      String rootId = assignment.getKey();
+      if (!eventProcessors.get(mostLoaded.getIndex()).isIdle(rootId)) {
+        continue;
+      }
+      int records = jobRecordService.count(rootId);
+      if (2 * records > difference) {
+        continue;
+      }
+      assignment.setValue(leastLoaded.getIndex());
+      difference -= 2 * records;
+      logger.debug("Root Job {} moved from EventProcessor {} to {}", rootId, mostLoaded.getIndex(), leastLoaded.getIndex());
+    }
+  }
+
+  @Override
+  public List<EventProcessorLoad> getLoad() {
+    int[] roots = new int[eventProcessors.size()];
+    int[] records = new int[eventProcessors.size()];
+    for (Entry<String, Integer> assignment : assignments.entrySet()) {
+      roots[assignment.getValue()]++;
+      records[assignment.getValue()] += jobRecordService.count(assignment.getKey());
+    }
+    
+    List<EventProcessorLoad> load = new ArrayList<>();
+    for (int i = 0; i < eventProcessors.size(); i++) {
+      load.add(new EventProcessorLoad(i, eventProcessors.get(i).getQueueSize(), roots[i], records[i]));
+    }
+    return load;
+  }
+  
+  private EventProcessorLoad leastLoaded(List<EventProcessorLoad> load) {
+    EventProcessorLoad result = null;
+    for (EventProcessorLoad processorLoad : load) {
+      if (result == null || processorLoad.getScore() < result.getScore()) {
+        result = processorLoad;
+      }
+    }
+    return result;
+  }
+  
+  private EventProcessorLoad mostLoaded(List<EventProcessorLoad> load) {
+    EventProcessorLoad result = null;
+    for (EventProcessorLoad processorLoad : load) {
+      if (result == null || processorLoad.getScore() > result.getScore()) {
+        result = processorLoad;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Type getType() {
+    return Type.LEAST_LOADED;
+  }
+
+}
@@ -1,34 +1,27 @@
 package org.rabix.engine.service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.rabix.engine.model.ContextRecord;
 
 public class ContextRecordService {
 
-  private List<ContextRecord> contextRecords = new ArrayList<>();
+  private ConcurrentMap<String, ContextRecord> contextRecords = new ConcurrentHashMap<>();
   
-  public synchronized void create(ContextRecord contextRecord) {
-    contextRecords.add(contextRecord);
+  public void create(ContextRecord contextRecord) {
+    contextRecords.putIfAbsent(contextRecord.getId(), contextRecord);
   }
   
-  public synchronized void update(ContextRecord context) {
-    for (ContextRecord c : contextRecords) {
-      if (c.getId().equals(context.getId())) {
-        c.setStatus(context.getStatus());
-        return;
-      }
+  public void update(ContextRecord context) {
+    ContextRecord c = contextRecords.get(context.getId());
+    if (c != null) {
+      c.setStatus(context.getStatus());
     }
   }
   
-  public synchronized ContextRecord find(String id) {
-    for (ContextRecord contextRecord : contextRecords) {
-      if (contextRecord.getId().equals(id)) {
-        return contextRecord;
-      }
-    }
-    return null;
+  public ContextRecord find(String id) {
+    return contextRecords.get(id);
   }
   
 }
@@ -1,7 +1,10 @@
 package org.rabix.engine.service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -18,10 +21,14 @@ public class JobRecordService {
     FAILED
   }
 
-  private ConcurrentMap<String, List<JobRecord>> jobRecordsPerContext = new ConcurrentHashMap<String, List<JobRecord>>();
+  private ConcurrentMap<String, JobRecordIndex> jobRecordsPerContext = new ConcurrentHashMap<String, JobRecordIndex>();
 
-  public static String generateUniqueId() {
-    return UUID.randomUUID().toString();
+  /**
+   * Generates external ID of the Job. It depends only on the context and the Job ID,
+   * so journal replay recreates the same IDs backends and journaled events refer to.
+   */
+  public static String generateUniqueId(String contextId, String id) {
+    return UUID.nameUUIDFromBytes((contextId + "/" + id).getBytes(StandardCharsets.UTF_8)).toString();
   }
   
   public void create(JobRecord jobRecord) {
@@ -33,28 +40,35 @@ public class JobRecordService {
   }
   
   public void update(JobRecord jobRecord) {
-    for (JobRecord jr : getJobRecords(jobRecord.getRootId())) {
-      if (jr.getId().equals(jobRecord.getId())) {
-        jr.setState(jobRecord.getState());
-        jr.setContainer(jobRecord.isContainer());
-        jr.setScattered(jobRecord.isScattered());
-        jr.setInputCounters(jobRecord.getInputCounters());
-        jr.setOutputCounters(jobRecord.getOutputCounters());
-        jr.setScatterWrapper(jobRecord.isScatterWrapper());
-        jr.setScatterStrategy(jobRecord.getScatterStrategy());
-        return;
-      }
+    JobRecord jr = getJobRecords(jobRecord.getRootId()).byId.get(jobRecord.getId());
+    if (jr == null) {
+      return;
     }
+    jr.setState(jobRecord.getState());
+    jr.setContainer(jobRecord.isContainer());
+    jr.setScattered(jobRecord.isScattered());
+    jr.setInputCounters(jobRecord.getInputCounters());
+    jr.setOutputCounters(jobRecord.getOutputCounters());
+    jr.setScatterWrapper(jobRecord.isScatterWrapper());
+    jr.setScatterStrategy(jobRecord.getScatterStrategy());
   }
   
   public List<JobRecord> find(String contextId) {
-    return getJobRecords(contextId);
+    return getJobRecords(contextId).records;
+  }
+  
+  /**
+   * Counts Job records of the context without creating an empty context
+   */
+  public int count(String contextId) {
+    JobRecordIndex index = jobRecordsPerContext.get(contextId);
+    return index != null ? index.records.size() : 0;
   }
   
   public List<JobRecord> findReady(String contextId) {
     List<JobRecord> result = new ArrayList<>();
     
-    for (JobRecord jr : getJobRecords(contextId)) {
+    for (JobRecord jr : getJobRecords(contextId).records) {
       if (jr.getState().equals(JobState.READY) && jr.getRootId().equals(contextId)) {
         result.add(jr);
       }
@@ -63,41 +77,59 @@ public class JobRecordService {
   }
   
   public List<JobRecord> findByParent(String parentId, String contextId) {
-    List<JobRecord> result = new ArrayList<>();
-
-    for (JobRecord jr : getJobRecords(contextId)) {
-      if (jr.getParentId() != null && jr.getParentId().equals(parentId)) {
-        result.add(jr);
-      }
+    List<JobRecord> children = getJobRecords(contextId).byParent.get(parentId);
+    if (children == null) {
+      return new ArrayList<>();
     }
-    return result;
+    return new ArrayList<>(children);
   }
   
   public JobRecord find(String id, String contextId) {
-    for (JobRecord jr : getJobRecords(contextId)) {
-      if (jr.getId().equals(id) && jr.getRootId().equals(contextId)) {
-        return jr;
-      }
-    }
-    return null;
+    return getJobRecords(contextId).byId.get(id);
   }
   
   public JobRecord findRoot(String contextId) {
-    for (JobRecord jr : getJobRecords(contextId)) {
-      if (jr.isMaster() && jr.getRootId().equals(contextId)) {
-        return jr;
+    return getJobRecords(contextId).root;
+  }
+  
+  private JobRecordIndex getJobRecords(String contextId) {
+    JobRecordIndex index = jobRecordsPerContext.get(contextId);
+    if (index == null) {
+      index = new JobRecordIndex();
+      JobRecordIndex existing = jobRecordsPerContext.putIfAbsent(contextId, index);
+      if (existing != null) {
+        index = existing;
       }
     }
-    return null;
+    return index;
   }
   
-  private List<JobRecord> getJobRecords(String contextId) {
-    List<JobRecord> jobRecordList = jobRecordsPerContext.get(contextId);
-    if (jobRecordList == null) {
-      jobRecordList = new ArrayList<>();
-      jobRecordsPerContext.put(contextId, jobRecordList);
+  /**
+   * Job records of one root context, indexed by ID and by parent ID
+   */
+  private static class JobRecordIndex {
+    private final List<JobRecord> records = new ArrayList<>();
+    private final Map<String, JobRecord> byId = new HashMap<>();
+    private final Map<String, List<JobRecord>> byParent = new HashMap<>();
+    private JobRecord root;
+    
+    private void add(JobRecord jobRecord) {
+      records.add(jobRecord);
+      if (!byId.containsKey(jobRecord.getId())) {
+        byId.put(jobRecord.getId(), jobRecord);
+      }
+      if (jobRecord.getParentId() != null) {
+        List<JobRecord> children = byParent.get(jobRecord.getParentId());
+        if (children == null) {
+          children = new ArrayList<>();
+          byParent.put(jobRecord.getParentId(), children);
+        }
+        children.add(jobRecord);
+      }
+      if (root == null && jobRecord.isMaster()) {
+        root = jobRecord;
+      }
     }
-    return jobRecordList;
   }
   
 }
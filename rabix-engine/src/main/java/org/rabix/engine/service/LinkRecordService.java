@@ -1,7 +1,9 @@
 package org.rabix.engine.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -10,7 +12,7 @@ import org.rabix.engine.model.LinkRecord;
 
 public class LinkRecordService {
 
-  private ConcurrentMap<String, List<LinkRecord>> linkRecordsPerContext = new ConcurrentHashMap<String, List<LinkRecord>>();
+  private ConcurrentMap<String, LinkRecordIndex> linkRecordsPerContext = new ConcurrentHashMap<String, LinkRecordIndex>();
 
   public void create(LinkRecord link) {
     getLinkRecords(link.getContextId()).add(link);
@@ -21,19 +23,17 @@ public class LinkRecordService {
   }
   
   public List<LinkRecord> findBySourceJobId(String jobId, String contextId) {
-    List<LinkRecord> result = new ArrayList<>();
-    for (LinkRecord lr : getLinkRecords(contextId)) {
-      if (lr.getSourceJobId().equals(jobId) && lr.getContextId().equals(contextId)) {
-        result.add(lr);
-      }
-    }
-    return result;
+    return copyOf(getLinkRecords(contextId).bySourceJob.get(jobId));
   }
   
   public List<LinkRecord> findBySourceAndSourceType(String jobId, LinkPortType varType, String contextId) {
     List<LinkRecord> result = new ArrayList<>();
-    for (LinkRecord lr : getLinkRecords(contextId)) {
-      if (lr.getSourceJobId().equals(jobId) && lr.getSourceVarType().equals(varType) && lr.getContextId().equals(contextId)) {
+    List<LinkRecord> links = getLinkRecords(contextId).bySourceJob.get(jobId);
+    if (links == null) {
+      return result;
+    }
+    for (LinkRecord lr : links) {
+      if (lr.getSourceVarType().equals(varType)) {
         result.add(lr);
       }
     }
@@ -41,19 +41,17 @@ public class LinkRecordService {
   }
   
   public List<LinkRecord> findBySource(String jobId, String portId, String contextId) {
-    List<LinkRecord> result = new ArrayList<>();
-    for (LinkRecord lr : getLinkRecords(contextId)) {
-      if (lr.getSourceJobId().equals(jobId) && lr.getSourceJobPort().equals(portId) && lr.getContextId().equals(contextId)) {
-        result.add(lr);
-      }
-    }
-    return result;
+    return copyOf(getLinkRecords(contextId).bySourcePort.get(new SourcePortKey(jobId, portId)));
   }
   
   public List<LinkRecord> findBySourceAndDestinationType(String jobId, String portId, LinkPortType varType, String contextId) {
     List<LinkRecord> result = new ArrayList<>();
-    for (LinkRecord lr : getLinkRecords(contextId)) {
-      if (lr.getSourceJobId().equals(jobId) && lr.getSourceJobPort().equals(portId) && lr.getDestinationVarType().equals(varType) && lr.getContextId().equals(contextId)) {
+    List<LinkRecord> links = getLinkRecords(contextId).bySourcePort.get(new SourcePortKey(jobId, portId));
+    if (links == null) {
+      return result;
+    }
+    for (LinkRecord lr : links) {
+      if (lr.getDestinationVarType().equals(varType)) {
         result.add(lr);
       }
     }
@@ -61,16 +59,92 @@ public class LinkRecordService {
   }
 
   public List<LinkRecord> find(String contextId) {
-    return getLinkRecords(contextId);
+    return getLinkRecords(contextId).records;
+  }
+  
+  private List<LinkRecord> copyOf(List<LinkRecord> links) {
+    return links != null ? new ArrayList<>(links) : new ArrayList<LinkRecord>();
   }
   
-  private List<LinkRecord> getLinkRecords(String contextId) {
-    List<LinkRecord> linkList = linkRecordsPerContext.get(contextId);
-    if (linkList == null) {
-      linkList = new ArrayList<>();
-      linkRecordsPerContext.put(contextId, linkList);
+  private LinkRecordIndex getLinkRecords(String contextId) {
+    LinkRecordIndex index = linkRecordsPerContext.get(contextId);
+    if (index == null) {
+      index = new LinkRecordIndex();
+      LinkRecordIndex existing = linkRecordsPerContext.putIfAbsent(contextId, index);
+      if (existing != null) {
+        index = existing;
+      }
+    }
+    return index;
+  }
+  
+  /**
+   * Link records of one root context, indexed by source job and by source (job, port) pair
+   */
+  private static class LinkRecordIndex {
+    private final List<LinkRecord> records = new ArrayList<>();
+    private final Map<String, List<LinkRecord>> bySourceJob = new HashMap<>();
+    private final Map<SourcePortKey, List<LinkRecord>> bySourcePort = new HashMap<>();
+    
+    private void add(LinkRecord link) {
+      records.add(link);
+      
+      List<LinkRecord> jobLinks = bySourceJob.get(link.getSourceJobId());
+      if (jobLinks == null) {
+        jobLinks = new ArrayList<>();
+        bySourceJob.put(link.getSourceJobId(), jobLinks);
+      }
+      jobLinks.add(link);
+      
+      SourcePortKey key = new SourcePortKey(link.getSourceJobId(), link.getSourceJobPort());
+      List<LinkRecord> portLinks = bySourcePort.get(key);
+      if (portLinks == null) {
+        portLinks = new ArrayList<>();
+        bySourcePort.put(key, portLinks);
+      }
+      portLinks.add(link);
+    }
+  }
+  
+  private static class SourcePortKey {
+    private final String jobId;
+    private final String portId;
+    
+    private SourcePortKey(String jobId, String portId) {
+      this.jobId = jobId;
+      this.portId = portId;
+    }
+
+    @Override
+    public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + ((jobId == null) ? 0 : jobId.hashCode());
+      result = prime * result + ((portId == null) ? 0 : portId.hashCode());
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj)
+        return true;
+      if (obj == null)
+        return false;
+      if (getClass() != obj.getClass())
+        return false;
+      SourcePortKey other = (SourcePortKey) obj;
+      if (jobId == null) {
+        if (other.jobId != null)
+          return false;
+      } else if (!jobId.equals(other.jobId))
+        return false;
+      if (portId == null) {
+        if (other.portId != null)
+          return false;
+      } else if (!portId.equals(other.portId))
+        return false;
+      return true;
     }
-    return linkList;
   }
   
 }
@@ -1,7 +1,9 @@
 package org.rabix.engine.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -10,10 +12,10 @@ import org.rabix.engine.model.VariableRecord;
 
 public class VariableRecordService {
 
-  private ConcurrentMap<String, List<VariableRecord>> variableRecordsPerContext = new ConcurrentHashMap<String, List<VariableRecord>>();
+  private ConcurrentMap<String, VariableRecordIndex> variableRecordsPerContext = new ConcurrentHashMap<String, VariableRecordIndex>();
 
   public void create(VariableRecord variableRecord) {
-    getVariableRecords(variableRecord.getContextId()).add(variableRecord);
+    getIndex(variableRecord.getContextId()).add(variableRecord);
   }
   
   public void delete(String rootId) {
@@ -21,18 +23,20 @@ public class VariableRecordService {
   }
 
   public void update(VariableRecord variableRecord) {
-    for (VariableRecord vr : getVariableRecords(variableRecord.getContextId())) {
-      if (vr.getJobId().equals(variableRecord.getJobId()) && vr.getPortId().equals(variableRecord.getPortId()) && vr.getType().equals(variableRecord.getType()) && vr.getContextId().equals(variableRecord.getContextId())) {
-        vr.setValue(variableRecord.getValue());
-        return;
-      }
+    VariableRecord vr = find(variableRecord.getJobId(), variableRecord.getPortId(), variableRecord.getType(), variableRecord.getContextId());
+    if (vr != null && vr != variableRecord) {
+      vr.setValue(variableRecord.getValue());
     }
   }
   
   public List<VariableRecord> find(String jobId, LinkPortType type, String contextId) {
     List<VariableRecord> result = new ArrayList<>();
-    for (VariableRecord vr : getVariableRecords(contextId)) {
-      if (vr.getJobId().equals(jobId) && vr.getType().equals(type) && vr.getContextId().equals(contextId)) {
+    List<VariableRecord> jobVariables = getIndex(contextId).byJob.get(jobId);
+    if (jobVariables == null) {
+      return result;
+    }
+    for (VariableRecord vr : jobVariables) {
+      if (vr.getType().equals(type)) {
         result.add(vr);
       }
     }
@@ -41,8 +45,12 @@ public class VariableRecordService {
   
   public List<VariableRecord> find(String jobId, String portId, String contextId) {
     List<VariableRecord> result = new ArrayList<>();
-    for (VariableRecord vr : getVariableRecords(contextId)) {
-      if (vr.getJobId().equals(jobId) && vr.getPortId().equals(portId) && vr.getContextId().equals(contextId)) {
+    List<VariableRecord> jobVariables = getIndex(contextId).byJob.get(jobId);
+    if (jobVariables == null) {
+      return result;
+    }
+    for (VariableRecord vr : jobVariables) {
+      if (vr.getPortId().equals(portId)) {
         result.add(vr);
       }
     }
@@ -50,22 +58,11 @@ public class VariableRecordService {
   }
 
   public VariableRecord find(String jobId, String portId, LinkPortType type, String contextId) {
-    for (VariableRecord vr : getVariableRecords(contextId)) {
-      if (vr.getJobId().equals(jobId) && vr.getPortId().equals(portId) && vr.getType().equals(type) && vr.getContextId().equals(contextId)) {
-        return vr;
-      }
-    }
-    return null;
+    return getIndex(contextId).byPort.get(new VariableKey(jobId, portId, type));
   }
 
   public List<VariableRecord> findByJobId(String jobId, LinkPortType type, String contextId) {
-    List<VariableRecord> result = new ArrayList<>();
-    for (VariableRecord vr : getVariableRecords(contextId)) {
-      if (vr.getJobId().equals(jobId) && vr.getType().equals(type) && vr.getContextId().equals(contextId)) {
-        result.add(vr);
-      }
-    }
-    return result;
+    return find(jobId, type, contextId);
   }
 
   public List<VariableRecord> find(String contextId) {
@@ -73,12 +70,90 @@ public class VariableRecordService {
   }
   
   public List<VariableRecord> getVariableRecords(String contextId) {
-    List<VariableRecord> variableList = variableRecordsPerContext.get(contextId);
-    if (variableList == null) {
-      variableList = new ArrayList<>();
-      variableRecordsPerContext.put(contextId, variableList);
+    return getIndex(contextId).records;
+  }
+  
+  private VariableRecordIndex getIndex(String contextId) {
+    VariableRecordIndex index = variableRecordsPerContext.get(contextId);
+    if (index == null) {
+      index = new VariableRecordIndex();
+      VariableRecordIndex existing = variableRecordsPerContext.putIfAbsent(contextId, index);
+      if (existing != null) {
+        index = existing;
+      }
+    }
+    return index;
+  }
+  
+  /**
+   * Variable records of one root context, indexed by job and by (job, port, type) triple
+   */
+  private static class VariableRecordIndex {
+    private final List<VariableRecord> records = new ArrayList<>();
+    private final Map<String, List<VariableRecord>> byJob = new HashMap<>();
+    private final Map<VariableKey, VariableRecord> byPort = new HashMap<>();
+    
+    private void add(VariableRecord variableRecord) {
+      records.add(variableRecord);
+      
+      List<VariableRecord> jobVariables = byJob.get(variableRecord.getJobId());
+      if (jobVariables == null) {
+        jobVariables = new ArrayList<>();
+        byJob.put(variableRecord.getJobId(), jobVariables);
+      }
+      jobVariables.add(variableRecord);
+      
+      VariableKey key = new VariableKey(variableRecord.getJobId(), variableRecord.getPortId(), variableRecord.getType());
+      if (!byPort.containsKey(key)) {
+        byPort.put(key, variableRecord);
+      }
+    }
+  }
+  
+  private static class VariableKey {
+    private final String jobId;
+    private final String portId;
+    private final LinkPortType type;
+    
+    private VariableKey(String jobId, String portId, LinkPortType type) {
+      this.jobId = jobId;
+      this.portId = portId;
+      this.type = type;
+    }
+
+    @Override
+    public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + ((jobId == null) ? 0 : jobId.hashCode());
+      result = prime * result + ((portId == null) ? 0 : portId.hashCode());
+      result = prime * result + ((type == null) ? 0 : type.hashCode());
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj)
+        return true;
+      if (obj == null)
+        return false;
+      if (getClass() != obj.getClass())
+        return false;
+      VariableKey other = (VariableKey) obj;
+      if (jobId == null) {
+        if (other.jobId != null)
+          return false;
+      } else if (!jobId.equals(other.jobId))
+        return false;
+      if (portId == null) {
+        if (other.portId != null)
+          return false;
+      } else if (!portId.equals(other.portId))
+        return false;
+      if (type != other.type)
+        return false;
+      return true;
     }
-    return variableList;
   }
   
 }
@@ -19,5 +19,10 @@ public interface EngineStatusCallback {
   void onJobRootPartiallyCompleted(Job rootJob) throws EngineStatusCallbackException;
   
   void onJobRootFailed(Job rootJob) throws EngineStatusCallbackException;
+  
+  /**
+   * Called after journal replay for Jobs which existed before the restart and are not dispatched again
+   */
+  void onJobRecovered(Job job) throws EngineStatusCallbackException;
 
 }
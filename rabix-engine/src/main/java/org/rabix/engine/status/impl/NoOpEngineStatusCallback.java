@@ -46,5 +46,10 @@ public class NoOpEngineStatusCallback implements EngineStatusCallback {
   public void onJobRootFailed(Job rootJob) throws EngineStatusCallbackException {
     logger.debug("onJobFailed(jobId={})", rootJob.getId());
   }
+  
+  @Override
+  public void onJobRecovered(Job job) throws EngineStatusCallbackException {
+    logger.debug("onJobRecovered(jobId={})", job.getId());
+  }
 
 }
@@ -0,0 +1,120 @@
+package org.rabix.engine.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.io.FileUtils;
+import org.rabix.engine.event.Event;
+import org.rabix.engine.event.Event.EventType;
+import org.rabix.engine.event.impl.InitEvent;
+import org.rabix.engine.event.impl.JobStatusEvent;
+import org.rabix.engine.model.ContextRecord;
+import org.rabix.engine.model.ContextRecord.ContextStatus;
+import org.rabix.engine.processor.dispatcher.EventDispatcherFactory;
+import org.rabix.engine.processor.handler.EventHandlerException;
+import org.rabix.engine.processor.handler.HandlerFactory;
+import org.rabix.engine.processor.impl.EventProcessorImpl;
+import org.rabix.engine.service.ContextRecordService;
+import org.rabix.engine.service.JobRecordService.JobState;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class EventJournalTest {
+
+  private File directory;
+  private Configuration configuration;
+  private ContextRecordService contextRecordService;
+  private EventJournal eventJournal;
+
+  @BeforeMethod
+  public void createJournal() throws IOException {
+    directory = Files.createTempDirectory("journal").toFile();
+    configuration = new BaseConfiguration();
+    configuration.setProperty("engine.journal.enabled", true);
+    configuration.setProperty("engine.journal.directory", directory.getAbsolutePath());
+    configuration.setProperty("engine.journal.commit_delay_mills", 0);
+    configuration.setProperty("engine.journal.compaction_period_mills", 0);
+    contextRecordService = new ContextRecordService();
+    eventJournal = new EventJournal(configuration, contextRecordService);
+  }
+
+  @AfterMethod
+  public void deleteJournal() throws IOException {
+    eventJournal.stop();
+    FileUtils.deleteDirectory(directory);
+  }
+
+  @Test
+  public void testAppendAndRead() throws EventJournalException {
+    eventJournal.start();
+    Map<String, Object> inputs = new HashMap<>();
+    inputs.put("a", 1);
+    eventJournal.await(eventJournal.append(new InitEvent(Collections.<String, Object> singletonMap("allocateResources", true), "root", null, inputs)));
+    eventJournal.await(eventJournal.append(new JobStatusEvent("root.step", "root", JobState.COMPLETED, Collections.<String, Object> singletonMap("out", "b"), "group")));
+    eventJournal.stop();
+
+    List<Event> events = new EventJournal(configuration, contextRecordService).read();
+    Assert.assertEquals(events.size(), 2);
+
+    InitEvent initEvent = (InitEvent) events.get(0);
+    Assert.assertEquals(initEvent.getContextId(), "root");
+    Assert.assertEquals(initEvent.getValue(), inputs);
+    Assert.assertEquals(initEvent.getConfig().get("allocateResources"), true);
+
+    JobStatusEvent statusEvent = (JobStatusEvent) events.get(1);
+    Assert.assertEquals(statusEvent.getType(), EventType.JOB_STATUS_UPDATE);
+    Assert.assertEquals(statusEvent.getJobId(), "root.step");
+    Assert.assertEquals(statusEvent.getState(), JobState.COMPLETED);
+    Assert.assertEquals(statusEvent.getResult().get("out"), "b");
+    Assert.assertEquals(statusEvent.getEventGroupId(), "group");
+  }
+
+  @Test
+  public void testCompactDropsFinishedContexts() throws EventJournalException {
+    contextRecordService.create(new ContextRecord("finished", null, ContextStatus.COMPLETED));
+    contextRecordService.create(new ContextRecord("running", null, ContextStatus.RUNNING));
+
+    eventJournal.start();
+    eventJournal.await(eventJournal.append(new JobStatusEvent("finished.step", "finished", JobState.COMPLETED, null, null)));
+    eventJournal.await(eventJournal.append(new JobStatusEvent("running.step", "running", JobState.COMPLETED, null, null)));
+    eventJournal.compact();
+    eventJournal.await(eventJournal.append(new JobStatusEvent("running.next", "running", JobState.FAILED, null, null)));
+
+    List<Event> events = eventJournal.read();
+    Assert.assertEquals(events.size(), 2);
+    Assert.assertEquals(((JobStatusEvent) events.get(0)).getJobId(), "running.step");
+    Assert.assertEquals(((JobStatusEvent) events.get(1)).getJobId(), "running.next");
+  }
+
+  @Test
+  public void testReadMissingJournal() throws EventJournalException {
+    Assert.assertTrue(eventJournal.read().isEmpty());
+  }
+
+  @Test
+  public void testUncommittedEventIsNotQueued() throws EventJournalException {
+    eventJournal.start();
+    EventProcessorImpl eventProcessor = new EventProcessorImpl(new HandlerFactory(null, null, null, null, null), new EventDispatcherFactory(null, null), contextRecordService, eventJournal, configuration);
+
+    Map<String, Object> result = Collections.<String, Object> singletonMap("out", new Object());
+    try {
+      eventProcessor.addToQueue(new JobStatusEvent("root.step", "root", JobState.COMPLETED, result, null));
+      Assert.fail("Event that cannot be journaled should be rejected");
+    } catch (EventHandlerException e) {
+      Assert.assertEquals(eventProcessor.getQueueSize(), 0);
+      Assert.assertTrue(eventProcessor.isIdle("root"));
+    }
+    Assert.assertTrue(eventJournal.read().isEmpty());
+  }
+
+}
@@ -0,0 +1,105 @@
+package org.rabix.engine.processor.partitioner.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.rabix.engine.event.impl.ContextStatusEvent;
+import org.rabix.engine.journal.EventJournal;
+import org.rabix.engine.model.ContextRecord.ContextStatus;
+import org.rabix.engine.model.JobRecord;
+import org.rabix.engine.processor.dispatcher.EventDispatcherFactory;
+import org.rabix.engine.processor.handler.EventHandlerException;
+import org.rabix.engine.processor.handler.HandlerFactory;
+import org.rabix.engine.processor.impl.EventProcessorImpl;
+import org.rabix.engine.processor.partitioner.EventProcessorLoad;
+import org.rabix.engine.service.ContextRecordService;
+import org.rabix.engine.service.JobRecordService;
+import org.rabix.engine.service.JobRecordService.JobState;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class LeastLoadedEventProcessorPartitionerTest {
+
+  private JobRecordService jobRecordService;
+  private List<EventProcessorImpl> eventProcessors;
+  private LeastLoadedEventProcessorPartitioner partitioner;
+
+  @BeforeMethod
+  public void createProcessors() {
+    Configuration configuration = new BaseConfiguration();
+    ContextRecordService contextRecordService = new ContextRecordService();
+    EventJournal eventJournal = new EventJournal(configuration, contextRecordService);
+
+    jobRecordService = new JobRecordService();
+    eventProcessors = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      eventProcessors.add(new EventProcessorImpl(new HandlerFactory(null, null, null, null, null), new EventDispatcherFactory(null, null), contextRecordService, eventJournal, configuration));
+    }
+    partitioner = new LeastLoadedEventProcessorPartitioner(jobRecordService);
+    partitioner.initialize(eventProcessors);
+  }
+
+  @Test
+  public void testNewRootGoesToLeastLoaded() throws EventHandlerException {
+    Assert.assertEquals(partitioner.partition("a"), 0);
+    createRecords("a", 5);
+
+    Assert.assertEquals(partitioner.partition("b"), 1);
+    Assert.assertEquals(partitioner.partition("a"), 0);
+
+    eventProcessors.get(1).addToQueue(new ContextStatusEvent("b", ContextStatus.RUNNING));
+    createRecords("b", 5);
+    Assert.assertEquals(partitioner.partition("c"), 0); // queued events count as load too
+  }
+
+  @Test
+  public void testRebalanceMovesIdleRoots() throws EventHandlerException {
+    for (String rootId : new String[] { "large", "idle", "busy" }) {
+      Assert.assertEquals(partitioner.partition(rootId), 0);
+    }
+    createRecords("large", 10);
+    createRecords("idle", 3);
+    createRecords("busy", 3);
+    eventProcessors.get(0).addToQueue(new ContextStatusEvent("busy", ContextStatus.RUNNING));
+
+    partitioner.rebalance();
+
+    Assert.assertEquals(partitioner.partition("idle"), 1);
+    Assert.assertEquals(partitioner.partition("large"), 0); // moving it would only swap the imbalance
+    Assert.assertEquals(partitioner.partition("busy"), 0); // has a queued event
+    Assert.assertEquals(partitioner.getLoad().get(0).getRecordCount(), 13);
+    Assert.assertEquals(partitioner.getLoad().get(1).getRecordCount(), 3);
+  }
+
+  @Test
+  public void testRebalanceForgetsFinishedRoots() {
+    partitioner.partition("finished");
+    partitioner.partition("running");
+    createRecords("running", 1);
+    Assert.assertEquals(rootCount(), 2);
+
+    partitioner.rebalance();
+
+    Assert.assertEquals(rootCount(), 1);
+  }
+
+  private int rootCount() {
+    int count = 0;
+    for (EventProcessorLoad load : partitioner.getLoad()) {
+      count += load.getRootCount();
+    }
+    return count;
+  }
+
+  private void createRecords(String rootId, int count) {
+    for (int i = 0; i < count; i++) {
+      String id = "job" + i;
+      jobRecordService.create(new JobRecord(rootId, id, JobRecordService.generateUniqueId(rootId, id), null, JobState.PENDING, false, false, false, false));
+    }
+  }
+
+}
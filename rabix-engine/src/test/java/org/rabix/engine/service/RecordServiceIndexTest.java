@@ -0,0 +1,62 @@
+package org.rabix.engine.service;
+
+import org.rabix.bindings.model.LinkMerge;
+import org.rabix.bindings.model.dag.DAGLinkPort.LinkPortType;
+import org.rabix.engine.model.LinkRecord;
+import org.rabix.engine.model.VariableRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class RecordServiceIndexTest {
+
+  @Test
+  public void testVariableRecordLookups() {
+    VariableRecordService variableRecordService = new VariableRecordService();
+    VariableRecord input = new VariableRecord("root", "root.a", "in", LinkPortType.INPUT, 1, LinkMerge.merge_nested);
+    VariableRecord output = new VariableRecord("root", "root.a", "out", LinkPortType.OUTPUT, null, LinkMerge.merge_nested);
+    VariableRecord otherJob = new VariableRecord("root", "root.b", "in", LinkPortType.INPUT, null, LinkMerge.merge_nested);
+    VariableRecord otherContext = new VariableRecord("other", "root.a", "in", LinkPortType.INPUT, null, LinkMerge.merge_nested);
+    for (VariableRecord variableRecord : new VariableRecord[] { input, output, otherJob, otherContext }) {
+      variableRecordService.create(variableRecord);
+    }
+
+    Assert.assertSame(variableRecordService.find("root.a", "in", LinkPortType.INPUT, "root"), input);
+    Assert.assertNull(variableRecordService.find("root.a", "in", LinkPortType.OUTPUT, "root"));
+    Assert.assertEquals(variableRecordService.find("root.a", LinkPortType.OUTPUT, "root").size(), 1);
+    Assert.assertEquals(variableRecordService.find("root.a", "in", "root").size(), 1);
+    Assert.assertEquals(variableRecordService.find("root").size(), 3);
+    Assert.assertTrue(variableRecordService.find("missing", LinkPortType.INPUT, "root").isEmpty());
+
+    variableRecordService.update(new VariableRecord("root", "root.a", "in", LinkPortType.INPUT, 2, LinkMerge.merge_nested));
+    Assert.assertEquals(input.getValue(), 2);
+
+    variableRecordService.delete("root");
+    Assert.assertNull(variableRecordService.find("root.a", "in", LinkPortType.INPUT, "root"));
+    Assert.assertSame(variableRecordService.find("root.a", "in", LinkPortType.INPUT, "other"), otherContext);
+  }
+
+  @Test
+  public void testLinkRecordLookups() {
+    LinkRecordService linkRecordService = new LinkRecordService();
+    LinkRecord toInput = new LinkRecord("root", "root.a", "out", LinkPortType.OUTPUT, "root.b", "in", LinkPortType.INPUT, 1);
+    LinkRecord toOutput = new LinkRecord("root", "root.a", "out", LinkPortType.OUTPUT, "root", "result", LinkPortType.OUTPUT, 1);
+    LinkRecord otherPort = new LinkRecord("root", "root.a", "log", LinkPortType.OUTPUT, "root.c", "in", LinkPortType.INPUT, 1);
+    for (LinkRecord linkRecord : new LinkRecord[] { toInput, toOutput, otherPort }) {
+      linkRecordService.create(linkRecord);
+    }
+
+    Assert.assertEquals(linkRecordService.findBySourceJobId("root.a", "root").size(), 3);
+    Assert.assertEquals(linkRecordService.findBySource("root.a", "out", "root").size(), 2);
+    Assert.assertEquals(linkRecordService.findBySourceAndDestinationType("root.a", "out", LinkPortType.INPUT, "root").get(0), toInput);
+    Assert.assertEquals(linkRecordService.findBySourceAndSourceType("root.a", LinkPortType.INPUT, "root").size(), 0);
+    Assert.assertTrue(linkRecordService.findBySource("root.b", "out", "root").isEmpty());
+
+    linkRecordService.findBySourceJobId("root.a", "root").clear(); // returned lists are copies
+    Assert.assertEquals(linkRecordService.findBySourceJobId("root.a", "root").size(), 3);
+
+    linkRecordService.delete("root");
+    Assert.assertTrue(linkRecordService.findBySourceJobId("root.a", "root").isEmpty());
+  }
+
+}
@@ -21,4 +21,8 @@ public class DockerConfigation {
     return configuration.getBoolean("backend.docker.enabled", false);
   }
   
+  public boolean isResourceLimitsEnabled() {
+    return configuration.getBoolean("docker.resource_limits.enabled", false);
+  }
+  
 }
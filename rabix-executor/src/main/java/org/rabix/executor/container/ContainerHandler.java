@@ -27,6 +27,12 @@ public interface ContainerHandler {
    */
   public boolean isRunning() throws ContainerException;
 
+  /**
+   * Registers a listener which is notified once the started container exits.
+   * If the container has already exited, the listener is notified right away.
+   */
+  public void addExitListener(Runnable listener) throws ContainerException;
+
   /**
    * Get container exit status 
    */
@@ -10,13 +10,14 @@ import org.rabix.executor.container.impl.CompletedContainerHandler;
 import org.rabix.executor.container.impl.DockerContainerHandler;
 import org.rabix.executor.container.impl.DockerContainerHandler.DockerClientLockDecorator;
 import org.rabix.executor.container.impl.LocalContainerHandler;
+import org.rabix.executor.service.JobFitter.Allocation;
 import org.rabix.executor.status.ExecutorStatusCallback;
 
 public class ContainerHandlerFactory {
 
-  public static ContainerHandler create(Job job, Requirement requirement, DockerClientLockDecorator dockerClient, ExecutorStatusCallback statusCallback, StorageConfiguration storageConfig, DockerConfigation dockerConfig) throws ContainerException {
+  public static ContainerHandler create(Job job, Requirement requirement, DockerClientLockDecorator dockerClient, ExecutorStatusCallback statusCallback, StorageConfiguration storageConfig, DockerConfigation dockerConfig, Allocation allocation) throws ContainerException {
     if (requirement instanceof DockerContainerRequirement) {
-      return new DockerContainerHandler(job, (DockerContainerRequirement) requirement, storageConfig, dockerConfig, statusCallback, dockerClient);
+      return new DockerContainerHandler(job, (DockerContainerRequirement) requirement, storageConfig, dockerConfig, statusCallback, dockerClient, allocation);
     }
     if (requirement instanceof LocalContainerRequirement) {
       return new LocalContainerHandler(job, storageConfig);
@@ -16,7 +16,15 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration.Configuration;
@@ -38,6 +46,7 @@ import org.rabix.executor.config.StorageConfiguration;
 import org.rabix.executor.container.ContainerException;
 import org.rabix.executor.container.ContainerHandler;
 import org.rabix.executor.handler.JobHandler;
+import org.rabix.executor.service.JobFitter.Allocation;
 import org.rabix.executor.status.ExecutorStatusCallback;
 import org.rabix.executor.status.ExecutorStatusCallbackException;
 import org.slf4j.Logger;
@@ -46,6 +55,7 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.Optional;
 import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.spotify.docker.client.DefaultDockerClient;
 import com.spotify.docker.client.DockerCertificateException;
@@ -80,6 +90,8 @@ public class DockerContainerHandler implements ContainerHandler {
   private static final String TAG_SEPARATOR = ":";
   private static final String LATEST = "latest";
   
+  private static final long CPU_SHARES_PER_CORE = 1024;
+  
   private String containerId;
   private DockerClientLockDecorator dockerClient;
 
@@ -97,7 +109,9 @@ public class DockerContainerHandler implements ContainerHandler {
   
   private String commandLine;
   
-  public DockerContainerHandler(Job job, DockerContainerRequirement dockerResource, StorageConfiguration storageConfig, DockerConfigation dockerConfig, ExecutorStatusCallback statusCallback, DockerClientLockDecorator dockerClient) throws ContainerException {
+  private Allocation allocation;
+  
+  public DockerContainerHandler(Job job, DockerContainerRequirement dockerResource, StorageConfiguration storageConfig, DockerConfigation dockerConfig, ExecutorStatusCallback statusCallback, DockerClientLockDecorator dockerClient, Allocation allocation) throws ContainerException {
     this.job = job;
     this.dockerClient = dockerClient;
     this.dockerResource = dockerResource;
@@ -105,6 +119,7 @@ public class DockerContainerHandler implements ContainerHandler {
     this.storageConfig = storageConfig;
     this.workingDir = storageConfig.getWorkingDir(job);
     this.isConfigAuthEnabled = dockerConfig.isDockerConfigAuthEnabled();
+    this.allocation = dockerConfig.isResourceLimitsEnabled() ? allocation : null;
   }
 
   private void pull(String image) throws ContainerException {
@@ -171,6 +186,14 @@ public class DockerContainerHandler implements ContainerHandler {
         volumes.add(dockerResource.getDockerOutputDirectory());
         hostConfigBuilder.binds(workingDir + ":" + dockerResource.getDockerOutputDirectory() + ":" + DIRECTORY_MAP_MODE);
       }
+      if (allocation != null) {
+        if (allocation.getMemoryMB() > 0) {
+          hostConfigBuilder.memory(allocation.getMemoryMB() * 1024 * 1024);
+        }
+        if (allocation.getCores() > 0) {
+          hostConfigBuilder.cpuShares(allocation.getCores() * CPU_SHARES_PER_CORE);
+        }
+      }
       HostConfig hostConfig = hostConfigBuilder.build();
       builder.hostConfig(hostConfig);
 
@@ -301,6 +324,18 @@ public class DockerContainerHandler implements ContainerHandler {
     }
   }
 
+  @Override
+  public void addExitListener(Runnable listener) throws ContainerException {
+    if (overrideResultStatus != null) {
+      listener.run();
+      return;
+    }
+    if (containerId == null) {
+      throw new ContainerException("Docker container hasn't been created yet.");
+    }
+    dockerClient.addExitListener(containerId, listener);
+  }
+
   @Override
   @JsonIgnore
   public int getProcessExitStatus() throws ContainerException {
@@ -403,12 +438,104 @@ public class DockerContainerHandler implements ContainerHandler {
     
     private static final String UNIX_SCHEME = "unix";
     
+    private static final int MAX_EXIT_WAITERS = 32;
+    
     private DockerClient dockerClient;
+    
+    private final ConcurrentMap<String, Queue<Runnable>> exitListeners = new ConcurrentHashMap<>();
+    
+    /**
+     * Each waiter holds one client connection, so the number of waiters is bounded. Containers without a waiter rely on the status poll.
+     */
+    private final ExecutorService exitWaiters = new ThreadPoolExecutor(0, MAX_EXIT_WAITERS, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+        new ThreadFactoryBuilder().setNameFormat("docker-exit-waiter-%d").setDaemon(true).build());
 
     @Inject
     public DockerClientLockDecorator(Configuration configuration) throws ContainerException {
       this.dockerClient = createDockerClient(configuration);
     }
+    
+    /**
+     * Notifies the listener once when the container exits (right away if it has already exited).
+     * One waitContainer call is shared by all listeners of the container.
+     */
+    public void addExitListener(final String containerId, Runnable listener) throws ContainerException {
+      while (true) {
+        Queue<Runnable> listeners = exitListeners.get(containerId);
+        if (listeners == null) {
+          Queue<Runnable> newListeners = new ConcurrentLinkedQueue<>();
+          listeners = exitListeners.putIfAbsent(containerId, newListeners);
+          if (listeners == null) {
+            listeners = newListeners;
+            if (!startExitWaiter(containerId)) {
+              exitListeners.remove(containerId, newListeners);
+              return;
+            }
+          }
+        }
+        listeners.add(listener);
+        if (exitListeners.get(containerId) == listeners || !listeners.remove(listener)) {
+          return; // registered, or already taken and notified by the waiter
+        }
+        // the waiter has finished in the meantime, register again
+      }
+    }
+    
+    private boolean startExitWaiter(final String containerId) {
+      try {
+        exitWaiters.submit(new Runnable() {
+          @Override
+          public void run() {
+            waitForExit(containerId);
+            notifyExit(containerId);
+          }
+        });
+        return true;
+      } catch (RejectedExecutionException e) {
+        logger.debug("Too many containers are awaited. Exit of container {} will be detected by polling.", containerId);
+        return false;
+      }
+    }
+    
+    private void waitForExit(String containerId) {
+      while (true) {
+        try {
+          dockerClient.waitContainer(containerId); // returns immediately if the container has already exited
+          return;
+        } catch (DockerException e) {
+          logger.debug("Waiting for container " + containerId + " failed. Checking its state.", e); // read timeout for long running containers
+          try {
+            if (!dockerClient.inspectContainer(containerId).state().running()) {
+              return;
+            }
+          } catch (DockerException e1) {
+            logger.warn("Failed to query docker. Container ID: " + containerId, e1);
+            return; // status poll takes over
+          } catch (InterruptedException e1) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+    
+    private void notifyExit(String containerId) {
+      Queue<Runnable> listeners = exitListeners.remove(containerId);
+      if (listeners == null) {
+        return;
+      }
+      Runnable listener;
+      while ((listener = listeners.poll()) != null) {
+        try {
+          listener.run();
+        } catch (Exception e) {
+          logger.error("Failed to notify exit of container " + containerId, e);
+        }
+      }
+    }
 
     @Retry(times = RETRY_TIMES, methodTimeoutMillis = METHOD_TIMEOUT, exponentialBackoff = false, sleepTimeMillis = SLEEP_TIME)
     public synchronized void pull(String image) throws DockerException, InterruptedException {
@@ -447,17 +574,17 @@ public class DockerContainerHandler implements ContainerHandler {
     }
     
     @Retry(times = RETRY_TIMES, methodTimeoutMillis = METHOD_TIMEOUT, exponentialBackoff = true)
-    public synchronized ContainerInfo inspectContainer(String containerId) throws DockerException, InterruptedException {
+    public ContainerInfo inspectContainer(String containerId) throws DockerException, InterruptedException {
       return dockerClient.inspectContainer(containerId);
     }
     
     @Retry(times = RETRY_TIMES, methodTimeoutMillis = METHOD_TIMEOUT, exponentialBackoff = true)
-    public synchronized LogStream logs(String containerId, LogsParam... params) throws DockerException, InterruptedException {
+    public LogStream logs(String containerId, LogsParam... params) throws DockerException, InterruptedException {
       return dockerClient.logs(containerId, params);
     }
     
     @Retry(times = RETRY_TIMES, methodTimeoutMillis = METHOD_TIMEOUT, exponentialBackoff = true)
-    public synchronized ContainerExit waitContainer(String containerId) throws DockerException, InterruptedException {
+    public ContainerExit waitContainer(String containerId) throws DockerException, InterruptedException {
       return dockerClient.waitContainer(containerId);
     }
     
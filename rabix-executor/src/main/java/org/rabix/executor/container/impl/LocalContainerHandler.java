@@ -11,9 +11,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -33,6 +31,10 @@ import org.rabix.executor.handler.JobHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
 public class LocalContainerHandler implements ContainerHandler {
 
   private final static Logger logger = LoggerFactory.getLogger(LocalContainerHandler.class);
@@ -40,8 +42,8 @@ public class LocalContainerHandler implements ContainerHandler {
   private Job job;
   private File workingDir;
 
-  private Future<Integer> processFuture;
-  private ExecutorService executorService = Executors.newSingleThreadExecutor();
+  private ListenableFuture<Integer> processFuture;
+  private ListeningExecutorService executorService = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
 
   private Process process;
   private String commandLine;
@@ -155,6 +157,14 @@ public class LocalContainerHandler implements ContainerHandler {
     return !processFuture.isDone();
   }
 
+  @Override
+  public synchronized void addExitListener(Runnable listener) throws ContainerException {
+    if (processFuture == null) {
+      throw new ContainerException("Local container hasn't started yet.");
+    }
+    processFuture.addListener(listener, MoreExecutors.directExecutor());
+  }
+
   @Override
   public synchronized int getProcessExitStatus() throws ContainerException {
     try {
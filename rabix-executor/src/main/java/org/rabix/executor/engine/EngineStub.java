@@ -10,8 +10,11 @@ import org.rabix.bindings.model.Job;
 import org.rabix.common.engine.control.EngineControlFreeMessage;
 import org.rabix.common.engine.control.EngineControlMessage;
 import org.rabix.common.engine.control.EngineControlStopMessage;
+import org.rabix.common.json.codec.BeanCodec;
+import org.rabix.common.json.codec.BeanCodecFactory;
 import org.rabix.executor.service.ExecutorService;
 import org.rabix.executor.service.FileService;
+import org.rabix.executor.service.JobFitter;
 import org.rabix.transport.backend.Backend;
 import org.rabix.transport.backend.HeartbeatInfo;
 import org.rabix.transport.mechanism.TransportPlugin;
@@ -38,6 +41,7 @@ public abstract class EngineStub<Q extends TransportQueue, B extends Backend, T
   
   protected FileService fileService;
   protected ExecutorService executorService;
+  protected JobFitter jobFitter;
   
   public void start() {
     transportPlugin.startReceiver(sendToBackendQueue, Job.class, new ReceiveCallback<Job>() {
@@ -78,7 +82,14 @@ public abstract class EngineStub<Q extends TransportQueue, B extends Backend, T
     scheduledHeartbeatService.scheduleAtFixedRate(new Runnable() {
       @Override
       public void run() {
-        transportPlugin.send(receiveFromBackendHeartbeatQueue, new HeartbeatInfo(backend.getId(), System.currentTimeMillis()));
+        HeartbeatInfo heartbeatInfo = new HeartbeatInfo(backend.getId(), System.currentTimeMillis());
+        heartbeatInfo.setWireVersion(BeanCodec.WIRE_VERSION);
+        heartbeatInfo.setCodecs(BeanCodecFactory.getSupportedTypes());
+        if (jobFitter != null) {
+          heartbeatInfo.setAvailableCores(jobFitter.getAvailableCores());
+          heartbeatInfo.setAvailableMemoryMB(jobFitter.getAvailableMemoryMB());
+        }
+        transportPlugin.send(receiveFromBackendHeartbeatQueue, heartbeatInfo);
       }
     }, 0, 1, TimeUnit.SECONDS);
   }
@@ -87,6 +98,20 @@ public abstract class EngineStub<Q extends TransportQueue, B extends Backend, T
     scheduledHeartbeatService.shutdown();
   }
 
+  /**
+   * Sets fitter used to report available resources with heartbeats
+   */
+  public void setJobFitter(JobFitter jobFitter) {
+    this.jobFitter = jobFitter;
+  }
+
+  /**
+   * Sets codec used for messages sent to the engine
+   */
+  public void setCodec(BeanCodec codec) {
+    transportPlugin.setCodec(codec);
+  }
+
   public void send(Job job) {
     transportPlugin.send(receiveFromBackendQueue, job);
   }
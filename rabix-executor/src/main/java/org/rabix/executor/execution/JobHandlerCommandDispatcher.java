@@ -1,19 +1,16 @@
 package org.rabix.executor.execution;
 
 import java.lang.Thread.UncaughtExceptionHandler;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import org.apache.commons.configuration.Configuration;
 import org.rabix.bindings.model.Job;
 import org.rabix.executor.engine.EngineStub;
 import org.rabix.executor.handler.JobHandlerFactory;
@@ -22,74 +19,94 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Job execution command dispatcher.
+ * Job execution command dispatcher. Commands of a single Job are executed in order, commands of different Jobs share bounded pools.
+ * START commands have their own pool, so STOP and STATUS commands don't wait for slow container starts.
  */
-public class JobHandlerCommandDispatcher {
+public class JobHandlerCommandDispatcher implements JobHandlerRunnable.StopCallback {
 
   private static final Logger logger = LoggerFactory.getLogger(JobHandlerCommandDispatcher.class);
 
+  private final static int DEFAULT_POOL_SIZE = 32;
+  private final static int DEFAULT_CONTROL_POOL_SIZE = 8;
+
   private final JobHandlerFactory jobHandlerFactory;
 
-  private final Map<String, Map<String, JobHandlerRunnable>> jobHandlerRunnables = new HashMap<>();
+  private final ConcurrentMap<String, ConcurrentMap<String, JobHandlerRunnable>> jobHandlerRunnables = new ConcurrentHashMap<>();
 
-  private final ThreadFactory jobHandlerThreadFactory;
   private final ExecutorService jobHandlerThreadExecutor;
-  private final ScheduledExecutorService jobHandlerThreadCleanExecutor;
+  private final ExecutorService jobHandlerControlExecutor;
+  private final ScheduledExecutorService jobHandlerScheduler;
 
   @Inject
-  public JobHandlerCommandDispatcher(JobHandlerFactory jobHandlerFactory) {
+  public JobHandlerCommandDispatcher(JobHandlerFactory jobHandlerFactory, Configuration configuration) {
     this.jobHandlerFactory = jobHandlerFactory;
-    this.jobHandlerThreadFactory = buildJobHandlerThreadFactory();
-    this.jobHandlerThreadExecutor = Executors.newCachedThreadPool(jobHandlerThreadFactory);
-    this.jobHandlerThreadCleanExecutor = Executors.newScheduledThreadPool(1);
-    init();
+    int poolSize = configuration.getInt("executor.job_handler.pool_size", DEFAULT_POOL_SIZE);
+    int controlPoolSize = configuration.getInt("executor.job_handler.control_pool_size", DEFAULT_CONTROL_POOL_SIZE);
+    this.jobHandlerThreadExecutor = Executors.newFixedThreadPool(poolSize, buildJobHandlerThreadFactory("JobHandler-Thread"));
+    this.jobHandlerControlExecutor = Executors.newFixedThreadPool(controlPoolSize, buildJobHandlerThreadFactory("JobHandler-Control-Thread"));
+    this.jobHandlerScheduler = Executors.newSingleThreadScheduledExecutor();
   }
 
   /**
-   * Initializes dispatcher
+   * Dispatch commands to appropriate runnable
    */
-  private void init() {
-    scheduleCleaner();
+  public void dispatch(JobData jobData, JobHandlerCommand command, EngineStub<?,?,?> engineStub) {
+    Job job = jobData.getJob();
+    JobHandlerRunnable jobHandlerRunnable = null;
+    while (jobHandlerRunnable == null) {
+      ConcurrentMap<String, JobHandlerRunnable> jobs = getJobs(job.getRootId());
+      synchronized (jobs) {
+        if (jobHandlerRunnables.get(job.getRootId()) != jobs) {
+          continue; // removed by the last stopped runnable of the context
+        }
+        jobHandlerRunnable = jobs.get(job.getId());
+        if (jobHandlerRunnable == null) {
+          jobHandlerRunnable = new JobHandlerRunnable(job.getId(), job.getRootId(), jobHandlerFactory.createHandler(job, engineStub), jobHandlerThreadExecutor, jobHandlerControlExecutor, jobHandlerScheduler, this);
+          jobs.put(job.getId(), jobHandlerRunnable);
+          logger.info("JobHandlerRunnable created for {}.", job.getId());
+        }
+      }
+    }
+    jobHandlerRunnable.addCommand(command);
   }
 
   /**
-   * Dispatch commands to appropriate runnable threads
+   * Removes stopped runnable immediately
    */
-  public void dispatch(JobData jobData, JobHandlerCommand command, EngineStub<?,?,?> engineStub) {
-    synchronized (jobHandlerRunnables) {
-      String contextId = jobData.getJob().getRootId();
-      JobHandlerRunnable jobHandlerRunnable = getJobs(contextId).get(jobData.getJob().getId());
-
-      if (jobHandlerRunnable == null) {
-        Job job = jobData.getJob();
-        jobHandlerRunnable = new JobHandlerRunnable(job.getId(), job.getRootId(), jobHandlerFactory.createHandler(job, engineStub));
-        getJobs(contextId).put(job.getId(), jobHandlerRunnable);
-        jobHandlerThreadExecutor.execute(jobHandlerRunnable);
-        logger.info("JobHandlerRunnable created for {}.", job.getId());
+  @Override
+  public void onStopped(JobHandlerRunnable runnable) {
+    ConcurrentMap<String, JobHandlerRunnable> jobs = jobHandlerRunnables.get(runnable.getContextId());
+    if (jobs == null) {
+      return;
+    }
+    synchronized (jobs) {
+      jobs.remove(runnable.getJobId(), runnable);
+      if (jobs.isEmpty()) {
+        jobHandlerRunnables.remove(runnable.getContextId(), jobs);
       }
-      jobHandlerRunnable.addCommand(command);
     }
+    logger.debug("JobHandlerRunnable removed for context {} and job {}.", runnable.getContextId(), runnable.getJobId());
   }
 
-  private Map<String, JobHandlerRunnable> getJobs(String contextId) {
-    synchronized (jobHandlerRunnables) {
-      Map<String, JobHandlerRunnable> jobList = jobHandlerRunnables.get(contextId);
+  private ConcurrentMap<String, JobHandlerRunnable> getJobs(String contextId) {
+    ConcurrentMap<String, JobHandlerRunnable> jobList = jobHandlerRunnables.get(contextId);
+    if (jobList == null) {
+      ConcurrentMap<String, JobHandlerRunnable> newJobList = new ConcurrentHashMap<>();
+      jobList = jobHandlerRunnables.putIfAbsent(contextId, newJobList);
       if (jobList == null) {
-        jobList = new HashMap<>();
-        jobHandlerRunnables.put(contextId, jobList);
+        jobList = newJobList;
       }
-      return jobList;
     }
+    return jobList;
   }
 
   /**
    * Creates simple Job handler thread factory
    */
-  private ThreadFactory buildJobHandlerThreadFactory() {
+  private ThreadFactory buildJobHandlerThreadFactory(String namePrefix) {
     return new JobHandlerThreadFactoryBuilder()
-      .setNamePrefix("JobHandler-Thread")
+      .setNamePrefix(namePrefix)
       .setDaemon(false)
-      .setPriority(Thread.MAX_PRIORITY)
       .setUncaughtExceptionHandler(new UncaughtExceptionHandler() {
         @Override
         public void uncaughtException(Thread t, Throwable e) {
@@ -98,51 +115,4 @@ public class JobHandlerCommandDispatcher {
       }).build();
   }
 
-  /**
-   * Schedule cleaner thread that will go through the list of Job threads
-   */
-  private void scheduleCleaner() {
-    jobHandlerThreadCleanExecutor.scheduleWithFixedDelay(new Runnable() {
-      @Override
-      public void run() {
-        synchronized (jobHandlerRunnables) {
-          logger.debug("Cleaner thread is executing. There are {} runnable(s) in the pool.", jobHandlerRunnables.size());
-
-          List<Pair> stoppedIds = new ArrayList<>();
-          List<Pair> runningIds = new ArrayList<>();
-
-          for (Entry<String, Map<String, JobHandlerRunnable>> runnableEntry : jobHandlerRunnables.entrySet()) {
-            String contextId = runnableEntry.getKey();
-            for (Entry<String, JobHandlerRunnable> runnable : runnableEntry.getValue().entrySet()) {
-              String id = runnable.getKey();
-              JobHandlerRunnable thread = runnable.getValue();
-
-              if (thread.isStopped()) {
-                stoppedIds.add(new Pair(id, contextId));
-              } else {
-                runningIds.add(new Pair(id, contextId));
-              }
-            }
-          }
-
-          for (Pair stopped : stoppedIds) {
-            logger.debug("Cleaner thread removes JobHandlerRunnable for context {} and job {}.", stopped.contextId, stopped.jobId);
-            jobHandlerRunnables.get(stopped.contextId).remove(stopped.jobId);
-          }
-        }
-      }
-      
-      class Pair {
-        private String jobId;
-        private String contextId;
-        
-        public Pair(String jobId, String contextId) {
-          this.jobId = jobId;
-          this.contextId = contextId;
-        }
-      }
-
-    }, 1, 1, TimeUnit.MINUTES);
-  }
-  
 }
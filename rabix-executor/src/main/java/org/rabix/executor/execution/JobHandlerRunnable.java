@@ -1,90 +1,200 @@
 package org.rabix.executor.execution;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.rabix.executor.execution.JobHandlerCommand.JobHandlerCommandType;
 import org.rabix.executor.execution.JobHandlerCommand.Repeat;
 import org.rabix.executor.handler.JobHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Job execution thread runnable. It executes commands one by one in synchronous matter. 
+ * Job execution runnable. It executes commands one by one in synchronous matter on shared executors.
+ * START commands run on their own executor, so long container starts can't delay STOP and STATUS commands of other Jobs.
+ * The runnable is submitted only while it has pending commands, so idle Jobs don't occupy threads.
+ * Repeatable commands are parked until the container exits or the repeat delay expires.
  */
 public class JobHandlerRunnable implements Runnable {
 
   private final static Logger logger = LoggerFactory.getLogger(JobHandlerRunnable.class);
 
-  private final static long DEFAULT_SLEEP_TIME = TimeUnit.SECONDS.toMillis(1);
-
   private final String jobId;
   private final String contextId;
   private final JobHandler jobHandler;
-  private final BlockingQueue<JobHandlerCommand> commands;
+  private final Queue<JobHandlerCommand> commands;
+
+  private final Executor startExecutor;
+  private final Executor controlExecutor;
+  private final ScheduledExecutorService scheduler;
+  private final StopCallback stopCallback;
 
   private final AtomicBoolean stop = new AtomicBoolean(false);
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+  private volatile boolean onStartExecutor = false;
 
-  public JobHandlerRunnable(String jobId, String contextId, JobHandler jobHandler) {
+  private JobHandlerCommand parkedCommand;
+  private ScheduledFuture<?> parkedFuture;
+  private boolean exited = false;
+
+  public JobHandlerRunnable(String jobId, String contextId, JobHandler jobHandler, Executor startExecutor, Executor controlExecutor, ScheduledExecutorService scheduler, StopCallback stopCallback) {
     this.jobId = jobId;
     this.contextId = contextId;
     this.jobHandler = jobHandler;
-    this.commands = new LinkedBlockingQueue<>();
+    this.startExecutor = startExecutor;
+    this.controlExecutor = controlExecutor;
+    this.scheduler = scheduler;
+    this.stopCallback = stopCallback;
+    this.commands = new ConcurrentLinkedQueue<>();
+    this.jobHandler.addExitListener(new Runnable() {
+      @Override
+      public void run() {
+        wakeUp();
+      }
+    });
   }
 
   @Override
   public void run() {
-    logger.info("JobHandlerRunnable {} started.", Thread.currentThread().getName());
-
-    long sleepTime = DEFAULT_SLEEP_TIME;
-    
-    while (!isStopped()) {
-      try {
-        JobHandlerCommand command = commands.poll();
-        if (command == null) {
-          logger.debug("No active commands. Sleep for {}", sleepTime);
-          Thread.sleep(sleepTime);
-          continue;
+    try {
+      JobHandlerCommand command;
+      while (!isStopped() && (command = commands.peek()) != null) {
+        if (isStart(command) != onStartExecutor) {
+          break; // continues on the other executor
         }
+        commands.poll();
         logger.debug("Command {} found. Start execution.", command);
 
-        Repeat repeat = command.getRepeat();
-        if (repeat != null) {
-          logger.debug("Command {} is repeatable. Delay and put it back to queue.", command);
-          Thread.sleep(repeat.delay);
-          addCommand(command);
-        }
-
         JobHandlerCommand.Result result = command.run(jobId, contextId, jobHandler);
         if (result.isLastCommand) {
-          logger.debug("Command {} is last command. Stop thread.", command);
+          logger.debug("Command {} is last command. Stop runnable.", command);
           stop();
+          break;
+        }
+
+        Repeat repeat = command.getRepeat();
+        if (repeat != null) {
+          park(command, repeat.delay);
         }
-      } catch (Exception e) {
-        logger.error("JobHandlerRunnable faced a runtime error. Stop execution.", e);
-        stop();
       }
+    } catch (Exception e) {
+      logger.error("JobHandlerRunnable faced a runtime error. Stop execution.", e);
+      stop();
+    } finally {
+      scheduled.set(false);
     }
-    logger.info("JobHandlerRunnable {} finished.", Thread.currentThread().getName());
+    schedule();
   }
 
   /**
    * Add command to queue 
    */
   public void addCommand(JobHandlerCommand command) {
-    if (stop.get()) {
-      logger.error("Failed to add command {}. Thread is stopped.", command);
+    if (isStopped()) {
+      logger.error("Failed to add command {}. Runnable for Job {} is stopped.", command, jobId);
+      return;
     }
     this.commands.add(command);
+    schedule();
+  }
+
+  /**
+   * Submits the runnable to the executor of the next command if there are pending commands and it's not already submitted
+   */
+  private void schedule() {
+    if (isStopped() || commands.isEmpty() || !scheduled.compareAndSet(false, true)) {
+      return;
+    }
+    JobHandlerCommand next = commands.peek();
+    if (next == null) {
+      scheduled.set(false); // cleared by stop
+      return;
+    }
+    onStartExecutor = isStart(next);
+    (onStartExecutor ? startExecutor : controlExecutor).execute(this);
+  }
+
+  private static boolean isStart(JobHandlerCommand command) {
+    return command.getType() == JobHandlerCommandType.START;
+  }
+
+  /**
+   * Parks repeatable command until the container exits or the delay expires
+   */
+  private void park(final JobHandlerCommand command, long delay) {
+    synchronized (this) {
+      if (!exited) {
+        logger.debug("Command {} is repeatable. Park it for {} ms or until the container exits.", command, delay);
+        parkedCommand = command;
+        parkedFuture = scheduler.schedule(new Runnable() {
+          @Override
+          public void run() {
+            unpark();
+          }
+        }, delay, TimeUnit.MILLISECONDS);
+        return;
+      }
+      exited = false;
+    }
+    commands.add(command);
+  }
+
+  /**
+   * Puts parked command back to the queue
+   */
+  private void unpark() {
+    JobHandlerCommand command;
+    synchronized (this) {
+      command = parkedCommand;
+      if (command == null) {
+        return;
+      }
+      parkedCommand = null;
+      if (parkedFuture != null) {
+        parkedFuture.cancel(false);
+        parkedFuture = null;
+      }
+    }
+    addCommand(command);
+  }
+
+  /**
+   * Called when the container exits
+   */
+  private void wakeUp() {
+    synchronized (this) {
+      if (parkedCommand == null) {
+        exited = true;
+        return;
+      }
+    }
+    unpark();
   }
 
   /**
    * Stop runnable
    */
   public void stop() {
-    stop.set(true);
-    logger.info("JobHandlerRunnable {} stopped.", Thread.currentThread().getName());
+    if (!stop.compareAndSet(false, true)) {
+      return;
+    }
+    synchronized (this) {
+      parkedCommand = null;
+      if (parkedFuture != null) {
+        parkedFuture.cancel(false);
+        parkedFuture = null;
+      }
+    }
+    commands.clear();
+    logger.info("JobHandlerRunnable for Job {} stopped.", jobId);
+    if (stopCallback != null) {
+      stopCallback.onStopped(this);
+    }
   }
 
   /**
@@ -94,4 +204,21 @@ public class JobHandlerRunnable implements Runnable {
     return stop.get();
   }
 
+  public String getJobId() {
+    return jobId;
+  }
+
+  public String getContextId() {
+    return contextId;
+  }
+
+  /**
+   * Callback invoked once the runnable is stopped
+   */
+  public static interface StopCallback {
+
+    void onStopped(JobHandlerRunnable runnable);
+
+  }
+
 }
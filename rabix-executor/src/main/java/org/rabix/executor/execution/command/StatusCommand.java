@@ -4,6 +4,7 @@ import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import org.apache.commons.configuration.Configuration;
 import org.rabix.bindings.model.Job;
 import org.rabix.executor.execution.JobHandlerCommand;
 import org.rabix.executor.handler.JobHandler;
@@ -16,7 +17,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Command that checks status of {@link JobHandler} 
+ * Command that checks status of {@link JobHandler}.
+ * It is re-run when the container exits; the delay is only a fallback in case the exit notification is lost.
  */
 public class StatusCommand extends JobHandlerCommand {
 
@@ -25,11 +27,13 @@ public class StatusCommand extends JobHandlerCommand {
   public final static long DEFAULT_DELAY = TimeUnit.SECONDS.toMillis(1);
   
   private JobFitter jobFitter;
+  private final long delay;
   
   @Inject
-  public StatusCommand(JobDataService jobDataService, ExecutorStatusCallback statusCallback, JobFitter jobFitter) {
+  public StatusCommand(JobDataService jobDataService, ExecutorStatusCallback statusCallback, JobFitter jobFitter, Configuration configuration) {
     super(jobDataService, statusCallback);
     this.jobFitter = jobFitter;
+    this.delay = configuration.getLong("executor.status_check_period_mills", DEFAULT_DELAY);
   }
 
   @Override
@@ -50,6 +54,7 @@ public class StatusCommand extends JobHandlerCommand {
       
       String message = null;
       job = jobHandler.postprocess(jobData.isTerminal());
+      jobFitter.free(job);
       if (!jobHandler.isSuccessful()) {
         message = String.format("Job %s failed with exit code %d.", job.getId(), jobHandler.getExitStatus());
         jobData = jobDataService.save(jobData, message, JobDataStatus.FAILED);
@@ -59,7 +64,6 @@ public class StatusCommand extends JobHandlerCommand {
         jobData = jobDataService.save(jobData, message, JobDataStatus.COMPLETED);
         completed(jobData, message, job.getOutputs(), jobHandler.getEngineStub());
       }
-      jobFitter.free(job);
     } catch (Exception e) {
       String message = String.format("Failed to execute status command for %s. %s", jobId, e.getMessage());
       jobData = jobDataService.save(jobData, message, JobDataStatus.FAILED);
@@ -71,7 +75,7 @@ public class StatusCommand extends JobHandlerCommand {
 
   @Override
   public Repeat getRepeat() {
-    return new Repeat(DEFAULT_DELAY);
+    return new Repeat(delay);
   }
 
   @Override
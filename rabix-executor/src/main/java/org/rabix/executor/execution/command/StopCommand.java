@@ -30,10 +30,10 @@ public class StopCommand extends JobHandlerCommand {
     String jobId = jobData.getJob().getId();
     try {
       handler.stop();
+      jobFitter.free(jobData.getJob());
       String message = String.format("Job %s aborted successfully.", jobId);
       jobData = jobDataService.save(jobData, message, JobDataStatus.ABORTED);
       stopped(jobData, message, handler.getEngineStub());
-      jobFitter.free(jobData.getJob());
     } catch (ExecutorException | BindingException e) {
       String message = String.format("Failed to stop %s. %s", jobId, e.toString());
       jobData = jobDataService.save(jobData, message, JobDataStatus.FAILED);
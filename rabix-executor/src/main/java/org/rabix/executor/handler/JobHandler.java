@@ -32,6 +32,11 @@ public interface JobHandler {
    */
   boolean isRunning() throws ExecutorException;
 
+  /**
+   * Registers a listener which is notified once the container exits
+   */
+  void addExitListener(Runnable listener);
+
   /**
    * Get exit status
    */
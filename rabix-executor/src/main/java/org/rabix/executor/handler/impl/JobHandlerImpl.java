@@ -54,6 +54,7 @@ import org.rabix.executor.pathmapper.InputFileMapper;
 import org.rabix.executor.pathmapper.OutputFileMapper;
 import org.rabix.executor.service.FilePermissionService;
 import org.rabix.executor.service.JobDataService;
+import org.rabix.executor.service.JobFitter;
 import org.rabix.executor.service.ResultCacheService;
 import org.rabix.executor.status.ExecutorStatusCallback;
 import org.rabix.executor.status.ExecutorStatusCallbackException;
@@ -91,8 +92,12 @@ public class JobHandlerImpl implements JobHandler {
   
   private final FilePermissionService filePermissionService;
   private final ResultCacheService cacheService;
+  private final JobFitter jobFitter;
 
   private boolean setPermissions;
+  
+  private boolean containerStarted = false;
+  private final List<Runnable> exitListeners = new ArrayList<>();
 
   @Inject
   public JobHandlerImpl(
@@ -100,7 +105,7 @@ public class JobHandlerImpl implements JobHandler {
       JobDataService jobDataService, Configuration configuration, StorageConfiguration storageConfig, 
       DockerConfigation dockerConfig, FileConfiguration fileConfiguration, 
       DockerClientLockDecorator dockerClient, ExecutorStatusCallback statusCallback,
-      ResultCacheService cacheService, FilePermissionService filePermissionService, 
+      ResultCacheService cacheService, FilePermissionService filePermissionService, JobFitter jobFitter, 
       UploadService uploadService, DownloadService downloadService,
       @InputFileMapper FilePathMapper inputFileMapper, @OutputFileMapper FilePathMapper outputFileMapper) {
     this.job = job;
@@ -112,6 +117,7 @@ public class JobHandlerImpl implements JobHandler {
     this.statusCallback = statusCallback;
     this.filePermissionService = filePermissionService;
     this.cacheService = cacheService;
+    this.jobFitter = jobFitter;
     this.workingDir = storageConfig.getWorkingDir(job);
     this.uploadService = uploadService;
     this.downloadService = downloadService;
@@ -132,21 +138,22 @@ public class JobHandlerImpl implements JobHandler {
       Map<String, Object> results = cacheService.findResultsFromCachingDir(job);
       if (results != null) {
         containerHandler = new CompletedContainerHandler(job);
-        containerHandler.start();
+        startContainer();
         return;
       }
       Bindings bindings = BindingsFactory.create(job);
       
       statusCallback.onInputFilesDownloadStarted(job);
+      FileTransformer downloadedFileTransformer;
       try {
-        downloadInputFiles(job, bindings);
+        downloadedFileTransformer = downloadInputFiles(job, bindings);
       } catch (Exception e) {
         statusCallback.onInputFilesDownloadFailed(job);
         throw e;
       }
       statusCallback.onInputFilesDownloadCompleted(job);
       
-      job = FileValueHelper.mapInputFilePaths(job, inputFileMapper);
+      job = FileValueHelper.updateInputFiles(job, downloadedFileTransformer, FileValueHelper.mapPaths(inputFileMapper, job.getConfig()));
       job = bindings.preprocess(job, workingDir, null);
       
       List<Requirement> combinedRequirements = new ArrayList<>();
@@ -162,19 +169,22 @@ public class JobHandlerImpl implements JobHandler {
         if (containerRequirement == null || !dockerConfig.isDockerSupported()) {
           containerRequirement = new LocalContainerRequirement();
         }
-        containerHandler = ContainerHandlerFactory.create(job, containerRequirement, dockerClient, statusCallback, storageConfiguration, dockerConfig);
+        containerHandler = ContainerHandlerFactory.create(job, containerRequirement, dockerClient, statusCallback, storageConfiguration, dockerConfig, jobFitter.getAllocation(job.getId()));
       }
-      containerHandler.start();
+      startContainer();
     } catch (Exception e) {
       String message = String.format("Execution failed for %s. %s", job.getId(), e.getMessage());
       throw new ExecutorException(message, e);
     }
   }
 
-  private void downloadInputFiles(final Job job, final Bindings bindings) throws BindingException, DownloadServiceException {
+  /**
+   * Downloads input files and returns transformer that points file values to the downloaded files
+   */
+  private FileTransformer downloadInputFiles(final Job job, final Bindings bindings) throws BindingException, DownloadServiceException {
     Set<FileValue> fileValues = flattenFiles(FileValueHelper.getInputFiles(job));
     
-    final Set<DownloadResource> downloadRecources = new HashSet<>();
+    Set<DownloadResource> downloadRecources = new HashSet<>();
     for (FileValue fileValue : fileValues) {
       downloadRecources.add(new DownloadResource(fileValue.getLocation(), fileValue.getPath(), fileValue.getName(), fileValue instanceof DirectoryValue));
       if (fileValue.getSecondaryFiles() != null) {
@@ -185,52 +195,7 @@ public class JobHandlerImpl implements JobHandler {
     }
     downloadService.download(workingDir, downloadRecources, job.getConfig());
     
-    // TODO refactor ASAP
-    FileValueHelper.updateInputFiles(job, new FileTransformer() {
-      @Override
-      public FileValue transform(FileValue fileValue) {
-        FileValue newFileValue = fileValue;
-        if (fileValue.getLocation() != null) {
-          DownloadResource downloadResource = findByLocation(fileValue.getLocation(), downloadRecources);
-          if (downloadResource != null) {
-            newFileValue = cloneWithPath(downloadResource.getPath(), newFileValue);
-          }
-          if (fileValue.getSecondaryFiles() != null) {
-            List<FileValue> secondaryFiles = new ArrayList<>();
-            for (FileValue secondaryFile : fileValue.getSecondaryFiles()) {
-              FileValue newSecondaryFile = transform(secondaryFile);
-              secondaryFiles.add(newSecondaryFile);
-            }
-            newFileValue = cloneWithSecondaryFiles(secondaryFiles, newFileValue);
-          }
-        }
-        return newFileValue;
-      }
-      
-      private DownloadResource findByLocation(String location, Set<DownloadResource> downloadResources) {
-        for (DownloadResource downloadResource : downloadRecources) {
-          if (location.equals(downloadResource.getLocation())) {
-            return downloadResource;
-          }
-        }
-        return null;
-      }
-
-      private FileValue cloneWithPath(String path, FileValue fileValue) {
-        if (fileValue instanceof DirectoryValue) {
-          return DirectoryValue.cloneWithPath((DirectoryValue) fileValue, path);
-        }
-        return FileValue.cloneWithPath(fileValue, path);
-      }
-
-      private FileValue cloneWithSecondaryFiles(List<FileValue> secondaryFiles, FileValue fileValue) {
-        if (fileValue instanceof DirectoryValue) {
-          return DirectoryValue.cloneWithSecondaryFiles((DirectoryValue) fileValue, secondaryFiles);
-        }
-        return FileValue.cloneWithSecondaryFiles(fileValue, secondaryFiles);
-      }
-
-    });
+    return FileValueHelper.mapDownloads(downloadRecources);
   }
   
   private void stageFileRequirements(List<Requirement> requirements) throws ExecutorException, FileMappingException {
@@ -392,6 +357,34 @@ public class JobHandlerImpl implements JobHandler {
     }
   }
 
+  private void startContainer() throws ContainerException {
+    containerHandler.start();
+    synchronized (this) {
+      containerStarted = true;
+      for (Runnable listener : exitListeners) {
+        registerExitListener(listener);
+      }
+      exitListeners.clear();
+    }
+  }
+  
+  @Override
+  public synchronized void addExitListener(Runnable listener) {
+    if (!containerStarted) {
+      exitListeners.add(listener);
+      return;
+    }
+    registerExitListener(listener);
+  }
+  
+  private void registerExitListener(Runnable listener) {
+    try {
+      containerHandler.addExitListener(listener);
+    } catch (ContainerException e) {
+      logger.warn("Failed to listen for container exit. Status will be polled.", e);
+    }
+  }
+
   public boolean isStarted() throws ExecutorException {
     logger.debug("isStarted()");
     if (containerHandler == null) {
@@ -9,4 +9,42 @@ public interface JobFitter {
 
   void free(Job job) throws BindingException;
   
+  /**
+   * Returns resources allocated to the Job or null if there is no allocation
+   */
+  Allocation getAllocation(String jobId);
+  
+  Long getAvailableCores();
+  
+  Long getAvailableMemoryMB();
+  
+  public static class Allocation {
+    private final long cores;
+    private final long memoryMB;
+    private final long diskSpaceMB;
+    
+    public Allocation(long cores, long memoryMB, long diskSpaceMB) {
+      this.cores = cores;
+      this.memoryMB = memoryMB;
+      this.diskSpaceMB = diskSpaceMB;
+    }
+    
+    public long getCores() {
+      return cores;
+    }
+    
+    public long getMemoryMB() {
+      return memoryMB;
+    }
+    
+    public long getDiskSpaceMB() {
+      return diskSpaceMB;
+    }
+
+    @Override
+    public String toString() {
+      return "Allocation [cores=" + cores + ", memoryMB=" + memoryMB + ", diskSpaceMB=" + diskSpaceMB + "]";
+    }
+  }
+  
 }
@@ -16,9 +16,11 @@ import org.rabix.executor.engine.EngineStubLocal;
 import org.rabix.executor.engine.EngineStubRabbitMQ;
 import org.rabix.executor.model.JobData;
 import org.rabix.executor.model.JobData.JobDataStatus;
+import org.rabix.common.json.codec.BeanCodecFactory;
 import org.rabix.executor.service.ExecutorService;
 import org.rabix.executor.service.FileService;
 import org.rabix.executor.service.JobDataService;
+import org.rabix.executor.service.JobFitter;
 import org.rabix.executor.service.ResultCacheService;
 import org.rabix.transport.backend.Backend;
 import org.rabix.transport.backend.impl.BackendActiveMQ;
@@ -44,9 +46,11 @@ public class ExecutorServiceImpl implements ExecutorService {
   
   private boolean cachingEnabled;
   private ResultCacheService resultCacheService;
+  private JobFitter jobFitter;
 
   @Inject
-  public ExecutorServiceImpl(JobDataService jobDataService, FileService fileService, ResultCacheService resultCacheService, Configuration configuration) {
+  public ExecutorServiceImpl(JobDataService jobDataService, FileService fileService, ResultCacheService resultCacheService, JobFitter jobFitter, Configuration configuration) {
+    this.jobFitter = jobFitter;
     this.fileService = fileService;
     this.configuration = configuration;
     this.jobDataService = jobDataService;
@@ -69,6 +73,8 @@ public class ExecutorServiceImpl implements ExecutorService {
       default:
         break;
       }
+      engineStub.setJobFitter(jobFitter);
+      engineStub.setCodec(BeanCodecFactory.create(configuration));
       jobDataService.initialize(engineStub);
       engineStub.start();
     } catch (TransportPluginException e) {
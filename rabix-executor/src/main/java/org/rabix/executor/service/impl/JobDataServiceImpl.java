@@ -1,15 +1,19 @@
 package org.rabix.executor.service.impl;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.configuration.Configuration;
 import org.rabix.bindings.BindingException;
 import org.rabix.executor.engine.EngineStub;
 import org.rabix.executor.execution.JobHandlerCommandDispatcher;
@@ -27,11 +31,20 @@ import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
+/**
+ * JobData store indexed by context and by status. Saving a PENDING, ABORTING or finished JobData triggers scheduling immediately.
+ */
 public class JobDataServiceImpl implements JobDataService {
 
   private final static Logger logger = LoggerFactory.getLogger(JobDataServiceImpl.class);
 
-  private final Map<String, Map<String, JobData>> jobDataMap = new HashMap<>();
+  private final static long DEFAULT_SCHEDULE_PERIOD = TimeUnit.SECONDS.toMillis(1);
+
+  private final ConcurrentMap<String, ConcurrentMap<String, Entry>> jobDataMap = new ConcurrentHashMap<>();
+  private final Map<JobDataStatus, ConcurrentSkipListMap<Long, Entry>> statusIndex = new EnumMap<>(JobDataStatus.class);
+
+  private final AtomicLong sequence = new AtomicLong(0);
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
 
   private Provider<StopCommand> stopCommandProvider;
   private Provider<StartCommand> startCommandProvider;
@@ -44,105 +57,181 @@ public class JobDataServiceImpl implements JobDataService {
   private ScheduledExecutorService starter = Executors.newSingleThreadScheduledExecutor();
 
   private JobFitter jobFitter;
+  
+  private final long schedulePeriod;
 
   @Inject
   public JobDataServiceImpl(JobHandlerCommandDispatcher jobHandlerCommandDispatcher,
       Provider<StopCommand> stopCommandProvider, Provider<StartCommand> startCommandProvider,
-      Provider<StatusCommand> statusCommandProvider, JobFitter jobFitter) {
+      Provider<StatusCommand> statusCommandProvider, JobFitter jobFitter, Configuration configuration) {
     this.jobFitter = jobFitter;
     this.jobHandlerCommandDispatcher = jobHandlerCommandDispatcher;
     this.stopCommandProvider = stopCommandProvider;
     this.startCommandProvider = startCommandProvider;
     this.statusCommandProvider = statusCommandProvider;
+    this.schedulePeriod = configuration.getLong("executor.job_data.schedule_period_mills", DEFAULT_SCHEDULE_PERIOD);
+    
+    for (JobDataStatus status : JobDataStatus.values()) {
+      statusIndex.put(status, new ConcurrentSkipListMap<Long, Entry>());
+    }
   }
   
   @Override
   public void initialize(EngineStub<?,?,?> engineStub) {
     this.engineStub = engineStub;
-    this.starter.scheduleAtFixedRate(new JobStatusHandler(), 0, 100, TimeUnit.MILLISECONDS);
+    this.starter.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        if (!statusIndex.get(JobDataStatus.PENDING).isEmpty() || !statusIndex.get(JobDataStatus.ABORTING).isEmpty()) {
+          schedule();
+        }
+      }
+    }, schedulePeriod, schedulePeriod, TimeUnit.MILLISECONDS);
   }
   
   @Override
   public JobData find(String id, String contextId) {
     Preconditions.checkNotNull(id);
-    synchronized (jobDataMap) {
-      return getJobDataMap(contextId).get(id);
+    ConcurrentMap<String, Entry> entries = jobDataMap.get(contextId);
+    if (entries == null) {
+      return null;
     }
+    Entry entry = entries.get(id);
+    return entry != null ? entry.jobData : null;
   }
 
   @Override
   public List<JobData> find(JobDataStatus... statuses) {
     Preconditions.checkNotNull(statuses);
 
-    synchronized (jobDataMap) {
-      List<JobDataStatus> statusList = Arrays.asList(statuses);
-      List<JobData> jobDataByStatus = new ArrayList<>();
-      for (Entry<String, Map<String, JobData>> entry : jobDataMap.entrySet()) {
-        for (JobData jobData : entry.getValue().values()) {
-          if (statusList.contains(jobData.getStatus())) {
-            jobDataByStatus.add(jobData);
-          }
+    List<JobData> jobDataByStatus = new ArrayList<>();
+    for (JobDataStatus status : statuses) {
+      for (Entry entry : statusIndex.get(status).values()) {
+        JobData jobData = entry.jobData;
+        if (jobData.getStatus().equals(status)) {
+          jobDataByStatus.add(jobData);
         }
       }
-      return jobDataByStatus;
     }
+    return jobDataByStatus;
   }
 
   @Override
   public void save(JobData jobData) {
     Preconditions.checkNotNull(jobData);
-    synchronized (jobDataMap) {
-      getJobDataMap(jobData.getJob().getRootId()).put(jobData.getId(), jobData);
-    }
+    update(getEntry(jobData), null, jobData);
   }
   
   @Override
   public JobData save(JobData jobData, String message, JobDataStatus status) {
     Preconditions.checkNotNull(jobData);
-    synchronized (jobDataMap) {
-      jobData = JobData.cloneWithStatusAndMessage(jobData, status, message);
-      save(jobData);
-      return jobData;
+    jobData = JobData.cloneWithStatusAndMessage(jobData, status, message);
+    save(jobData);
+    return jobData;
+  }
+  
+  private Entry getEntry(JobData jobData) {
+    String contextId = jobData.getJob().getRootId();
+    ConcurrentMap<String, Entry> entries = jobDataMap.get(contextId);
+    if (entries == null) {
+      ConcurrentMap<String, Entry> newEntries = new ConcurrentHashMap<>();
+      entries = jobDataMap.putIfAbsent(contextId, newEntries);
+      if (entries == null) {
+        entries = newEntries;
+      }
+    }
+    Entry entry = entries.get(jobData.getId());
+    if (entry == null) {
+      Entry newEntry = new Entry(sequence.incrementAndGet());
+      entry = entries.putIfAbsent(jobData.getId(), newEntry);
+      if (entry == null) {
+        entry = newEntry;
+      }
     }
+    return entry;
   }
   
-  private Map<String, JobData> getJobDataMap(String contextId) {
-    synchronized (jobDataMap) {
-      Map<String, JobData> jobList = jobDataMap.get(contextId);
-      if (jobList == null) {
-        jobList = new HashMap<>();
-        jobDataMap.put(contextId, jobList);
+  /**
+   * Replaces JobData and moves the entry between status indexes. If expected is set, JobData is replaced only if it's still current.
+   */
+  private boolean update(Entry entry, JobData expected, JobData jobData) {
+    synchronized (entry) {
+      JobData current = entry.jobData;
+      if (expected != null && current != expected) {
+        return false;
+      }
+      entry.jobData = jobData;
+      if (current == null || !current.getStatus().equals(jobData.getStatus())) {
+        if (current != null) {
+          statusIndex.get(current.getStatus()).remove(entry.sequence);
+        }
+        statusIndex.get(jobData.getStatus()).put(entry.sequence, entry);
       }
-      return jobList;
+    }
+    switch (jobData.getStatus()) {
+    case PENDING:
+    case ABORTING:
+    case ABORTED:
+    case COMPLETED:
+    case FAILED:
+      schedule();
+      break;
+    default:
+      break;
+    }
+    return true;
+  }
+  
+  /**
+   * Submits status handler unless it's already waiting to run
+   */
+  private void schedule() {
+    if (engineStub != null && scheduled.compareAndSet(false, true)) {
+      starter.execute(new JobStatusHandler());
+    }
+  }
+  
+  private static class Entry {
+    private final long sequence;
+    private volatile JobData jobData;
+    
+    private Entry(long sequence) {
+      this.sequence = sequence;
     }
   }
   
   private class JobStatusHandler implements Runnable {
     @Override
     public void run() {
-      synchronized (jobDataMap) {
-        List<JobData> aborting = find(JobDataStatus.ABORTING);
-        for (JobData jobData : aborting) {
-          save(JobData.cloneWithStatus(jobData, JobDataStatus.ABORTED));
+      scheduled.set(false);
+      
+      for (Entry entry : statusIndex.get(JobDataStatus.ABORTING).values()) {
+        JobData jobData = entry.jobData;
+        if (!jobData.getStatus().equals(JobDataStatus.ABORTING)) {
+          continue;
+        }
+        if (update(entry, jobData, JobData.cloneWithStatus(jobData, JobDataStatus.ABORTED))) {
           jobHandlerCommandDispatcher.dispatch(jobData, stopCommandProvider.get(), engineStub);
         }
+      }
 
-        List<JobData> pending = find(JobDataStatus.PENDING);
-
-        JobData jobData = null;
-        for (int i = 0; i < pending.size(); i++) {
-          try {
-            jobData = pending.get(i);
-            if (!jobFitter.tryToFit(jobData.getJob())) {
-              continue;
-            }
-            save(JobData.cloneWithStatus(jobData, JobDataStatus.READY));
-
-            jobHandlerCommandDispatcher.dispatch(jobData, startCommandProvider.get(), engineStub);
-            jobHandlerCommandDispatcher.dispatch(jobData, statusCommandProvider.get(), engineStub);
-          } catch (BindingException e) {
-            logger.error("Failed to schedule Job " + jobData.getId() + " for execution.", e);
+      for (Entry entry : statusIndex.get(JobDataStatus.PENDING).values()) {
+        JobData jobData = entry.jobData;
+        if (!jobData.getStatus().equals(JobDataStatus.PENDING)) {
+          continue;
+        }
+        try {
+          if (!jobFitter.tryToFit(jobData.getJob())) {
+            continue;
+          }
+          if (!update(entry, jobData, JobData.cloneWithStatus(jobData, JobDataStatus.READY))) {
+            jobFitter.free(jobData.getJob());
+            continue;
           }
+          jobHandlerCommandDispatcher.dispatch(jobData, startCommandProvider.get(), engineStub);
+          jobHandlerCommandDispatcher.dispatch(jobData, statusCommandProvider.get(), engineStub);
+        } catch (BindingException e) {
+          logger.error("Failed to schedule Job " + jobData.getId() + " for execution.", e);
         }
       }
     }
@@ -1,5 +1,12 @@
 package org.rabix.executor.service.impl;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.commons.configuration.Configuration;
 import org.rabix.bindings.BindingException;
 import org.rabix.bindings.Bindings;
@@ -13,76 +20,190 @@ import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 
+/**
+ * Packs Jobs by CPU, memory and disk space. Jobs get their minimum requirement and, if there is room, up to the recommended values.
+ * A Job that has been waiting longer than the aging threshold gets a reservation, so smaller Jobs can't starve it.
+ * <p>
+ * Free disk space is the smaller of the space not allocated to running Jobs and the space that is currently usable.
+ * The first ignores files written by other processes, the second ignores allocations Jobs haven't written yet.
+ * Usable space is only checked for Jobs that require disk space and is re-read at most once per refresh period.
+ */
 public class JobFitterImpl implements JobFitter {
 
   private static final Logger logger = LoggerFactory.getLogger(JobFitterImpl.class);
   
-  private Long availableCores;
-  private Long availableMemory;
+  private final static long DEFAULT_MAX_WAIT = TimeUnit.MINUTES.toMillis(1);
+  private final static long DEFAULT_DISK_REFRESH_PERIOD = TimeUnit.SECONDS.toMillis(5);
+  
+  private final long totalCores;
+  private final long totalMemory;
+  private final long totalDiskSpace;
+  private final File executionDir;
+  
+  private long usedCores = 0;
+  private long usedMemory = 0;
+  private long usedDiskSpace = 0;
+  
+  private long usableDiskSpace;
+  private long usableDiskSpaceReadAt;
+
+  private final Map<String, Allocation> allocations = new HashMap<>();
+  private final Map<String, Waiting> waiting = new LinkedHashMap<>();
 
   private boolean isEnabled;
-  private int runningProcesses = 0;
+  private final long maxWait;
+  private final long diskRefreshPeriod;
 
   @Inject
   public JobFitterImpl(Configuration configuration) {
+    this(configuration, 
+        (long) (SystemEnvironmentHelper.getNumberOfCores() * configuration.getDouble("resource.fitter.cpu_oversubscription", 1.0)), 
+        (long) (SystemEnvironmentHelper.getTotalPhysicalMemorySizeInMB() * configuration.getDouble("resource.fitter.memory_oversubscription", 1.0)));
+  }
+  
+  JobFitterImpl(Configuration configuration, long totalCores, long totalMemory) {
     this.isEnabled = configuration.getBoolean("resource.fitter.enabled", false);
+    this.maxWait = configuration.getLong("resource.fitter.max_wait_mills", DEFAULT_MAX_WAIT);
+    this.diskRefreshPeriod = configuration.getLong("resource.fitter.disk_refresh_period_mills", DEFAULT_DISK_REFRESH_PERIOD);
+    
+    this.totalCores = totalCores;
+    this.totalMemory = totalMemory;
     
-    this.availableMemory = SystemEnvironmentHelper.getTotalPhysicalMemorySizeInMB();
-    this.availableCores = SystemEnvironmentHelper.getNumberOfCores();
+    this.executionDir = new File(configuration.getString("backend.execution.directory", "."));
+    this.totalDiskSpace = getUsableDiskSpace(System.currentTimeMillis());
   }
   
   @Override
   public synchronized boolean tryToFit(Job job) throws BindingException {
-    if (!isEnabled) {
-      return true;
-    }
     Bindings bindings = BindingsFactory.create(job);
-    if (bindings.isSelfExecutable(job)) {
+    if (bindings.isSelfExecutable(job) || allocations.containsKey(job.getId())) {
       return true;
     }
-    ResourceRequirement resourceRequirement = bindings.getResourceRequirement(job);
-
-    boolean cpuFits = true;
-    Long cpu = resourceRequirement.getCpuMin();
-    if (cpu != null && cpu > availableCores) {
-      cpuFits = false;
+    return tryToFit(job.getId(), bindings.getResourceRequirement(job), System.currentTimeMillis());
+  }
+  
+  synchronized boolean tryToFit(String jobId, ResourceRequirement resourceRequirement, long now) {
+    Allocation minimum = new Allocation(valueOf(resourceRequirement.getCpuMin()), valueOf(resourceRequirement.getMemMinMB()), valueOf(resourceRequirement.getDiskSpaceMinMB()));
+    
+    if (!isEnabled) {
+      allocate(jobId, minimum);
+      return true;
     }
 
-    boolean memoryFits = true;
-    Long memory = resourceRequirement.getMemMinMB();
-    if (memory != null && memory > availableMemory) {
-      memoryFits = false;
+    Allocation reserved = findReservation(jobId, now);
+    long reservedCores = reserved != null ? reserved.getCores() : 0;
+    long reservedMemory = reserved != null ? reserved.getMemoryMB() : 0;
+    long reservedDiskSpace = reserved != null ? reserved.getDiskSpaceMB() : 0;
+    
+    long freeCores = totalCores - usedCores - reservedCores;
+    long freeMemory = totalMemory - usedMemory - reservedMemory;
+    long freeDiskSpace = totalDiskSpace - usedDiskSpace;
+    if (minimum.getDiskSpaceMB() > 0 || valueOf(resourceRequirement.getDiskSpaceRecommendedMB()) > 0) {
+      freeDiskSpace = Math.min(freeDiskSpace, getUsableDiskSpace(now));
     }
+    freeDiskSpace -= reservedDiskSpace;
     
-    if ((!cpuFits || !memoryFits) && runningProcesses > 0) {
+    boolean fits = minimum.getCores() <= freeCores && minimum.getMemoryMB() <= freeMemory && minimum.getDiskSpaceMB() <= freeDiskSpace;
+    if (!fits && !allocations.isEmpty()) {
+      Waiting waitingJob = waiting.get(jobId);
+      if (waitingJob == null) {
+        waiting.put(jobId, new Waiting(minimum, now));
+      } else {
+        waitingJob.lastSeen = now;
+      }
       return false;
     }
     
-    runningProcesses++;
-    availableCores -= cpu != null ? cpu : 0;
-    availableMemory -= memory != null ? memory : 0;
-    logger.info("Job {} fits. Number of running processes {}.", job.getId(), runningProcesses);
+    long cores = Math.max(minimum.getCores(), Math.min(valueOf(resourceRequirement.getCpuRecommended()), freeCores));
+    long memory = Math.max(minimum.getMemoryMB(), Math.min(valueOf(resourceRequirement.getMemRecommendedMB()), freeMemory));
+    long diskSpace = Math.max(minimum.getDiskSpaceMB(), Math.min(valueOf(resourceRequirement.getDiskSpaceRecommendedMB()), freeDiskSpace));
+    allocate(jobId, new Allocation(cores, memory, diskSpace));
     return true;
   }
 
   @Override
   public synchronized void free(Job job) throws BindingException {
-    if (!isEnabled) {
+    waiting.remove(job.getId());
+    Allocation allocation = allocations.remove(job.getId());
+    if (allocation == null) {
       return;
     }
+    usedCores -= allocation.getCores();
+    usedMemory -= allocation.getMemoryMB();
+    usedDiskSpace -= allocation.getDiskSpaceMB();
 
-    Bindings bindings = BindingsFactory.create(job);
-    if (bindings.isSelfExecutable(job)) {
-      return;
+    logger.info("Job {} freed resources. Number of running processes {}.", job.getId(), allocations.size());
+  }
+  
+  @Override
+  public synchronized Allocation getAllocation(String jobId) {
+    return allocations.get(jobId);
+  }
+  
+  @Override
+  public synchronized Long getAvailableCores() {
+    return Math.max(0, totalCores - usedCores);
+  }
+  
+  @Override
+  public synchronized Long getAvailableMemoryMB() {
+    return Math.max(0, totalMemory - usedMemory);
+  }
+  
+  private void allocate(String jobId, Allocation allocation) {
+    waiting.remove(jobId);
+    allocations.put(jobId, allocation);
+    usedCores += allocation.getCores();
+    usedMemory += allocation.getMemoryMB();
+    usedDiskSpace += allocation.getDiskSpaceMB();
+    logger.info("Job {} fits with {}. Number of running processes {}.", jobId, allocation, allocations.size());
+  }
+  
+  /**
+   * Finds the oldest Job that waited longer than the aging threshold. Jobs that are not retried anymore are dropped.
+   */
+  private Allocation findReservation(String jobId, long now) {
+    Iterator<Map.Entry<String, Waiting>> iterator = waiting.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Waiting> entry = iterator.next();
+      Waiting waitingJob = entry.getValue();
+      if (now - waitingJob.lastSeen > maxWait) {
+        iterator.remove();
+        continue;
+      }
+      if (entry.getKey().equals(jobId)) {
+        return null;
+      }
+      if (now - waitingJob.since > maxWait) {
+        return waitingJob.minimum;
+      }
+      return null;
+    }
+    return null;
+  }
+  
+  private long getUsableDiskSpace(long now) {
+    if (usableDiskSpaceReadAt == 0 || now - usableDiskSpaceReadAt >= diskRefreshPeriod) {
+      usableDiskSpace = executionDir.getUsableSpace() / (1024 * 1024);
+      usableDiskSpaceReadAt = now;
     }
+    return usableDiskSpace;
+  }
+  
+  private long valueOf(Long value) {
+    return value != null ? value : 0;
+  }
+  
+  private static class Waiting {
+    private final Allocation minimum;
+    private final long since;
+    private long lastSeen;
     
-    ResourceRequirement resourceRequirement = bindings.getResourceRequirement(job);
-
-    runningProcesses--;
-    availableCores += resourceRequirement.getCpuMin() != null ? resourceRequirement.getCpuMin() : 0;
-    availableMemory += resourceRequirement.getMemMinMB() != null ? resourceRequirement.getMemMinMB() : 0;
-
-    logger.info("Job {} freed reqsources. Number of running processes {}.", job.getId(), runningProcesses);
+    private Waiting(Allocation minimum, long since) {
+      this.minimum = minimum;
+      this.since = since;
+      this.lastSeen = since;
+    }
   }
   
 }
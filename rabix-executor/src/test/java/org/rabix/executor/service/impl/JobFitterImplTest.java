@@ -0,0 +1,98 @@
+package org.rabix.executor.service.impl;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.rabix.bindings.BindingException;
+import org.rabix.bindings.model.Job;
+import org.rabix.bindings.model.Job.JobStatus;
+import org.rabix.bindings.model.requirement.ResourceRequirement;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "functional" })
+public class JobFitterImplTest {
+
+  private final static long MAX_WAIT = 1000;
+
+  @Test
+  public void testFitAndFree() throws BindingException {
+    JobFitterImpl jobFitter = createJobFitter(true);
+
+    Assert.assertTrue(jobFitter.tryToFit("a", cpu(6, null), 0));
+    Assert.assertFalse(jobFitter.tryToFit("b", cpu(4, null), 0));
+    Assert.assertEquals(jobFitter.getAvailableCores(), Long.valueOf(2));
+
+    jobFitter.free(job("a"));
+    Assert.assertNull(jobFitter.getAllocation("a"));
+    Assert.assertTrue(jobFitter.tryToFit("b", cpu(4, null), 0));
+    Assert.assertEquals(jobFitter.getAvailableCores(), Long.valueOf(4));
+    Assert.assertEquals(jobFitter.getAvailableMemoryMB(), Long.valueOf(900));
+  }
+
+  @Test
+  public void testRecommendedIsCappedByFreeResources() {
+    JobFitterImpl jobFitter = createJobFitter(true);
+
+    Assert.assertTrue(jobFitter.tryToFit("a", cpu(2, 6L), 0));
+    Assert.assertEquals(jobFitter.getAllocation("a").getCores(), 6);
+    Assert.assertTrue(jobFitter.tryToFit("b", cpu(1, 4L), 0));
+    Assert.assertEquals(jobFitter.getAllocation("b").getCores(), 2);
+  }
+
+  @Test
+  public void testAgedJobGetsReservation() throws BindingException {
+    JobFitterImpl jobFitter = createJobFitter(true);
+    Assert.assertTrue(jobFitter.tryToFit("large", cpu(6, null), 0));
+    Assert.assertTrue(jobFitter.tryToFit("small", cpu(1, null), 0));
+
+    Assert.assertFalse(jobFitter.tryToFit("waiting", cpu(6, null), 0));
+    Assert.assertFalse(jobFitter.tryToFit("waiting", cpu(6, null), MAX_WAIT / 2));
+    Assert.assertFalse(jobFitter.tryToFit("waiting", cpu(6, null), MAX_WAIT + 100));
+
+    jobFitter.free(job("large"));
+    Assert.assertFalse(jobFitter.tryToFit("other", cpu(6, null), MAX_WAIT + 200)); // would fit without the reservation
+    Assert.assertTrue(jobFitter.tryToFit("waiting", cpu(6, null), MAX_WAIT + 200));
+  }
+
+  @Test
+  public void testAbandonedJobLosesReservation() throws BindingException {
+    JobFitterImpl jobFitter = createJobFitter(true);
+    Assert.assertTrue(jobFitter.tryToFit("large", cpu(6, null), 0));
+    Assert.assertTrue(jobFitter.tryToFit("small", cpu(1, null), 0));
+    Assert.assertFalse(jobFitter.tryToFit("abandoned", cpu(6, null), 0));
+
+    jobFitter.free(job("large"));
+    Assert.assertTrue(jobFitter.tryToFit("other", cpu(6, null), 2 * MAX_WAIT + 1));
+  }
+
+  @Test
+  public void testDiskSpace() {
+    JobFitterImpl jobFitter = createJobFitter(true);
+    Assert.assertTrue(jobFitter.tryToFit("a", cpu(1, null), 0));
+    Assert.assertFalse(jobFitter.tryToFit("b", new ResourceRequirement(1L, null, 1L, null, Long.MAX_VALUE / 2, null, null), 0));
+  }
+
+  @Test
+  public void testDisabled() {
+    JobFitterImpl jobFitter = createJobFitter(false);
+    Assert.assertTrue(jobFitter.tryToFit("a", cpu(8, null), 0));
+    Assert.assertTrue(jobFitter.tryToFit("b", cpu(8, null), 0));
+    Assert.assertEquals(jobFitter.getAvailableCores(), Long.valueOf(0));
+  }
+
+  private JobFitterImpl createJobFitter(boolean enabled) {
+    Configuration configuration = new BaseConfiguration();
+    configuration.setProperty("resource.fitter.enabled", enabled);
+    configuration.setProperty("resource.fitter.max_wait_mills", MAX_WAIT);
+    return new JobFitterImpl(configuration, 8, 1000);
+  }
+
+  private ResourceRequirement cpu(long cpuMin, Long cpuRecommended) {
+    return new ResourceRequirement(cpuMin, cpuRecommended, 100L, null, null, null, null);
+  }
+
+  private Job job(String id) {
+    return new Job(id, null, id, id, null, JobStatus.RUNNING, null, null, null, null, null, null);
+  }
+
+}
@@ -20,6 +20,20 @@ public class FTPConfig {
     return configuration.getString("ftp.password");
   }
   
+  /**
+   * Number of parallel transfers and of pooled connections
+   */
+  public static int getTransferThreads(Configuration configuration) {
+    return configuration.getInt("ftp.transfer.threads", 4);
+  }
+
+  /**
+   * Number of attempts for a single file. Repeated attempts continue from the already transferred offset.
+   */
+  public static int getTransferAttempts(Configuration configuration) {
+    return configuration.getInt("ftp.transfer.attempts", 3);
+  }
+
   public static boolean isFTPEnabled(Configuration configuration) {
     return configuration.getBoolean("ftp.enabled", false);
   }
@@ -7,8 +7,19 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.net.ftp.FTP;
@@ -21,125 +32,303 @@ import org.rabix.common.service.upload.UploadServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 
+/**
+ * FTP download and upload service. Files are transferred in parallel over pooled connections.
+ * Pooled connections always stay in the login directory, so relative remote paths resolve in the same way on every connection.
+ * Failed transfers are repeated on a new connection and continue from the already transferred offset (REST).
+ */
 public class SimpleFTPClient implements DownloadService, UploadService {
 
   private final static Logger logger = LoggerFactory.getLogger(SimpleFTPClient.class);
-  
+
+  private final static String REMOTE_SEPARATOR = "/";
+
   private int port;
   private String host;
   private String username;
   private String password;
 
+  private final int threads;
+  private final int attempts;
+
+  private final BlockingQueue<FTPClient> idleClients;
+  private final Set<String> createdDirectories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  private ExecutorService executorService;
+
   @Inject
   public SimpleFTPClient(Configuration configuration) {
     this.port = FTPConfig.getPort(configuration);
     this.host = FTPConfig.getHost(configuration);
     this.username = FTPConfig.getUsername(configuration);
     this.password = FTPConfig.getPassword(configuration);
+    this.threads = Math.max(1, FTPConfig.getTransferThreads(configuration));
+    this.attempts = Math.max(1, FTPConfig.getTransferAttempts(configuration));
+    this.idleClients = new LinkedBlockingQueue<>(threads);
   }
 
   public void download(File workingDir, DownloadResource remotePath, Map<String, Object> config) throws DownloadServiceException {
-    FTPClient ftpClient = new FTPClient();
-    try {
-      ftpClient.connect(host, port);
-      ftpClient.login(username, password);
-      ftpClient.enterLocalPassiveMode();
-      ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
+    File localWorkingDir = workingDir;
+    String[] parts = remotePath.getPath().split(File.separator);
+    for (int i = 0; i < parts.length - 1; i++) {
+      if (parts[i].isEmpty()) {
+        continue;
+      }
+      String remoteWorkingDir = parts[i];
+      localWorkingDir = new File(localWorkingDir, remoteWorkingDir);
+      if (!localWorkingDir.exists()) {
+        localWorkingDir.mkdirs();
+      }
+    }
+    File file = new File(localWorkingDir, parts[parts.length - 1]);
 
-      File localWorkingDir = workingDir;
-      String[] parts = remotePath.getPath().split(File.separator);
-      for (int i = 0; i < parts.length - 1; i++) {
-        if (parts[i].isEmpty()) {
-          continue;
+    long offset = 0;
+    for (int attempt = 1;; attempt++) {
+      FTPClient ftpClient = null;
+      boolean transferring = false;
+      try {
+        ftpClient = borrowClient();
+        ftpClient.setRestartOffset(offset);
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file, offset > 0))) {
+          transferring = true;
+          if (!ftpClient.retrieveFile(remotePath.getPath(), os)) {
+            transferring = false; // the server refused the transfer, so the local file can't be trusted
+            offset = 0;
+            throw new IOException("Failed to retrieve " + remotePath.getPath() + ". " + ftpClient.getReplyString());
+          }
+        }
+        releaseClient(ftpClient);
+        logger.debug("File {} has been downloaded successfully.", remotePath);
+        return;
+      } catch (IOException e) {
+        discardClient(ftpClient);
+        if (attempt >= attempts) {
+          throw new DownloadServiceException(e);
         }
-        String remoteWorkingDir = parts[i];
-        localWorkingDir = new File(localWorkingDir, remoteWorkingDir);
-        if (!localWorkingDir.exists()) {
-          localWorkingDir.mkdirs();
+        if (transferring) {
+          offset = file.length();
         }
+        logger.warn("Download of {} failed. Resuming from offset {}.", remotePath, offset, e);
       }
-      File file = new File(localWorkingDir, parts[parts.length - 1]);
-      OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
-      boolean success = ftpClient.retrieveFile(remotePath.getPath(), os);
-      os.close();
+    }
+  }
 
-      if (success) {
-        logger.debug("File {} has been downloaded successfully.", remotePath);
+  @Override
+  public void download(final File workingDir, Set<DownloadResource> remotePaths, final Map<String, Object> config) throws DownloadServiceException {
+    if (remotePaths.size() < 2) {
+      for (DownloadResource path : remotePaths) {
+        download(workingDir, path, config);
       }
-    } catch (IOException e) {
+      return;
+    }
+    List<Future<Void>> transfers = new ArrayList<>();
+    for (final DownloadResource path : remotePaths) {
+      transfers.add(getExecutorService().submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          download(workingDir, path, config);
+          return null;
+        }
+      }));
+    }
+    try {
+      await(transfers);
+    } catch (DownloadServiceException e) {
+      throw e;
+    } catch (Exception e) {
       throw new DownloadServiceException(e);
-    } finally {
+    }
+  }
+
+  public void upload(File file, File baseExecutionDirectory, boolean wait, boolean create, Map<String, Object> config) throws UploadServiceException {
+    String remotePath = file.getAbsolutePath().substring(baseExecutionDirectory.getAbsolutePath().length()); // TODO check
+    String[] paths = remotePath.split(File.separator);
+
+    List<String> directories = new ArrayList<>();
+    StringBuilder directory = new StringBuilder();
+    for (int i = 0; i < paths.length - 1; i++) {
+      if (paths[i].isEmpty()) {
+        continue;
+      }
+      if (directory.length() > 0) {
+        directory.append(REMOTE_SEPARATOR);
+      }
+      directories.add(directory.append(paths[i]).toString());
+    }
+    String remoteFile = directory.length() > 0 ? directory + REMOTE_SEPARATOR + paths[paths.length - 1] : paths[paths.length - 1];
+
+    long offset = 0;
+    for (int attempt = 1;; attempt++) {
+      FTPClient ftp = null;
+      boolean transferring = false;
       try {
-        if (ftpClient.isConnected()) {
-          ftpClient.logout();
-          ftpClient.disconnect();
+        ftp = borrowClient();
+        for (String remoteDirectory : directories) {
+          if (!createdDirectories.contains(remoteDirectory)) {
+            ftp.makeDirectory(remoteDirectory); // fails if the directory already exists
+            createdDirectories.add(remoteDirectory);
+          }
+        }
+        try (InputStream input = new FileInputStream(file)) {
+          if (offset > 0) {
+            skipFully(input, offset);
+          }
+          ftp.setRestartOffset(offset);
+          transferring = true;
+          if (!ftp.storeFile(remoteFile, input)) {
+            transferring = false; // the server refused the transfer, so the remote file can't be trusted
+            offset = 0;
+            createdDirectories.removeAll(directories); // directory could have been removed in the meantime
+            throw new IOException("Failed to store " + remoteFile + ". " + ftp.getReplyString());
+          }
+        }
+        releaseClient(ftp);
+        return;
+      } catch (IOException e) {
+        discardClient(ftp);
+        if (attempt >= attempts) {
+          throw new UploadServiceException(e);
         }
-      } catch (IOException ex) {
-        // do nothing
+        if (transferring) {
+          long remoteSize = getRemoteSize(remoteFile);
+          offset = remoteSize <= file.length() ? remoteSize : 0;
+        }
+        logger.warn("Upload of {} failed. Resuming from offset {}.", file, offset, e);
       }
     }
   }
 
   @Override
-  public void download(File workingDir, Set<DownloadResource> remotePaths, Map<String, Object> config) throws DownloadServiceException {
-    for (DownloadResource path : remotePaths) {
-      download(workingDir, path, config);
+  public void upload(Set<File> files, final File baseExecutionDirectory, final boolean wait, final boolean create, final Map<String, Object> config) throws UploadServiceException {
+    if (files.size() < 2) {
+      for (File file : files) {
+        upload(file, baseExecutionDirectory, wait, create, config);
+      }
+      return;
+    }
+    List<Future<Void>> transfers = new ArrayList<>();
+    for (final File file : files) {
+      transfers.add(getExecutorService().submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          upload(file, baseExecutionDirectory, wait, create, config);
+          return null;
+        }
+      }));
+    }
+    try {
+      await(transfers);
+    } catch (UploadServiceException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new UploadServiceException(e);
     }
   }
-  
-  public void upload(File file, File baseExecutionDirectory, boolean wait, boolean create, Map<String, Object> config) throws UploadServiceException {
-    FTPClient ftp = new FTPClient();
-    int reply;
+
+  /**
+   * Waits for all transfers and throws the first failure
+   */
+  private void await(List<Future<Void>> transfers) throws Exception {
+    Exception failure = null;
+    for (Future<Void> transfer : transfers) {
+      try {
+        transfer.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw e;
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Returns size of the remote file or 0 if it's unknown, so the transfer starts from the beginning
+   */
+  private long getRemoteSize(String remoteFile) {
+    FTPClient ftp = null;
     try {
-      ftp.connect(host, port);
+      ftp = borrowClient();
+      int reply = ftp.sendCommand("SIZE", remoteFile);
+      String replyString = ftp.getReplyString();
+      releaseClient(ftp);
+      if (reply == FTPReply.FILE_STATUS) {
+        return Long.parseLong(replyString.substring(4).trim());
+      }
+    } catch (IOException | NumberFormatException | IndexOutOfBoundsException e) {
+      discardClient(ftp);
+    }
+    return 0;
+  }
 
-      reply = ftp.getReplyCode();
-      if (!FTPReply.isPositiveCompletion(reply)) {
-        ftp.disconnect();
+  private FTPClient borrowClient() throws IOException {
+    FTPClient ftpClient = idleClients.poll();
+    if (ftpClient != null && ftpClient.isConnected()) {
+      return ftpClient;
+    }
+    ftpClient = new FTPClient();
+    try {
+      ftpClient.connect(host, port);
+      if (!FTPReply.isPositiveCompletion(ftpClient.getReplyCode())) {
         throw new IOException("Exception in connecting to FTP Server");
       }
-      ftp.login(username, password);
-      ftp.setFileType(FTP.BINARY_FILE_TYPE);
-      ftp.enterLocalPassiveMode();
-
-      String remotePath = file.getAbsolutePath().substring(baseExecutionDirectory.getAbsolutePath().length()); // TODO check
-      String[] paths = remotePath.split(File.separator);
-      
-      for(int i = 0; i < paths.length - 1; i++) {
-        if (paths[i].isEmpty()) {
-          continue;
-        }
-        boolean exists = changeWorkingDirectory(ftp, paths[i]);
-        if (!exists) {
-          ftp.makeDirectory(paths[i]);
-          changeWorkingDirectory(ftp, paths[i]);
-        }
-      }
-      try (InputStream input = new FileInputStream(new File(file.getAbsolutePath()))) {
-        ftp.storeFile(paths[paths.length - 1], input);
+      if (!ftpClient.login(username, password)) {
+        throw new IOException("Failed to login to FTP Server");
       }
-      ftp.disconnect();
+      ftpClient.enterLocalPassiveMode();
+      ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
+      return ftpClient;
     } catch (IOException e) {
-      throw new UploadServiceException(e);
+      discardClient(ftpClient);
+      throw e;
     }
   }
-  
-  @Override
-  public void upload(Set<File> files, File baseExecutionDirectory,boolean wait,  boolean create, Map<String, Object> config) throws UploadServiceException {
-    for (File file : files) {
-      upload(file, baseExecutionDirectory, wait, create, config);
+
+  private void releaseClient(FTPClient ftpClient) {
+    ftpClient.setRestartOffset(0);
+    if (!idleClients.offer(ftpClient)) {
+      discardClient(ftpClient);
     }
   }
-  
-  private static boolean changeWorkingDirectory(FTPClient ftpClient, String dirPath) throws IOException {
-    ftpClient.changeWorkingDirectory(dirPath);
-    int returnCode = ftpClient.getReplyCode();
-    if (returnCode == 550) {
-      return false;
-    }
-    return true;
+
+  private void discardClient(FTPClient ftpClient) {
+    if (ftpClient == null) {
+      return;
+    }
+    try {
+      if (ftpClient.isConnected()) {
+        ftpClient.logout();
+        ftpClient.disconnect();
+      }
+    } catch (IOException ex) {
+      // do nothing
+    }
+  }
+
+  private static void skipFully(InputStream input, long offset) throws IOException {
+    long remaining = offset;
+    while (remaining > 0) {
+      long skipped = input.skip(remaining);
+      if (skipped <= 0) {
+        throw new IOException("Failed to skip to offset " + offset);
+      }
+      remaining -= skipped;
+    }
+  }
+
+  private synchronized ExecutorService getExecutorService() {
+    if (executorService == null) {
+      executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("ftp-transfer-%d").setDaemon(true).build());
+    }
+    return executorService;
   }
 
 }
@@ -1,18 +1,39 @@
 package org.rabix.transport.backend;
 
+import java.util.List;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class HeartbeatInfo {
   @JsonProperty("id")
   private String id;
   @JsonProperty("timestamp")
   private Long timestamp;
+  @JsonProperty("availableCores")
+  private Long availableCores;
+  @JsonProperty("availableMemoryMB")
+  private Long availableMemoryMB;
+  @JsonProperty("wireVersion")
+  private Integer wireVersion;
+  @JsonProperty("codecs")
+  private List<String> codecs;
+  
+  public HeartbeatInfo(String id, Long timestamp) {
+    this(id, timestamp, null, null);
+  }
   
   @JsonCreator
-  public HeartbeatInfo(@JsonProperty("id") String id, @JsonProperty("timestamp") Long timestamp) {
+  public HeartbeatInfo(@JsonProperty("id") String id, @JsonProperty("timestamp") Long timestamp, @JsonProperty("availableCores") Long availableCores, @JsonProperty("availableMemoryMB") Long availableMemoryMB) {
     this.id = id;
     this.timestamp = timestamp;
+    this.availableCores = availableCores;
+    this.availableMemoryMB = availableMemoryMB;
   }
 
   public String getId() {
@@ -30,4 +51,36 @@ public class HeartbeatInfo {
   public void setTimestamp(Long timestamp) {
     this.timestamp = timestamp;
   }
-}
\ No newline at end of file
+
+  public Long getAvailableCores() {
+    return availableCores;
+  }
+
+  public void setAvailableCores(Long availableCores) {
+    this.availableCores = availableCores;
+  }
+
+  public Long getAvailableMemoryMB() {
+    return availableMemoryMB;
+  }
+
+  public void setAvailableMemoryMB(Long availableMemoryMB) {
+    this.availableMemoryMB = availableMemoryMB;
+  }
+
+  public Integer getWireVersion() {
+    return wireVersion;
+  }
+
+  public void setWireVersion(Integer wireVersion) {
+    this.wireVersion = wireVersion;
+  }
+
+  public List<String> getCodecs() {
+    return codecs;
+  }
+
+  public void setCodecs(List<String> codecs) {
+    this.codecs = codecs;
+  }
+}
@@ -1,8 +1,17 @@
 package org.rabix.transport.mechanism;
 
+import java.util.List;
+
+import org.rabix.common.json.codec.BeanCodec;
+
 public interface TransportPlugin<Q extends TransportQueue> {
 
   <T> ResultPair<T> send(Q destinationQueue, T entity);
+  
+  /**
+   * Sends entities as one message. Receivers started with {@link #startReceiver} get them one by one.
+   */
+  <T> ResultPair<T> sendBatch(Q destinationQueue, List<T> entities);
 
   <T> void startReceiver(Q sourceQueue, Class<T> clazz, ReceiveCallback<T> receiveCallback, ErrorCallback errorCallback);
   
@@ -10,6 +19,11 @@ public interface TransportPlugin<Q extends TransportQueue> {
   
   TransportPluginType getType();
   
+  /**
+   * Sets codec used for sent messages. Receivers decode messages of any supported codec.
+   */
+  void setCodec(BeanCodec codec);
+  
   public static interface ReceiveCallback<T> {
     void handleReceive(T entity) throws TransportPluginException;
   }
@@ -1,10 +1,12 @@
 package org.rabix.transport.mechanism.impl.activemq;
 
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.DeliveryMode;
 import javax.jms.Destination;
@@ -17,7 +19,8 @@ import javax.jms.TextMessage;
 
 import org.apache.activemq.pool.PooledConnectionFactory;
 import org.apache.commons.configuration.Configuration;
-import org.rabix.common.json.BeanSerializer;
+import org.rabix.common.json.codec.BeanCodec;
+import org.rabix.common.json.codec.BeanCodecFactory;
 import org.rabix.common.json.processor.BeanProcessorException;
 import org.rabix.transport.mechanism.TransportPlugin;
 import org.rabix.transport.mechanism.TransportPluginException;
@@ -25,6 +28,8 @@ import org.rabix.transport.mechanism.TransportPluginType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Charsets;
+
 public class TransportPluginActiveMQ implements TransportPlugin<TransportQueueActiveMQ> {
 
   private static final Logger logger = LoggerFactory.getLogger(TransportConfigActiveMQ.class);
@@ -34,6 +39,8 @@ public class TransportPluginActiveMQ implements TransportPlugin<TransportQueueAc
   private ConcurrentMap<TransportQueueActiveMQ, Receiver<?>> receivers = new ConcurrentHashMap<>();
   
   private ExecutorService receiverThreadPool = Executors.newCachedThreadPool();
+  
+  private volatile BeanCodec codec = BeanCodecFactory.getDefault();
 
   public TransportPluginActiveMQ(Configuration configuration) throws TransportPluginException {
     connectionFactory = new PooledConnectionFactory(TransportConfigActiveMQ.getBroker(configuration));
@@ -58,9 +65,15 @@ public class TransportPluginActiveMQ implements TransportPlugin<TransportQueueAc
       MessageProducer producer = session.createProducer(destination);
       producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
 
-      String payload = BeanSerializer.serializeFull(entity);
-      TextMessage message = session.createTextMessage(payload);
-      producer.send(message);
+      BeanCodec codec = this.codec;
+      byte[] payload = codec.encode(entity);
+      if (codec.isFramed()) {
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(payload);
+        producer.send(message);
+      } else {
+        producer.send(session.createTextMessage(new String(payload, Charsets.UTF_8)));
+      }
       return ResultPair.<T> success();
     } catch (JMSException e) {
       logger.error("Failed to send a message to " + queue, e);
@@ -74,10 +87,24 @@ public class TransportPluginActiveMQ implements TransportPlugin<TransportQueueAc
     }
   }
 
+  @Override
+  public <T> ResultPair<T> sendBatch(TransportQueueActiveMQ queue, List<T> entities) {
+    ResultPair<List<T>> result = send(queue, entities);
+    if (result.isSuccess()) {
+      return ResultPair.<T> success();
+    }
+    return ResultPair.<T> fail(result.getMessage(), result.getException());
+  }
+
   @Override
   public TransportPluginType getType() {
     return TransportPluginType.ACTIVE_MQ;
   }
+  
+  @Override
+  public void setCodec(BeanCodec codec) {
+    this.codec = codec;
+  }
 
   @Override
   public <T> void startReceiver(TransportQueueActiveMQ sourceQueue, Class<T> clazz, ReceiveCallback<T> receiveCallback, ErrorCallback errorCallback) {
@@ -131,9 +158,17 @@ public class TransportPluginActiveMQ implements TransportPlugin<TransportQueueAc
 
         while (!isStopped) {
           Message message = consumer.receive();
-          TextMessage textMessage = (TextMessage) message;
-          String text = textMessage.getText();
-          callback.handleReceive(BeanSerializer.deserialize(text, clazz));
+          byte[] payload;
+          if (message instanceof BytesMessage) {
+            BytesMessage bytesMessage = (BytesMessage) message;
+            payload = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.readBytes(payload);
+          } else {
+            payload = ((TextMessage) message).getText().getBytes(Charsets.UTF_8);
+          }
+          for (T entity : BeanCodecFactory.decodeAll(payload, clazz)) {
+            callback.handleReceive(entity);
+          }
         }
       } catch (JMSException e) {
         logger.error("Failed to receive a message from " + queue, e);
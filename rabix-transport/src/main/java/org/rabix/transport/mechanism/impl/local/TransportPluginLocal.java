@@ -1,5 +1,9 @@
 package org.rabix.transport.mechanism.impl.local;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
@@ -7,7 +11,8 @@ import java.util.concurrent.Executors;
 
 import org.apache.commons.configuration.Configuration;
 import org.rabix.common.VMQueues;
-import org.rabix.common.json.BeanSerializer;
+import org.rabix.common.json.codec.BeanCodec;
+import org.rabix.common.json.codec.BeanCodecFactory;
 import org.rabix.common.json.processor.BeanProcessorException;
 import org.rabix.transport.mechanism.TransportPlugin;
 import org.rabix.transport.mechanism.TransportPluginException;
@@ -15,6 +20,10 @@ import org.rabix.transport.mechanism.TransportPluginType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * In-VM transport. By default entities are handed over as they are, since both sides live in the same JVM and exchanged entities are immutable.
+ * Setting transport.local.serialize makes it encode messages with the codec like the remote transports do.
+ */
 public class TransportPluginLocal implements TransportPlugin<TransportQueueLocal> {
 
   private static final Logger logger = LoggerFactory.getLogger(TransportPluginLocal.class);
@@ -23,13 +32,20 @@ public class TransportPluginLocal implements TransportPlugin<TransportQueueLocal
   
   private ExecutorService receiverThreadPool = Executors.newCachedThreadPool();
   
+  private final boolean serialize;
+  private final int queueCapacity;
+  
+  private volatile BeanCodec codec = BeanCodecFactory.getDefault();
+  
   public TransportPluginLocal(Configuration configuration) throws TransportPluginException {
+    this.serialize = configuration.getBoolean("transport.local.serialize", false);
+    this.queueCapacity = configuration.getInt("transport.local.queue_capacity", Integer.MAX_VALUE);
   }
 
   @Override
   public <T> ResultPair<T> send(TransportQueueLocal queue, T entity) {
     try {
-      VMQueues.getQueue(queue.getQueue()).put(BeanSerializer.serializeFull(entity));
+      getQueue(queue).put(serialize ? codec.encode(entity) : entity);
       return ResultPair.<T> success();
     } catch (InterruptedException e) {
       logger.error("Failed to send a message to " + queue, e);
@@ -37,10 +53,37 @@ public class TransportPluginLocal implements TransportPlugin<TransportQueueLocal
     }
   }
 
+  @Override
+  public <T> ResultPair<T> sendBatch(TransportQueueLocal queue, List<T> entities) {
+    if (serialize) {
+      ResultPair<List<T>> result = send(queue, entities);
+      if (result.isSuccess()) {
+        return ResultPair.<T> success();
+      }
+      return ResultPair.<T> fail(result.getMessage(), result.getException());
+    }
+    try {
+      getQueue(queue).put(new Batch(Collections.unmodifiableList(new ArrayList<>(entities))));
+      return ResultPair.<T> success();
+    } catch (InterruptedException e) {
+      logger.error("Failed to send a batch to " + queue, e);
+      return ResultPair.<T>fail("Failed to put to queue " + queue, e);
+    }
+  }
+  
+  private BlockingQueue<Object> getQueue(TransportQueueLocal queue) {
+    return VMQueues.<Object> getQueue(queue.getQueue(), queueCapacity);
+  }
+
   @Override
   public TransportPluginType getType() {
     return TransportPluginType.LOCAL;
   }
+  
+  @Override
+  public void setCodec(BeanCodec codec) {
+    this.codec = codec;
+  }
 
   @Override
   public <T> void startReceiver(TransportQueueLocal sourceQueue, Class<T> clazz, ReceiveCallback<T> receiveCallback, ErrorCallback errorCallback) {
@@ -63,6 +106,17 @@ public class TransportPluginLocal implements TransportPlugin<TransportQueueLocal
     }
   }
   
+  /**
+   * Entities sent together with {@link #sendBatch(TransportQueueLocal, List)}
+   */
+  private static class Batch {
+    private final List<?> entities;
+    
+    private Batch(List<?> entities) {
+      this.entities = entities;
+    }
+  }
+  
   private class Receiver<T> {
 
     private Class<T> clazz;
@@ -76,14 +130,25 @@ public class TransportPluginLocal implements TransportPlugin<TransportQueueLocal
     public Receiver(Class<T> clazz, ReceiveCallback<T> callback, ErrorCallback errorCallback, TransportQueueLocal queue) {
       this.clazz = clazz;
       this.callback = callback;
+      this.errorCallback = errorCallback;
       this.queue = queue;
     }
 
     void start() {
       try {
         while (!isStopped) {
-          String payload = VMQueues.<String> getQueue(queue.getQueue()).take();
-          callback.handleReceive(BeanSerializer.deserialize(payload, clazz));
+          Object payload = getQueue(queue).take();
+          if (payload instanceof byte[]) {
+            for (T entity : BeanCodecFactory.decodeAll((byte[]) payload, clazz)) {
+              callback.handleReceive(entity);
+            }
+          } else if (payload instanceof Batch) {
+            for (Object entity : ((Batch) payload).entities) {
+              callback.handleReceive(clazz.cast(entity));
+            }
+          } else {
+            callback.handleReceive(clazz.cast(payload));
+          }
         }
       } catch (InterruptedException e) {
         logger.error("Failed to receive a message from " + queue, e);
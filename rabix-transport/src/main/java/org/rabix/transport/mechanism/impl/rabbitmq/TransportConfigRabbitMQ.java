@@ -68,4 +68,16 @@ public class TransportConfigRabbitMQ {
     return configuration.getLong("rabbitmq.backend.heartbeatTimeMills");
   }
   
+  public static int getChannelPoolSize(Configuration configuration) {
+    return configuration.getInt("rabbitmq.channelPoolSize", 8);
+  }
+  
+  public static int getPrefetchCount(Configuration configuration) {
+    return configuration.getInt("rabbitmq.prefetchCount", 100);
+  }
+  
+  public static int getPublishRetries(Configuration configuration) {
+    return configuration.getInt("rabbitmq.publishRetries", 3);
+  }
+  
 }
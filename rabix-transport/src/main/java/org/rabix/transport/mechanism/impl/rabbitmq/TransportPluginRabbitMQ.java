@@ -1,37 +1,67 @@
 package org.rabix.transport.mechanism.impl.rabbitmq;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.configuration.Configuration;
-import org.rabix.common.json.BeanSerializer;
-import org.rabix.common.json.processor.BeanProcessorException;
+import org.rabix.common.json.codec.BeanCodec;
+import org.rabix.common.json.codec.BeanCodecFactory;
 import org.rabix.transport.mechanism.TransportPlugin;
 import org.rabix.transport.mechanism.TransportPluginException;
 import org.rabix.transport.mechanism.TransportPluginType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
-import com.rabbitmq.client.QueueingConsumer;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.MessageProperties;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
 
+/**
+ * RabbitMQ transport. Messages are published on pooled channels in confirm mode and republished if the broker doesn't confirm them.
+ * Receivers acknowledge messages only after they are handled.
+ */
 public class TransportPluginRabbitMQ implements TransportPlugin<TransportQueueRabbitMQ> {
 
   public static final String DEFAULT_ENCODING = "UTF-8";
 
   private static final Logger logger = LoggerFactory.getLogger(TransportPluginRabbitMQ.class);
+  
+  private static final long CHANNEL_WAIT_TIME = TimeUnit.SECONDS.toMillis(1);
 
   private Connection connection;
   private ConnectionFactory factory;
 
   private ConcurrentMap<TransportQueueRabbitMQ, Receiver<?>> receivers = new ConcurrentHashMap<>();
   
-  private ExecutorService receiverThreadPool = Executors.newCachedThreadPool();
+  private final int channelPoolSize;
+  private final int prefetchCount;
+  private final int publishRetries;
+  
+  private final BlockingQueue<PublisherChannel> channelPool = new LinkedBlockingQueue<>();
+  private final AtomicInteger channelCount = new AtomicInteger(0);
+  
+  private ExecutorService republishExecutor = Executors.newSingleThreadExecutor();
+  
+  private volatile BeanCodec codec = BeanCodecFactory.getDefault();
 
   public TransportPluginRabbitMQ(Configuration configuration) throws TransportPluginException {
     factory = new ConnectionFactory();
@@ -49,11 +79,21 @@ public class TransportPluginRabbitMQ implements TransportPlugin<TransportQueueRa
           factory.useSslProtocol();
         }
       }
+      channelPoolSize = TransportConfigRabbitMQ.getChannelPoolSize(configuration);
+      prefetchCount = TransportConfigRabbitMQ.getPrefetchCount(configuration);
+      publishRetries = TransportConfigRabbitMQ.getPublishRetries(configuration);
       connection = factory.newConnection();
     } catch (Exception e) {
       throw new TransportPluginException("Failed to initialize TransportPluginRabbitMQ", e);
     }
   }
+  
+  TransportPluginRabbitMQ(Connection connection, int channelPoolSize, int prefetchCount, int publishRetries) {
+    this.connection = connection;
+    this.channelPoolSize = channelPoolSize;
+    this.prefetchCount = prefetchCount;
+    this.publishRetries = publishRetries;
+  }
 
   /**
    * {@link TransportPluginRabbitMQ} extension for Exchange initialization
@@ -97,41 +137,130 @@ public class TransportPluginRabbitMQ implements TransportPlugin<TransportQueueRa
 
   @Override
   public <T> ResultPair<T> send(TransportQueueRabbitMQ queue, T entity) {
-    Channel channel = null;
     try {
-      channel = connection.createChannel();
-
-      String payload = BeanSerializer.serializeFull(entity);
-      channel.basicPublish(queue.getExchange(), queue.getRoutingKey(), null, payload.getBytes(DEFAULT_ENCODING));
+      publish(new Message(queue, codec.encode(entity)));
       return ResultPair.success();
-    } catch (IOException e) {
+    } catch (IOException | InterruptedException e) {
       logger.error("Failed to send a message to " + queue, e);
       return ResultPair.fail("Failed to send a message to " + queue, e);
-    } finally {
-      if (channel != null) {
-        try {
-          channel.close();
-        } catch (Exception ignore) {
+    }
+  }
+
+  /**
+   * Sends all entities as one message 
+   */
+  @Override
+  public <T> ResultPair<T> sendBatch(TransportQueueRabbitMQ queue, List<T> entities) {
+    ResultPair<List<T>> result = send(queue, entities);
+    if (result.isSuccess()) {
+      return ResultPair.<T> success();
+    }
+    return ResultPair.<T> fail(result.getMessage(), result.getException());
+  }
+  
+  /**
+   * Publishes message on a pooled channel. The message stays outstanding until the broker confirms it.
+   */
+  private void publish(Message message) throws IOException, InterruptedException {
+    PublisherChannel publisherChannel = borrowChannel();
+    long sequence = publisherChannel.channel.getNextPublishSeqNo();
+    publisherChannel.outstanding.put(sequence, message);
+    try {
+      publisherChannel.channel.basicPublish(message.queue.getExchange(), message.queue.getRoutingKey(), MessageProperties.PERSISTENT_TEXT_PLAIN, message.payload);
+    } catch (IOException e) {
+      publisherChannel.outstanding.remove(sequence);
+      discardChannel(publisherChannel);
+      throw e;
+    }
+    channelPool.add(publisherChannel);
+  }
+  
+  private PublisherChannel borrowChannel() throws IOException, InterruptedException {
+    while (true) {
+      PublisherChannel publisherChannel = channelPool.poll();
+      if (publisherChannel == null) {
+        if (channelCount.incrementAndGet() <= channelPoolSize) {
+          try {
+            return new PublisherChannel(connection.createChannel());
+          } catch (IOException e) {
+            channelCount.decrementAndGet();
+            throw e;
+          }
+        }
+        channelCount.decrementAndGet();
+        publisherChannel = channelPool.poll(CHANNEL_WAIT_TIME, TimeUnit.MILLISECONDS);
+        if (publisherChannel == null) {
+          continue; // a discarded channel may have freed a slot
         }
       }
+      if (publisherChannel.channel.isOpen()) {
+        return publisherChannel;
+      }
+      discardChannel(publisherChannel);
     }
   }
+  
+  private void discardChannel(PublisherChannel publisherChannel) {
+    if (publisherChannel.discarded.compareAndSet(0, 1)) {
+      channelCount.decrementAndGet();
+      try {
+        publisherChannel.channel.close();
+      } catch (Exception ignore) {
+      }
+    }
+  }
+  
+  /**
+   * Republishes messages the broker rejected or didn't confirm before the channel was closed
+   */
+  private void republish(final List<Message> messages) {
+    if (messages.isEmpty()) {
+      return;
+    }
+    republishExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        for (Message message : messages) {
+          if (message.attempt.incrementAndGet() > publishRetries) {
+            logger.error("Failed to deliver a message to {} after {} attempts.", message.queue, publishRetries);
+            continue;
+          }
+          try {
+            publish(message);
+          } catch (IOException | InterruptedException e) {
+            logger.error("Failed to republish a message to " + message.queue, e);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Waits until messages that are already queued for republishing are published
+   */
+  void awaitRepublish() throws InterruptedException, ExecutionException {
+    republishExecutor.submit(new Runnable() {
+      @Override
+      public void run() {
+      }
+    }).get();
+  }
 
   @Override
   public TransportPluginType getType() {
     return TransportPluginType.RABBIT_MQ;
   }
+  
+  @Override
+  public void setCodec(BeanCodec codec) {
+    this.codec = codec;
+  }
 
   @Override
   public <T> void startReceiver(TransportQueueRabbitMQ sourceQueue, Class<T> clazz, ReceiveCallback<T> receiveCallback, ErrorCallback errorCallback) {
-    final Receiver<T> receiver = new Receiver<>(clazz, receiveCallback, errorCallback, sourceQueue);
+    Receiver<T> receiver = new Receiver<>(clazz, receiveCallback, errorCallback, sourceQueue);
     receivers.put(sourceQueue, receiver);
-    receiverThreadPool.submit(new Runnable() {
-      @Override
-      public void run() {
-        receiver.start();
-      }
-    });
+    receiver.start();
   }
   
   @Override
@@ -142,6 +271,70 @@ public class TransportPluginRabbitMQ implements TransportPlugin<TransportQueueRa
       receivers.remove(queue);
     }
   }
+  
+  private static class Message {
+    private final TransportQueueRabbitMQ queue;
+    private final byte[] payload;
+    private final AtomicInteger attempt = new AtomicInteger(0);
+    
+    private Message(TransportQueueRabbitMQ queue, byte[] payload) {
+      this.queue = queue;
+      this.payload = payload;
+    }
+  }
+  
+  /**
+   * Channel in confirm mode with messages that are not confirmed yet
+   */
+  private class PublisherChannel implements ConfirmListener, ShutdownListener {
+    private final Channel channel;
+    private final ConcurrentNavigableMap<Long, Message> outstanding = new ConcurrentSkipListMap<>();
+    private final AtomicInteger discarded = new AtomicInteger(0);
+    
+    private PublisherChannel(Channel channel) throws IOException {
+      this.channel = channel;
+      this.channel.confirmSelect();
+      this.channel.addConfirmListener(this);
+      this.channel.addShutdownListener(this);
+    }
+
+    @Override
+    public void handleAck(long deliveryTag, boolean multiple) throws IOException {
+      remove(deliveryTag, multiple);
+    }
+
+    @Override
+    public void handleNack(long deliveryTag, boolean multiple) throws IOException {
+      logger.warn("Broker rejected message(s) up to {}. Republishing.", deliveryTag);
+      republish(remove(deliveryTag, multiple));
+    }
+    
+    @Override
+    public void shutdownCompleted(ShutdownSignalException cause) {
+      discardChannel(this);
+      List<Message> messages = new ArrayList<>(outstanding.values());
+      outstanding.clear();
+      if (!messages.isEmpty()) {
+        logger.warn("Channel closed with {} unconfirmed message(s). Republishing.", messages.size());
+        republish(messages);
+      }
+    }
+    
+    private List<Message> remove(long deliveryTag, boolean multiple) {
+      List<Message> removed = new ArrayList<>();
+      if (multiple) {
+        ConcurrentNavigableMap<Long, Message> confirmed = outstanding.headMap(deliveryTag, true);
+        removed.addAll(confirmed.values());
+        confirmed.clear();
+      } else {
+        Message message = outstanding.remove(deliveryTag);
+        if (message != null) {
+          removed.add(message);
+        }
+      }
+      return removed;
+    }
+  }
 
   private class Receiver<T> {
 
@@ -150,51 +343,69 @@ public class TransportPluginRabbitMQ implements TransportPlugin<TransportQueueRa
     private ErrorCallback errorCallback;
 
     private TransportQueueRabbitMQ queue;
-
-    private volatile boolean isStopped = false;
+    
+    private Channel channel;
 
     public Receiver(Class<T> clazz, ReceiveCallback<T> callback, ErrorCallback errorCallback, TransportQueueRabbitMQ queue) {
       this.clazz = clazz;
       this.callback = callback;
+      this.errorCallback = errorCallback;
       this.queue = queue;
     }
 
     void start() {
-      Channel channel = null;
       try {
         channel = connection.createChannel();
+        channel.basicQos(prefetchCount);
 
         String queueName = channel.queueDeclare().getQueue();
         channel.queueBind(queueName, queue.getExchange(), queue.getRoutingKey());
 
-        QueueingConsumer consumer = new QueueingConsumer(channel);
-        channel.basicConsume(queueName, true, consumer);
-        while (!isStopped) {
-          QueueingConsumer.Delivery delivery = consumer.nextDelivery();
-          String message = new String(delivery.getBody());
-          callback.handleReceive(BeanSerializer.deserialize(message, clazz));
-        }
-      } catch (BeanProcessorException e) {
-        logger.error("Failed to deserialize message payload", e);
-        errorCallback.handleError(e);
-      } catch (TransportPluginException e) {
-        logger.error("Failed to handle receive", e);
-        errorCallback.handleError(e);
+        channel.basicConsume(queueName, false, new DefaultConsumer(channel) {
+          @Override
+          public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+            handle(envelope, body);
+          }
+        });
       } catch (Exception e) {
         logger.error("Failed to receive a message from " + queue, e);
         errorCallback.handleError(e);
-      } finally {
-        if (channel != null) {
-          try {
-            channel.close();
-          } catch (Exception ignore) {
-          }
+        stop();
+      }
+    }
+    
+    /**
+     * Acknowledges message once it's handled. Failed message is requeued once, messages that can't be deserialized are dropped.
+     */
+    private void handle(Envelope envelope, byte[] body) throws IOException {
+      List<T> entities;
+      try {
+        entities = BeanCodecFactory.decodeAll(body, clazz);
+      } catch (RuntimeException e) {
+        logger.error("Failed to deserialize message payload", e);
+        channel.basicNack(envelope.getDeliveryTag(), false, false);
+        errorCallback.handleError(e);
+        return;
+      }
+      try {
+        for (T entity : entities) {
+          callback.handleReceive(entity);
         }
+        channel.basicAck(envelope.getDeliveryTag(), false);
+      } catch (TransportPluginException | RuntimeException e) {
+        logger.error("Failed to handle receive", e);
+        channel.basicNack(envelope.getDeliveryTag(), false, !envelope.isRedeliver());
+        errorCallback.handleError(e);
       }
     }
 
     void stop() {
-      isStopped = true;
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (Exception ignore) {
+        }
+      }
     }
 
   }
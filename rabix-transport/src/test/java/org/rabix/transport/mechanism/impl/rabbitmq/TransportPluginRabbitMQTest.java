@@ -0,0 +1,246 @@
+package org.rabix.transport.mechanism.impl.rabbitmq;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.rabix.transport.backend.HeartbeatInfo;
+import org.rabix.transport.mechanism.TransportPlugin.ErrorCallback;
+import org.rabix.transport.mechanism.TransportPlugin.ReceiveCallback;
+import org.rabix.transport.mechanism.TransportPluginException;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownListener;
+
+@Test(groups = { "functional" })
+public class TransportPluginRabbitMQTest {
+
+  private final static TransportQueueRabbitMQ QUEUE = new TransportQueueRabbitMQ("exchange", "direct", "key");
+
+  private final static int PUBLISH_RETRIES = 2;
+
+  private List<FakeChannel> channels;
+  private TransportPluginRabbitMQ transportPlugin;
+
+  @BeforeMethod
+  public void createPlugin() {
+    channels = Collections.synchronizedList(new ArrayList<FakeChannel>());
+    Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("createChannel")) {
+          FakeChannel channel = new FakeChannel();
+          channels.add(channel);
+          return channel.proxy;
+        }
+        return defaultValue(method);
+      }
+    });
+    transportPlugin = new TransportPluginRabbitMQ(connection, 2, 10, PUBLISH_RETRIES);
+  }
+
+  @Test
+  public void testAck() throws Exception {
+    send("m1", "m2", "m3");
+    FakeChannel channel = channels.get(0);
+    channel.confirmListener.handleAck(2, false);
+
+    Assert.assertEquals(closeAndRepublish(channel), "m1,m3");
+  }
+
+  @Test
+  public void testMultipleAck() throws Exception {
+    send("m1", "m2", "m3");
+    FakeChannel channel = channels.get(0);
+    channel.confirmListener.handleAck(2, true);
+
+    Assert.assertEquals(closeAndRepublish(channel), "m3");
+  }
+
+  @Test
+  public void testNackRepublishes() throws Exception {
+    send("m1", "m2");
+    FakeChannel channel = channels.get(0);
+    channel.confirmListener.handleNack(1, false);
+    transportPlugin.awaitRepublish();
+    Assert.assertEquals(ids(channel.published), "m1,m2,m1");
+
+    channel.confirmListener.handleAck(3, true);
+    Assert.assertEquals(closeAndRepublish(channel), "");
+  }
+
+  @Test
+  public void testPublishRetries() throws Exception {
+    send("m1");
+    FakeChannel channel = channels.get(0);
+    for (long deliveryTag = 1; deliveryTag <= PUBLISH_RETRIES + 1; deliveryTag++) {
+      channel.confirmListener.handleNack(deliveryTag, false);
+      transportPlugin.awaitRepublish();
+    }
+    Assert.assertEquals(ids(channel.published), "m1,m1,m1");
+    Assert.assertEquals(closeAndRepublish(channel), "");
+  }
+
+  @Test
+  public void testReceiverAcksHandledMessages() throws Exception {
+    final List<String> received = new ArrayList<>();
+    final List<Exception> errors = new ArrayList<>();
+    transportPlugin.startReceiver(QUEUE, HeartbeatInfo.class, new ReceiveCallback<HeartbeatInfo>() {
+      @Override
+      public void handleReceive(HeartbeatInfo entity) throws TransportPluginException {
+        if (entity.getId().equals("fail")) {
+          throw new TransportPluginException("Failed to handle " + entity.getId());
+        }
+        received.add(entity.getId());
+      }
+    }, new ErrorCallback() {
+      @Override
+      public void handleError(Exception error) {
+        errors.add(error);
+      }
+    });
+    FakeChannel channel = channels.get(0);
+
+    deliver(channel, 1, false, payload("m1"));
+    deliver(channel, 2, false, payload("fail"));
+    deliver(channel, 3, true, payload("fail"));
+    deliver(channel, 4, false, "{".getBytes(StandardCharsets.UTF_8));
+
+    Assert.assertEquals(received, Collections.singletonList("m1"));
+    Assert.assertEquals(channel.acknowledgements, Arrays.asList("ack 1", "nack 2 requeue", "nack 3", "nack 4"));
+    Assert.assertEquals(errors.size(), 3);
+  }
+
+  private void send(String... ids) {
+    for (String id : ids) {
+      Assert.assertTrue(transportPlugin.send(QUEUE, new HeartbeatInfo(id, 0L)).isSuccess());
+    }
+  }
+
+  private void deliver(FakeChannel channel, long deliveryTag, boolean redeliver, byte[] body) throws IOException {
+    channel.consumer.handleDelivery("consumer", new Envelope(deliveryTag, redeliver, QUEUE.getExchange(), QUEUE.getRoutingKey()), null, body);
+  }
+
+  /**
+   * Closes the channel and returns IDs of unconfirmed messages that were republished on a new one
+   */
+  private String closeAndRepublish(FakeChannel channel) throws InterruptedException, ExecutionException {
+    int channelCount = channels.size();
+    channel.shutdownListener.shutdownCompleted(null);
+    transportPlugin.awaitRepublish();
+    if (channels.size() == channelCount) {
+      return "";
+    }
+    return ids(channels.get(channelCount).published);
+  }
+
+  private String ids(List<byte[]> messages) {
+    StringBuilder builder = new StringBuilder();
+    for (byte[] message : messages) {
+      if (builder.length() > 0) {
+        builder.append(",");
+      }
+      String json = new String(message, StandardCharsets.UTF_8);
+      builder.append(json.replaceAll(".*\"id\"\\s*:\\s*\"([^\"]*)\".*", "$1"));
+    }
+    return builder.toString();
+  }
+
+  private byte[] payload(String id) {
+    return ("{\"id\": \"" + id + "\", \"timestamp\": 0}").getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static Object defaultValue(Method method) {
+    Class<?> type = method.getReturnType();
+    if (type.equals(boolean.class)) {
+      return false;
+    }
+    if (type.equals(int.class)) {
+      return 0;
+    }
+    if (type.equals(long.class)) {
+      return 0L;
+    }
+    return null;
+  }
+
+  /**
+   * Records what is published and acknowledged and keeps listeners registered by the plugin
+   */
+  private static class FakeChannel implements InvocationHandler {
+    private final Channel proxy;
+    private final List<byte[]> published = Collections.synchronizedList(new ArrayList<byte[]>());
+    private final List<String> acknowledgements = new ArrayList<>();
+
+    private volatile long nextPublishSeqNo = 1;
+    private volatile boolean open = true;
+    private volatile ConfirmListener confirmListener;
+    private volatile ShutdownListener shutdownListener;
+    private volatile Consumer consumer;
+
+    private FakeChannel() {
+      proxy = (Channel) Proxy.newProxyInstance(FakeChannel.class.getClassLoader(), new Class<?>[] { Channel.class }, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+      case "getNextPublishSeqNo":
+        return nextPublishSeqNo;
+      case "basicPublish":
+        published.add((byte[]) args[args.length - 1]);
+        nextPublishSeqNo++;
+        return null;
+      case "addConfirmListener":
+        confirmListener = (ConfirmListener) args[0];
+        return null;
+      case "addShutdownListener":
+        shutdownListener = (ShutdownListener) args[0];
+        return null;
+      case "isOpen":
+        return open;
+      case "close":
+        open = false;
+        return null;
+      case "queueDeclare":
+        return Proxy.newProxyInstance(FakeChannel.class.getClassLoader(), new Class<?>[] { AMQP.Queue.DeclareOk.class }, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return method.getName().equals("getQueue") ? "queue" : defaultValue(method);
+          }
+        });
+      case "basicConsume":
+        consumer = (Consumer) args[args.length - 1];
+        return "consumer";
+      case "basicAck":
+        acknowledgements.add("ack " + args[0]);
+        return null;
+      case "basicNack":
+        acknowledgements.add("nack " + args[0] + ((Boolean) args[2] ? " requeue" : ""));
+        return null;
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      case "equals":
+        return proxy == args[0];
+      default:
+        return defaultValue(method);
+      }
+    }
+  }
+
+}